@@ -1,4 +1,5 @@
 const Bus = require('../models/Bus');
+const { sendList } = require('../utils/columnar');
 
 const busController = {
     createBus: async (req, res) => {
@@ -28,10 +29,7 @@ const busController = {
     getAllBuses: async (req, res) => {
         try {
             const buses = await Bus.findAll();
-            res.json({
-                success: true,
-                data: buses
-            });
+            sendList(req, res, buses);
         } catch (error) {
             console.error('Get buses error:', error);
             res.status(500).json({
@@ -1,4 +1,5 @@
 const Schedule = require('../models/Schedule');
+const { sendList } = require('../utils/columnar');
 
 const scheduleController = {
     createSchedule: async (req, res) => {
@@ -30,10 +31,7 @@ const scheduleController = {
             if (status) filters.status = status;
 
             const schedules = await Schedule.findAll(filters);
-            res.json({
-                success: true,
-                data: schedules
-            });
+            sendList(req, res, schedules);
         } catch (error) {
             console.error('Get schedules error:', error);
             res.status(500).json({
@@ -117,6 +115,35 @@ const scheduleController = {
         }
     },
 
+    // Batched seat counts from onboard occupancy cameras: { seats: [{ id, availableSeats }] }
+    updateAvailableSeats: async (req, res) => {
+        try {
+            const { seats } = req.body;
+            const valid = Array.isArray(seats) && seats.every(entry =>
+                Number.isInteger(entry.id) && Number.isInteger(entry.availableSeats) && entry.availableSeats >= 0);
+            if (!valid) {
+                return res.status(400).json({
+                    success: false,
+                    message: 'seats must be a list of { id, availableSeats } integers'
+                });
+            }
+
+            const updated = await Schedule.updateAvailableSeatsBatch(seats);
+
+            res.json({
+                success: true,
+                message: 'Available seats updated successfully',
+                data: { updated }
+            });
+        } catch (error) {
+            console.error('Update available seats error:', error);
+            res.status(500).json({
+                success: false,
+                message: 'Server error'
+            });
+        }
+    },
+
     updateScheduleStatus: async (req, res) => {
         try {
             const { status } = req.body;
@@ -79,6 +79,21 @@ class Schedule {
         return this.findById(id);
     }
 
+    static async updateAvailableSeatsBatch(entries) {
+        if (entries.length === 0) {
+            return 0;
+        }
+        const cases = entries.map(() => 'WHEN ? THEN ?').join(' ');
+        const params = [];
+        entries.forEach(({ id, availableSeats }) => params.push(id, availableSeats));
+        entries.forEach(({ id }) => params.push(id));
+        const result = await db.query(
+            `UPDATE schedules SET available_seats = CASE id ${cases} END WHERE id IN (${entries.map(() => '?').join(', ')})`,
+            params
+        );
+        return result.affectedRows;
+    }
+
     static async updateStatus(id, status) {
         await db.query('UPDATE schedules SET status = ? WHERE id = ?', [status, id]);
         return this.findById(id);
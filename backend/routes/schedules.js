@@ -7,6 +7,7 @@ const { scheduleValidation, handleValidationErrors } = require('../middleware/va
 router.post('/', auth, authorize('admin'), scheduleValidation, handleValidationErrors, scheduleController.createSchedule);
 router.get('/', auth, scheduleController.getAllSchedules);
 router.get('/:id', auth, scheduleController.getScheduleById);
+router.put('/seats', auth, authorize('admin', 'driver'), scheduleController.updateAvailableSeats);
 router.put('/:id', auth, authorize('admin'), scheduleValidation, handleValidationErrors, scheduleController.updateSchedule);
 router.patch('/:id/status', auth, authorize('admin'), scheduleController.updateScheduleStatus);
 router.delete('/:id', auth, authorize('admin'), scheduleController.deleteSchedule);
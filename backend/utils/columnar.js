@@ -0,0 +1,254 @@
+// Compact columnar encoding for bulk list responses (/buses, /schedules).
+//
+// Layout (all varints are unsigned LEB128, integers are zigzag varints):
+//   "BSC1"                          magic
+//   varint count, then per string:  varint byteLength + UTF-8 bytes   (string dictionary)
+//   varint rowCount
+//   varint columnCount, then per column:
+//     varint nameIndex              dictionary index; dotted names ("route.from") denote nested objects
+//     byte   type                   1 string, 2 integer, 3 double (float64 LE), 4 boolean, 5 string list,
+//                                   6 object (no values, only presence; precedes its child columns)
+//     bytes  presence bitmap        ceil(rowCount / 8) bytes, bit i set when row i holds a non-null value
+//     values for present rows only  strings are dictionary indexes, lists are varint length + indexes
+//
+// A field is either a leaf or an object for the whole batch: an object in some
+// rows and null in others gets an object column whose bitmap marks the null
+// rows. A field that mixes objects with scalars is sent as a JSON string leaf.
+//
+// Every field name and string value is written once, so repeated statuses,
+// route endpoints and column names cost one or two bytes per row.
+
+const CONTENT_TYPE = 'application/vnd.bus-schedule.columnar';
+
+const TYPE_STRING = 1;
+const TYPE_INTEGER = 2;
+const TYPE_DOUBLE = 3;
+const TYPE_BOOLEAN = 4;
+const TYPE_STRING_LIST = 5;
+const TYPE_OBJECT = 6;
+
+const OBJECT = Symbol('object');
+
+class ByteWriter {
+    constructor(capacity = 1024) {
+        this.buffer = Buffer.allocUnsafe(capacity);
+        this.length = 0;
+    }
+
+    ensure(extra) {
+        if (this.length + extra <= this.buffer.length) return;
+        let capacity = this.buffer.length * 2;
+        while (capacity < this.length + extra) capacity *= 2;
+        const grown = Buffer.allocUnsafe(capacity);
+        this.buffer.copy(grown, 0, 0, this.length);
+        this.buffer = grown;
+    }
+
+    byte(value) {
+        this.ensure(1);
+        this.buffer[this.length++] = value;
+    }
+
+    // Values may exceed 32 bits, so avoid bitwise operators
+    varint(value) {
+        this.ensure(10);
+        while (value >= 0x80) {
+            this.buffer[this.length++] = (value % 0x80) | 0x80;
+            value = Math.floor(value / 0x80);
+        }
+        this.buffer[this.length++] = value;
+    }
+
+    zigzag(value) {
+        this.varint(value >= 0 ? value * 2 : -value * 2 - 1);
+    }
+
+    double(value) {
+        this.ensure(8);
+        this.buffer.writeDoubleLE(value, this.length);
+        this.length += 8;
+    }
+
+    bytes(source) {
+        this.ensure(source.length);
+        source.copy(this.buffer, this.length);
+        this.length += source.length;
+    }
+
+    toBuffer() {
+        return this.buffer.subarray(0, this.length);
+    }
+}
+
+const isPlainObject = (value) =>
+    value !== null && typeof value === 'object' && !Array.isArray(value) && !(value instanceof Date) && !Buffer.isBuffer(value);
+
+// Mirror what res.json() would emit for the same value
+const normalize = (value) => {
+    if (value === undefined || value === null) return null;
+    if (value instanceof Date) return value.toISOString();
+    if (Buffer.isBuffer(value)) return value.toString();
+    return value;
+};
+
+// Paths holding an object in some row and never a scalar
+const objectPaths = (rows) => {
+    const objects = new Set();
+    const scalars = new Set();
+    const visit = (value, prefix) => {
+        for (const key of Object.keys(value)) {
+            const path = prefix + key;
+            const child = value[key];
+            if (isPlainObject(child)) {
+                objects.add(path);
+                visit(child, path + '.');
+            } else if (normalize(child) !== null) {
+                scalars.add(path);
+            }
+        }
+    };
+    rows.forEach(row => visit(row, ''));
+    for (const path of scalars) objects.delete(path);
+    return objects;
+};
+
+const flatten = (row, prefix, objects, target) => {
+    for (const key of Object.keys(row)) {
+        const path = prefix + key;
+        const value = row[key];
+        if (!objects.has(path)) {
+            target[path] = normalize(value);
+        } else if (isPlainObject(value)) {
+            target[path] = OBJECT;
+            flatten(value, path + '.', objects, target);
+        } else {
+            target[path] = null;
+        }
+    }
+    return target;
+};
+
+const columnType = (values) => {
+    let type = null;
+    for (const value of values) {
+        if (value === null) continue;
+
+        let valueType;
+        if (typeof value === 'boolean') valueType = TYPE_BOOLEAN;
+        else if (typeof value === 'number') valueType = Number.isSafeInteger(value) ? TYPE_INTEGER : TYPE_DOUBLE;
+        else if (Array.isArray(value) && value.every(item => typeof item === 'string')) valueType = TYPE_STRING_LIST;
+        else valueType = TYPE_STRING;
+
+        if (type === null) {
+            type = valueType;
+        } else if (type !== valueType) {
+            const numeric = (t) => t === TYPE_INTEGER || t === TYPE_DOUBLE;
+            if (numeric(type) && numeric(valueType)) {
+                type = TYPE_DOUBLE;
+            } else {
+                return TYPE_STRING;
+            }
+        }
+    }
+    return type === null ? TYPE_STRING : type;
+};
+
+const encode = (rows) => {
+    const objects = objectPaths(rows);
+    const flatRows = rows.map(row => flatten(row, '', objects, {}));
+
+    const names = [];
+    const seenNames = new Set();
+    for (const row of flatRows) {
+        for (const name of Object.keys(row)) {
+            if (!seenNames.has(name)) {
+                seenNames.add(name);
+                names.push(name);
+            }
+        }
+    }
+
+    const dictionary = [];
+    const dictionaryIndex = new Map();
+    const intern = (value) => {
+        let index = dictionaryIndex.get(value);
+        if (index === undefined) {
+            index = dictionary.length;
+            dictionary.push(value);
+            dictionaryIndex.set(value, index);
+        }
+        return index;
+    };
+
+    const body = new ByteWriter(Math.max(1024, rows.length * 32));
+    body.varint(flatRows.length);
+    body.varint(names.length);
+
+    for (const name of names) {
+        const values = flatRows.map(row => (row[name] === undefined ? null : row[name]));
+        const type = objects.has(name) ? TYPE_OBJECT : columnType(values);
+
+        body.varint(intern(name));
+        body.byte(type);
+
+        const bitmap = Buffer.alloc(Math.ceil(values.length / 8));
+        values.forEach((value, i) => {
+            if (value !== null) bitmap[i >> 3] |= 1 << (i & 7);
+        });
+        body.bytes(bitmap);
+
+        for (const value of values) {
+            if (value === null) continue;
+            switch (type) {
+                case TYPE_OBJECT:
+                    break;
+                case TYPE_BOOLEAN:
+                    body.byte(value ? 1 : 0);
+                    break;
+                case TYPE_INTEGER:
+                    body.zigzag(value);
+                    break;
+                case TYPE_DOUBLE:
+                    body.double(Number(value));
+                    break;
+                case TYPE_STRING_LIST:
+                    body.varint(value.length);
+                    for (const item of value) body.varint(intern(item));
+                    break;
+                default:
+                    body.varint(intern(typeof value === 'object' ? JSON.stringify(value) : String(value)));
+            }
+        }
+    }
+
+    const header = new ByteWriter();
+    header.bytes(Buffer.from('BSC1', 'ascii'));
+    header.varint(dictionary.length);
+    for (const value of dictionary) {
+        const bytes = Buffer.from(value, 'utf8');
+        header.varint(bytes.length);
+        header.bytes(bytes);
+    }
+
+    return Buffer.concat([header.toBuffer(), body.toBuffer()]);
+};
+
+// Send a list as columnar when the client asks for it, otherwise as the usual JSON envelope
+const sendList = (req, res, rows) => {
+    res.vary('Accept');
+    if (req.accepts(['application/json', CONTENT_TYPE]) === CONTENT_TYPE) {
+        res.type(CONTENT_TYPE);
+        return res.send(encode(rows));
+    }
+
+    res.json({
+        success: true,
+        data: rows
+    });
+};
+
+module.exports = {
+    CONTENT_TYPE,
+    encode,
+    sendList
+};
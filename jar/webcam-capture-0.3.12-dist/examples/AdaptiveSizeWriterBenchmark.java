@@ -0,0 +1,112 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import com.github.sarxos.webcam.util.AdaptiveSizeWriter;
+import com.github.sarxos.webcam.util.AdaptiveSizeWriter.Strategy;
+
+
+/**
+ * Compare linear and binary search strategies of {@link AdaptiveSizeWriter} on synthetic VGA and
+ * 1080p video where amount of detail changes over time. Prints encodes per frame, time per frame,
+ * average JPEG size (relative to the limit) and average quality for each strategy, first for the
+ * video stream and then for single images (new writer for every image, starting at quality 1).
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class AdaptiveSizeWriterBenchmark {
+
+	private static final int FRAMES = 60;
+
+	public static void main(String[] args) {
+
+		bench(640, 480, 30 * 1024);
+		bench(1920, 1080, 150 * 1024);
+	}
+
+	private static void bench(int w, int h, int limit) {
+
+		BufferedImage[] frames = frames(w, h);
+
+		for (Strategy strategy : Strategy.values()) {
+
+			AdaptiveSizeWriter writer = new AdaptiveSizeWriter(limit, strategy);
+
+			// warm up JIT and JPEG writer
+
+			for (int i = 0; i < 10; i++) {
+				writer.write(frames[i]);
+			}
+
+			writer = new AdaptiveSizeWriter(limit, strategy);
+
+			long bytes = 0;
+			double quality = 0;
+			long t = System.nanoTime();
+
+			for (BufferedImage frame : frames) {
+				bytes += writer.write(frame).length;
+				quality += writer.getQuality();
+			}
+
+			double ms = (System.nanoTime() - t) / 1e6 / FRAMES;
+
+			System.out.format("%dx%d %s video: %.2f encodes/frame, %.1f ms/frame, %.0f%% of limit, quality %.2f%n",
+				w, h, strategy, writer.getAverageAttempts(), ms, 100.0 * bytes / FRAMES / limit, quality / FRAMES);
+
+			int images = 10;
+			double attempts = 0;
+			bytes = 0;
+			quality = 0;
+			t = System.nanoTime();
+
+			for (int i = 0; i < images; i++) {
+				writer = new AdaptiveSizeWriter(limit, strategy);
+				bytes += writer.write(frames[i * FRAMES / images]).length;
+				attempts += writer.getAverageAttempts();
+				quality += writer.getQuality();
+			}
+
+			ms = (System.nanoTime() - t) / 1e6 / images;
+
+			System.out.format("%dx%d %s single: %.2f encodes/frame, %.1f ms/frame, %.0f%% of limit, quality %.2f%n",
+				w, h, strategy, attempts / images, ms, 100.0 * bytes / images / limit, quality / images);
+		}
+	}
+
+	/**
+	 * Moving shapes over a noise background whose strength goes up and down, so the quality needed
+	 * to fit the limit changes from frame to frame.
+	 */
+	private static BufferedImage[] frames(int w, int h) {
+
+		Random random = new Random(w);
+		BufferedImage[] frames = new BufferedImage[FRAMES];
+
+		for (int k = 0; k < FRAMES; k++) {
+
+			BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_3BYTE_BGR);
+			int noise = (int) (10 + 30 * (1 + Math.sin(k * Math.PI / 20)));
+
+			for (int y = 0; y < h; y++) {
+				for (int x = 0; x < w; x++) {
+					int v = Math.max(0, Math.min(255, 128 + (x * 64 / w) + random.nextInt(noise) - noise / 2));
+					image.setRGB(x, y, v << 16 | v << 8 | v);
+				}
+			}
+
+			Graphics2D g = image.createGraphics();
+			Random shapes = new Random(h);
+			for (int i = 0; i < 15; i++) {
+				g.setColor(new Color(shapes.nextInt()));
+				g.fillOval((shapes.nextInt(w) + k * 8) % w, shapes.nextInt(h), w / 8, h / 8);
+			}
+			g.dispose();
+
+			frames[k] = image;
+		}
+
+		return frames;
+	}
+}
@@ -0,0 +1,185 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamMotionDetector;
+import com.github.sarxos.webcam.WebcamStreamer;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+
+
+/**
+ * Compare bytes sent per hour by broadcast streamer at fixed rate and quality with adaptive
+ * streaming driven by motion detector. Dummy VGA webcam shows bus interior, either empty (bus
+ * parked) or with passengers walking along the aisle. Client reads the MJPEG stream over TCP for
+ * some seconds in every scenario and bytes per hour are extrapolated from that. The last scenario
+ * shows busy scene with client bandwidth budget of 20 kB/s.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class AdaptiveStreamingExample {
+
+	private static final int PORT = 8090;
+	private static final double FPS = 10;
+	private static final int SECONDS = 15;
+
+	/**
+	 * Dummy device showing bus interior, with passengers moving when busy.
+	 */
+	private static class BusDevice extends WebcamDummyDevice {
+
+		private final BufferedImage interior = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+
+		private volatile boolean busy = false;
+
+		private int frame = 0;
+
+		public BusDevice() {
+			super(0);
+			Graphics2D g2 = interior.createGraphics();
+			g2.setColor(Color.DARK_GRAY);
+			g2.fillRect(0, 0, 640, 480);
+			Random random = new Random(1);
+			for (int i = 0; i < 24; i++) {
+				// seats with some texture
+				int x = i % 2 == 0 ? 40 : 440;
+				int y = 20 + (i / 2) * 38;
+				g2.setColor(new Color(40 + random.nextInt(40), 60 + random.nextInt(40), 120 + random.nextInt(60)));
+				g2.fillRoundRect(x + (i % 4 / 2) * 80, y, 70, 32, 8, 8);
+			}
+			g2.dispose();
+		}
+
+		@Override
+		public Dimension getResolution() {
+			return new Dimension(640, 480);
+		}
+
+		@Override
+		public synchronized BufferedImage getImage() {
+
+			try {
+				Thread.sleep(1000 / 30);
+			} catch (InterruptedException e) {
+				return null;
+			}
+
+			BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2 = image.createGraphics();
+			g2.drawImage(interior, 0, 0, null);
+
+			if (busy) {
+				for (int i = 0; i < 4; i++) {
+					int y = (frame * 4 + i * 120) % 560 - 80;
+					g2.setColor(new Color(180, 140 + i * 20, 110));
+					g2.fillOval(280 + i * 10, y, 70, 80);
+				}
+			}
+
+			g2.dispose();
+			frame++;
+
+			return image;
+		}
+	}
+
+	private static class BusDriver implements WebcamDriver {
+
+		private final BusDevice device = new BusDevice();
+
+		@Override
+		public List<WebcamDevice> getDevices() {
+			List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+			devices.add(device);
+			return Collections.unmodifiableList(devices);
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return false;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		BusDriver driver = new BusDriver();
+
+		Webcam.setDriver(driver);
+
+		Webcam webcam = Webcam.getDefault();
+		webcam.setViewSize(new Dimension(640, 480));
+
+		WebcamStreamer streamer = new WebcamStreamer(PORT, webcam, FPS, true, true);
+
+		WebcamMotionDetector detector = new WebcamMotionDetector(webcam);
+		detector.setInterval(100);
+		detector.start();
+
+		long fixedIdle = run("fixed, parked", streamer, driver, null, false);
+		long fixedBusy = run("fixed, busy", streamer, driver, null, true);
+		long adaptiveIdle = run("adaptive, parked", streamer, driver, detector, false);
+		long adaptiveBusy = run("adaptive, busy", streamer, driver, detector, true);
+
+		System.out.format("parked: adaptive sends %.1f%% of fixed, busy: %.1f%%%n", 100.0 * adaptiveIdle / fixedIdle, 100.0 * adaptiveBusy / fixedBusy);
+
+		streamer.setClientBandwidth(20 * 1000);
+		run("adaptive, busy, 20 kB/s budget", streamer, driver, detector, true);
+
+		System.out.format("frames encoded %d (idle %d), sent %d, dropped %d, throttled %d%n",
+			streamer.getFramesEncoded(), streamer.getFramesIdle(), streamer.getFramesSent(), streamer.getFramesDropped(), streamer.getFramesThrottled());
+
+		detector.stop();
+		streamer.stop();
+	}
+
+	/**
+	 * @return Bytes per hour received by client
+	 */
+	private static long run(String name, WebcamStreamer streamer, BusDriver driver, WebcamMotionDetector detector, boolean busy) throws Exception {
+
+		driver.device.busy = busy;
+		streamer.setMotionDetector(detector);
+
+		// let detector inertia pass after scene change
+
+		Thread.sleep(3000);
+
+		long bytes = 0;
+		long t = System.nanoTime();
+
+		try (Socket socket = new Socket("localhost", PORT)) {
+			socket.getOutputStream().write("GET / HTTP/1.0\r\n\r\n".getBytes());
+			socket.setSoTimeout(1000);
+			InputStream is = socket.getInputStream();
+			byte[] buffer = new byte[64 * 1024];
+			while (System.nanoTime() - t < SECONDS * 1000000000L) {
+				try {
+					int n = is.read(buffer);
+					if (n < 0) {
+						break;
+					}
+					bytes += n;
+				} catch (IOException e) {
+					// read timeout, nothing sent in idle mode
+				}
+			}
+		}
+
+		double seconds = (System.nanoTime() - t) / 1e9;
+		long perHour = (long) (bytes / seconds * 3600);
+
+		System.out.format("%s: %.1f kB/s, %.1f MB/hour%n", name, bytes / seconds / 1000, perHour / 1e6);
+
+		return perHour;
+	}
+}
@@ -0,0 +1,271 @@
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamEvent;
+import com.github.sarxos.webcam.WebcamLatencyHistogram;
+import com.github.sarxos.webcam.WebcamListener;
+import com.github.sarxos.webcam.WebcamMetrics;
+import com.github.sarxos.webcam.WebcamStreamer;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+
+/**
+ * Measure overhead of capture stack metrics and show how they are exported. Fast dummy VGA webcam
+ * (no frame rate limit) is streamed by broadcast streamer to one TCP client, with one webcam
+ * listener, as fast as JPEG encoding allows. Frames per second are compared with metrics switched
+ * on and off, in alternating rounds, and cost of recording is measured directly. Then webcam is
+ * streamed at 15 FPS in non-blocking mode, while flight recording is running, and latency of every
+ * stage is read from JMX, and p99 of capture-to-wire latency is computed from flight recorder
+ * events.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class CaptureMetricsBenchmark {
+
+	private static final int PORT = 8091;
+	private static final int ROUNDS = 5;
+	private static final int SECONDS = 4;
+
+	/**
+	 * Dummy device returning new VGA frame on every call, without waiting.
+	 */
+	private static class FastDevice extends WebcamDummyDevice {
+
+		private final int[] template = new int[640 * 480];
+
+		public FastDevice() {
+			super(0);
+			Random random = new Random(1);
+			for (int i = 0; i < template.length; i++) {
+				template[i] = random.nextInt(64) * 0x010101 + (i / 640 % 128 << 16);
+			}
+		}
+
+		@Override
+		public Dimension getResolution() {
+			return new Dimension(640, 480);
+		}
+
+		@Override
+		public BufferedImage getImage() {
+			BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+			System.arraycopy(template, 0, ((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0, template.length);
+			return image;
+		}
+	}
+
+	private static class FastDriver implements WebcamDriver {
+
+		@Override
+		public List<WebcamDevice> getDevices() {
+			List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+			devices.add(new FastDevice());
+			return Collections.unmodifiableList(devices);
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return false;
+		}
+	}
+
+	/**
+	 * Client reading stream until closed.
+	 */
+	private static class Client extends Thread {
+
+		private final Socket socket;
+
+		public Client() throws IOException {
+			socket = new Socket("localhost", PORT);
+			socket.getOutputStream().write("GET / HTTP/1.0\r\n\r\n".getBytes());
+			setDaemon(true);
+			start();
+		}
+
+		@Override
+		public void run() {
+			byte[] buffer = new byte[64 * 1024];
+			try {
+				InputStream is = socket.getInputStream();
+				while (is.read(buffer) >= 0) {
+					// discard
+				}
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		Webcam.setDriver(new FastDriver());
+
+		Webcam webcam = Webcam.getDefault();
+		webcam.setViewSize(new Dimension(640, 480));
+		webcam.addWebcamListener(new WebcamListener() {
+
+			@Override
+			public void webcamOpen(WebcamEvent we) {
+			}
+
+			@Override
+			public void webcamClosed(WebcamEvent we) {
+			}
+
+			@Override
+			public void webcamDisposed(WebcamEvent we) {
+			}
+
+			@Override
+			public void webcamImageObtained(WebcamEvent we) {
+			}
+		});
+
+		overhead(webcam);
+		export(webcam);
+	}
+
+	private static void overhead(Webcam webcam) throws Exception {
+
+		WebcamStreamer streamer = new WebcamStreamer(PORT, webcam, 1000, true, true);
+
+		Thread.sleep(500);
+		Client client = new Client();
+
+		// warm up
+
+		Thread.sleep(SECONDS * 1000);
+
+		double[] on = new double[ROUNDS];
+		double[] off = new double[ROUNDS];
+
+		for (int i = 0; i < ROUNDS; i++) {
+			WebcamMetrics.setEnabled(true);
+			on[i] = fps(streamer);
+			WebcamMetrics.setEnabled(false);
+			off[i] = fps(streamer);
+		}
+
+		WebcamMetrics.setEnabled(true);
+
+		client.socket.close();
+		streamer.stop();
+
+		Arrays.sort(on);
+		Arrays.sort(off);
+
+		double mon = on[ROUNDS / 2];
+		double moff = off[ROUNDS / 2];
+
+		System.out.format("metrics on: %.1f fps, off: %.1f fps (medians of %d rounds), overhead %.2f%%%n", mon, moff, ROUNDS, 100 * (moff - mon) / moff);
+		System.out.format("  on %s%n  off %s%n", Arrays.toString(on), Arrays.toString(off));
+
+		// the difference above is within noise, so compute cost of recording directly, every
+		// frame is recorded 6 times (one per stage)
+
+		WebcamLatencyHistogram histogram = new WebcamLatencyHistogram();
+		int records = 10000000;
+		for (int i = 0; i < records; i++) {
+			histogram.record(System.nanoTime() & 0xffffff);
+		}
+		long t = System.nanoTime();
+		for (int i = 0; i < records; i++) {
+			histogram.record(System.nanoTime() & 0xffffff);
+		}
+		double ns = (System.nanoTime() - t) / (double) records;
+
+		System.out.format("record with clock read: %.0f ns, per frame %.1f us, %.3f%% of %.1f ms frame time%n", ns, 6 * ns / 1000, 100 * 6 * ns / (1e9 / moff), 1000 / moff);
+	}
+
+	private static double fps(WebcamStreamer streamer) throws InterruptedException {
+		long frames = streamer.getFramesEncoded();
+		long t = System.nanoTime();
+		Thread.sleep(SECONDS * 1000);
+		return Math.round((streamer.getFramesEncoded() - frames) / ((System.nanoTime() - t) / 1e9) * 10) / 10.0;
+	}
+
+	private static void export(Webcam webcam) throws Exception {
+
+		webcam.getMetrics().reset();
+		webcam.getMetrics().register();
+
+		File file = File.createTempFile("webcam", ".jfr");
+
+		Recording recording = new Recording();
+		recording.enable("com.github.sarxos.webcam.Stage");
+		recording.start();
+
+		webcam.open(true);
+
+		WebcamStreamer streamer = new WebcamStreamer(PORT + 1, webcam, 15, true, true);
+
+		Thread.sleep(500);
+		Socket socket = new Socket("localhost", PORT + 1);
+		socket.getOutputStream().write("GET / HTTP/1.0\r\n\r\n".getBytes());
+		InputStream is = socket.getInputStream();
+		byte[] buffer = new byte[64 * 1024];
+		long t = System.nanoTime();
+		while (System.nanoTime() - t < 8000000000L) {
+			is.read(buffer);
+		}
+		socket.close();
+
+		streamer.stop();
+
+		recording.stop();
+		recording.dump(file.toPath());
+		recording.close();
+
+		// read from JMX the way monitoring tool would
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = webcam.getMetrics().getObjectName();
+
+		System.out.format("JMX %s, captured %s%n", name, server.getAttribute(name, "Captured"));
+		for (WebcamMetrics.Stage stage : WebcamMetrics.Stage.values()) {
+			String s = stage.getLabel();
+			System.out.format("  %-9s count %5s, dropped %3s, p50 %6.2f ms, p99 %6.2f ms, max %6.2f ms%n", s,
+				server.getAttribute(name, s + "Count"), server.getAttribute(name, s + "Dropped"),
+				server.getAttribute(name, s + "P50"), server.getAttribute(name, s + "P99"), server.getAttribute(name, s + "Max"));
+		}
+
+		// compute p99 capture to wire from flight recorder events
+
+		List<Long> wire = new ArrayList<Long>();
+		int events = 0;
+		for (RecordedEvent e : RecordingFile.readAllEvents(file.toPath())) {
+			events++;
+			if (e.getString("stage").equals("Wire")) {
+				wire.add(e.getDuration("latency").toNanos());
+			}
+		}
+
+		Collections.sort(wire);
+
+		System.out.format("JFR %d stage events, capture to wire p99 %.2f ms from %d events%n", events, wire.get((int) Math.ceil(wire.size() * 0.99) - 1) / 1e6, wire.size());
+
+		file.delete();
+	}
+}
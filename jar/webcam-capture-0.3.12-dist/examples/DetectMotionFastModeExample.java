@@ -0,0 +1,93 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.github.sarxos.webcam.WebcamMotionDetectorDefaultAlgorithm;
+
+
+/**
+ * Compare default and fast motion detection on synthetic VGA, 720p and 1080p frames. Both modes
+ * must report the same area, center of gravity, points and thresholds; the example prints average
+ * time per detection for each of them.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class DetectMotionFastModeExample {
+
+	private static final int[][] SIZES = { { 640, 480 }, { 1280, 720 }, { 1920, 1080 } };
+
+	public static void main(String[] args) {
+
+		for (int[] size : SIZES) {
+
+			BufferedImage[] frames = frames(size[0], size[1]);
+
+			WebcamMotionDetectorDefaultAlgorithm slow = new WebcamMotionDetectorDefaultAlgorithm();
+			WebcamMotionDetectorDefaultAlgorithm fast = new WebcamMotionDetectorDefaultAlgorithm();
+			fast.setFastDetection(true);
+
+			Rectangle zone = new Rectangle(size[0] / 8, size[1] / 8, size[0] / 5, size[1] / 3);
+			slow.setDoNotEngageZones(Arrays.asList(zone));
+			fast.setDoNotEngageZones(Arrays.asList(zone));
+
+			BufferedImage previous = slow.filter(frames[0]);
+			BufferedImage current = slow.filter(frames[1]);
+
+			boolean s = slow.detect(previous, current);
+			boolean f = fast.detect(previous, current);
+
+			if (s != f || slow.getArea() != fast.getArea() || !slow.getCog().equals(fast.getCog())
+				|| !slow.getPoints().equals(fast.getPoints()) || !slow.getThresholds().equals(fast.getThresholds())) {
+				throw new IllegalStateException("Fast detection differs at " + size[0] + "x" + size[1]);
+			}
+
+			System.out.format("%dx%d: default %.2f ms, fast %.2f ms (area %.3f%%, %d points)%n",
+				size[0], size[1], time(slow, previous, current), time(fast, previous, current),
+				fast.getArea(), fast.getPoints().size());
+		}
+	}
+
+	private static double time(WebcamMotionDetectorDefaultAlgorithm algorithm, BufferedImage previous, BufferedImage current) {
+
+		int warmup = 20;
+		int runs = 50;
+
+		for (int i = 0; i < warmup; i++) {
+			algorithm.detect(previous, current);
+		}
+
+		long t = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			algorithm.detect(previous, current);
+		}
+		return (System.nanoTime() - t) / 1e6 / runs;
+	}
+
+	/**
+	 * Two noisy frames with a few shapes moved in between.
+	 */
+	private static BufferedImage[] frames(int w, int h) {
+
+		Random random = new Random(w);
+		BufferedImage[] frames = new BufferedImage[2];
+
+		for (int k = 0; k < 2; k++) {
+			BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_3BYTE_BGR);
+			Graphics2D g = image.createGraphics();
+			g.setColor(Color.DARK_GRAY);
+			g.fillRect(0, 0, w, h);
+			random.setSeed(w);
+			for (int i = 0; i < 20; i++) {
+				g.setColor(new Color(random.nextInt()));
+				g.fillOval(random.nextInt(w) + k * 40, random.nextInt(h), w / 10, h / 10);
+			}
+			g.dispose();
+			frames[k] = image;
+		}
+
+		return frames;
+	}
+}
@@ -0,0 +1,86 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import com.github.sarxos.webcam.WebcamMotionDetectorDefaultAlgorithm;
+
+
+/**
+ * Compare default blur and gray filter chain with fused luma pre-processing. For each frame size
+ * prints time and heap allocation per filtered frame, and motion area both variants detect.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class DetectMotionLumaFilterExample {
+
+	private static final int[][] SIZES = { { 640, 480 }, { 1280, 720 }, { 1920, 1080 } };
+
+	public static void main(String[] args) {
+
+		for (int[] size : SIZES) {
+
+			BufferedImage[] frames = frames(size[0], size[1]);
+
+			WebcamMotionDetectorDefaultAlgorithm chain = new WebcamMotionDetectorDefaultAlgorithm();
+			chain.setFastDetection(true);
+
+			WebcamMotionDetectorDefaultAlgorithm fused = new WebcamMotionDetectorDefaultAlgorithm();
+			fused.setLumaFilter(true);
+
+			System.out.format("%dx%d%n", size[0], size[1]);
+			run("blur + gray", chain, frames);
+			run("fused luma ", fused, frames);
+		}
+	}
+
+	private static void run(String name, WebcamMotionDetectorDefaultAlgorithm algorithm, BufferedImage[] frames) {
+
+		int runs = 40;
+
+		for (int i = 0; i < 10; i++) {
+			algorithm.filter(frames[i & 1]);
+		}
+
+		long bytes = allocatedBytes();
+		long t = System.nanoTime();
+		for (int i = 0; i < runs; i++) {
+			algorithm.filter(frames[i & 1]);
+		}
+		long ns = (System.nanoTime() - t) / runs;
+		bytes = (allocatedBytes() - bytes) / runs;
+
+		BufferedImage previous = algorithm.filter(frames[0]);
+		BufferedImage current = algorithm.filter(frames[1]);
+		algorithm.detect(previous, current);
+
+		System.out.format("  %s: %,d ns/frame, %,d bytes/frame allocated, area %.3f%%%n", name, ns, bytes, algorithm.getArea());
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static BufferedImage[] frames(int w, int h) {
+
+		Random random = new Random(w);
+		BufferedImage[] frames = new BufferedImage[2];
+
+		for (int k = 0; k < 2; k++) {
+			BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_3BYTE_BGR);
+			Graphics2D g = image.createGraphics();
+			g.setColor(Color.DARK_GRAY);
+			g.fillRect(0, 0, w, h);
+			random.setSeed(w);
+			for (int i = 0; i < 20; i++) {
+				g.setColor(new Color(random.nextInt()));
+				g.fillOval(random.nextInt(w) + k * 40, random.nextInt(h), w / 10, h / 10);
+			}
+			g.dispose();
+			frames[k] = image;
+		}
+
+		return frames;
+	}
+}
@@ -0,0 +1,60 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamMotionDetector;
+import com.github.sarxos.webcam.WebcamMotionEvent;
+import com.github.sarxos.webcam.WebcamMotionListener;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * Detect motion on dummy webcam open in non-blocking mode, which delivers about 30 images per
+ * second. First detector takes image every 100 ms, then it analyses every pushed image, and then
+ * every 3rd pushed image. Prints number of images analysed, skipped and dropped per second, motion
+ * events and latency from image capture to motion event.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class DetectMotionPushModeExample {
+
+	private static final int SECONDS = 5;
+
+	public static void main(String[] args) throws InterruptedException {
+
+		Webcam.setDriver(new WebcamDummyDriver(1));
+
+		Webcam webcam = Webcam.getDefault();
+
+		run("pull every 100 ms", webcam, false, 1);
+		run("push", webcam, true, 1);
+		run("push, every 3rd", webcam, true, 3);
+	}
+
+	private static void run(String name, Webcam webcam, boolean push, int skip) throws InterruptedException {
+
+		final AtomicLong events = new AtomicLong();
+
+		webcam.open(true);
+
+		WebcamMotionDetector detector = new WebcamMotionDetector(webcam);
+		detector.setInterval(100);
+		detector.setPushMode(push);
+		detector.setFrameSkip(skip);
+		detector.addMotionListener(new WebcamMotionListener() {
+
+			@Override
+			public void motionDetected(WebcamMotionEvent wme) {
+				events.incrementAndGet();
+			}
+		});
+		detector.start();
+
+		Thread.sleep(SECONDS * 1000);
+
+		detector.stop();
+
+		System.out.format("%s: %.1f analysed/s, %.1f skipped/s, %.1f dropped/s, %d motion events, %.1f ms latency%n",
+			name, detector.getAnalyzedFrames() / (double) SECONDS, detector.getSkippedFrames() / (double) SECONDS,
+			detector.getDroppedFrames() / (double) SECONDS, events.get(), detector.getLatency());
+	}
+}
@@ -0,0 +1,165 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamMotionDetector;
+import com.github.sarxos.webcam.WebcamMotionDetectorScheduler;
+import com.github.sarxos.webcam.WebcamMotionEvent;
+import com.github.sarxos.webcam.WebcamMotionListener;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+
+
+/**
+ * Run motion detectors on 200 QQVGA dummy webcams checking every 2 seconds, first with two
+ * threads per detector, then on shared scheduler with 4 workers. Every webcam shows moving square
+ * on every 4th image, so motion comes and goes. Prints number of detector threads, process CPU
+ * usage and detection stats.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class DetectMotionSharedSchedulerExample {
+
+	private static final int CAMERAS = 200;
+	private static final int SECONDS = 10;
+	private static final int INTERVAL = 2000;
+
+	/**
+	 * Dummy device which returns pre-rendered images right away.
+	 */
+	private static class StillDevice extends WebcamDummyDevice {
+
+		private final BufferedImage still;
+		private final BufferedImage moved;
+		private final AtomicLong count = new AtomicLong();
+
+		public StillDevice(int number) {
+			super(number);
+			still = render(20);
+			moved = render(80);
+		}
+
+		private BufferedImage render(int x) {
+			BufferedImage image = new BufferedImage(176, 144, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2 = image.createGraphics();
+			g2.setColor(Color.WHITE);
+			g2.fillRect(x, 40, 60, 60);
+			g2.dispose();
+			return image;
+		}
+
+		@Override
+		public BufferedImage getImage() {
+			return count.incrementAndGet() % 4 == 0 ? moved : still;
+		}
+	}
+
+	private static class StillDriver implements WebcamDriver {
+
+		@Override
+		public List<WebcamDevice> getDevices() {
+			List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+			for (int i = 0; i < CAMERAS; i++) {
+				devices.add(new StillDevice(i));
+			}
+			return Collections.unmodifiableList(devices);
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+
+		Webcam.setDriver(new StillDriver());
+
+		System.out.println("Dedicated threads:");
+		run(null);
+
+		System.out.println("Shared scheduler:");
+		WebcamMotionDetectorScheduler scheduler = new WebcamMotionDetectorScheduler(4, WebcamMotionDetectorScheduler.DEFAULT_QUEUE_SIZE);
+		run(scheduler);
+		System.out.format("  %d checks, %d skipped, queue depth %d%n", scheduler.getChecks(), scheduler.getSkippedChecks(), scheduler.getQueueDepth());
+		scheduler.shutdown();
+	}
+
+	private static void run(WebcamMotionDetectorScheduler scheduler) throws InterruptedException {
+
+		final AtomicLong motions = new AtomicLong();
+
+		// open webcams first, so only detector threads are counted
+
+		for (Webcam webcam : Webcam.getWebcams()) {
+			webcam.open();
+		}
+
+		int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+		double idle = measure(2);
+
+		List<WebcamMotionDetector> detectors = new ArrayList<WebcamMotionDetector>();
+		for (Webcam webcam : Webcam.getWebcams()) {
+			WebcamMotionDetector detector = new WebcamMotionDetector(webcam);
+			detector.setInterval(INTERVAL);
+			detector.setScheduler(scheduler);
+			detector.addMotionListener(new WebcamMotionListener() {
+
+				@Override
+				public void motionDetected(WebcamMotionEvent wme) {
+					motions.incrementAndGet();
+				}
+			});
+			detector.start();
+			detectors.add(detector);
+		}
+
+		Thread.sleep(2000);
+
+		long cpu = cpu();
+		long start = System.nanoTime();
+		long before = motions.get();
+		int live = ManagementFactory.getThreadMXBean().getThreadCount();
+		int moving = 0;
+
+		for (int i = 0; i < SECONDS; i++) {
+			Thread.sleep(1000);
+			for (WebcamMotionDetector detector : detectors) {
+				if (detector.isMotion()) {
+					moving++;
+				}
+			}
+		}
+
+		double usage = 100.0 * (cpu() - cpu) / (System.nanoTime() - start);
+		long events = motions.get() - before;
+
+		for (WebcamMotionDetector detector : detectors) {
+			detector.stop();
+		}
+
+		System.out.format("  %d detector threads, %.1f%% CPU (%.1f%% without detectors), %d motion events, %.0f webcams in motion on average%n",
+			live - threads, usage, idle, events, moving / (double) SECONDS);
+	}
+
+	/**
+	 * @return Process CPU usage in given number of seconds
+	 */
+	private static double measure(int seconds) throws InterruptedException {
+		long cpu = cpu();
+		long start = System.nanoTime();
+		Thread.sleep(seconds * 1000);
+		return 100.0 * (cpu() - cpu) / (System.nanoTime() - start);
+	}
+
+	private static long cpu() {
+		return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+	}
+}
@@ -0,0 +1,94 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamMotionDetector;
+import com.github.sarxos.webcam.WebcamMotionDetectorTiledAlgorithm;
+
+
+/**
+ * Tiled motion detection. Prints how detection time of a synthetic 1080p frame scales with the
+ * number of cores, then runs the tiled algorithm on the default webcam when one is attached and
+ * reports which tiles have seen motion.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class DetectMotionTiledExample {
+
+	public static void main(String[] args) throws Exception {
+
+		BufferedImage[] frames = frames(1920, 1080);
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		for (int n = 1; n <= cores; n *= 2) {
+
+			ForkJoinPool pool = new ForkJoinPool(n);
+			WebcamMotionDetectorTiledAlgorithm algorithm = new WebcamMotionDetectorTiledAlgorithm(8, 8, pool);
+
+			BufferedImage previous = algorithm.filter(frames[0]);
+			BufferedImage current = algorithm.filter(frames[1]);
+
+			for (int i = 0; i < 20; i++) {
+				algorithm.detect(previous, current);
+			}
+
+			int runs = 50;
+			long t = System.nanoTime();
+			for (int i = 0; i < runs; i++) {
+				algorithm.detect(previous, current);
+			}
+
+			System.out.format("%2d cores: %.2f ms per 1080p frame (area %.3f%%)%n", n, (System.nanoTime() - t) / 1e6 / runs, algorithm.getArea());
+			pool.shutdown();
+		}
+
+		Webcam webcam = Webcam.getDefault();
+		if (webcam == null) {
+			return;
+		}
+
+		final WebcamMotionDetectorTiledAlgorithm algorithm = new WebcamMotionDetectorTiledAlgorithm();
+		WebcamMotionDetector detector = new WebcamMotionDetector(webcam, algorithm, 500);
+		detector.start();
+
+		for (int i = 0; i < 20; i++) {
+			Thread.sleep(500);
+			double[][] areas = algorithm.getTileAreas();
+			StringBuilder sb = new StringBuilder();
+			for (int r = 0; r < areas.length; r++) {
+				for (int c = 0; c < areas[r].length; c++) {
+					sb.append(algorithm.isTileMotion(r, c) ? '#' : '.');
+				}
+				sb.append('\n');
+			}
+			System.out.println(sb);
+		}
+
+		detector.stop();
+	}
+
+	private static BufferedImage[] frames(int w, int h) {
+
+		Random random = new Random(w);
+		BufferedImage[] frames = new BufferedImage[2];
+
+		for (int k = 0; k < 2; k++) {
+			BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_3BYTE_BGR);
+			Graphics2D g = image.createGraphics();
+			g.setColor(Color.DARK_GRAY);
+			g.fillRect(0, 0, w, h);
+			random.setSeed(w);
+			for (int i = 0; i < 20; i++) {
+				g.setColor(new Color(random.nextInt()));
+				g.fillOval(random.nextInt(w) + k * 40, random.nextInt(h), w / 10, h / 10);
+			}
+			g.dispose();
+			frames[k] = image;
+		}
+
+		return frames;
+	}
+}
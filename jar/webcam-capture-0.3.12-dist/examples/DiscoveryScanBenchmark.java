@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDiscoveryService;
+import com.github.sarxos.webcam.WebcamDiscoverySupport;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+
+
+/**
+ * Measure how long discovery scan takes with 1000 dummy devices, like on a depot server with many
+ * IP cameras. First every scan sees one device gone and one new, then nothing changes, and then
+ * nothing changes but driver returns devices in reverse order. Also checks if webcams of devices
+ * which are still there are kept after the scan, and how long it takes to get webcams list while
+ * other thread holds webcam class lock.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class DiscoveryScanBenchmark {
+
+	private static final int DEVICES = 1000;
+	private static final int SCANS = 200;
+
+	/**
+	 * Driver which returns devices from first to first + 1000, as new objects every time, the same
+	 * way native drivers do.
+	 */
+	private static class ManyDevicesDriver implements WebcamDriver, WebcamDiscoverySupport {
+
+		private volatile int first = 0;
+		private volatile boolean reverse = false;
+
+		@Override
+		public List<WebcamDevice> getDevices() {
+			List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+			for (int i = first; i < first + DEVICES; i++) {
+				devices.add(new WebcamDummyDevice(i));
+			}
+			if (reverse) {
+				Collections.reverse(devices);
+			}
+			return Collections.unmodifiableList(devices);
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return false;
+		}
+
+		@Override
+		public long getScanInterval() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public boolean isScanPossible() {
+			return true;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+
+		ManyDevicesDriver driver = new ManyDevicesDriver();
+
+		Webcam.setDriver(driver);
+
+		List<Webcam> before = Webcam.getWebcams();
+		WebcamDiscoveryService discovery = Webcam.getDiscoveryService();
+
+		// warm up
+
+		for (int i = 0; i < SCANS; i++) {
+			driver.first++;
+			discovery.scan();
+		}
+
+		before = Webcam.getWebcams();
+
+		long t = System.nanoTime();
+		for (int i = 0; i < SCANS; i++) {
+			driver.first++;
+			discovery.scan();
+		}
+		long churn = System.nanoTime() - t;
+
+		List<Webcam> after = Webcam.getWebcams();
+
+		t = System.nanoTime();
+		for (int i = 0; i < SCANS; i++) {
+			discovery.scan();
+		}
+		long same = System.nanoTime() - t;
+
+		driver.reverse = true;
+
+		t = System.nanoTime();
+		for (int i = 0; i < SCANS; i++) {
+			discovery.scan();
+		}
+		long reversed = System.nanoTime() - t;
+
+		// devices from SCANS to DEVICES have been there all the time
+
+		int kept = 0;
+		for (int i = SCANS; i < DEVICES; i++) {
+			if (before.get(i) == after.get(i - SCANS)) {
+				kept++;
+			}
+		}
+
+		System.out.format("%d devices, scan with 1 gone and 1 new: %.2f ms, without changes: %.2f ms, reversed: %.2f ms%n",
+			DEVICES, churn / 1e6 / SCANS, same / 1e6 / SCANS, reversed / 1e6 / SCANS);
+		System.out.format("webcams kept after %d scans: %d of %d%n", SCANS, kept, DEVICES - SCANS);
+
+		// hold webcam class lock for 1 second
+
+		Thread holder = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (Webcam.class) {
+					try {
+						Thread.sleep(1000);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		});
+		holder.start();
+
+		Thread.sleep(100);
+
+		t = System.nanoTime();
+		Webcam.getWebcams();
+		System.out.format("getWebcams() while webcam class is locked: %.2f ms%n", (System.nanoTime() - t) / 1e6);
+
+		holder.join();
+	}
+}
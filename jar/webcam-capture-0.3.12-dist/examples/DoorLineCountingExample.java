@@ -0,0 +1,134 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamLineCrossingCounter;
+import com.github.sarxos.webcam.WebcamMotionDetector;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+
+
+/**
+ * Count people passing bus door. Dummy QVGA webcam looks down at the door at 30 FPS, with the door
+ * threshold across the middle of the image and bus interior in the bottom half. Scripted sequence
+ * shows 5 people getting in, one by one, and then 2 getting out. Motion detector analyses every
+ * frame in push mode and feeds line crossing counter. Prints entries, exits and people count
+ * after every passage, and the number of frames analysed per second.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class DoorLineCountingExample {
+
+	private static final int ENTRIES = 5;
+	private static final int EXITS = 2;
+
+	/**
+	 * Frames to cross the image and frames of empty door between people.
+	 */
+	private static final int CROSSING = 30;
+	private static final int GAP = 40;
+
+	/**
+	 * Dummy device playing scripted door sequence.
+	 */
+	private static class DoorDevice extends WebcamDummyDevice {
+
+		private int frame = 0;
+
+		public DoorDevice() {
+			super(0);
+		}
+
+		@Override
+		public synchronized BufferedImage getImage() {
+
+			try {
+				Thread.sleep(1000 / 30);
+			} catch (InterruptedException e) {
+				return null;
+			}
+
+			BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2 = image.createGraphics();
+			g2.setColor(Color.DARK_GRAY);
+			g2.fillRect(0, 0, 320, 240);
+
+			int person = frame / (CROSSING + GAP);
+			int step = frame % (CROSSING + GAP);
+
+			if (person < ENTRIES + EXITS && step < CROSSING) {
+
+				// getting in moves down, getting out moves up
+
+				int y = 10 + 180 * step / CROSSING;
+				if (person >= ENTRIES) {
+					y = 190 - (y - 10);
+				}
+
+				g2.setColor(Color.LIGHT_GRAY);
+				g2.fillOval(130, y, 60, 40);
+			}
+
+			g2.dispose();
+			frame++;
+
+			return image;
+		}
+	}
+
+	private static class DoorDriver implements WebcamDriver {
+
+		@Override
+		public List<WebcamDevice> getDevices() {
+			List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+			devices.add(new DoorDevice());
+			return Collections.unmodifiableList(devices);
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return false;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+
+		Webcam.setDriver(new DoorDriver());
+
+		Webcam webcam = Webcam.getDefault();
+		webcam.setViewSize(new java.awt.Dimension(320, 240));
+
+		WebcamLineCrossingCounter counter = new WebcamLineCrossingCounter(new Point(0, 120), new Point(320, 120), new Point(160, 200));
+		counter.setSmoothing(500);
+
+		WebcamMotionDetector detector = new WebcamMotionDetector(webcam);
+		detector.setPushMode(true);
+		detector.addMotionListener(counter);
+		detector.start();
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ENTRIES + EXITS; i++) {
+			Thread.sleep((CROSSING + GAP) * 1000 / 30);
+			System.out.format("after %d: %d in, %d out, %d inside%n", i + 1, counter.getEntries(), counter.getExits(), counter.getCount());
+		}
+
+		// device is a bit slower than 30 FPS, let it finish and smoothed count settle
+
+		Thread.sleep(2000);
+
+		long elapsed = System.nanoTime() - start;
+		long frames = detector.getAnalyzedFrames();
+
+		detector.stop();
+
+		System.out.format("expected %d inside, counted %d; %d frames analysed (%d dropped), %.1f fps%n",
+			ENTRIES - EXITS, counter.getCount(), frames, detector.getDroppedFrames(), frames / (elapsed / 1e9));
+	}
+}
@@ -0,0 +1,100 @@
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamFrame;
+import com.github.sarxos.webcam.WebcamFramePool;
+import com.github.sarxos.webcam.WebcamResolution;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * Compare bytes allocated per frame (by all threads) when reading dummy webcam frames with
+ * getImage(), getImageBytes() and getFrame() from a frame pool. In the pooled case every frame is
+ * also shared with a second consumer thread which retains it and releases it when done.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class FramePoolAllocationExample {
+
+	private static final int FRAMES = 150;
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) throws Exception {
+
+		Webcam.setDriver(new WebcamDummyDriver(1));
+		Webcam webcam = Webcam.getDefault();
+		webcam.setViewSize(WebcamResolution.VGA.getSize());
+		webcam.open();
+
+		final WebcamFramePool pool = new WebcamFramePool(4, webcam.getViewSize());
+		final BlockingQueue<WebcamFrame> queue = new ArrayBlockingQueue<WebcamFrame>(pool.getSize());
+
+		Thread consumer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				long sum = 0;
+				while (true) {
+					WebcamFrame frame;
+					try {
+						frame = queue.take();
+					} catch (InterruptedException e) {
+						return;
+					}
+					ByteBuffer buffer = frame.getBuffer();
+					sum += buffer.get(buffer.limit() / 2);
+					frame.release();
+				}
+			}
+		}, "consumer");
+		consumer.setDaemon(true);
+		consumer.start();
+
+		for (int pass = 0; pass < 2; pass++) {
+
+			long allocated = allocated();
+			for (int i = 0; i < FRAMES; i++) {
+				BufferedImage image = webcam.getImage();
+				image.flush();
+			}
+			long images = (allocated() - allocated) / FRAMES;
+
+			allocated = allocated();
+			for (int i = 0; i < FRAMES; i++) {
+				webcam.getImageBytes();
+			}
+			long bytes = (allocated() - allocated) / FRAMES;
+
+			allocated = allocated();
+			for (int i = 0; i < FRAMES; i++) {
+				WebcamFrame frame = webcam.getFrame(pool);
+				if (frame == null) {
+					continue;
+				}
+				queue.put(frame.retain());
+				frame.release();
+			}
+			long frames = (allocated() - allocated) / FRAMES;
+
+			System.out.format("pass %d: getImage() %d B/frame, getImageBytes() %d B/frame, getFrame() %d B/frame, pool misses %d%n",
+				pass, images, bytes, frames, pool.getMisses());
+		}
+
+		webcam.close();
+	}
+
+	private static long allocated() {
+		long sum = 0;
+		for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+			if (bytes > 0) {
+				sum += bytes;
+			}
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,200 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Random;
+
+import com.github.sarxos.webcam.WebcamImagePipeline;
+import com.github.sarxos.webcam.WebcamImageTransformer;
+import com.github.sarxos.webcam.util.jh.JHFlipFilter;
+import com.github.sarxos.webcam.util.jh.JHGrayFilter;
+
+
+/**
+ * Compare chain of image transformers, each creating new image, with {@link WebcamImagePipeline}
+ * doing the same: crop, rotate 180, downscale by 2, gray, normalize and mask, on 640x480 3-byte
+ * RGB frames like the ones from webcam. Then compares gray, mirror and mask fused into one pass
+ * with the same stages run separately, and runs one pipeline from 4 threads at once, like 4 webcams
+ * sharing it. Prints time and bytes allocated per frame, and pipeline time of every pass.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class ImagePipelineBenchmark {
+
+	private static final int WARMUP = 1000;
+	private static final int FRAMES = 500;
+
+	private static final Rectangle CROP = new Rectangle(0, 40, 640, 400);
+	private static final Rectangle MASK = new Rectangle(20, 20, 100, 60);
+
+	/**
+	 * Transformers chain, the way it can be done without pipeline.
+	 */
+	private static class Chain implements WebcamImageTransformer {
+
+		private final JHFlipFilter flip = new JHFlipFilter(JHFlipFilter.FLIP_180);
+		private final JHGrayFilter gray = new JHGrayFilter();
+		private final AffineTransformOp half = new AffineTransformOp(AffineTransform.getScaleInstance(0.5, 0.5), AffineTransformOp.TYPE_BILINEAR);
+
+		@Override
+		public BufferedImage transform(BufferedImage image) {
+
+			BufferedImage crop = new BufferedImage(CROP.width, CROP.height, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2 = crop.createGraphics();
+			g2.drawImage(image.getSubimage(CROP.x, CROP.y, CROP.width, CROP.height), 0, 0, null);
+			g2.dispose();
+
+			BufferedImage rotated = flip.filter(crop, null);
+			BufferedImage small = half.filter(rotated, null);
+			BufferedImage grayed = gray.filter(small, null);
+			BufferedImage normalized = normalize(grayed);
+
+			g2 = normalized.createGraphics();
+			g2.setColor(Color.BLACK);
+			g2.fill(MASK);
+			g2.dispose();
+
+			return normalized;
+		}
+
+		private static BufferedImage normalize(BufferedImage image) {
+			int w = image.getWidth();
+			int h = image.getHeight();
+			int[] rgb = image.getRGB(0, 0, w, h, null, 0, w);
+			int min = 255;
+			int max = 0;
+			for (int p : rgb) {
+				min = Math.min(min, p & 0xff);
+				max = Math.max(max, p & 0xff);
+			}
+			for (int i = 0; i < rgb.length; i++) {
+				int l = max > min ? ((rgb[i] & 0xff) - min) * 255 / (max - min) : rgb[i] & 0xff;
+				rgb[i] = l << 16 | l << 8 | l;
+			}
+			BufferedImage result = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+			result.setRGB(0, 0, w, h, rgb, 0, w);
+			return result;
+		}
+	}
+
+	/**
+	 * In-place stage which does nothing, only to keep stages around it from being fused.
+	 */
+	private static class Barrier implements WebcamImagePipeline.ImageFilter {
+
+		@Override
+		public String getName() {
+			return "barrier";
+		}
+
+		@Override
+		public void filter(int[] pixels, int width, int height) {
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+
+		BufferedImage frame = new BufferedImage(640, 480, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g2 = frame.createGraphics();
+		Random random = new Random(1);
+		for (int i = 0; i < 200; i++) {
+			g2.setColor(new Color(random.nextInt(0xffffff)));
+			g2.fillRect(random.nextInt(640), random.nextInt(480), random.nextInt(200), random.nextInt(200));
+		}
+		g2.dispose();
+
+		WebcamImagePipeline pipeline = new WebcamImagePipeline()
+			.crop(CROP)
+			.rotate(180)
+			.downscale(2)
+			.gray()
+			.normalize()
+			.mask(0, MASK);
+
+		run("transformers chain", new Chain(), frame, false);
+		run("pipeline", pipeline, frame, false);
+		run("pipeline, recycled", pipeline, frame, true);
+		print(pipeline);
+
+		WebcamImagePipeline fused = new WebcamImagePipeline().gray().mirror().mask(0, MASK);
+		WebcamImagePipeline separate = new WebcamImagePipeline().gray().add(new Barrier()).mirror().add(new Barrier()).mask(0, MASK);
+
+		run("gray, mirror, mask fused", fused, frame, true);
+		print(fused);
+		run("gray, mirror, mask separate", separate, frame, true);
+		print(separate);
+
+		parallel(pipeline, frame, 4);
+
+		System.out.format("buffers allocated %d, reused %d%n", WebcamImagePipeline.getAllocatedBuffers(), WebcamImagePipeline.getReusedBuffers());
+	}
+
+	private static void run(String name, WebcamImageTransformer transformer, BufferedImage frame, boolean recycle) {
+
+		for (int i = 0; i < WARMUP; i++) {
+			BufferedImage image = transformer.transform(frame);
+			if (recycle) {
+				WebcamImagePipeline.recycle(image);
+			}
+		}
+
+		long bytes = allocated();
+		long t = System.nanoTime();
+
+		for (int i = 0; i < FRAMES; i++) {
+			BufferedImage image = transformer.transform(frame);
+			if (recycle) {
+				WebcamImagePipeline.recycle(image);
+			}
+		}
+
+		t = System.nanoTime() - t;
+		bytes = allocated() - bytes;
+
+		System.out.format("%s: %.2f ms/frame, %d KiB allocated/frame%n", name, t / 1e6 / FRAMES, bytes / FRAMES / 1024);
+	}
+
+	private static void print(WebcamImagePipeline pipeline) {
+		StringBuilder sb = new StringBuilder("  passes:");
+		for (Map.Entry<String, Double> e : pipeline.getStageTimes().entrySet()) {
+			sb.append(String.format(" %s %.3f ms,", e.getKey(), e.getValue()));
+		}
+		sb.setLength(sb.length() - 1);
+		System.out.println(sb);
+	}
+
+	private static void parallel(final WebcamImagePipeline pipeline, final BufferedImage frame, int threads) throws InterruptedException {
+
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					for (int i = 0; i < FRAMES; i++) {
+						WebcamImagePipeline.recycle(pipeline.transform(frame));
+					}
+				}
+			});
+		}
+
+		long t = System.nanoTime();
+		for (Thread w : workers) {
+			w.start();
+		}
+		for (Thread w : workers) {
+			w.join();
+		}
+		t = System.nanoTime() - t;
+
+		System.out.format("pipeline from %d threads: %.0f frames/s on %d CPU%n", threads, threads * FRAMES / (t / 1e9), Runtime.getRuntime().availableProcessors());
+	}
+
+	private static long allocated() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,113 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamStreamer;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * Load test of MJPEG streaming. Connects 100 local clients to a streamer fed by the dummy driver
+ * and prints frames delivered, frames dropped, CPU usage and frame latency. Pass "legacy" as
+ * argument to test the default per-client mode instead of broadcast mode.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class MjpegBroadcastLoadTest {
+
+	private static final int CLIENTS = 100;
+	private static final int SECONDS = 10;
+	private static final int PORT = 8081;
+
+	private static final AtomicLong received = new AtomicLong();
+
+	public static void main(String[] args) throws Exception {
+
+		boolean broadcast = args.length == 0 || !"legacy".equals(args[0]);
+
+		Webcam.setDriver(new WebcamDummyDriver(1));
+		Webcam webcam = Webcam.getDefault();
+
+		WebcamStreamer streamer = new WebcamStreamer(PORT, webcam, 30, true, broadcast);
+		Thread.sleep(500);
+
+		for (int i = 0; i < CLIENTS; i++) {
+			Thread client = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					read();
+				}
+			}, "client-" + i);
+			client.setDaemon(true);
+			client.start();
+		}
+
+		Thread.sleep(1000);
+
+		com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+		long cpu = os.getProcessCpuTime();
+		long wall = System.nanoTime();
+		long frames = received.get();
+
+		Thread.sleep(SECONDS * 1000);
+
+		double load = (os.getProcessCpuTime() - cpu) * 100d / (System.nanoTime() - wall) / os.getAvailableProcessors();
+		frames = received.get() - frames;
+
+		System.out.format("%s mode, %d clients, %d s%n", broadcast ? "broadcast" : "legacy", CLIENTS, SECONDS);
+		System.out.format("  frames received per client: %.1f fps%n", frames / (double) CLIENTS / SECONDS);
+		System.out.format("  process CPU: %.1f%% of %d cores%n", load, os.getAvailableProcessors());
+		if (broadcast) {
+			System.out.format("  frames encoded: %d, sent: %d, dropped: %d%n", streamer.getFramesEncoded(), streamer.getFramesSent(), streamer.getFramesDropped());
+			System.out.format("  average capture to delivery latency: %.2f ms%n", streamer.getAverageLatency());
+		}
+
+		streamer.stop();
+		System.exit(0);
+	}
+
+	/**
+	 * Reads multipart stream, counting frames by their Content-Length headers.
+	 */
+	private static void read() {
+		try (Socket socket = new Socket("localhost", PORT)) {
+
+			OutputStream os = socket.getOutputStream();
+			os.write("GET / HTTP/1.0\r\n\r\n".getBytes());
+			os.flush();
+
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			while (true) {
+				String line = readLine(in);
+				if (line.startsWith("Content-Length: ")) {
+					int length = Integer.parseInt(line.substring(16).trim());
+					readLine(in);
+					in.readFully(new byte[length]);
+					received.incrementAndGet();
+				}
+			}
+		} catch (IOException e) {
+			// streamer stopped
+		}
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c < 0) {
+				throw new IOException("End of stream");
+			}
+			if (c != '\r') {
+				sb.append((char) c);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,78 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamEvent;
+import com.github.sarxos.webcam.WebcamListener;
+import com.github.sarxos.webcam.WebcamUpdater;
+import com.github.sarxos.webcam.WebcamUpdater.PacingDelayCalculator;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * Open dummy webcam in non-blocking mode paced at 15 FPS, with a listener which needs 150 ms for
+ * every image, so it cannot keep up. Instead of queuing images behind the slow listener, updater
+ * drops the ones it has no time for. Main thread reads every new image with blocking
+ * {@link WebcamUpdater#getNextImage(long, TimeUnit)} call. Prints updater statistics every second.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class PacedUpdaterExample {
+
+	public static void main(String[] args) throws InterruptedException {
+
+		Webcam.setDriver(new WebcamDummyDriver(1));
+
+		final AtomicInteger processed = new AtomicInteger();
+
+		Webcam webcam = Webcam.getDefault();
+		webcam.addWebcamListener(new WebcamListener() {
+
+			@Override
+			public void webcamOpen(WebcamEvent we) {
+			}
+
+			@Override
+			public void webcamClosed(WebcamEvent we) {
+			}
+
+			@Override
+			public void webcamDisposed(WebcamEvent we) {
+			}
+
+			@Override
+			public void webcamImageObtained(WebcamEvent we) {
+				try {
+					Thread.sleep(150); // slow image processing
+				} catch (InterruptedException e) {
+					return;
+				}
+				processed.incrementAndGet();
+			}
+		});
+
+		webcam.open(true, new PacingDelayCalculator(15));
+
+		WebcamUpdater updater = webcam.getUpdater();
+
+		int read = 0;
+		long next = System.currentTimeMillis() + 1000;
+
+		for (int second = 0; second < 5;) {
+
+			if (updater.getNextImage(1, TimeUnit.SECONDS) != null) {
+				read++;
+			}
+
+			if (System.currentTimeMillis() >= next) {
+				next += 1000;
+				second++;
+				System.out.format("fps %.1f (device %.1f), read %d, listener processed %d, delivered %d, dropped %d, listener %.0f ms, latency %.0f ms%n",
+					updater.getAchievedFPS(), updater.getFPS(), read, processed.get(), updater.getDeliveredFrames(),
+					updater.getDroppedFrames(), updater.getListenerTime(), updater.getLatency());
+			}
+		}
+
+		webcam.close();
+	}
+}
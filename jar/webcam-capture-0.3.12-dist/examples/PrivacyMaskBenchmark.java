@@ -0,0 +1,219 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamPrivacyMask;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * Measure privacy mask on 1080p frames, 3-byte BGR like the ones from webcam, with seat rows
+ * (polygons) and faces (ellipses) filled and then blurred, and with whole frame blurred, against
+ * painting the same shapes with Graphics2D. Prints time per frame and frames per second on one
+ * core. Then checks that pixels outside areas are not changed and blurred blocks have one color,
+ * that heap and direct buffers are masked the same way, and that image from webcam with mask set
+ * is masked.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class PrivacyMaskBenchmark {
+
+	private static final int WIDTH = 1920;
+	private static final int HEIGHT = 1080;
+
+	private static final int WARMUP = 300;
+	private static final int FRAMES = 300;
+
+	private static final Polygon LEFT = new Polygon(new int[] { 250, 750, 800, 150 }, new int[] { 600, 600, 1080, 1080 }, 4);
+	private static final Polygon RIGHT = new Polygon(new int[] { 1170, 1670, 1770, 1120 }, new int[] { 600, 600, 1080, 1080 }, 4);
+	private static final Rectangle CABIN = new Rectangle(1500, 0, 420, 250);
+	private static final Ellipse2D[] FACES = new Ellipse2D[10];
+
+	static {
+		for (int i = 0; i < FACES.length; i++) {
+			FACES[i] = new Ellipse2D.Double(200 + i * 150, 450, 90, 120);
+		}
+	}
+
+	public static void main(String[] args) {
+
+		BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g2 = frame.createGraphics();
+		Random random = new Random(1);
+		for (int i = 0; i < 500; i++) {
+			g2.setColor(new Color(random.nextInt(0xffffff)));
+			g2.fillRect(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(300), random.nextInt(300));
+		}
+		g2.dispose();
+
+		WebcamPrivacyMask filled = new WebcamPrivacyMask()
+			.fill(LEFT, 0)
+			.fill(RIGHT, 0)
+			.fill(CABIN, 0);
+		for (Ellipse2D face : FACES) {
+			filled.fill(face, 0);
+		}
+
+		WebcamPrivacyMask blurred = new WebcamPrivacyMask()
+			.blur(LEFT)
+			.blur(RIGHT)
+			.fill(CABIN, 0);
+		for (Ellipse2D face : FACES) {
+			blurred.blur(face);
+		}
+
+		WebcamPrivacyMask all = new WebcamPrivacyMask().blur(new Rectangle(0, 0, WIDTH, HEIGHT));
+
+		System.out.format("%dx%d, mask covers %.0f%% of frame%n", WIDTH, HEIGHT, 100.0 * blurred.getMaskedPixels(WIDTH, HEIGHT) / (WIDTH * HEIGHT));
+
+		run("graphics fill", new Painter(), frame);
+		run("mask fill", filled, frame);
+		run("mask blur", blurred, frame);
+		run("mask blur whole frame", all, frame);
+
+		check(frame, blurred);
+	}
+
+	/**
+	 * Paint polygons with Graphics2D, the way masking can be done without privacy mask (and only
+	 * with solid color).
+	 */
+	private static class Painter extends WebcamPrivacyMask {
+
+		@Override
+		public BufferedImage transform(BufferedImage image) {
+			Graphics2D g2 = image.createGraphics();
+			g2.setColor(Color.BLACK);
+			g2.fill(LEFT);
+			g2.fill(RIGHT);
+			g2.fill(CABIN);
+			for (Ellipse2D face : FACES) {
+				g2.fill(face);
+			}
+			g2.dispose();
+			return image;
+		}
+	}
+
+	private static void run(String name, WebcamPrivacyMask mask, BufferedImage frame) {
+
+		BufferedImage image = copy(frame);
+
+		for (int i = 0; i < WARMUP; i++) {
+			mask.transform(image);
+		}
+
+		long t = System.nanoTime();
+		for (int i = 0; i < FRAMES; i++) {
+			mask.transform(image);
+		}
+		t = System.nanoTime() - t;
+
+		double ms = t / 1e6 / FRAMES;
+
+		System.out.format("%s: %.2f ms/frame, %.0f fps on %d CPU%n", name, ms, 1000 / ms, Runtime.getRuntime().availableProcessors());
+	}
+
+	private static void check(BufferedImage frame, WebcamPrivacyMask mask) {
+
+		BufferedImage image = mask.transform(copy(frame));
+
+		int outside = 0;
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				if (image.getRGB(x, y) != frame.getRGB(x, y) && !isMasked(x + 0.5, y + 0.5)) {
+					outside++;
+				}
+			}
+		}
+
+		// every block inside the seats has one color
+
+		int blocks = 0;
+		int uniform = 0;
+		int block = WebcamPrivacyMask.DEFAULT_BLOCK_SIZE;
+		for (int y = 0; y < HEIGHT; y += block) {
+			for (int x = 0; x < WIDTH; x += block) {
+				if (LEFT.contains(x, y, block, block)) {
+					blocks++;
+					int[] rgb = image.getRGB(x, y, block, block, null, 0, block);
+					int n = 0;
+					for (int p : rgb) {
+						n += p == rgb[0] ? 1 : 0;
+					}
+					uniform += n == rgb.length ? 1 : 0;
+				}
+			}
+		}
+
+		System.out.format("changed pixels outside masked areas: %d, blocks of one color inside seats: %d of %d%n", outside, uniform, blocks);
+
+		// heap and direct buffers
+
+		byte[] bgr = ((DataBufferByte) frame.getRaster().getDataBuffer()).getData();
+		byte[] rgb = new byte[bgr.length];
+		for (int i = 0; i < bgr.length; i += 3) {
+			rgb[i] = bgr[i + 2];
+			rgb[i + 1] = bgr[i + 1];
+			rgb[i + 2] = bgr[i];
+		}
+
+		ByteBuffer heap = ByteBuffer.wrap(rgb.clone());
+		ByteBuffer direct = ByteBuffer.allocateDirect(rgb.length);
+		direct.put(rgb).flip();
+
+		mask.apply(heap, WIDTH, HEIGHT);
+		mask.apply(direct, WIDTH, HEIGHT);
+
+		byte[] d = new byte[rgb.length];
+		direct.get(d);
+
+		byte[] masked = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		boolean same = true;
+		for (int i = 0; i < bgr.length && same; i += 3) {
+			same = masked[i] == d[i + 2] && masked[i + 1] == d[i + 1] && masked[i + 2] == d[i];
+		}
+
+		System.out.format("heap and direct buffers equal: %b, equal to masked image: %b%n", Arrays.equals(heap.array(), d), same);
+
+		// webcam
+
+		Webcam.setDriver(new WebcamDummyDriver(1));
+		Webcam webcam = Webcam.getDefault();
+		webcam.setPrivacyMask(new WebcamPrivacyMask().fill(new Rectangle(0, 0, 50, 50), 0xff0000));
+		webcam.open();
+		BufferedImage captured = webcam.getImage();
+		webcam.close();
+
+		System.out.format("webcam image masked: %b%n", captured.getRGB(10, 10) == 0xffff0000 && captured.getRGB(49, 49) == 0xffff0000);
+	}
+
+	/**
+	 * @return True if pixel is in any of the benchmark areas
+	 */
+	private static boolean isMasked(double x, double y) {
+		if (LEFT.contains(x, y) || RIGHT.contains(x, y) || CABIN.contains(x, y)) {
+			return true;
+		}
+		for (Ellipse2D face : FACES) {
+			if (face.contains(x, y)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static BufferedImage copy(BufferedImage frame) {
+		BufferedImage image = new BufferedImage(frame.getWidth(), frame.getHeight(), frame.getType());
+		image.getRaster().setDataElements(0, 0, frame.getRaster());
+		return image;
+	}
+}
@@ -0,0 +1,130 @@
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamProcessor;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+
+
+/**
+ * Read images from 5 dummy webcams at once, each one in its own thread. Every device takes 20 ms
+ * to return image (plus dummy device rendering time), except the last one which takes 200 ms.
+ * First pass is done with driver which is not thread safe, so all devices share one serialized
+ * lane, the second one with thread safe driver and device lanes enabled. Prints frames read from
+ * each webcam and lane statistics.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class ProcessorLanesExample {
+
+	private static final int DEVICES = 5;
+	private static final int SECONDS = 5;
+
+	/**
+	 * Dummy device with artificial latency.
+	 */
+	private static class SlowDevice extends WebcamDummyDevice {
+
+		private final long latency;
+
+		public SlowDevice(int number, long latency) {
+			super(number);
+			this.latency = latency;
+		}
+
+		@Override
+		public BufferedImage getImage() {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				return null;
+			}
+			return super.getImage();
+		}
+	}
+
+	private static class SlowDriver implements WebcamDriver {
+
+		private final boolean threadSafe;
+
+		public SlowDriver(boolean threadSafe) {
+			this.threadSafe = threadSafe;
+		}
+
+		@Override
+		public List<WebcamDevice> getDevices() {
+			List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+			for (int i = 0; i < DEVICES; i++) {
+				devices.add(new SlowDevice(i, i == DEVICES - 1 ? 200 : 20));
+			}
+			return Collections.unmodifiableList(devices);
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return threadSafe;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		System.out.println("Serialized lane:");
+		run(false);
+
+		System.out.println("Device lanes:");
+		WebcamProcessor.getInstance().setDeviceLanes(true);
+		run(true);
+	}
+
+	private static void run(boolean threadSafe) throws InterruptedException {
+
+		Webcam.setDriver(new SlowDriver(threadSafe));
+
+		List<Webcam> webcams = Webcam.getWebcams();
+		List<Thread> threads = new ArrayList<Thread>();
+		final AtomicLong[] frames = new AtomicLong[webcams.size()];
+
+		for (int i = 0; i < webcams.size(); i++) {
+
+			final Webcam webcam = webcams.get(i);
+			final AtomicLong counter = frames[i] = new AtomicLong();
+
+			webcam.open();
+
+			Thread t = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					long end = System.currentTimeMillis() + SECONDS * 1000;
+					while (System.currentTimeMillis() < end) {
+						if (webcam.getImage() != null) {
+							counter.incrementAndGet();
+						}
+					}
+				}
+			});
+			t.start();
+			threads.add(t);
+		}
+
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		for (int i = 0; i < webcams.size(); i++) {
+			System.out.format("  %s: %.1f fps%n", webcams.get(i).getName(), frames[i].get() / (double) SECONDS);
+		}
+		for (WebcamProcessor.Lane lane : WebcamProcessor.getInstance().getLanes()) {
+			System.out.println("  " + lane);
+		}
+
+		for (Webcam webcam : webcams) {
+			webcam.close();
+		}
+	}
+}
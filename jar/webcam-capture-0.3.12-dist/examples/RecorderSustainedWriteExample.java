@@ -0,0 +1,108 @@
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamRecorder;
+import com.github.sarxos.webcam.WebcamResolution;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * Sustained write benchmark of webcam recorder. First records VGA dummy webcam at 30 FPS for 10
+ * seconds, then feeds recorder with pre-encoded frames as fast as it accepts them for 10 seconds,
+ * with 4 MB segments and 32 MB retention (frames not accepted because writer is busy count as
+ * dropped). Prints frames written and dropped, write throughput, batch size and time, then plays
+ * webcam recording back from a point in the middle.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class RecorderSustainedWriteExample {
+
+	private static final int SECONDS = 10;
+
+	public static void main(String[] args) throws Exception {
+
+		File directory = new File(System.getProperty("java.io.tmpdir"), "webcam-recording");
+		File stressed = new File(System.getProperty("java.io.tmpdir"), "webcam-recording-stress");
+		delete(directory);
+		delete(stressed);
+
+		Webcam.setDriver(new WebcamDummyDriver(1));
+		Webcam webcam = Webcam.getDefault();
+		webcam.setViewSize(WebcamResolution.VGA.getSize());
+
+		// record dummy webcam in real time
+
+		WebcamRecorder recorder = new WebcamRecorder(webcam, directory, 30);
+		recorder.start();
+
+		long middle = System.currentTimeMillis() + SECONDS * 500;
+		Thread.sleep(SECONDS * 1000);
+
+		recorder.stop();
+		print("webcam 30 fps", recorder, SECONDS);
+
+		// feed recorder as fast as possible, retention has to keep up
+
+		BufferedImage image = webcam.getImage();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", baos);
+		byte[] jpeg = baos.toByteArray();
+		webcam.close();
+
+		WebcamRecorder stress = new WebcamRecorder(stressed);
+		stress.setSegmentSize(4L * 1024 * 1024);
+		stress.setMaxSize(32L * 1024 * 1024);
+		stress.setQueueSize(256);
+
+		long end = System.currentTimeMillis() + SECONDS * 1000;
+
+		stress.start();
+
+		for (long now; (now = System.currentTimeMillis()) < end;) {
+			if (!stress.record(now, jpeg)) {
+				Thread.yield();
+			}
+		}
+
+		stress.stop();
+		print("pre-encoded, unthrottled", stress, SECONDS);
+		System.out.format("  %d segments, %.1f MB on disk%n", stress.getSegmentsCount(), stress.getTotalSize() / 1048576.0);
+
+		// seek by time
+
+		int frames = 0;
+		long first = -1;
+		try (WebcamRecorder.Playback playback = recorder.play(middle)) {
+			while (playback.next()) {
+				if (first < 0) {
+					first = playback.getTimestamp();
+				}
+				frames++;
+			}
+		}
+
+		System.out.format("playback from +%d ms: first frame at +%d ms, %d frames%n", SECONDS * 500, first - middle + SECONDS * 500, frames);
+	}
+
+	private static void print(String name, WebcamRecorder recorder, int seconds) {
+		System.out.format("%s: %d frames written, %d dropped, %.1f MB/s, %.1f frames per write, %.2f ms per write%n",
+			name, recorder.getFramesRecorded(), recorder.getFramesDropped(), recorder.getBytesWritten() / 1048576.0 / seconds,
+			recorder.getAverageBatchSize(), recorder.getAverageWriteTime());
+	}
+
+	private static void delete(File directory) throws IOException {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (!file.delete()) {
+					throw new IOException("Cannot delete " + file);
+				}
+			}
+		}
+	}
+}
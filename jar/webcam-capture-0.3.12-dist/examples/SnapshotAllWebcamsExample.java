@@ -0,0 +1,122 @@
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamDevice;
+import com.github.sarxos.webcam.WebcamDriver;
+import com.github.sarxos.webcam.WebcamSnapshot;
+import com.github.sarxos.webcam.WebcamSnapshotter;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDevice;
+
+
+/**
+ * Capture images from all cameras on a bus at once. Four dummy webcams take 20, 50 and 120 ms to
+ * return image, and the last one hangs for 10 seconds. First all webcams are read one by one, the
+ * way it is done in {@link TakeSnapshotFromAllWebcamsExample}, and then all together by
+ * {@link WebcamSnapshotter} with 300 ms deadline, three times, while other thread holds the webcam
+ * discovery lock. Prints how long each capture took and what it got from every webcam.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class SnapshotAllWebcamsExample {
+
+	private static final long[] LATENCY = { 20, 50, 120, 10000 };
+
+	/**
+	 * Dummy device which takes given time to return image.
+	 */
+	private static class SlowDevice extends WebcamDummyDevice {
+
+		private final long latency;
+
+		public SlowDevice(int number, long latency) {
+			super(number);
+			this.latency = latency;
+		}
+
+		@Override
+		public BufferedImage getImage() {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				return null;
+			}
+			return super.getImage();
+		}
+	}
+
+	private static class SlowDriver implements WebcamDriver {
+
+		@Override
+		public List<WebcamDevice> getDevices() {
+			List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
+			for (int i = 0; i < LATENCY.length; i++) {
+				devices.add(new SlowDevice(i, LATENCY[i]));
+			}
+			return Collections.unmodifiableList(devices);
+		}
+
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+
+		Webcam.setDriver(new SlowDriver());
+
+		List<Webcam> webcams = Webcam.getWebcams();
+		for (Webcam webcam : webcams) {
+			webcam.open();
+		}
+
+		// one by one, the hung device is left out, otherwise it would take 10 seconds
+
+		long t = System.currentTimeMillis();
+		for (Webcam webcam : webcams.subList(0, webcams.size() - 1)) {
+			webcam.getImage();
+		}
+		System.out.format("one by one, without hung webcam: %d ms%n", System.currentTimeMillis() - t);
+
+		// keep discovery lock busy, as if other thread was waiting for devices
+
+		Thread holder = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (Webcam.class) {
+					try {
+						Thread.sleep(5000);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		});
+		holder.setDaemon(true);
+		holder.start();
+
+		Thread.sleep(100);
+
+		WebcamSnapshotter snapshotter = WebcamSnapshotter.getDefault();
+
+		for (int i = 0; i < 3; i++) {
+
+			t = System.currentTimeMillis();
+			List<WebcamSnapshot> snapshots = snapshotter.capture(300, TimeUnit.MILLISECONDS);
+			System.out.format("all together: %d ms%n", System.currentTimeMillis() - t);
+
+			for (WebcamSnapshot snapshot : snapshots) {
+				System.out.format("  %s%n", snapshot);
+			}
+		}
+
+		System.out.format("captures %d, timeouts %d, busy %d, late %d, pending %d, threads %d%n",
+			snapshotter.getCaptures(), snapshotter.getTimeouts(), snapshotter.getBusy(), snapshotter.getLate(),
+			snapshotter.getPending(), snapshotter.getThreads());
+	}
+}
@@ -0,0 +1,195 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.embed.swing.SwingNode;
+import javafx.scene.Scene;
+import javafx.scene.layout.TilePane;
+import javafx.stage.Stage;
+
+import javax.swing.SwingUtilities;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamFXView;
+import com.github.sarxos.webcam.WebcamPanel;
+import com.github.sarxos.webcam.WebcamResolution;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * Display 4 VGA dummy webcams at 30 FPS in JavaFX window, first with {@link WebcamFXView}, then
+ * with {@link WebcamPanel} embedded through {@link SwingNode}, and print process CPU time used per
+ * camera in both cases. Needs javafx.graphics, javafx.controls and javafx.swing modules and a
+ * display.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class WebcamFXViewBenchmark extends Application {
+
+	private static final int CAMERAS = 4;
+	private static final int SECONDS = 10;
+	private static final int FPS = 30;
+
+	private final TilePane root = new TilePane();
+
+	public static void main(String[] args) {
+		launch(args);
+	}
+
+	@Override
+	public void start(Stage stage) {
+
+		stage.setTitle("JavaFX view vs Swing node");
+		stage.setScene(new Scene(root, 1280, 960));
+		stage.show();
+
+		Thread t = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					benchmark();
+				} catch (InterruptedException e) {
+					return;
+				} finally {
+					Platform.exit();
+				}
+			}
+		});
+		t.setDaemon(true);
+		t.start();
+	}
+
+	private void benchmark() throws InterruptedException {
+
+		Webcam.setDriver(new WebcamDummyDriver(CAMERAS));
+
+		final List<Webcam> webcams = Webcam.getWebcams();
+		for (Webcam webcam : webcams) {
+			webcam.setViewSize(WebcamResolution.VGA.getSize());
+		}
+
+		// JavaFX view
+
+		final List<WebcamFXView> views = new ArrayList<WebcamFXView>();
+
+		fx(new Runnable() {
+
+			@Override
+			public void run() {
+				for (Webcam webcam : webcams) {
+					WebcamFXView view = new WebcamFXView(webcam);
+					view.setFPSLimit(FPS);
+					view.setOverlayDisplayed(true);
+					view.setPrefSize(640, 480);
+					views.add(view);
+					root.getChildren().add(view);
+					view.start();
+				}
+			}
+		});
+
+		double fx = measure();
+
+		for (WebcamFXView view : views) {
+			System.out.format("  %s: %.1f fps, %.1f ms latency, %d grabbed, %d displayed, %d skipped%n",
+				view.getWebcam().getName(), view.getFPS(), view.getLatency(), view.getGrabbedFrames(),
+				view.getDisplayedFrames(), view.getSkippedFrames());
+		}
+
+		fx(new Runnable() {
+
+			@Override
+			public void run() {
+				for (WebcamFXView view : views) {
+					view.stop();
+				}
+				root.getChildren().clear();
+			}
+		});
+
+		Thread.sleep(2000); // let webcams close
+
+		// Swing panel in Swing node
+
+		final List<WebcamPanel> panels = new ArrayList<WebcamPanel>();
+
+		fx(new Runnable() {
+
+			@Override
+			public void run() {
+				for (Webcam webcam : webcams) {
+
+					final SwingNode node = new SwingNode();
+					final WebcamPanel panel = new WebcamPanel(webcam, false);
+
+					panel.setFPSLimited(true);
+					panel.setFPSLimit(FPS);
+					panel.setFPSDisplayed(true);
+					panels.add(panel);
+					root.getChildren().add(node);
+
+					SwingUtilities.invokeLater(new Runnable() {
+
+						@Override
+						public void run() {
+							panel.setPreferredSize(WebcamResolution.VGA.getSize());
+							node.setContent(panel);
+							panel.start();
+						}
+					});
+				}
+			}
+		});
+
+		double swing = measure();
+
+		for (WebcamPanel panel : panels) {
+			panel.stop();
+		}
+
+		System.out.format("JavaFX view: %.1f%% CPU per camera%n", fx);
+		System.out.format("Swing node:  %.1f%% CPU per camera%n", swing);
+	}
+
+	/**
+	 * @return Process CPU usage per camera in the last {@link #SECONDS}, after 2 seconds warm up
+	 */
+	private static double measure() throws InterruptedException {
+
+		Thread.sleep(2000);
+
+		long cpu = cpu();
+		long start = System.nanoTime();
+
+		Thread.sleep(SECONDS * 1000);
+
+		return 100.0 * (cpu() - cpu) / (System.nanoTime() - start) / CAMERAS;
+	}
+
+	private static long cpu() {
+		return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+	}
+
+	/**
+	 * Run on FX application thread and wait until done.
+	 */
+	private static void fx(final Runnable r) throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		Platform.runLater(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					r.run();
+				} finally {
+					latch.countDown();
+				}
+			}
+		});
+		latch.await();
+	}
+}
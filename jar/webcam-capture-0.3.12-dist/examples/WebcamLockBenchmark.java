@@ -0,0 +1,122 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import com.github.sarxos.webcam.Webcam;
+import com.github.sarxos.webcam.WebcamLock;
+import com.github.sarxos.webcam.WebcamLockRegistry;
+import com.github.sarxos.webcam.ds.dummy.WebcamDummyDriver;
+
+
+/**
+ * Compare lock file per webcam with shared lock registry. Opens 200 dummy webcams, first with lock
+ * files and then with registry, and prints number of threads and read/write system calls per second
+ * made by the process while webcams are open. Then starts other process which checks if the first
+ * webcam is locked, to show that locks are seen across processes the same way in both modes.
+ * Linux only, since it reads system calls count from /proc/self/io.
+ *
+ * @author Bartosz Firyn (SarXos)
+ */
+public class WebcamLockBenchmark {
+
+	private static final int WEBCAMS = 200;
+	private static final int SECONDS = 10;
+
+	private static int threads = 0;
+
+	public static void main(String[] args) throws Exception {
+
+		// other process, check if webcam is locked
+
+		if (args.length > 0) {
+			if (args[0].equals("registry")) {
+				WebcamLock.setRegistry(WebcamLockRegistry.getDefault());
+			}
+			Webcam.setDriver(new WebcamDummyDriver(1));
+			System.out.println(Webcam.getDefault().getLock().isLocked());
+			return;
+		}
+
+		threads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+		Webcam.setDriver(new WebcamDummyDriver(WEBCAMS));
+
+		List<Webcam> webcams = Webcam.getWebcams();
+
+		run("lock files", webcams);
+
+		WebcamLock.setRegistry(WebcamLockRegistry.getDefault());
+
+		run("registry", webcams);
+
+		System.out.format("registry heartbeats: %d%n", WebcamLockRegistry.getDefault().getHeartbeats());
+	}
+
+	private static void run(String name, List<Webcam> webcams) throws Exception {
+
+		for (Webcam webcam : webcams) {
+			webcam.open();
+		}
+
+		Thread.sleep(WebcamLock.INTERVAL);
+
+		long[] before = syscalls();
+		Thread.sleep(SECONDS * 1000);
+		long[] after = syscalls();
+
+		int open = ManagementFactory.getThreadMXBean().getThreadCount();
+
+		String locked = check(name.equals("registry") ? "registry" : "files");
+
+		for (Webcam webcam : webcams) {
+			webcam.close();
+		}
+
+		String unlocked = check(name.equals("registry") ? "registry" : "files");
+
+		System.out.format("%s: %d threads (+%d since start), %.1f reads/s, %.1f writes/s, locked for other process: %s, after close: %s%n",
+			name, open, open - threads, (after[0] - before[0]) / (double) SECONDS, (after[1] - before[1]) / (double) SECONDS, locked, unlocked);
+	}
+
+	/**
+	 * @return Read and write system calls made by this process so far
+	 */
+	private static long[] syscalls() throws IOException {
+		long[] calls = new long[2];
+		BufferedReader br = new BufferedReader(new FileReader("/proc/self/io"));
+		try {
+			String line = null;
+			while ((line = br.readLine()) != null) {
+				if (line.startsWith("syscr:")) {
+					calls[0] = Long.parseLong(line.substring(6).trim());
+				} else if (line.startsWith("syscw:")) {
+					calls[1] = Long.parseLong(line.substring(6).trim());
+				}
+			}
+		} finally {
+			br.close();
+		}
+		return calls;
+	}
+
+	/**
+	 * Run other process to check if the first webcam is locked.
+	 */
+	private static String check(String mode) throws Exception {
+		String java = System.getProperty("java.home") + "/bin/java";
+		Process p = new ProcessBuilder(java, "-Djava.awt.headless=true", "-cp", System.getProperty("java.class.path"), WebcamLockBenchmark.class.getName(), mode).start();
+		BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()));
+		String result = null;
+		String line = null;
+		while ((line = br.readLine()) != null) {
+			if (line.equals("true") || line.equals("false")) {
+				result = line;
+			}
+		}
+		p.waitFor();
+		return result;
+	}
+}
@@ -58,29 +58,28 @@ public class Webcam {
 		 */
 		private final BufferedImage image;
 
+		/**
+		 * Time when image has been captured.
+		 */
+		private final long timestamp;
+
 		/**
 		 * Create new notification.
 		 *
 		 * @param webcam the webcam from which image has been acquired
 		 * @param image the acquired image
+		 * @param timestamp the time when image has been captured (ms)
 		 */
-		public ImageNotification(Webcam webcam, BufferedImage image) {
+		public ImageNotification(Webcam webcam, BufferedImage image, long timestamp) {
 			this.webcam = webcam;
 			this.image = image;
+			this.timestamp = timestamp;
 		}
 
 		@Override
 		public void run() {
-			if (image != null) {
-				WebcamEvent we = new WebcamEvent(WebcamEventType.NEW_IMAGE, webcam, image);
-				for (WebcamListener l : webcam.getWebcamListeners()) {
-					try {
-						l.webcamImageObtained(we);
-					} catch (Exception e) {
-						LOG.error(String.format("Notify image acquired, exception when calling listener %s", l.getClass()), e);
-					}
-				}
-			}
+			webcam.dispatchWebcamImageAcquired(image, timestamp);
+			webcam.notified(image);
 		}
 	}
 
@@ -185,6 +184,16 @@ public class Webcam {
 	 */
 	private volatile WebcamImageTransformer transformer = null;
 
+	/**
+	 * Privacy mask applied to every image and raw buffer.
+	 */
+	private volatile WebcamPrivacyMask mask = null;
+
+	/**
+	 * Latency metrics, created on first use.
+	 */
+	private volatile WebcamMetrics metrics = null;
+
 	/**
 	 * Lock which denies access to the given webcam when it's already in use by other webcam capture
 	 * API process or thread.
@@ -215,16 +224,72 @@ public class Webcam {
 	 * available.
 	 */
 	protected void notifyWebcamImageAcquired(BufferedImage image) {
+		notifyWebcamImageAcquired(image, System.currentTimeMillis());
+	}
+
+	/**
+	 * Asynchronously start new thread which will notify all webcam listeners about the new image
+	 * available.
+	 *
+	 * @param image the acquired image
+	 * @param timestamp the time when image has been captured (ms)
+	 */
+	void notifyWebcamImageAcquired(BufferedImage image, long timestamp) {
 
 		// notify webcam listeners of new image available, do that only if there
 		// are any webcam listeners available because there is no sense to start
 		// additional threads for no purpose
 
 		if (getWebcamListenersCount() > 0) {
-			notificator.execute(new ImageNotification(this, image));
+			notificator.execute(new ImageNotification(this, image, timestamp));
+		}
+	}
+
+	/**
+	 * Pass new image to all webcam listeners, in the calling thread.
+	 *
+	 * @param image the acquired image
+	 * @param timestamp the time when image has been captured (ms)
+	 */
+	void dispatchWebcamImageAcquired(BufferedImage image, long timestamp) {
+		if (image != null) {
+			WebcamEvent we = new WebcamEvent(WebcamEventType.NEW_IMAGE, this, image, timestamp);
+			for (WebcamListener l : getWebcamListeners()) {
+				try {
+					l.webcamImageObtained(we);
+				} catch (Exception e) {
+					LOG.error(String.format("Notify image acquired, exception when calling listener %s", l.getClass()), e);
+				}
+			}
 		}
 	}
 
+	/**
+	 * Record time from image being transformed to all listeners done with it.
+	 *
+	 * @param image the image listeners have been notified about
+	 */
+	void notified(BufferedImage image) {
+		WebcamMetrics m = metrics();
+		if (m != null) {
+			WebcamFrameTrace trace = m.getTrace(image);
+			if (trace != null) {
+				long now = System.nanoTime();
+				trace.setNotified(now);
+				m.record(WebcamMetrics.Stage.NOTIFY, now - trace.getTransformed(), trace.getSequence());
+			}
+		}
+	}
+
+	/**
+	 * Execute notification in the notification thread.
+	 *
+	 * @param notification the notification to execute
+	 */
+	void executeNotification(Runnable notification) {
+		notificator.execute(notification);
+	}
+
 	/**
 	 * Open the webcam in blocking (synchronous) mode.
 	 *
@@ -463,6 +528,8 @@ public class Webcam {
 			return;
 		}
 
+		WebcamProcessor.getInstance().release(device);
+
 		WebcamEvent we = new WebcamEvent(WebcamEventType.DISPOSED, this);
 		Iterator<WebcamListener> wli = listeners.iterator();
 		WebcamListener l = null;
@@ -479,6 +546,11 @@ public class Webcam {
 
 		removeShutdownHook();
 
+		WebcamMetrics m = metrics;
+		if (m != null) {
+			m.unregister();
+		}
+
 		LOG.debug("Webcam disposed {}", getName());
 	}
 
@@ -498,13 +570,18 @@ public class Webcam {
 
 	/**
 	 * TRansform image using image transformer. If image transformer has not been set, this method
-	 * return instance passed in the argument, without any modifications.
+	 * return instance passed in the argument, without any modifications. Privacy mask, if set, is
+	 * applied before the transformer.
 	 *
 	 * @param image the image to be transformed
 	 * @return Transformed image (if transformer is set)
 	 */
 	protected BufferedImage transform(BufferedImage image) {
 		if (image != null) {
+			WebcamPrivacyMask pm = mask;
+			if (pm != null) {
+				image = pm.transform(image);
+			}
 			WebcamImageTransformer tr = getImageTransformer();
 			if (tr != null) {
 				return tr.transform(image);
@@ -657,8 +734,16 @@ public class Webcam {
 
 			// get image
 
+			WebcamMetrics m = metrics();
+
 			t1 = System.currentTimeMillis();
-			BufferedImage image = transform(new WebcamGetImageTask(driver, device).getImage());
+			long grabbed = m == null ? 0 : System.nanoTime();
+			BufferedImage image = new WebcamGetImageTask(driver, device).getImage();
+			long captured = m == null ? 0 : System.nanoTime();
+			image = transform(image);
+			if (m != null) {
+				m.captured(image, grabbed, captured, System.nanoTime());
+			}
 			t2 = System.currentTimeMillis();
 
 			if (image == null) {
@@ -676,7 +761,7 @@ public class Webcam {
 
 			// notify webcam listeners about new image available
 
-			notifyWebcamImageAcquired(image);
+			notifyWebcamImageAcquired(image, t2);
 
 			return image;
 		}
@@ -689,6 +774,14 @@ public class Webcam {
 		return true;
 	}
 
+	/**
+	 * @return Updater fetching images in non-blocking mode, or null if webcam has not been open in
+	 *         non-blocking mode
+	 */
+	public WebcamUpdater getUpdater() {
+		return asynchronous ? updater : null;
+	}
+
 	public double getFPS() {
 		if (asynchronous) {
 			return updater.getFPS();
@@ -727,7 +820,7 @@ public class Webcam {
 		if (device instanceof BufferAccess) {
 			t1 = System.currentTimeMillis();
 			try {
-				return new WebcamGetBufferTask(driver, device).getBuffer();
+				return mask(new WebcamGetBufferTask(driver, device).getBuffer());
 			} finally {
 				t2 = System.currentTimeMillis();
 				if (device instanceof WebcamDevice.FPSSource) {
@@ -770,8 +863,11 @@ public class Webcam {
 
 		if (device instanceof BufferAccess) {
 			t1 = System.currentTimeMillis();
+			int position = target.position();
 			try {
-				new WebcamReadBufferTask(driver, device, target).readBuffer();
+				if (new WebcamReadBufferTask(driver, device, target).readBuffer() != null) {
+					mask(target, position);
+				}
 			} finally {
 				t2 = System.currentTimeMillis();
 				if (device instanceof WebcamDevice.FPSSource) {
@@ -785,6 +881,114 @@ public class Webcam {
 		}
 	}
 
+	/**
+	 * Read image into frame leased from given pool. Devices with buffer access write RGB bytes
+	 * straight into the pooled buffer, for other devices image is converted, so in both cases no
+	 * new buffers are allocated for the frame data. Returned frame has one reference owned by the
+	 * caller who must {@link WebcamFrame#release()} it when done, see {@link WebcamFrame} for
+	 * details.
+	 *
+	 * @param pool the pool to lease frame from, its resolution must match view size
+	 * @return Frame, or null if webcam is not ready or all frames in pool are in use
+	 */
+	public WebcamFrame getFrame(WebcamFramePool pool) {
+
+		if (!isReady()) {
+			return null;
+		}
+
+		assert driver != null;
+		assert device != null;
+
+		Dimension size = getViewSize();
+		if (!pool.getResolution().equals(size)) {
+			throw new IllegalArgumentException(String.format("Pool resolution %dx%d differs from view size %dx%d", pool.getResolution().width, pool.getResolution().height, size.width, size.height));
+		}
+
+		WebcamFrame frame = pool.acquire();
+		if (frame == null) {
+			return null;
+		}
+
+		boolean loaded = false;
+
+		try {
+			if (device instanceof BufferAccess) {
+				long t1 = System.currentTimeMillis();
+				try {
+					loaded = new WebcamReadBufferTask(driver, device, frame.target()).readBuffer() != null;
+					if (loaded) {
+						mask(frame.target(), 0);
+					}
+				} finally {
+					long t2 = System.currentTimeMillis();
+					if (device instanceof WebcamDevice.FPSSource) {
+						fps = ((WebcamDevice.FPSSource) device).getFPS();
+					} else {
+						fps = (4 * fps + 1000 / (t2 - t1 + 1)) / 5;
+					}
+				}
+			} else {
+				BufferedImage image = getImage();
+				if (image != null) {
+					frame.load(image);
+					loaded = true;
+				}
+			}
+		} finally {
+			if (!loaded) {
+				frame.release();
+			}
+		}
+
+		if (!loaded) {
+			return null;
+		}
+
+		frame.stamp(pool.next(), System.currentTimeMillis());
+
+		return frame;
+	}
+
+	/**
+	 * Apply privacy mask to bytes read from device. Read-only buffers are copied first.
+	 *
+	 * @param buffer the RGB bytes
+	 * @return Masked bytes
+	 */
+	private ByteBuffer mask(ByteBuffer buffer) {
+		WebcamPrivacyMask pm = mask;
+		if (pm == null || buffer == null) {
+			return buffer;
+		}
+		if (buffer.isReadOnly()) {
+			ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+			copy.put(buffer.duplicate());
+			copy.flip();
+			buffer = copy;
+		}
+		Dimension size = getViewSize();
+		pm.apply(buffer, size.width, size.height);
+		return buffer;
+	}
+
+	/**
+	 * Apply privacy mask to bytes read from device into target buffer.
+	 *
+	 * @param target the target buffer, after bytes has been written
+	 * @param position the target position where bytes start
+	 */
+	private void mask(ByteBuffer target, int position) {
+		WebcamPrivacyMask pm = mask;
+		if (pm == null) {
+			return;
+		}
+		ByteBuffer view = target.duplicate();
+		view.position(position);
+		Dimension size = getViewSize();
+		pm.apply(view, size.width, size.height);
+	}
+
 	/**
 	 * If the underlying device implements Configurable interface, specified parameters are passed
 	 * to it. May be called before the open method or later in dependence of the device
@@ -877,7 +1081,7 @@ public class Webcam {
 	 * @throws WebcamException when something is wrong
 	 * @throws IllegalArgumentException when timeout is negative or tunit null
 	 */
-	public static synchronized List<Webcam> getWebcams(long timeout, TimeUnit tunit) throws TimeoutException, WebcamException {
+	public static List<Webcam> getWebcams(long timeout, TimeUnit tunit) throws TimeoutException, WebcamException {
 
 		if (timeout < 0) {
 			throw new IllegalArgumentException(String.format("Timeout cannot be negative (%d)", timeout));
@@ -886,7 +1090,13 @@ public class Webcam {
 			throw new IllegalArgumentException("Time unit cannot be null!");
 		}
 
-		WebcamDiscoveryService discovery = getDiscoveryService();
+		// discovery service locks by itself, and only until webcams are discovered for the first
+		// time, so do not block other threads here once they are
+
+		WebcamDiscoveryService discovery = Webcam.discovery;
+		if (discovery == null) {
+			discovery = getDiscoveryService();
+		}
 
 		assert discovery != null;
 
@@ -1244,6 +1454,20 @@ public class Webcam {
 		return discovery;
 	}
 
+	/**
+	 * Return webcams discovered so far, without waiting for discovery and without locking.
+	 *
+	 * @return Discovered webcams, empty list if they have not been discovered yet
+	 * @see WebcamDiscoveryService#getDiscoveredWebcams()
+	 */
+	static List<Webcam> getDiscoveredWebcams() {
+		WebcamDiscoveryService ds = discovery;
+		if (ds == null) {
+			return Collections.emptyList();
+		}
+		return ds.getDiscoveredWebcams();
+	}
+
 	/**
 	 * Return image transformer.
 	 *
@@ -1262,6 +1486,49 @@ public class Webcam {
 		this.transformer = transformer;
 	}
 
+	/**
+	 * Get latency metrics of this webcam, see {@link WebcamMetrics}.
+	 *
+	 * @return Metrics of this webcam
+	 */
+	public WebcamMetrics getMetrics() {
+		WebcamMetrics m = metrics;
+		if (m == null) {
+			synchronized (this) {
+				m = metrics;
+				if (m == null) {
+					metrics = m = new WebcamMetrics(this);
+				}
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * @return Metrics to record into, or null when metrics are disabled
+	 */
+	WebcamMetrics metrics() {
+		return WebcamMetrics.isEnabled() ? getMetrics() : null;
+	}
+
+	/**
+	 * @return Privacy mask, or null if it has not been set
+	 */
+	public WebcamPrivacyMask getPrivacyMask() {
+		return mask;
+	}
+
+	/**
+	 * Set privacy mask. It is applied to every image before image transformer, and to raw bytes
+	 * from {@link #getImageBytes()}, {@link #getImageBytes(ByteBuffer)} and
+	 * {@link #getFrame(WebcamFramePool)}, so no consumer gets unmasked image.
+	 *
+	 * @param mask the privacy mask, or null to remove it
+	 */
+	public void setPrivacyMask(WebcamPrivacyMask mask) {
+		this.mask = mask;
+	}
+
 	/**
 	 * Return webcam lock.
 	 *
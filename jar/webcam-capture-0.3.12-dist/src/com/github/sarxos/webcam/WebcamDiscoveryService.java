@@ -2,9 +2,10 @@ package com.github.sarxos.webcam;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -45,11 +46,72 @@ public class WebcamDiscoveryService implements Runnable {
 		}
 	}
 
+	/**
+	 * Device name and its occurrence among devices with the same name. Several identical cameras
+	 * usually report the same name, so the n-th one of them is matched with the n-th one found in
+	 * previous scan.
+	 */
+	private static final class DeviceKey {
+
+		private final String name;
+		private final int occurrence;
+
+		public DeviceKey(String name, int occurrence) {
+			this.name = name;
+			this.occurrence = occurrence;
+		}
+
+		/**
+		 * Create key for next device with given name.
+		 *
+		 * @param name the device name
+		 * @param occurrences the number of devices seen so far by name, updated
+		 * @return Key of the device
+		 */
+		public static DeviceKey next(String name, Map<String, Integer> occurrences) {
+			Integer n = occurrences.get(name);
+			int occurrence = n == null ? 0 : n;
+			occurrences.put(name, occurrence + 1);
+			return new DeviceKey(name, occurrence);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof DeviceKey)) {
+				return false;
+			}
+			DeviceKey other = (DeviceKey) o;
+			return occurrence == other.occurrence && name.equals(other.name);
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode() * 31 + occurrence;
+		}
+	}
+
 	private final WebcamDriver driver;
 	private final WebcamDiscoverySupport support;
 
+	/**
+	 * Published webcams list. It is never modified, but replaced with new one when devices change,
+	 * so readers do not need any lock.
+	 */
 	private volatile List<Webcam> webcams = null;
 
+	/**
+	 * Webcams by device name and occurrence, in driver order, guarded by lock.
+	 */
+	private Map<DeviceKey, Webcam> index = null;
+
+	/**
+	 * Guards discovery and scans.
+	 */
+	private final Object lock = new Object();
+
 	private AtomicBoolean running = new AtomicBoolean(false);
 	private AtomicBoolean enabled = new AtomicBoolean(true);
 
@@ -73,19 +135,6 @@ public class WebcamDiscoveryService implements Runnable {
 		return webcams;
 	}
 
-	/**
-	 * Get list of devices used by webcams.
-	 * 
-	 * @return List of webcam devices
-	 */
-	private static List<WebcamDevice> getDevices(List<Webcam> webcams) {
-		List<WebcamDevice> devices = new ArrayList<WebcamDevice>();
-		for (Webcam webcam : webcams) {
-			devices.add(webcam.getDevice());
-		}
-		return devices;
-	}
-
 	public List<Webcam> getWebcams(long timeout, TimeUnit tunit) throws TimeoutException {
 
 		if (timeout < 0) {
@@ -96,9 +145,16 @@ public class WebcamDiscoveryService implements Runnable {
 			throw new IllegalArgumentException("Time unit cannot be null!");
 		}
 
+		// already discovered, do not lock
+
+		List<Webcam> current = webcams;
+		if (current != null) {
+			return current;
+		}
+
 		List<Webcam> tmp = null;
 
-		synchronized (Webcam.class) {
+		synchronized (lock) {
 
 			if (webcams == null) {
 
@@ -113,7 +169,7 @@ public class WebcamDiscoveryService implements Runnable {
 					executor.awaitTermination(timeout, tunit);
 
 					if (future.isDone()) {
-						webcams = future.get();
+						tmp = future.get();
 					} else {
 						future.cancel(true);
 					}
@@ -124,14 +180,22 @@ public class WebcamDiscoveryService implements Runnable {
 					throw new WebcamException(e);
 				}
 
-				if (webcams == null) {
+				if (tmp == null) {
 					throw new TimeoutException(String.format("Webcams discovery timeout (%d ms) has been exceeded", timeout));
 				}
 
-				tmp = new ArrayList<Webcam>(webcams);
+				Map<DeviceKey, Webcam> discovered = new LinkedHashMap<DeviceKey, Webcam>();
+				Map<String, Integer> occurrences = new HashMap<String, Integer>();
+				for (Webcam webcam : tmp) {
+					discovered.put(DeviceKey.next(webcam.getDevice().getName(), occurrences), webcam);
+				}
+
+				publish(discovered);
+
+				tmp = webcams;
 
 				if (Webcam.isHandleTermSignal()) {
-					WebcamDeallocator.store(webcams.toArray(new Webcam[webcams.size()]));
+					WebcamDeallocator.store(tmp.toArray(new Webcam[tmp.size()]));
 				}
 			}
 		}
@@ -143,94 +207,95 @@ public class WebcamDiscoveryService implements Runnable {
 			}
 		}
 
-		return Collections.unmodifiableList(webcams);
+		return webcams;
+	}
+
+	/**
+	 * Get webcams discovered so far. Unlike {@link #getWebcams(long, TimeUnit)} it never waits for
+	 * discovery and does not lock, so it can be used while other thread is blocked in discovery.
+	 *
+	 * @return Discovered webcams, empty list if initial discovery has not completed yet
+	 */
+	List<Webcam> getDiscoveredWebcams() {
+		List<Webcam> tmp = webcams;
+		if (tmp == null) {
+			return Collections.emptyList();
+		}
+		return tmp;
 	}
 
 	/**
-	 * Scan for newly added or already removed webcams.
+	 * Scan for newly added or already removed webcams. Devices are matched by name (the n-th device
+	 * with given name matches the n-th one from previous scan), webcams of
+	 * devices which are still there are kept as they are, and new webcams list is published only
+	 * when something has changed.
 	 */
 	public void scan() {
 
 		WebcamDiscoveryListener[] listeners = Webcam.getDiscoveryListeners();
 
-		List<WebcamDevice> tmpnew = driver.getDevices();
-		List<WebcamDevice> tmpold = null;
+		// make sure initial discovery has been done
 
 		try {
-			tmpold = getDevices(getWebcams(Long.MAX_VALUE, TimeUnit.MILLISECONDS));
+			getWebcams(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
 		} catch (TimeoutException e) {
 			throw new WebcamException(e);
 		}
 
-		// convert to linked list due to O(1) on remove operation on
-		// iterator versus O(n) for the same operation in array list
-
-		List<WebcamDevice> oldones = new LinkedList<WebcamDevice>(tmpold);
-		List<WebcamDevice> newones = new LinkedList<WebcamDevice>(tmpnew);
-
-		Iterator<WebcamDevice> oi = oldones.iterator();
-		Iterator<WebcamDevice> ni = null;
+		List<WebcamDevice> devices = driver.getDevices();
 
-		WebcamDevice od = null; // old device
-		WebcamDevice nd = null; // new device
+		List<Webcam> found = new ArrayList<Webcam>();
+		List<Webcam> gone = new ArrayList<Webcam>();
 
-		// reduce lists
+		synchronized (lock) {
 
-		while (oi.hasNext()) {
+			Map<DeviceKey, Webcam> current = new LinkedHashMap<DeviceKey, Webcam>(devices.size() * 4 / 3 + 1);
+			Map<String, Integer> occurrences = new HashMap<String, Integer>();
 
-			od = oi.next();
-			ni = newones.iterator();
+			for (WebcamDevice device : devices) {
 
-			while (ni.hasNext()) {
+				DeviceKey key = DeviceKey.next(device.getName(), occurrences);
 
-				nd = ni.next();
-
-				// remove both elements, if device name is the same, which
-				// actually means that device is exactly the same
-
-				if (nd.getName().equals(od.getName())) {
-					ni.remove();
-					oi.remove();
-					break;
+				Webcam webcam = index.get(key);
+				if (webcam == null) {
+					webcam = new Webcam(device);
+					found.add(webcam);
 				}
-			}
-		}
 
-		// if any left in old ones it means that devices has been removed
-		if (oldones.size() > 0) {
+				current.put(key, webcam);
+			}
 
-			List<Webcam> notified = new ArrayList<Webcam>();
+			// all kept webcams come from index, so if there are less of them than in index, some
+			// devices have been removed
 
-			for (WebcamDevice device : oldones) {
-				for (Webcam webcam : webcams) {
-					if (webcam.getDevice().getName().equals(device.getName())) {
-						notified.add(webcam);
-						break;
+			if (current.size() - found.size() < index.size()) {
+				for (Map.Entry<DeviceKey, Webcam> entry : index.entrySet()) {
+					if (!current.containsKey(entry.getKey())) {
+						gone.add(entry.getValue());
 					}
 				}
 			}
 
-			setCurrentWebcams(tmpnew);
+			if (found.isEmpty() && gone.isEmpty()) {
+				return;
+			}
+
+			publish(current);
 
-			for (Webcam webcam : notified) {
-				notifyWebcamGone(webcam, listeners);
-				webcam.dispose();
+			if (Webcam.isHandleTermSignal()) {
+				List<Webcam> tmp = webcams;
+				WebcamDeallocator.unstore();
+				WebcamDeallocator.store(tmp.toArray(new Webcam[tmp.size()]));
 			}
 		}
 
-		// if any left in new ones it means that devices has been added
-		if (newones.size() > 0) {
-
-			setCurrentWebcams(tmpnew);
+		for (Webcam webcam : gone) {
+			notifyWebcamGone(webcam, listeners);
+			webcam.dispose();
+		}
 
-			for (WebcamDevice device : newones) {
-				for (Webcam webcam : webcams) {
-					if (webcam.getDevice().getName().equals(device.getName())) {
-						notifyWebcamFound(webcam, listeners);
-						break;
-					}
-				}
-			}
+		for (Webcam webcam : found) {
+			notifyWebcamFound(webcam, listeners);
 		}
 	}
 
@@ -269,12 +334,12 @@ public class WebcamDiscoveryService implements Runnable {
 		LOG.debug("Webcam discovery service loop has been stopped");
 	}
 
-	private void setCurrentWebcams(List<WebcamDevice> devices) {
-		webcams = toWebcams(devices);
-		if (Webcam.isHandleTermSignal()) {
-			WebcamDeallocator.unstore();
-			WebcamDeallocator.store(webcams.toArray(new Webcam[webcams.size()]));
-		}
+	/**
+	 * Publish new webcams, must be called with lock held.
+	 */
+	private void publish(Map<DeviceKey, Webcam> current) {
+		index = current;
+		webcams = Collections.unmodifiableList(new ArrayList<Webcam>(current.values()));
 	}
 
 	private static void notifyWebcamGone(Webcam webcam, WebcamDiscoveryListener[] listeners) {
@@ -381,22 +446,22 @@ public class WebcamDiscoveryService implements Runnable {
 
 		stop();
 
-		if (webcams == null)
+		List<Webcam> current = webcams;
+		if (current == null) {
 			return;
+		}
 
 		// dispose all webcams
 
-		Iterator<Webcam> wi = webcams.iterator();
-		while (wi.hasNext()) {
-			Webcam webcam = wi.next();
+		for (Webcam webcam : current) {
 			webcam.dispose();
 		}
 
-		synchronized (Webcam.class) {
+		synchronized (lock) {
 
 			// clear webcams list
 
-			webcams.clear();
+			publish(new LinkedHashMap<DeviceKey, Webcam>());
 
 			// unassign webcams from deallocator
 
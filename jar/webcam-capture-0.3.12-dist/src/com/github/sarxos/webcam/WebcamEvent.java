@@ -23,6 +23,11 @@ public class WebcamEvent extends EventObject {
 	 */
 	private WebcamEventType type = null;
 
+	/**
+	 * Time when image has been captured or event occurred.
+	 */
+	private final long timestamp;
+
 	/**
 	 * Webcam event.
 	 * 
@@ -41,9 +46,22 @@ public class WebcamEvent extends EventObject {
 	 * @param image the image acquired from webcam
 	 */
 	public WebcamEvent(WebcamEventType type, Webcam w, BufferedImage image) {
+		this(type, w, image, System.currentTimeMillis());
+	}
+
+	/**
+	 * Webcam event.
+	 *
+	 * @param type the event type
+	 * @param w the webcam object
+	 * @param image the image acquired from webcam
+	 * @param timestamp the time when image has been captured (ms)
+	 */
+	public WebcamEvent(WebcamEventType type, Webcam w, BufferedImage image, long timestamp) {
 		super(w);
 		this.type = type;
 		this.image = image;
+		this.timestamp = timestamp;
 	}
 
 	@Override
@@ -71,4 +89,14 @@ public class WebcamEvent extends EventObject {
 	public WebcamEventType getType() {
 		return type;
 	}
+
+	/**
+	 * Return time when image has been captured, for new image events, or time when event has been
+	 * created for all other events.
+	 *
+	 * @return Timestamp in milliseconds
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
 }
@@ -0,0 +1,434 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Dimension;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.StackPane;
+import javafx.util.Callback;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * JavaFX counterpart of {@link WebcamPanel}. Images are displayed through {@link WritableImage}
+ * backed by {@link PixelBuffer}, so there is no {@link java.awt.image.BufferedImage} to JavaFX
+ * image conversion and no new image per frame.
+ * <p>
+ * Background thread reads frames from {@link WebcamFramePool}, converts them to BGRA and passes
+ * them to the FX thread through three reused buffers, so neither side ever waits for the other.
+ * View is updated on FX pulse with the newest frame only, frames which became stale before the
+ * pulse are skipped. FPS and latency (from the moment frame was read from webcam to the moment it
+ * was handed over to JavaFX) can be displayed in the top left corner.
+ * <p>
+ * Methods {@link #start()} and {@link #stop()} have to be called from FX application thread.
+ */
+public class WebcamFXView extends StackPane {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamFXView.class);
+
+	/**
+	 * Default FPS limit.
+	 */
+	public static final double DEFAULT_FPS = 30;
+
+	/**
+	 * How often overlay text is refreshed (ms).
+	 */
+	private static final long OVERLAY_INTERVAL = 500;
+
+	private static final class ViewThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger number = new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, String.format("webcam-fx-view-%d", number.incrementAndGet()));
+			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	private static final ThreadFactory THREAD_FACTORY = new ViewThreadFactory();
+
+	/**
+	 * BGRA frame exchanged between grabber and FX thread.
+	 */
+	private static final class Slot {
+
+		private ByteBuffer data = ByteBuffer.allocateDirect(0);
+		private int width;
+		private int height;
+		private long sequence;
+		private long captured; // System.nanoTime()
+
+		private void resize(int width, int height) {
+			int capacity = width * height * 4;
+			if (data.capacity() < capacity) {
+				data = ByteBuffer.allocateDirect(capacity);
+			}
+			data.clear().limit(capacity);
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	/**
+	 * Reads frames from webcam and publishes them as the newest slot. Every start of the view has
+	 * its own grabber, which closes webcam at the end only if it has opened it itself.
+	 */
+	private class Grabber implements Runnable {
+
+		private final AtomicBoolean active = new AtomicBoolean(true);
+
+		private Slot back = new Slot();
+		private byte[] rgb = new byte[0];
+		private byte[] bgra = new byte[0];
+
+		@Override
+		public void run() {
+
+			boolean opened = false;
+
+			try {
+				if (!webcam.isOpen()) {
+					if (!webcam.open()) {
+						LOG.error("Cannot open webcam {}", webcam.getName());
+						return;
+					}
+					opened = true;
+				}
+
+				Dimension size = webcam.getViewSize();
+				WebcamFramePool pool = new WebcamFramePool(1, size, true);
+				long deadline = System.nanoTime();
+
+				while (active.get() && !Thread.currentThread().isInterrupted()) {
+
+					long period = (long) (1000000000 / fps);
+					long delay = deadline - System.nanoTime();
+					if (delay > 0) {
+						Thread.sleep(delay / 1000000, (int) (delay % 1000000));
+					}
+					deadline = Math.max(deadline + period, System.nanoTime() - period);
+
+					if (!webcam.getViewSize().equals(size)) {
+						size = webcam.getViewSize();
+						pool = new WebcamFramePool(1, size, true);
+					}
+
+					long captured = System.nanoTime();
+					WebcamFrame frame = webcam.getFrame(pool);
+					if (frame == null) {
+						continue;
+					}
+
+					try {
+						convert(frame);
+					} finally {
+						frame.release();
+					}
+
+					back.sequence = sequence.incrementAndGet();
+					back.captured = captured;
+					back = ready.getAndSet(back);
+					grabbed++;
+				}
+			} catch (InterruptedException e) {
+				LOG.trace("Grabber has been interrupted");
+			} finally {
+				if (opened) {
+					webcam.close();
+				}
+			}
+		}
+
+		/**
+		 * Convert RGB frame to BGRA, row by row, so both buffers are accessed in bulk.
+		 */
+		private void convert(WebcamFrame frame) {
+
+			int w = frame.getWidth();
+			int h = frame.getHeight();
+
+			if (rgb.length != w * 3) {
+				rgb = new byte[w * 3];
+				bgra = new byte[w * 4];
+				for (int i = 3; i < bgra.length; i += 4) {
+					bgra[i] = (byte) 0xff;
+				}
+			}
+
+			back.resize(w, h);
+
+			ByteBuffer source = frame.getBuffer();
+			ByteBuffer target = back.data;
+
+			for (int y = 0; y < h; y++) {
+				source.get(rgb);
+				for (int i = 0, j = 0; i < rgb.length; i += 3, j += 4) {
+					bgra[j] = rgb[i + 2];
+					bgra[j + 1] = rgb[i + 1];
+					bgra[j + 2] = rgb[i];
+				}
+				target.put(bgra);
+			}
+
+			target.flip();
+		}
+	}
+
+	/**
+	 * Copies the newest frame into pixel buffer on every FX pulse.
+	 */
+	private class Pulse extends AnimationTimer {
+
+		private final Callback<PixelBuffer<ByteBuffer>, Rectangle2D> update = new Callback<PixelBuffer<ByteBuffer>, Rectangle2D>() {
+
+			@Override
+			public Rectangle2D call(PixelBuffer<ByteBuffer> pb) {
+				ByteBuffer target = pb.getBuffer();
+				target.clear();
+				target.put(front.data.duplicate());
+				return null; // whole buffer is dirty
+			}
+		};
+
+		private Slot front = new Slot();
+		private long shown = 0;
+		private long period = 0;
+		private long frames = 0;
+		private double latencies = 0;
+
+		@Override
+		public void handle(long now) {
+
+			// sequence is only a hint until slot is swapped in, grabber may be reusing it already
+
+			if (ready.get().sequence > shown && (front = ready.getAndSet(front)).sequence > shown) {
+
+				if (shown > 0) {
+					skipped += front.sequence - shown - 1;
+				}
+				shown = front.sequence;
+
+				if (pixels == null || pixels.getWidth() != front.width || pixels.getHeight() != front.height) {
+					ByteBuffer buffer = ByteBuffer.allocateDirect(front.width * front.height * 4);
+					pixels = new PixelBuffer<ByteBuffer>(front.width, front.height, buffer, PixelFormat.getByteBgraPreInstance());
+					view.setImage(new WritableImage(pixels));
+				}
+
+				pixels.updateBuffer(update);
+
+				double ms = (System.nanoTime() - front.captured) / 1000000.0;
+				latencies += ms;
+				displayed++;
+				frames++;
+			}
+
+			if (period == 0) {
+				period = now;
+			} else if (now - period >= OVERLAY_INTERVAL * 1000000) {
+				double seconds = (now - period) / 1000000000.0;
+				currentFPS = frames / seconds;
+				currentLatency = frames == 0 ? 0 : latencies / frames;
+				period = now;
+				frames = 0;
+				latencies = 0;
+				if (overlay.isVisible()) {
+					overlay.setText(String.format("%.1f FPS, %.0f ms", currentFPS, currentLatency));
+				}
+			}
+		}
+	}
+
+	private final Webcam webcam;
+	private final ImageView view = new ImageView();
+	private final Label overlay = new Label();
+	private final Pulse pulse = new Pulse();
+	private final AtomicBoolean running = new AtomicBoolean(false);
+
+	/**
+	 * The newest frame, swapped with grabber back slot and FX front slot.
+	 */
+	private final AtomicReference<Slot> ready = new AtomicReference<Slot>(new Slot());
+
+	/**
+	 * Frame sequence, kept across restarts, since FX thread only shows frames newer than the last
+	 * one shown.
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	private PixelBuffer<ByteBuffer> pixels = null;
+	private Grabber grabber = null;
+
+	private Thread grabberThread = null;
+	private volatile double fps = DEFAULT_FPS;
+	private volatile long grabbed = 0;
+	private volatile long displayed = 0;
+	private volatile long skipped = 0;
+	private volatile double currentFPS = 0;
+	private volatile double currentLatency = 0;
+
+	/**
+	 * Creates view for given webcam. Rendering is not started until {@link #start()} is called.
+	 *
+	 * @param webcam the webcam to display images from
+	 */
+	public WebcamFXView(Webcam webcam) {
+
+		if (webcam == null) {
+			throw new IllegalArgumentException("Webcam cannot be null");
+		}
+
+		this.webcam = webcam;
+
+		view.setPreserveRatio(true);
+		view.fitWidthProperty().bind(widthProperty());
+		view.fitHeightProperty().bind(heightProperty());
+
+		overlay.setStyle("-fx-text-fill: white; -fx-background-color: rgba(0,0,0,0.5); -fx-padding: 2 4 2 4;");
+		overlay.setMouseTransparent(true);
+		overlay.setVisible(false);
+
+		setMinSize(0, 0);
+		setAlignment(overlay, Pos.TOP_LEFT);
+		getChildren().addAll(view, overlay);
+	}
+
+	/**
+	 * Open webcam and start rendering.
+	 */
+	public void start() {
+
+		if (!running.compareAndSet(false, true)) {
+			return;
+		}
+
+		LOG.debug("Starting view rendering and trying to open attached webcam");
+
+		grabber = new Grabber();
+		grabberThread = THREAD_FACTORY.newThread(grabber);
+		grabberThread.start();
+		pulse.start();
+	}
+
+	/**
+	 * Stop rendering and close webcam, if it has been opened by this view. Waits for grabber to
+	 * finish, so webcam is already closed when this method returns and the next {@link #start()}
+	 * cannot race with it.
+	 */
+	public void stop() {
+
+		if (!running.compareAndSet(true, false)) {
+			return;
+		}
+
+		LOG.debug("Stopping view rendering and closing attached webcam");
+
+		pulse.stop();
+
+		grabber.active.set(false);
+		grabberThread.interrupt();
+
+		try {
+			grabberThread.join();
+		} catch (InterruptedException e) {
+			LOG.trace("Interrupted while waiting for grabber to stop");
+			Thread.currentThread().interrupt();
+		}
+
+		grabber = null;
+		grabberThread = null;
+	}
+
+	public boolean isStarted() {
+		return running.get();
+	}
+
+	public Webcam getWebcam() {
+		return webcam;
+	}
+
+	/**
+	 * @return Maximum number of frames read from webcam per second
+	 */
+	public double getFPSLimit() {
+		return fps;
+	}
+
+	/**
+	 * Set maximum number of frames read from webcam per second. There is no point in setting it
+	 * above display refresh rate, frames which do not make it to FX pulse are skipped anyway.
+	 *
+	 * @param fps the FPS limit
+	 */
+	public void setFPSLimit(double fps) {
+		if (fps <= 0) {
+			throw new IllegalArgumentException("FPS limit must be positive");
+		}
+		this.fps = fps;
+	}
+
+	public boolean isOverlayDisplayed() {
+		return overlay.isVisible();
+	}
+
+	/**
+	 * Display FPS and latency in the top left corner.
+	 *
+	 * @param displayed true to display overlay
+	 */
+	public void setOverlayDisplayed(boolean displayed) {
+		overlay.setVisible(displayed);
+	}
+
+	/**
+	 * @return Frames displayed per second, measured on FX thread
+	 */
+	public double getFPS() {
+		return currentFPS;
+	}
+
+	/**
+	 * @return Average time between reading frame from webcam and displaying it (ms)
+	 */
+	public double getLatency() {
+		return currentLatency;
+	}
+
+	/**
+	 * @return Number of frames read from webcam
+	 */
+	public long getGrabbedFrames() {
+		return grabbed;
+	}
+
+	/**
+	 * @return Number of frames displayed
+	 */
+	public long getDisplayedFrames() {
+		return displayed;
+	}
+
+	/**
+	 * @return Number of frames replaced by newer ones before FX pulse came
+	 */
+	public long getSkippedFrames() {
+		return skipped;
+	}
+}
@@ -0,0 +1,232 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Frame leased from {@link WebcamFramePool}. It holds RGB bytes, 3 per pixel, with components on
+ * (0, 1, 2) and sRGB color space, the same layout as returned by {@link Webcam#getImageBytes()}.
+ * <p>
+ * Frame is reference counted. It is returned by {@link Webcam#getFrame(WebcamFramePool)} with one
+ * reference owned by the caller. Every consumer which keeps the frame after handing it over
+ * (streamer, motion detector, recorder, etc) should call {@link #retain()} and then
+ * {@link #release()} when done. When the last reference is released the buffer goes back to the
+ * pool and will be overwritten by one of the next frames, so it must not be used afterwards.
+ */
+public class WebcamFrame {
+
+	private final WebcamFramePool pool;
+
+	private final ByteBuffer data;
+
+	private final int width;
+
+	private final int height;
+
+	private final AtomicInteger references = new AtomicInteger();
+
+	private volatile long sequence = -1;
+
+	private volatile long timestamp = -1;
+
+	/**
+	 * Image view of the frame data, created on first use.
+	 */
+	private BufferedImage image = null;
+
+	/**
+	 * Is image up to date with data (always true for heap frames since they share the array).
+	 */
+	private boolean imageLoaded = false;
+
+	/**
+	 * Row buffer used when frame is loaded from image.
+	 */
+	private int[] row = null;
+
+	WebcamFrame(WebcamFramePool pool, ByteBuffer data, int width, int height) {
+		this.pool = pool;
+		this.data = data;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Add reference to this frame.
+	 *
+	 * @return this frame
+	 * @throws IllegalStateException when frame has already been released back to the pool
+	 */
+	public WebcamFrame retain() {
+		for (;;) {
+			int count = references.get();
+			if (count <= 0) {
+				throw new IllegalStateException("Frame has already been released");
+			}
+			if (references.compareAndSet(count, count + 1)) {
+				return this;
+			}
+		}
+	}
+
+	/**
+	 * Remove reference from this frame. Frame is returned to the pool when last reference is
+	 * released.
+	 *
+	 * @throws IllegalStateException when frame has already been released back to the pool
+	 */
+	public void release() {
+		for (;;) {
+			int count = references.get();
+			if (count <= 0) {
+				throw new IllegalStateException("Frame has already been released");
+			}
+			if (references.compareAndSet(count, count - 1)) {
+				if (count == 1) {
+					pool.recycle(this);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return number of references held on this frame
+	 */
+	public int getReferences() {
+		return references.get();
+	}
+
+	/**
+	 * Get frame data. Every call returns new read-only view with its own position and limit, so
+	 * consumers do not interfere with each other. No bytes are copied.
+	 *
+	 * @return Read-only RGB bytes of this frame
+	 */
+	public ByteBuffer getBuffer() {
+		ByteBuffer view = data.asReadOnlyBuffer();
+		view.clear();
+		return view;
+	}
+
+	/**
+	 * Get frame as image. For heap pools the image shares frame bytes. For direct pools bytes are
+	 * copied into an image kept with the frame slot, once per lease. Either way image must be
+	 * treated as read-only and dropped when frame is released.
+	 *
+	 * @return Image backed by this frame slot
+	 */
+	public synchronized BufferedImage getImage() {
+
+		if (image == null) {
+			byte[] bytes = data.hasArray() ? data.array() : new byte[data.capacity()];
+			ComponentColorModel cm = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+			WritableRaster raster = Raster.createInterleavedRaster(new DataBufferByte(bytes, bytes.length), width, height, width * 3, 3, new int[] { 0, 1, 2 }, null);
+			image = new BufferedImage(cm, raster, false, null);
+			imageLoaded = data.hasArray();
+		}
+
+		if (!imageLoaded) {
+			ByteBuffer view = data.duplicate();
+			view.clear();
+			view.get(((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+			imageLoaded = true;
+		}
+
+		return image;
+	}
+
+	/**
+	 * @return Frame width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return Frame height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Sequential number of this frame in the pool, starting from 0
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return Time when frame has been captured, in milliseconds
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Mark frame as leased by one owner.
+	 */
+	void lease() {
+		references.set(1);
+	}
+
+	/**
+	 * @return Writable buffer to read device bytes into, cleared
+	 */
+	ByteBuffer target() {
+		data.clear();
+		return data;
+	}
+
+	/**
+	 * Convert image into frame bytes.
+	 *
+	 * @param source the image to convert, must be the same size as frame
+	 */
+	void load(BufferedImage source) {
+
+		if (source.getWidth() != width || source.getHeight() != height) {
+			throw new IllegalArgumentException(String.format("Image size %dx%d differs from frame size %dx%d", source.getWidth(), source.getHeight(), width, height));
+		}
+
+		if (row == null) {
+			row = new int[width];
+		}
+
+		WebcamRasterLayout layout = WebcamRasterLayout.of(source);
+		ByteBuffer target = target();
+
+		for (int y = 0; y < height; y++) {
+			if (layout != null) {
+				layout.readRow(y, 0, width, row);
+			} else {
+				source.getRGB(0, y, width, 1, row, 0, width);
+			}
+			for (int x = 0; x < width; x++) {
+				int rgb = row[x];
+				target.put((byte) (rgb >> 16));
+				target.put((byte) (rgb >> 8));
+				target.put((byte) rgb);
+			}
+		}
+	}
+
+	/**
+	 * Set frame metadata after data has been written.
+	 */
+	synchronized void stamp(long sequence, long timestamp) {
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.imageLoaded = image != null && data.hasArray();
+	}
+}
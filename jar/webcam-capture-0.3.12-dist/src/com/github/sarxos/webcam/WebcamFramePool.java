@@ -0,0 +1,165 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Dimension;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Fixed ring of reusable frame buffers. Frames are filled by
+ * {@link Webcam#getFrame(WebcamFramePool)} and shared between consumers with reference counting
+ * (see {@link WebcamFrame}), so after the pool has been created no further buffers are allocated
+ * no matter how many frames are read.
+ * <p>
+ * When all frames are leased the pool does not grow. {@link #acquire()} returns null instead and
+ * miss counter is incremented, which means some consumer keeps frames for too long or the pool is
+ * too small.
+ */
+public class WebcamFramePool {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamFramePool.class);
+
+	private final BlockingQueue<WebcamFrame> free;
+
+	private final int size;
+
+	private final Dimension resolution;
+
+	private final boolean direct;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Create pool of direct buffers.
+	 *
+	 * @param size the number of frames in the pool
+	 * @param resolution the frame resolution
+	 */
+	public WebcamFramePool(int size, Dimension resolution) {
+		this(size, resolution, true);
+	}
+
+	/**
+	 * @param size the number of frames in the pool
+	 * @param resolution the frame resolution
+	 * @param direct true to allocate direct buffers, false for heap ones (images of heap frames
+	 *            share bytes with the buffer)
+	 */
+	public WebcamFramePool(int size, Dimension resolution, boolean direct) {
+
+		if (size < 1) {
+			throw new IllegalArgumentException("Pool size must be positive");
+		}
+		if (resolution == null) {
+			throw new IllegalArgumentException("Resolution cannot be null");
+		}
+
+		this.size = size;
+		this.resolution = new Dimension(resolution);
+		this.direct = direct;
+		this.free = new ArrayBlockingQueue<WebcamFrame>(size);
+
+		int w = resolution.width;
+		int h = resolution.height;
+		int length = w * h * 3;
+
+		for (int i = 0; i < size; i++) {
+			ByteBuffer data = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+			free.add(new WebcamFrame(this, data, w, h));
+		}
+
+		LOG.debug("Frame pool with {} {} buffers of {} bytes created", size, direct ? "direct" : "heap", length);
+	}
+
+	/**
+	 * Lease free frame. Returned frame has one reference which belongs to the caller.
+	 *
+	 * @return Free frame or null if all frames are in use
+	 */
+	public WebcamFrame acquire() {
+		WebcamFrame frame = free.poll();
+		if (frame == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		frame.lease();
+		return frame;
+	}
+
+	/**
+	 * Lease free frame, waiting if all frames are in use.
+	 *
+	 * @param timeout how long to wait
+	 * @param unit the timeout unit
+	 * @return Free frame or null if none has been released before timeout
+	 * @throws InterruptedException when interrupted while waiting
+	 */
+	public WebcamFrame acquire(long timeout, TimeUnit unit) throws InterruptedException {
+		WebcamFrame frame = free.poll(timeout, unit);
+		if (frame == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		frame.lease();
+		return frame;
+	}
+
+	/**
+	 * Called by frame when last reference is released.
+	 */
+	void recycle(WebcamFrame frame) {
+		if (!free.offer(frame)) {
+			throw new IllegalStateException("Frame returned to the pool twice");
+		}
+	}
+
+	/**
+	 * @return Next frame sequence number
+	 */
+	long next() {
+		return sequence.getAndIncrement();
+	}
+
+	/**
+	 * @return Number of frames in the pool
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return Number of frames not leased at the moment
+	 */
+	public int getAvailable() {
+		return free.size();
+	}
+
+	/**
+	 * @return How many times frame could not be acquired because all were in use
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return Frame resolution
+	 */
+	public Dimension getResolution() {
+		return new Dimension(resolution);
+	}
+
+	/**
+	 * @return True if frames are backed by direct buffers
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+}
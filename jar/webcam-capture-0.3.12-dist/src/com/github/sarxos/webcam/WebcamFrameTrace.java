@@ -0,0 +1,104 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
+
+
+/**
+ * Times at which one image passed the stages of capture stack, from {@link System#nanoTime()}.
+ * Trace is created when image is captured and filled in by threads which handle the image later,
+ * see {@link WebcamMetrics#getTrace(BufferedImage)}. Times of stages image has not passed (yet)
+ * are -1.
+ */
+public class WebcamFrameTrace {
+
+	private final long sequence;
+
+	/**
+	 * Image is only referenced weakly, so traces do not keep images in memory.
+	 */
+	private final WeakReference<BufferedImage> image;
+
+	private final long grabbed;
+	private final long captured;
+	private final long transformed;
+
+	private volatile long notified = -1;
+	private volatile long encoded = -1;
+	private volatile long sent = -1;
+
+	WebcamFrameTrace(long sequence, BufferedImage image, long grabbed, long captured, long transformed) {
+		this.sequence = sequence;
+		this.image = new WeakReference<BufferedImage>(image);
+		this.grabbed = grabbed;
+		this.captured = captured;
+		this.transformed = transformed;
+	}
+
+	boolean isTraceOf(BufferedImage image) {
+		return this.image.get() == image;
+	}
+
+	void setNotified(long notified) {
+		this.notified = notified;
+	}
+
+	void setEncoded(long encoded) {
+		this.encoded = encoded;
+	}
+
+	void setSent(long sent) {
+		if (this.sent == -1) {
+			this.sent = sent;
+		}
+	}
+
+	/**
+	 * @return Sequential number of captured image, starting from 0
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return When device has been asked for image
+	 */
+	public long getGrabbed() {
+		return grabbed;
+	}
+
+	/**
+	 * @return When device has returned image
+	 */
+	public long getCaptured() {
+		return captured;
+	}
+
+	/**
+	 * @return When image has been masked and transformed
+	 */
+	public long getTransformed() {
+		return transformed;
+	}
+
+	/**
+	 * @return When all webcam listeners have been notified about the image
+	 */
+	public long getNotified() {
+		return notified;
+	}
+
+	/**
+	 * @return When image has been encoded by streamer
+	 */
+	public long getEncoded() {
+		return encoded;
+	}
+
+	/**
+	 * @return When the last byte of image has been written to the first streamer client
+	 */
+	public long getSent() {
+		return sent;
+	}
+}
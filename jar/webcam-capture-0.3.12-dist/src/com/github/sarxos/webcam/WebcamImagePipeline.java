@@ -0,0 +1,890 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Image transformer made of stages, e.g. crop, rotate, downscale, gray, normalize and privacy mask,
+ * applied one after another on every frame. Unlike chaining {@link WebcamImageTransformer}s or JH
+ * filters, which allocate new image in every step, pipeline reads the frame once into packed RGB
+ * buffer and passes it through all stages:
+ * <ul>
+ * <li>{@link RowFilter}s and {@link PixelFilter}s change buffer in place, and adjacent ones are
+ * fused into one pass, row by row, so every row is read from memory once for all of them,</li>
+ * <li>{@link Geometry} stages write into new buffer taken from pool shared by all pipelines, and
+ * the old one goes back to the pool,</li>
+ * <li>{@link ImageFilter}s need whole image at once (e.g. to compute histogram) and change it in
+ * place,</li>
+ * <li>plain {@link WebcamImageTransformer}s can be added too, but they work on images and break
+ * fusion.</li>
+ * </ul>
+ * The result is {@link BufferedImage#TYPE_INT_RGB} image wrapping the last buffer, so there is one
+ * allocation per frame, or none when consumer gives images back with {@link #recycle(BufferedImage)}
+ * once done with them.
+ * <p>
+ * Pipeline is thread safe and has no per-frame state, so one pipeline can be set as transformer of
+ * many webcams and transform their frames in parallel, each in its webcam thread. Average time of
+ * every pass is measured, see {@link #getStageTimes()}.
+ */
+public class WebcamImagePipeline implements WebcamImageTransformer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamImagePipeline.class);
+
+	/**
+	 * Pipeline stage.
+	 */
+	public static interface Stage {
+
+		/**
+		 * @return Stage name, used in timings
+		 */
+		String getName();
+	}
+
+	/**
+	 * Stage which changes image size or pixel positions, writing result into other buffer.
+	 */
+	public static interface Geometry extends Stage {
+
+		/**
+		 * @param width the source width
+		 * @param height the source height
+		 * @return Size of the result
+		 */
+		Dimension getSize(int width, int height);
+
+		/**
+		 * @param src the source pixels, packed RGB, row by row
+		 * @param width the source width
+		 * @param height the source height
+		 * @param dst the destination pixels, size returned by {@link #getSize(int, int)}
+		 * @param dw the destination width
+		 * @param dh the destination height
+		 */
+		void apply(int[] src, int width, int height, int[] dst, int dw, int dh);
+	}
+
+	/**
+	 * Stage which changes one row of pixels in place, knowing its position. Adjacent row filters
+	 * are fused into one pass.
+	 */
+	public static interface RowFilter extends Stage {
+
+		/**
+		 * @param pixels the image pixels, packed RGB
+		 * @param offset the index of the first pixel in row
+		 * @param width the image width
+		 * @param y the row number
+		 * @param height the image height
+		 */
+		void filter(int[] pixels, int offset, int width, int y, int height);
+	}
+
+	/**
+	 * Row filter which changes every pixel independently of its position.
+	 */
+	public static abstract class PixelFilter implements RowFilter {
+
+		/**
+		 * @param rgb the packed RGB pixel
+		 * @return New pixel value
+		 */
+		public abstract int filter(int rgb);
+
+		@Override
+		public void filter(int[] pixels, int offset, int width, int y, int height) {
+			for (int i = offset, n = offset + width; i < n; i++) {
+				pixels[i] = filter(pixels[i]);
+			}
+		}
+	}
+
+	/**
+	 * Stage which changes whole image in place.
+	 */
+	public static interface ImageFilter extends Stage {
+
+		/**
+		 * @param pixels the image pixels, packed RGB
+		 * @param width the image width
+		 * @param height the image height
+		 */
+		void filter(int[] pixels, int width, int height);
+	}
+
+	/**
+	 * Buffers of the same size, shared by all pipelines.
+	 */
+	private static final class BufferPool {
+
+		/**
+		 * Maximum number of free buffers of one size.
+		 */
+		private static final int MAX_FREE = 16;
+
+		private final ConcurrentHashMap<Integer, ConcurrentLinkedQueue<int[]>> free = new ConcurrentHashMap<Integer, ConcurrentLinkedQueue<int[]>>();
+		private final ConcurrentHashMap<Integer, AtomicInteger> counts = new ConcurrentHashMap<Integer, AtomicInteger>();
+		private final AtomicLong allocated = new AtomicLong();
+		private final AtomicLong reused = new AtomicLong();
+
+		public int[] take(int length) {
+			ConcurrentLinkedQueue<int[]> queue = free.get(length);
+			if (queue != null) {
+				int[] buffer = queue.poll();
+				if (buffer != null) {
+					counts.get(length).decrementAndGet();
+					reused.incrementAndGet();
+					return buffer;
+				}
+			}
+			allocated.incrementAndGet();
+			return new int[length];
+		}
+
+		public void give(int[] buffer) {
+
+			Integer length = buffer.length;
+
+			ConcurrentLinkedQueue<int[]> queue = free.get(length);
+			if (queue == null) {
+				free.putIfAbsent(length, new ConcurrentLinkedQueue<int[]>());
+				counts.putIfAbsent(length, new AtomicInteger());
+				queue = free.get(length);
+			}
+
+			AtomicInteger count = counts.get(length);
+			if (count.incrementAndGet() > MAX_FREE) {
+				count.decrementAndGet();
+				return;
+			}
+
+			queue.offer(buffer);
+		}
+	}
+
+	/**
+	 * Fused sequence of stages or single stage, executed at once and timed together.
+	 */
+	private static abstract class Pass {
+
+		private final String name;
+
+		/**
+		 * Average pass time (ns).
+		 */
+		private volatile double time = 0;
+
+		public Pass(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * @param frame the current frame, changed in place or given new buffer and size
+		 */
+		abstract void run(Frame frame);
+
+		void timed(Frame frame) {
+			long t = System.nanoTime();
+			run(frame);
+			time = (4 * time + (System.nanoTime() - t)) / 5;
+		}
+	}
+
+	/**
+	 * Frame passing through the pipeline.
+	 */
+	private static final class Frame {
+
+		private int[] pixels;
+		private int width;
+		private int height;
+
+		public Frame(int[] pixels, int width, int height) {
+			this.pixels = pixels;
+			this.width = width;
+			this.height = height;
+		}
+
+		void replace(int[] pixels, int width, int height) {
+			POOL.give(this.pixels);
+			this.pixels = pixels;
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	private static final class GeometryPass extends Pass {
+
+		private final Geometry geometry;
+
+		/**
+		 * Has empty result been reported already?
+		 */
+		private final AtomicBoolean empty = new AtomicBoolean(false);
+
+		public GeometryPass(Geometry geometry) {
+			super(geometry.getName());
+			this.geometry = geometry;
+		}
+
+		@Override
+		void run(Frame frame) {
+
+			Dimension size = geometry.getSize(frame.width, frame.height);
+
+			// image cannot be empty, e.g. when crop is outside the frame or downscale factor is
+			// larger than the frame, so stage is skipped for such frames
+
+			if (size.width <= 0 || size.height <= 0) {
+				if (empty.compareAndSet(false, true)) {
+					LOG.warn("Stage {} gives empty image for {}x{} frame, skipping it", geometry.getName(), frame.width, frame.height);
+				}
+				return;
+			}
+
+			int[] dst = POOL.take(size.width * size.height);
+			geometry.apply(frame.pixels, frame.width, frame.height, dst, size.width, size.height);
+			frame.replace(dst, size.width, size.height);
+		}
+	}
+
+	private static final class RowPass extends Pass {
+
+		private final RowFilter[] filters;
+
+		public RowPass(String name, RowFilter[] filters) {
+			super(name);
+			this.filters = filters;
+		}
+
+		@Override
+		void run(Frame frame) {
+			int[] pixels = frame.pixels;
+			int w = frame.width;
+			int h = frame.height;
+			for (int y = 0, offset = 0; y < h; y++, offset += w) {
+				for (RowFilter f : filters) {
+					f.filter(pixels, offset, w, y, h);
+				}
+			}
+		}
+	}
+
+	private static final class ImagePass extends Pass {
+
+		private final ImageFilter filter;
+
+		public ImagePass(ImageFilter filter) {
+			super(filter.getName());
+			this.filter = filter;
+		}
+
+		@Override
+		void run(Frame frame) {
+			filter.filter(frame.pixels, frame.width, frame.height);
+		}
+	}
+
+	private static final class TransformerPass extends Pass {
+
+		private final WebcamImageTransformer transformer;
+
+		public TransformerPass(WebcamImageTransformer transformer) {
+			super(transformer.getClass().getSimpleName());
+			this.transformer = transformer;
+		}
+
+		@Override
+		void run(Frame frame) {
+			BufferedImage image = wrap(frame.pixels, frame.width, frame.height);
+			BufferedImage result = transformer.transform(image);
+			if (result != image) {
+				int w = result.getWidth();
+				int h = result.getHeight();
+				frame.replace(read(result, POOL.take(w * h)), w, h);
+			}
+		}
+	}
+
+	/**
+	 * Transformer stage added to stages list, only to keep its place.
+	 */
+	private static final class TransformerStage implements Stage {
+
+		private final WebcamImageTransformer transformer;
+
+		public TransformerStage(WebcamImageTransformer transformer) {
+			this.transformer = transformer;
+		}
+
+		@Override
+		public String getName() {
+			return transformer.getClass().getSimpleName();
+		}
+	}
+
+	private static final DirectColorModel RGB = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
+
+	private static final int[] RGB_MASKS = { 0x00ff0000, 0x0000ff00, 0x000000ff };
+
+	private static final BufferPool POOL = new BufferPool();
+
+	private final List<Stage> stages = new CopyOnWriteArrayList<Stage>();
+
+	/**
+	 * Compiled passes, null when stages have changed.
+	 */
+	private volatile Pass[] passes = null;
+
+	private volatile double time = 0;
+
+	private final AtomicLong frames = new AtomicLong();
+
+	/**
+	 * Add stage at the end of pipeline.
+	 *
+	 * @param stage the stage to be added
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline add(Stage stage) {
+		if (stage == null) {
+			throw new IllegalArgumentException("Stage cannot be null");
+		}
+		if (!(stage instanceof Geometry || stage instanceof RowFilter || stage instanceof ImageFilter || stage instanceof TransformerStage)) {
+			throw new IllegalArgumentException(String.format("Unsupported stage type %s", stage.getClass()));
+		}
+		stages.add(stage);
+		passes = null;
+		return this;
+	}
+
+	/**
+	 * Add transformer (e.g. wrapping JH filter) at the end of pipeline. It breaks fusion of
+	 * adjacent stages and needs image copy unless it changes the image in place. Transformer must
+	 * not keep the image it is given, since its buffer goes back to the pool.
+	 *
+	 * @param transformer the transformer to be added
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline add(WebcamImageTransformer transformer) {
+		if (transformer == null) {
+			throw new IllegalArgumentException("Transformer cannot be null");
+		}
+		return add(new TransformerStage(transformer));
+	}
+
+	/**
+	 * Remove all stages.
+	 */
+	public void clear() {
+		stages.clear();
+		passes = null;
+	}
+
+	/**
+	 * @return Stages, in order
+	 */
+	public List<Stage> getStages() {
+		return new ArrayList<Stage>(stages);
+	}
+
+	/**
+	 * Group stages into passes, fusing adjacent row and pixel filters.
+	 */
+	private Pass[] compile() {
+
+		List<Pass> compiled = new ArrayList<Pass>();
+		List<RowFilter> fused = new ArrayList<RowFilter>();
+
+		for (Stage stage : stages) {
+			if (stage instanceof RowFilter) {
+				fused.add((RowFilter) stage);
+				continue;
+			}
+			fuse(fused, compiled);
+			if (stage instanceof Geometry) {
+				compiled.add(new GeometryPass((Geometry) stage));
+			} else if (stage instanceof ImageFilter) {
+				compiled.add(new ImagePass((ImageFilter) stage));
+			} else {
+				compiled.add(new TransformerPass(((TransformerStage) stage).transformer));
+			}
+		}
+
+		fuse(fused, compiled);
+
+		return compiled.toArray(new Pass[compiled.size()]);
+	}
+
+	private static void fuse(List<RowFilter> fused, List<Pass> compiled) {
+
+		if (fused.isEmpty()) {
+			return;
+		}
+
+		StringBuilder name = new StringBuilder();
+		for (RowFilter f : fused) {
+			if (name.length() > 0) {
+				name.append('+');
+			}
+			name.append(f.getName());
+		}
+
+		compiled.add(new RowPass(name.toString(), fused.toArray(new RowFilter[fused.size()])));
+
+		fused.clear();
+	}
+
+	@Override
+	public BufferedImage transform(BufferedImage image) {
+
+		if (image == null) {
+			return null;
+		}
+
+		Pass[] ps = passes;
+		if (ps == null) {
+			passes = ps = compile();
+		}
+
+		long t = System.nanoTime();
+
+		int w = image.getWidth();
+		int h = image.getHeight();
+
+		Frame frame = new Frame(read(image, POOL.take(w * h)), w, h);
+		for (Pass p : ps) {
+			p.timed(frame);
+		}
+
+		time = (4 * time + (System.nanoTime() - t)) / 5;
+		frames.incrementAndGet();
+
+		return wrap(frame.pixels, frame.width, frame.height);
+	}
+
+	/**
+	 * Give image returned by this pipeline back, so its buffer can be used for one of the next
+	 * frames. Image must not be used afterwards. Images which do not come from pipeline are
+	 * ignored.
+	 *
+	 * @param image the image returned by {@link #transform(BufferedImage)}
+	 */
+	public static void recycle(BufferedImage image) {
+		if (image == null || image.getColorModel() != RGB) {
+			return;
+		}
+		DataBuffer buffer = image.getRaster().getDataBuffer();
+		if (buffer instanceof DataBufferInt) {
+			POOL.give(((DataBufferInt) buffer).getData());
+		}
+	}
+
+	private static BufferedImage wrap(int[] pixels, int w, int h) {
+		WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, w * h), w, h, w, RGB_MASKS, null);
+		return new BufferedImage(RGB, raster, false, null);
+	}
+
+	/**
+	 * Read image pixels into packed RGB buffer, directly from raster for int and 3-byte images.
+	 */
+	private static int[] read(BufferedImage image, int[] pixels) {
+
+		int w = image.getWidth();
+		int h = image.getHeight();
+		int type = image.getType();
+
+		Raster raster = image.getRaster();
+		SampleModel sm = raster.getSampleModel();
+		DataBuffer db = raster.getDataBuffer();
+
+		if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+			raster.getDataElements(0, 0, w, h, pixels);
+			return pixels;
+		}
+
+		if (db instanceof DataBufferByte && sm instanceof ComponentSampleModel && sm.getNumBands() == 3 && db.getNumBanks() == 1 && !image.getColorModel().hasAlpha()) {
+
+			ComponentSampleModel csm = (ComponentSampleModel) sm;
+
+			byte[] data = ((DataBufferByte) db).getData();
+			int[] bands = csm.getBandOffsets();
+			int ps = csm.getPixelStride();
+			int ss = csm.getScanlineStride();
+			int base = db.getOffset() - raster.getSampleModelTranslateY() * ss - raster.getSampleModelTranslateX() * ps;
+			int r = bands[0];
+			int g = bands[1];
+			int b = bands[2];
+
+			for (int y = 0, i = 0; y < h; y++) {
+				for (int x = 0, k = base + y * ss; x < w; x++, k += ps) {
+					pixels[i++] = (data[k + r] & 0xff) << 16 | (data[k + g] & 0xff) << 8 | (data[k + b] & 0xff);
+				}
+			}
+
+			return pixels;
+		}
+
+		image.getRGB(0, 0, w, h, pixels, 0, w);
+
+		return pixels;
+	}
+
+	/**
+	 * @return Average time of every pass (ms), by pass name, in order; fused stages are timed
+	 *         together and their names are joined with +
+	 */
+	public Map<String, Double> getStageTimes() {
+
+		Pass[] ps = passes;
+		if (ps == null) {
+			passes = ps = compile();
+		}
+
+		Map<String, Double> times = new LinkedHashMap<String, Double>();
+		for (Pass p : ps) {
+			times.put(p.name, p.time / 1e6);
+		}
+
+		return times;
+	}
+
+	/**
+	 * @return Average time of whole transform (ms), including reading source image
+	 */
+	public double getTime() {
+		return time / 1e6;
+	}
+
+	/**
+	 * @return Number of frames transformed
+	 */
+	public long getFrames() {
+		return frames.get();
+	}
+
+	/**
+	 * @return Number of buffers allocated by all pipelines
+	 */
+	public static long getAllocatedBuffers() {
+		return POOL.allocated.get();
+	}
+
+	/**
+	 * @return Number of buffers taken from pool by all pipelines
+	 */
+	public static long getReusedBuffers() {
+		return POOL.reused.get();
+	}
+
+	// built-in stages
+
+	/**
+	 * Cut given area out of the image. Area is clipped to image bounds.
+	 *
+	 * @param area the area to keep
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline crop(final Rectangle area) {
+
+		if (area.isEmpty()) {
+			throw new IllegalArgumentException(String.format("Crop area cannot be empty (%s)", area));
+		}
+
+		final Rectangle r = new Rectangle(area);
+
+		return add(new Geometry() {
+
+			@Override
+			public String getName() {
+				return "crop";
+			}
+
+			private Rectangle clip(int width, int height) {
+				return r.intersection(new Rectangle(0, 0, width, height));
+			}
+
+			@Override
+			public Dimension getSize(int width, int height) {
+				Rectangle c = clip(width, height);
+				return new Dimension(Math.max(0, c.width), Math.max(0, c.height));
+			}
+
+			@Override
+			public void apply(int[] src, int width, int height, int[] dst, int dw, int dh) {
+				Rectangle c = clip(width, height);
+				for (int y = 0; y < dh; y++) {
+					System.arraycopy(src, (c.y + y) * width + c.x, dst, y * dw, dw);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Rotate image clockwise.
+	 *
+	 * @param degrees the angle, 90, 180 or 270
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline rotate(final int degrees) {
+
+		if (degrees != 90 && degrees != 180 && degrees != 270) {
+			throw new IllegalArgumentException(String.format("Rotation angle must be 90, 180 or 270 (%d)", degrees));
+		}
+
+		return add(new Geometry() {
+
+			@Override
+			public String getName() {
+				return "rotate " + degrees;
+			}
+
+			@Override
+			public Dimension getSize(int width, int height) {
+				return degrees == 180 ? new Dimension(width, height) : new Dimension(height, width);
+			}
+
+			@Override
+			public void apply(int[] src, int width, int height, int[] dst, int dw, int dh) {
+				int n = width * height;
+				switch (degrees) {
+					case 90:
+						for (int y = 0, i = 0; y < height; y++) {
+							for (int x = 0, k = height - 1 - y; x < width; x++, k += dw) {
+								dst[k] = src[i++];
+							}
+						}
+						break;
+					case 180:
+						for (int i = 0; i < n; i++) {
+							dst[n - 1 - i] = src[i];
+						}
+						break;
+					default:
+						for (int y = 0, i = 0; y < height; y++) {
+							for (int x = 0, k = (width - 1) * dw + y; x < width; x++, k -= dw) {
+								dst[k] = src[i++];
+							}
+						}
+						break;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Flip image horizontally, e.g. to make webcam work like a mirror.
+	 *
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline mirror() {
+		return add(new RowFilter() {
+
+			@Override
+			public String getName() {
+				return "mirror";
+			}
+
+			@Override
+			public void filter(int[] pixels, int offset, int width, int y, int height) {
+				for (int i = offset, k = offset + width - 1; i < k; i++, k--) {
+					int p = pixels[i];
+					pixels[i] = pixels[k];
+					pixels[k] = p;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Make image smaller by averaging blocks of pixels.
+	 *
+	 * @param factor the number of pixels in block side, 2 for half size
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline downscale(final int factor) {
+
+		if (factor < 2) {
+			throw new IllegalArgumentException(String.format("Downscale factor must be at least 2 (%d)", factor));
+		}
+
+		return add(new Geometry() {
+
+			@Override
+			public String getName() {
+				return "downscale " + factor;
+			}
+
+			@Override
+			public Dimension getSize(int width, int height) {
+				return new Dimension(width / factor, height / factor);
+			}
+
+			@Override
+			public void apply(int[] src, int width, int height, int[] dst, int dw, int dh) {
+
+				// red and blue are summed together in separate 32-bit lanes of long, and block area is
+				// divided by multiplication (rounded), which is much faster than division
+
+				long area = (long) factor * factor;
+				long reciprocal = (1L << 32) / area;
+				long half = 1L << 31;
+
+				for (int dy = 0, i = 0; dy < dh; dy++) {
+					for (int dx = 0; dx < dw; dx++) {
+
+						long rb = 0;
+						long g = 0;
+
+						for (int y = dy * factor, ye = y + factor; y < ye; y++) {
+							for (int k = y * width + dx * factor, ke = k + factor; k < ke; k++) {
+								int p = src[k];
+								rb += (long) (p & 0xff0000) << 16 | p & 0xff;
+								g += p & 0xff00;
+							}
+						}
+
+						long r = ((rb >>> 32) * reciprocal + half) >>> 32;
+						long b = ((rb & 0xffffffffL) * reciprocal + half) >>> 32;
+						long gg = ((g >>> 8) * reciprocal + half) >>> 32;
+
+						dst[i++] = (int) (r << 16 | gg << 8 | b);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Convert image to gray, the same way as {@link com.github.sarxos.webcam.util.jh.JHGrayFilter}.
+	 *
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline gray() {
+		return add(new PixelFilter() {
+
+			@Override
+			public String getName() {
+				return "gray";
+			}
+
+			@Override
+			public int filter(int rgb) {
+				int r = (rgb >> 16) & 0xff;
+				int g = (rgb >> 8) & 0xff;
+				int b = rgb & 0xff;
+				int l = (r * 77 + g * 151 + b * 28) >> 8;
+				return (l << 16) | (l << 8) | l;
+			}
+		});
+	}
+
+	/**
+	 * Stretch image contrast, so the darkest pixel becomes black and the brightest white. It needs
+	 * whole image, so it is not fused with adjacent stages.
+	 *
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline normalize() {
+		return add(new ImageFilter() {
+
+			@Override
+			public String getName() {
+				return "normalize";
+			}
+
+			@Override
+			public void filter(int[] pixels, int width, int height) {
+
+				int n = width * height;
+				int min = 255;
+				int max = 0;
+
+				for (int i = 0; i < n; i++) {
+					int p = pixels[i];
+					int l = (((p >> 16) & 0xff) * 77 + ((p >> 8) & 0xff) * 151 + (p & 0xff) * 28) >> 8;
+					if (l < min) {
+						min = l;
+					}
+					if (l > max) {
+						max = l;
+					}
+				}
+
+				if (max - min < 1 || (min == 0 && max == 255)) {
+					return;
+				}
+
+				int[] lut = new int[256];
+				for (int v = 0; v < 256; v++) {
+					lut[v] = Math.max(0, Math.min(255, (v - min) * 255 / (max - min)));
+				}
+
+				for (int i = 0; i < n; i++) {
+					int p = pixels[i];
+					pixels[i] = lut[(p >> 16) & 0xff] << 16 | lut[(p >> 8) & 0xff] << 8 | lut[p & 0xff];
+				}
+			}
+		});
+	}
+
+	/**
+	 * Fill given areas with solid color, e.g. to hide windows of neighbouring houses.
+	 *
+	 * @param color the packed RGB color
+	 * @param areas the areas to be filled
+	 * @return This pipeline
+	 */
+	public WebcamImagePipeline mask(final int color, Rectangle... areas) {
+
+		final Rectangle[] rs = new Rectangle[areas.length];
+		for (int i = 0; i < areas.length; i++) {
+			rs[i] = new Rectangle(areas[i]);
+		}
+
+		return add(new RowFilter() {
+
+			@Override
+			public String getName() {
+				return "mask";
+			}
+
+			@Override
+			public void filter(int[] pixels, int offset, int width, int y, int height) {
+				for (Rectangle r : rs) {
+					if (y >= r.y && y < r.y + r.height) {
+						int x0 = Math.max(0, r.x);
+						int x1 = Math.min(width, r.x + r.width);
+						if (x1 > x0) {
+							Arrays.fill(pixels, offset + x0, offset + x1, color);
+						}
+					}
+				}
+			}
+		});
+	}
+}
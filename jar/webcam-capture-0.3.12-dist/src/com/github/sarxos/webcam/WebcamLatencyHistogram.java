@@ -0,0 +1,149 @@
+package com.github.sarxos.webcam;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Histogram of latencies, lock-free, so it can be updated from capture, notification and streaming
+ * threads at once without blocking any of them. Latencies are counted in buckets which grow
+ * exponentially, with 16 linear sub-buckets per power of two, so percentiles are exact to about
+ * 6%, from 1 ns up to about one minute (longer latencies go to the last bucket). Recording costs
+ * a few atomic increments and no allocation.
+ */
+public class WebcamLatencyHistogram {
+
+	/**
+	 * Bits of linear sub-buckets.
+	 */
+	private static final int SUB_BITS = 4;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/**
+	 * Highest power of two counted exactly (2^36 ns is about 69 seconds).
+	 */
+	private static final int MAX_EXPONENT = 35;
+
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong sum = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	private static int index(long ns) {
+		if (ns < SUB_BUCKETS) {
+			return (int) ns;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(ns);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKETS - 1;
+		}
+		int sub = (int) (ns >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @return Highest latency counted in bucket (ns)
+	 */
+	private static long upper(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+		int sub = index % SUB_BUCKETS;
+		return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+	}
+
+	/**
+	 * @param ns the latency (ns), negative values are ignored
+	 */
+	public void record(long ns) {
+
+		if (ns < 0) {
+			return;
+		}
+
+		counts.incrementAndGet(index(ns));
+		count.incrementAndGet();
+		sum.addAndGet(ns);
+
+		long m = max.get();
+		while (ns > m && !max.compareAndSet(m, ns)) {
+			m = max.get();
+		}
+	}
+
+	/**
+	 * @return Number of latencies recorded
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return Average latency (ms)
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : sum.get() / 1e6 / n;
+	}
+
+	/**
+	 * @return Highest latency (ms)
+	 */
+	public double getMax() {
+		return max.get() / 1e6;
+	}
+
+	/**
+	 * Get latency below which given fraction of latencies are. Latencies recorded while this method
+	 * is running may or may not be included.
+	 *
+	 * @param fraction the fraction, e.g. 0.99 for 99th percentile
+	 * @return Latency (ms), or 0 if nothing has been recorded
+	 */
+	public double getPercentile(double fraction) {
+
+		if (fraction < 0 || fraction > 1) {
+			throw new IllegalArgumentException("Fraction must be between 0 and 1");
+		}
+
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += snapshot[i] = counts.get(i);
+		}
+
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(upper(i), max.get()) / 1e6;
+			}
+		}
+
+		return max.get() / 1e6;
+	}
+
+	/**
+	 * Forget all latencies recorded so far.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+}
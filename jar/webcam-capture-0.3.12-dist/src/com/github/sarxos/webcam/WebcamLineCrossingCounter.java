@@ -0,0 +1,254 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Point;
+
+
+/**
+ * Counts people crossing a line, e.g. bus door threshold, from motion detected by
+ * {@link WebcamMotionDetector}. Line is given by its two ends and any point on the inner side.
+ * Motion center of gravity moving from outer to inner side of the line is counted as entry, and the
+ * other way round as exit. Difference between the two is the number of people inside, which is
+ * smoothed over time, so one person hesitating in the door does not make count jump up and down.
+ * <p>
+ * To avoid counting noise, motion smaller than minimum area is ignored, and center of gravity has
+ * to get further than margin from the line, on either side, to change side. Motion beyond line ends
+ * is ignored, and after timeout without motion the track starts over. Only one person can be
+ * tracked at a time, so people crossing the line together count as one.
+ * <p>
+ * Counter can be attached to detector as {@link WebcamMotionListener} or fed with
+ * {@link #update(Point, double, long)}, e.g. from recorded motion. Work per event is constant, so
+ * it keeps up with detector at any frame rate.
+ */
+public class WebcamLineCrossingCounter implements WebcamMotionListener {
+
+	/**
+	 * Default distance from line (pixels) which motion has to exceed to change side.
+	 */
+	public static final int DEFAULT_MARGIN = 10;
+
+	/**
+	 * Default minimum motion area (percentage of image).
+	 */
+	public static final double DEFAULT_MIN_AREA = 0.5;
+
+	/**
+	 * Default time without motion after which track starts over (ms).
+	 */
+	public static final long DEFAULT_TIMEOUT = 1000;
+
+	/**
+	 * Default smoothing time constant (ms).
+	 */
+	public static final long DEFAULT_SMOOTHING = 2000;
+
+	private final Point from;
+	private final Point to;
+	private final double length;
+	private final int inside;
+
+	private volatile int margin = DEFAULT_MARGIN;
+	private volatile double minArea = DEFAULT_MIN_AREA;
+	private volatile long timeout = DEFAULT_TIMEOUT;
+	private volatile long smoothing = DEFAULT_SMOOTHING;
+
+	/**
+	 * Side of the line where track has been last seen, 1 inner, -1 outer, 0 unknown.
+	 */
+	private int side = 0;
+	private long seen = Long.MIN_VALUE;
+	private long entries = 0;
+	private long exits = 0;
+	private int count = 0;
+	private double smoothed = 0;
+	private long smoothedAt = Long.MIN_VALUE;
+
+	/**
+	 * @param from the first end of the line
+	 * @param to the second end of the line
+	 * @param inside any point on the inner side of the line
+	 */
+	public WebcamLineCrossingCounter(Point from, Point to, Point inside) {
+
+		if (from.equals(to)) {
+			throw new IllegalArgumentException("Line ends cannot be the same point");
+		}
+
+		this.from = new Point(from);
+		this.to = new Point(to);
+		this.length = from.distance(to);
+
+		double d = cross(inside.x, inside.y);
+		if (d == 0) {
+			throw new IllegalArgumentException("Inner point cannot lie on the line");
+		}
+
+		this.inside = d > 0 ? 1 : -1;
+	}
+
+	@Override
+	public void motionDetected(WebcamMotionEvent wme) {
+		update(wme.getCog(), wme.getArea(), System.currentTimeMillis());
+	}
+
+	/**
+	 * Update counter with motion.
+	 *
+	 * @param cog the motion center of gravity
+	 * @param area the percentage of image covered by motion
+	 * @param timestamp the time of motion (ms)
+	 */
+	public synchronized void update(Point cog, double area, long timestamp) {
+
+		smooth(timestamp);
+
+		if (cog == null || area < minArea) {
+			return;
+		}
+
+		if (seen == Long.MIN_VALUE || timestamp - seen > timeout) {
+			side = 0;
+		}
+		seen = timestamp;
+
+		// position along the line, 0 at one end and 1 at the other
+
+		double t = ((cog.x - from.x) * (double) (to.x - from.x) + (cog.y - from.y) * (double) (to.y - from.y)) / (length * length);
+		if (t < 0 || t > 1) {
+			side = 0;
+			return;
+		}
+
+		double d = inside * cross(cog.x, cog.y) / length;
+
+		int s = side;
+		if (d > margin) {
+			s = 1;
+		} else if (d < -margin) {
+			s = -1;
+		}
+
+		if (side == -1 && s == 1) {
+			entries++;
+			count++;
+		} else if (side == 1 && s == -1) {
+			exits++;
+			count = Math.max(0, count - 1);
+		}
+
+		side = s;
+	}
+
+	/**
+	 * @return Cross product of line direction and vector from line start to given point
+	 */
+	private double cross(int x, int y) {
+		return (to.x - from.x) * (double) (y - from.y) - (to.y - from.y) * (double) (x - from.x);
+	}
+
+	/**
+	 * Move smoothed count towards the current one, exponentially with time.
+	 */
+	private void smooth(long timestamp) {
+		if (smoothedAt == Long.MIN_VALUE) {
+			smoothed = count;
+		} else if (timestamp > smoothedAt) {
+			smoothed += (count - smoothed) * (1 - Math.exp(-(timestamp - smoothedAt) / (double) smoothing));
+		}
+		smoothedAt = Math.max(smoothedAt, timestamp);
+	}
+
+	/**
+	 * @return Smoothed number of people inside, now
+	 */
+	public int getCount() {
+		return getCount(System.currentTimeMillis());
+	}
+
+	/**
+	 * @param timestamp the time to get count for (ms), not earlier than the last update
+	 * @return Smoothed number of people inside at given time
+	 */
+	public synchronized int getCount(long timestamp) {
+		smooth(timestamp);
+		return (int) Math.round(smoothed);
+	}
+
+	/**
+	 * @return Number of people inside, not smoothed
+	 */
+	public synchronized int getRawCount() {
+		return count;
+	}
+
+	public synchronized long getEntries() {
+		return entries;
+	}
+
+	public synchronized long getExits() {
+		return exits;
+	}
+
+	/**
+	 * Set number of people inside, e.g. zero when bus is empty at terminal.
+	 *
+	 * @param count the number of people inside
+	 */
+	public synchronized void reset(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count cannot be negative");
+		}
+		this.count = count;
+		this.smoothed = count;
+		this.side = 0;
+	}
+
+	public int getMargin() {
+		return margin;
+	}
+
+	/**
+	 * @param margin the distance from line (pixels) which motion has to exceed to change side
+	 */
+	public void setMargin(int margin) {
+		if (margin < 0) {
+			throw new IllegalArgumentException("Margin cannot be negative");
+		}
+		this.margin = margin;
+	}
+
+	public double getMinArea() {
+		return minArea;
+	}
+
+	/**
+	 * @param minArea the minimum motion area (percentage of image) to be tracked
+	 */
+	public void setMinArea(double minArea) {
+		this.minArea = minArea;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * @param timeout the time without motion after which track starts over (ms)
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public long getSmoothing() {
+		return smoothing;
+	}
+
+	/**
+	 * @param smoothing the time in which smoothed count gets 63% closer to the current one (ms)
+	 */
+	public void setSmoothing(long smoothing) {
+		if (smoothing <= 0) {
+			throw new IllegalArgumentException("Smoothing time must be positive");
+		}
+		this.smoothing = smoothing;
+	}
+}
@@ -19,6 +19,10 @@ import org.slf4j.LoggerFactory;
  * updates the lock once per 2 seconds. Lock is being released whenever webcam is either closed or
  * completely disposed. Lock will remain for at least 2 seconds in case when JVM has not been
  * gracefully terminated (due to SIGSEGV, SIGTERM, etc).
+ * <p>
+ * By default every webcam has its own lock file and updater thread. When lock registry is set
+ * (see {@link #setRegistry(WebcamLockRegistry)}), locks of all webcams are kept in one
+ * memory-mapped file instead, updated by a single thread.
  *
  * @author Bartosz Firyn (sarxos)
  */
@@ -66,6 +70,11 @@ public class WebcamLock {
 
 	}
 
+	/**
+	 * Registry keeping locks of all webcams, null to use lock file per webcam.
+	 */
+	private static volatile WebcamLockRegistry registry = null;
+
 	/**
 	 * And the Webcam we will be locking.
 	 */
@@ -91,6 +100,12 @@ public class WebcamLock {
 	 */
 	private final File lock;
 
+	/**
+	 * Registry used when webcam has been locked, and slot it holds there.
+	 */
+	private volatile WebcamLockRegistry held = null;
+	private volatile int slot = -1;
+
 	/**
 	 * Creates global webcam lock.
 	 *
@@ -103,6 +118,23 @@ public class WebcamLock {
 		this.lock.deleteOnExit();
 	}
 
+	/**
+	 * Set registry to keep locks of all webcams in, or null to use lock file per webcam. It has to
+	 * be set before any webcam is open, and all processes sharing webcams should use the same mode.
+	 *
+	 * @param registry the lock registry, e.g. {@link WebcamLockRegistry#getDefault()}
+	 */
+	public static void setRegistry(WebcamLockRegistry registry) {
+		WebcamLock.registry = registry;
+	}
+
+	/**
+	 * @return Lock registry or null if lock file per webcam is used
+	 */
+	public static WebcamLockRegistry getRegistry() {
+		return registry;
+	}
+
 	private String getLockName() {
 		return String.format(".webcam-lock-%d", Math.abs(webcam.getName().hashCode()));
 	}
@@ -291,6 +323,18 @@ public class WebcamLock {
 
 		LOG.debug("Lock {}", webcam);
 
+		WebcamLockRegistry r = registry;
+		if (r != null) {
+			try {
+				slot = r.acquire(webcam.getName());
+				held = r;
+			} catch (WebcamLockException e) {
+				locked.set(false);
+				throw e;
+			}
+			return;
+		}
+
 		update();
 
 		updater = new LockUpdater();
@@ -307,6 +351,9 @@ public class WebcamLock {
 			if (updater != null) {
 				updater.interrupt();
 			}
+			if (held != null) {
+				held.abandon(slot);
+			}
 		}
 	}
 
@@ -327,6 +374,13 @@ public class WebcamLock {
 
 		LOG.debug("Unlock {}", webcam);
 
+		if (held != null) {
+			held.release(slot);
+			held = null;
+			slot = -1;
+			return;
+		}
+
 		updater.interrupt();
 
 		write(-1);
@@ -357,6 +411,11 @@ public class WebcamLock {
 
 		// check if locked by other process
 
+		WebcamLockRegistry r = registry;
+		if (r != null) {
+			return r.isLocked(webcam.getName());
+		}
+
 		if (!lock.exists()) {
 			return false;
 		}
@@ -0,0 +1,354 @@
+package com.github.sarxos.webcam;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Keeps locks of all webcams in one memory-mapped file, shared by all processes, and updates them
+ * from one heartbeat thread. By default every {@link WebcamLock} has a thread of its own which
+ * rewrites lock file of its webcam every 2 seconds, which means a thread and a few file operations
+ * per open webcam. With registry set (see {@link WebcamLock#setRegistry(WebcamLockRegistry)})
+ * webcam lock is a fixed-size slot in the registry file, and heartbeat is a single ordered store of
+ * the current time into the slot, with no system call at all.
+ * <p>
+ * Ownership works the same as with lock files: webcam is locked by other process when its slot has
+ * been updated within two {@link WebcamLock#INTERVAL}s, so the lock of crashed process expires
+ * after 4 seconds. Slots are found by hash of webcam name with linear probing. Slots are claimed
+ * under file lock, so two processes cannot take the same webcam at once. Slot which has been
+ * released or has expired can be reused by other webcam.
+ * <p>
+ * Processes using lock files do not see locks kept in registry and the other way round, so all
+ * processes sharing webcams should use the same mode.
+ */
+public class WebcamLockRegistry {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamLockRegistry.class);
+
+	/**
+	 * Default number of slots.
+	 */
+	public static final int DEFAULT_SLOTS = 1024;
+
+	/**
+	 * Slot size (bytes): name hash, heartbeat timestamp, owner process ID and one reserved long.
+	 */
+	public static final int SLOT_SIZE = 32;
+
+	private static final int KEY = 0;
+	private static final int TIMESTAMP = 8;
+	private static final int OWNER = 16;
+
+	/**
+	 * Ordered access to longs in mapped buffer.
+	 */
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+	private static final class HeartbeatThreadFactory implements ThreadFactory {
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "webcam-lock-heartbeat");
+			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	/**
+	 * Updates timestamps of all slots held by this process.
+	 */
+	private final class Heartbeat implements Runnable {
+
+		@Override
+		public void run() {
+			synchronized (WebcamLockRegistry.this) {
+				long now = System.currentTimeMillis();
+				for (Integer slot : held.keySet()) {
+					LONGS.setRelease(buffer, offset(slot) + TIMESTAMP, now);
+					heartbeats.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	private static WebcamLockRegistry instance = null;
+
+	private final File file;
+	private final int slots;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final long pid;
+
+	/**
+	 * Slots held by this process, with names of their webcams.
+	 */
+	private final ConcurrentHashMap<Integer, String> held = new ConcurrentHashMap<Integer, String>();
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new HeartbeatThreadFactory());
+
+	private final AtomicLong heartbeats = new AtomicLong();
+
+	/**
+	 * Open or create registry file. There should be only one registry per file in the process, so
+	 * {@link #getDefault()} should be used unless webcams are to be locked in other file.
+	 *
+	 * @param file the registry file, shared by all processes
+	 * @param slots the number of slots, the same in all processes
+	 * @throws WebcamException when file cannot be mapped
+	 */
+	public WebcamLockRegistry(File file, int slots) {
+
+		if (slots <= 0) {
+			throw new IllegalArgumentException("Number of slots must be positive");
+		}
+
+		this.file = file;
+		this.slots = slots;
+		this.pid = ProcessHandle.current().pid();
+
+		long size = (long) slots * SLOT_SIZE;
+
+		try {
+
+			channel = new RandomAccessFile(file, "rw").getChannel();
+
+			FileLock fl = channel.lock();
+			try {
+				if (channel.size() < size) {
+					channel.write(ByteBuffer.allocate(1), size - 1);
+				}
+			} finally {
+				fl.release();
+			}
+
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+		} catch (IOException e) {
+			throw new WebcamException(String.format("Cannot map lock registry file %s", file), e);
+		}
+
+		executor.scheduleAtFixedRate(new Heartbeat(), WebcamLock.INTERVAL, WebcamLock.INTERVAL, TimeUnit.MILLISECONDS);
+
+		LOG.debug("Lock registry {} with {} slots has been mapped", file, slots);
+	}
+
+	/**
+	 * @return Registry in .webcam-locks file in temporary directory, with default number of slots
+	 */
+	public static synchronized WebcamLockRegistry getDefault() {
+		if (instance == null) {
+			instance = new WebcamLockRegistry(new File(System.getProperty("java.io.tmpdir"), ".webcam-locks"), DEFAULT_SLOTS);
+		}
+		return instance;
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of webcam name, never 0 which marks slot never used.
+	 */
+	private static long key(String name) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < name.length(); i++) {
+			h ^= name.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h == 0 ? 1 : h;
+	}
+
+	private static int offset(int slot) {
+		return slot * SLOT_SIZE;
+	}
+
+	private static boolean isFresh(long timestamp, long now) {
+		return timestamp > now - WebcamLock.INTERVAL * 2;
+	}
+
+	/**
+	 * Find slot of given key, or -1 if there is none. Keys are never removed, so probing stops at
+	 * the first slot which has never been used.
+	 */
+	private int find(long key) {
+		int start = (int) ((key ^ (key >>> 32)) & 0x7fffffff) % slots;
+		for (int i = 0; i < slots; i++) {
+			int slot = (start + i) % slots;
+			long k = (long) LONGS.getAcquire(buffer, offset(slot) + KEY);
+			if (k == key) {
+				return slot;
+			}
+			if (k == 0) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Find slot which can be taken for given key: its own one, or the first one on its probe path
+	 * which is not used or not locked anymore.
+	 */
+	private int claimable(long key, long now) {
+		int start = (int) ((key ^ (key >>> 32)) & 0x7fffffff) % slots;
+		int free = -1;
+		for (int i = 0; i < slots; i++) {
+			int slot = (start + i) % slots;
+			long k = (long) LONGS.getAcquire(buffer, offset(slot) + KEY);
+			if (k == key) {
+				return slot;
+			}
+			if (k == 0) {
+				return free == -1 ? slot : free;
+			}
+			if (free == -1 && !held.containsKey(slot) && !isFresh((long) LONGS.getAcquire(buffer, offset(slot) + TIMESTAMP), now)) {
+				free = slot;
+			}
+		}
+		return free;
+	}
+
+	/**
+	 * Take slot for webcam and start its heartbeat.
+	 *
+	 * @param name the webcam name
+	 * @return Slot number
+	 * @throws WebcamLockException when webcam is locked by other process or there is no free slot
+	 */
+	synchronized int acquire(String name) {
+
+		long key = key(name);
+
+		FileLock fl = null;
+		try {
+
+			fl = channel.lock();
+
+			long now = System.currentTimeMillis();
+			int slot = claimable(key, now);
+			if (slot == -1) {
+				throw new WebcamLockException(String.format("No free slot in lock registry %s for webcam %s", file, name));
+			}
+
+			int offset = offset(slot);
+			long k = (long) LONGS.getAcquire(buffer, offset + KEY);
+			if (k == key && (held.containsKey(slot) || isFresh((long) LONGS.getAcquire(buffer, offset + TIMESTAMP), now))) {
+				throw new WebcamLockException(String.format("Webcam %s has already been locked", name));
+			}
+
+			// owner and key first, so slot is never seen fresh with other webcam key
+
+			LONGS.setRelease(buffer, offset + TIMESTAMP, -1L);
+			LONGS.setRelease(buffer, offset + OWNER, pid);
+			LONGS.setRelease(buffer, offset + KEY, key);
+			LONGS.setRelease(buffer, offset + TIMESTAMP, now);
+
+			held.put(slot, name);
+
+			return slot;
+
+		} catch (IOException e) {
+			throw new WebcamLockException(String.format("Cannot lock registry file %s", file), e);
+		} finally {
+			if (fl != null) {
+				try {
+					fl.release();
+				} catch (IOException e) {
+					LOG.debug("Cannot release registry file lock", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop heartbeat of the slot, so it expires, but keep it marked as locked.
+	 *
+	 * @param slot the slot number
+	 */
+	synchronized void abandon(int slot) {
+		held.remove(slot);
+	}
+
+	/**
+	 * Stop heartbeat of the slot and mark it as unlocked.
+	 *
+	 * @param slot the slot number
+	 */
+	synchronized void release(int slot) {
+		if (held.remove(slot) != null) {
+			LONGS.setRelease(buffer, offset(slot) + TIMESTAMP, -1L);
+		}
+	}
+
+	/**
+	 * @param name the webcam name
+	 * @return True if webcam is locked by this or other process
+	 */
+	boolean isLocked(String name) {
+		int slot = find(key(name));
+		if (slot == -1) {
+			return false;
+		}
+		return held.containsKey(slot) || isFresh((long) LONGS.getAcquire(buffer, offset(slot) + TIMESTAMP), System.currentTimeMillis());
+	}
+
+	/**
+	 * @param name the webcam name
+	 * @return Heartbeat timestamp of webcam lock, or -1 if it has never been locked or is unlocked
+	 */
+	public long getTimestamp(String name) {
+		int slot = find(key(name));
+		if (slot == -1) {
+			return -1;
+		}
+		return (long) LONGS.getAcquire(buffer, offset(slot) + TIMESTAMP);
+	}
+
+	/**
+	 * @param name the webcam name
+	 * @return ID of process which has locked webcam last time, or -1 if it has never been locked
+	 */
+	public long getOwner(String name) {
+		int slot = find(key(name));
+		if (slot == -1) {
+			return -1;
+		}
+		return (long) LONGS.getAcquire(buffer, offset(slot) + OWNER);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getSlots() {
+		return slots;
+	}
+
+	/**
+	 * @return Number of slots held by this process
+	 */
+	public int getHeld() {
+		return held.size();
+	}
+
+	/**
+	 * @return Number of slot updates done by heartbeat thread
+	 */
+	public long getHeartbeats() {
+		return heartbeats.get();
+	}
+}
@@ -0,0 +1,187 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+
+/**
+ * Motion detection pre-processing which converts image to 8-bit luminance and box-blurs it, in two
+ * passes over the frame. The first pass computes luma row by row and blurs it horizontally, the
+ * second blurs vertically using running column sums. This gives the same kind of image as
+ * {@link com.github.sarxos.webcam.util.jh.JHBlurFilter} followed by
+ * {@link com.github.sarxos.webcam.util.jh.JHGrayFilter}, but without their per-frame int[] and
+ * {@link BufferedImage} allocations.
+ * <p>
+ * Output images are {@link BufferedImage#TYPE_BYTE_GRAY} images taken from a small ring of reused
+ * buffers, so one returned by {@link #filter(BufferedImage)} stays valid until the filter has been
+ * called two more times. That is enough for the motion detector, which keeps only the previous
+ * frame. Samples are raw luma values, get them with {@link #getPlane(BufferedImage)}. Instances are
+ * not thread safe.
+ */
+public class WebcamLumaFilter {
+
+	/**
+	 * Default blur radius, the same as used by default motion detector algorithm.
+	 */
+	public static final int DEFAULT_RADIUS = 6;
+
+	/**
+	 * Number of output images reused in turn.
+	 */
+	private static final int RING_SIZE = 3;
+
+	private final int radius;
+
+	/**
+	 * Sum to average lookup, {@code divide[sum] == sum / (2 * radius + 1)}.
+	 */
+	private final int[] divide;
+
+	private final BufferedImage[] ring = new BufferedImage[RING_SIZE];
+
+	private int next = 0;
+
+	private int width = -1;
+
+	private int height = -1;
+
+	private int[] row = new int[0];
+
+	private int[] sums = new int[0];
+
+	private byte[] horizontal = new byte[0];
+
+	/**
+	 * Creates luma filter with the default blur radius.
+	 */
+	public WebcamLumaFilter() {
+		this(DEFAULT_RADIUS);
+	}
+
+	/**
+	 * @param radius the blur radius in pixels, 0 for no blur
+	 */
+	public WebcamLumaFilter(int radius) {
+		if (radius < 0) {
+			throw new IllegalArgumentException("Blur radius cannot be negative");
+		}
+		this.radius = radius;
+		this.divide = new int[256 * (2 * radius + 1)];
+		for (int i = 0; i < divide.length; i++) {
+			divide[i] = i / (2 * radius + 1);
+		}
+	}
+
+	/**
+	 * @param original the image to process
+	 * @return blurred luma image, valid until two more frames have been filtered
+	 */
+	public BufferedImage filter(BufferedImage original) {
+
+		final int w = original.getWidth();
+		final int h = original.getHeight();
+
+		if (w != width || h != height) {
+			for (int i = 0; i < RING_SIZE; i++) {
+				ring[i] = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+			}
+			row = new int[w];
+			sums = new int[w];
+			horizontal = new byte[w * h];
+			width = w;
+			height = h;
+		}
+
+		final BufferedImage output = ring[next];
+		next = (next + 1) % RING_SIZE;
+
+		final WebcamRasterLayout layout = WebcamRasterLayout.of(original);
+		for (int y = 0; y < h; y++) {
+			if (layout != null) {
+				layout.readRow(y, 0, w, row);
+			} else {
+				original.getRGB(0, y, w, 1, row, 0, w);
+			}
+			for (int x = 0; x < w; x++) {
+				int rgb = row[x];
+				row[x] = (((rgb >> 16) & 0xff) * 77 + ((rgb >> 8) & 0xff) * 151 + (rgb & 0xff) * 28) >> 8;
+			}
+			blurRow(row, horizontal, y * w, w);
+		}
+
+		blurColumns(horizontal, getPlane(output), w, h);
+
+		return output;
+	}
+
+	/**
+	 * @param image the image to check
+	 * @return true if image was returned by this filter
+	 */
+	public boolean isOwned(BufferedImage image) {
+		for (BufferedImage owned : ring) {
+			if (owned == image) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param image luma image returned by {@link #filter(BufferedImage)}
+	 * @return luma samples, row by row, one byte per pixel
+	 */
+	public static byte[] getPlane(BufferedImage image) {
+		return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+	}
+
+	/**
+	 * Horizontal box blur of one row, edge pixels repeated.
+	 */
+	private void blurRow(int[] in, byte[] out, int offset, int w) {
+
+		final int r = radius;
+		final int last = w - 1;
+
+		int sum = 0;
+		for (int i = -r; i <= r; i++) {
+			sum += in[Math.max(0, Math.min(i, last))];
+		}
+
+		for (int x = 0; x < w; x++) {
+			out[offset + x] = (byte) divide[sum];
+			sum += in[Math.min(x + r + 1, last)] - in[Math.max(x - r, 0)];
+		}
+	}
+
+	/**
+	 * Vertical box blur, edge rows repeated. Keeps one running sum per column so the frame is
+	 * walked row by row.
+	 */
+	private void blurColumns(byte[] in, byte[] out, int w, int h) {
+
+		final int r = radius;
+		final int last = h - 1;
+		final int[] sums = this.sums;
+
+		for (int x = 0; x < w; x++) {
+			sums[x] = 0;
+		}
+		for (int i = -r; i <= r; i++) {
+			int offset = Math.max(0, Math.min(i, last)) * w;
+			for (int x = 0; x < w; x++) {
+				sums[x] += in[offset + x] & 0xff;
+			}
+		}
+
+		for (int y = 0; y < h; y++) {
+			int offset = y * w;
+			int add = Math.min(y + r + 1, last) * w;
+			int remove = Math.max(y - r, 0) * w;
+			for (int x = 0; x < w; x++) {
+				out[offset + x] = (byte) divide[sums[x]];
+				sums[x] += (in[add + x] & 0xff) - (in[remove + x] & 0xff);
+			}
+		}
+	}
+}
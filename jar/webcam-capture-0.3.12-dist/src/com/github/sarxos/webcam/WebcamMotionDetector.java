@@ -4,11 +4,16 @@ import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +21,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Webcam motion detector.
+ * <p>
+ * By default detector takes image from webcam every interval. In push mode (see
+ * {@link #setPushMode(boolean)}) it listens for new images instead, and analyses every one of them
+ * exactly once, or every Nth one if frame skip is set. Images are handed over to detector thread
+ * (or scheduler worker) through a small queue, when detector cannot keep up the oldest image waiting
+ * in queue is dropped.
  *
  * @author Bartosz Firyn (sarxos)
  */
@@ -41,6 +52,11 @@ public class WebcamMotionDetector {
 	 */
 	public static final int DEFAULT_INTERVAL = 500;
 
+	/**
+	 * Default number of images waiting for analysis in push mode.
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 2;
+
 	/**
 	 * Create new threads for detector internals.
 	 *
@@ -84,6 +100,125 @@ public class WebcamMotionDetector {
 		}
 	}
 
+	/**
+	 * Analyse images pushed by webcam.
+	 */
+	private class Receiver implements Runnable {
+
+		@Override
+		public void run() {
+
+			running.set(true);
+
+			while (running.get() && webcam.isOpen()) {
+				try {
+					Frame frame = frames.poll(interval, TimeUnit.MILLISECONDS);
+					if (frame != null) {
+						analyze(frame.image, frame.timestamp);
+					}
+				} catch (InterruptedException e) {
+					break;
+				} catch (Exception e) {
+					WebcamExceptionHandler.handle(e);
+				}
+			}
+
+			// stop() does not clean up once detector is no longer running, so do it here when
+			// loop ended because webcam has been closed
+
+			if (running.compareAndSet(true, false)) {
+				release();
+			}
+		}
+	}
+
+	/**
+	 * Analyse images pushed by webcam on scheduler worker, until there is nothing more to analyse.
+	 * Only one drainer is executed at a time.
+	 */
+	private class Drainer implements Runnable {
+
+		@Override
+		public void run() {
+			do {
+				Frame frame = null;
+				while (running.get() && (frame = frames.poll()) != null) {
+					try {
+						analyze(frame.image, frame.timestamp);
+					} catch (Exception e) {
+						WebcamExceptionHandler.handle(e);
+					}
+				}
+				draining.set(false);
+			} while (running.get() && !frames.isEmpty() && draining.compareAndSet(false, true));
+		}
+	}
+
+	/**
+	 * Image waiting for analysis.
+	 */
+	private static final class Frame {
+
+		private final BufferedImage image;
+		private final long timestamp;
+
+		public Frame(BufferedImage image, long timestamp) {
+			this.image = image;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/**
+	 * Receives new images in push mode.
+	 */
+	private class ImageListener implements WebcamListener {
+
+		@Override
+		public void webcamOpen(WebcamEvent we) {
+		}
+
+		@Override
+		public void webcamClosed(WebcamEvent we) {
+
+			// in push mode on scheduler there is no periodic check which would notice that webcam
+			// has been closed, so this is the only place to stop detector
+
+			closed();
+		}
+
+		@Override
+		public void webcamDisposed(WebcamEvent we) {
+		}
+
+		@Override
+		public void webcamImageObtained(WebcamEvent we) {
+
+			if (!running.get()) {
+				return;
+			}
+
+			if (received.incrementAndGet() % frameSkip != 0) {
+				skipped.incrementAndGet();
+				return;
+			}
+
+			Frame frame = new Frame(we.getImage(), we.getTimestamp());
+			while (!frames.offer(frame)) {
+				if (frames.poll() != null) {
+					dropped.incrementAndGet();
+				}
+			}
+
+			if (scheduler != null && draining.compareAndSet(false, true)) {
+				try {
+					scheduler.execute(drainer);
+				} catch (RejectedExecutionException e) {
+					draining.set(false); // try again with next image
+				}
+			}
+		}
+	}
+
 	/**
 	 * Change motion to false after specified number of seconds.
 	 *
@@ -94,8 +229,6 @@ public class WebcamMotionDetector {
 		@Override
 		public void run() {
 
-			int delay = 0;
-
 			while (running.get()) {
 
 				try {
@@ -104,9 +237,7 @@ public class WebcamMotionDetector {
 					break;
 				}
 
-				delay = inertia != -1 ? inertia : 2 * interval;
-
-				if (lastMotionTimestamp + delay < System.currentTimeMillis()) {
+				if (lastMotionTimestamp + getMotionValidity() < System.currentTimeMillis()) {
 					motion = false;
 				}
 			}
@@ -118,6 +249,60 @@ public class WebcamMotionDetector {
 	 */
 	private final ExecutorService executor = Executors.newFixedThreadPool(2, THREAD_FACTORY);
 
+	/**
+	 * Shared scheduler, null when detector uses its own threads.
+	 */
+	private volatile WebcamMotionDetectorScheduler scheduler = null;
+
+	/**
+	 * Incremented on every start, so checks scheduled before stop end themselves.
+	 */
+	private final AtomicInteger generation = new AtomicInteger(0);
+
+	/**
+	 * Is motion expiry scheduled?
+	 */
+	private final AtomicBoolean expiring = new AtomicBoolean(false);
+
+	/**
+	 * Is detector listening for new images instead of taking them every interval?
+	 */
+	private volatile boolean push = false;
+
+	/**
+	 * Analyse every Nth image in push mode.
+	 */
+	private volatile int frameSkip = 1;
+
+	/**
+	 * Number of images which can wait for analysis in push mode.
+	 */
+	private volatile int queueSize = DEFAULT_QUEUE_SIZE;
+
+	/**
+	 * Images waiting for analysis in push mode.
+	 */
+	private volatile BlockingQueue<Frame> frames = null;
+
+	/**
+	 * Is drainer executed on scheduler?
+	 */
+	private final AtomicBoolean draining = new AtomicBoolean(false);
+
+	private final Drainer drainer = new Drainer();
+
+	private final ImageListener listener = new ImageListener();
+
+	private final AtomicLong received = new AtomicLong();
+	private final AtomicLong analyzed = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * Average time from image capture to motion event (ms).
+	 */
+	private volatile double latency = 0;
+
 	/**
 	 * Motion listeners.
 	 */
@@ -228,17 +413,117 @@ public class WebcamMotionDetector {
 
 	public void start() {
 		if (running.compareAndSet(false, true)) {
-			webcam.open();
-			executor.submit(new Runner());
-			executor.submit(new Inverter());
+			if (push) {
+				frames = new ArrayBlockingQueue<Frame>(queueSize);
+				if (!webcam.isOpen()) {
+					webcam.open(true);
+				}
+				webcam.addWebcamListener(listener);
+			} else {
+				webcam.open();
+			}
+			if (scheduler != null) {
+				scheduler.register(this, generation.incrementAndGet());
+			} else {
+				executor.submit(push ? new Receiver() : new Runner());
+				executor.submit(new Inverter());
+			}
 		}
 	}
 
 	public void stop() {
 		if (running.compareAndSet(true, false)) {
+			release();
 			webcam.close();
-			executor.shutdownNow();
+			if (scheduler != null) {
+				scheduler.unregister(this);
+			} else {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Stop receiving images pushed by webcam, called when detector stops running.
+	 */
+	private void release() {
+		if (push) {
+			webcam.removeWebcamListener(listener);
+			frames.clear();
+		}
+	}
+
+	/**
+	 * Stop running detector because webcam has been closed. Unlike {@link #stop()} it does not
+	 * close webcam, nor shut down executor, whose tasks end by themselves when detector is no
+	 * longer running.
+	 */
+	private void closed() {
+		if (running.compareAndSet(true, false)) {
+			release();
+			if (scheduler != null) {
+				scheduler.unregister(this);
+			}
+		}
+	}
+
+	/**
+	 * Check for motion once, called by scheduler worker.
+	 *
+	 * @param generation the generation of detector start check has been scheduled for
+	 * @return True if next check should be scheduled
+	 */
+	boolean check(int generation) {
+
+		if (generation != this.generation.get() || !running.get()) {
+			return false;
+		}
+
+		if (!webcam.isOpen()) {
+			closed();
+			return false;
+		}
+
+		try {
+			detect();
+		} catch (Exception e) {
+			WebcamExceptionHandler.handle(e);
+		}
+
+		return running.get();
+	}
+
+	/**
+	 * Reset motion flag if it is no longer valid, called by scheduler timer.
+	 *
+	 * @return Milliseconds until motion expires, or 0 if it already has
+	 */
+	long expire() {
+
+		long remaining = lastMotionTimestamp + getMotionValidity() - System.currentTimeMillis();
+		if (remaining > 0) {
+			return remaining;
 		}
+
+		expiring.set(false);
+		motion = false;
+
+		// motion detected after remaining time has been calculated could not schedule expiry
+
+		remaining = lastMotionTimestamp + getMotionValidity() - System.currentTimeMillis();
+		if (remaining > 0 && expiring.compareAndSet(false, true)) {
+			motion = true;
+			return remaining;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * @return Time for which motion is valid after being detected (ms)
+	 */
+	private int getMotionValidity() {
+		return inertia != -1 ? inertia : 2 * interval;
 	}
 
 	protected void detect() {
@@ -255,12 +540,29 @@ public class WebcamMotionDetector {
 			return;
 		}
 
+		analyze(currentOriginal, System.currentTimeMillis());
+	}
+
+	/**
+	 * Compare image with the previous one and notify listeners if there is motion.
+	 *
+	 * @param currentOriginal the image to analyse
+	 * @param timestamp the time when image has been captured (ms)
+	 */
+	private void analyze(BufferedImage currentOriginal, long timestamp) {
+
+		analyzed.incrementAndGet();
+
 		final BufferedImage currentFiltered = algorithm.filter(currentOriginal);
 		final boolean motionDetected = algorithm.detect(previousFiltered, currentFiltered);
 
 		if (motionDetected) {
 			motion = true;
 			lastMotionTimestamp = System.currentTimeMillis();
+			if (scheduler != null && expiring.compareAndSet(false, true)) {
+				scheduler.expire(this, getMotionValidity());
+			}
+			latency = (4 * latency + lastMotionTimestamp - timestamp) / 5;
 			notifyMotionListeners(currentOriginal);
 		}
 
@@ -380,6 +682,108 @@ public class WebcamMotionDetector {
 		this.inertia = -1;
 	}
 
+	public boolean isPushMode() {
+		return push;
+	}
+
+	/**
+	 * Analyse images as they come from webcam, instead of taking them every interval. Webcam is
+	 * open in non-blocking mode if it is closed when detector starts. If it is already open in
+	 * blocking mode, images come only when someone calls {@link Webcam#getImage()}. Can be changed
+	 * only when detector is not running.
+	 *
+	 * @param push true for push mode, false to take images every interval
+	 */
+	public void setPushMode(boolean push) {
+		if (running.get()) {
+			throw new IllegalStateException("Mode cannot be changed when detector is running");
+		}
+		this.push = push;
+	}
+
+	public int getFrameSkip() {
+		return frameSkip;
+	}
+
+	/**
+	 * Analyse only every Nth image in push mode.
+	 *
+	 * @param frameSkip the N, 1 to analyse every image
+	 */
+	public void setFrameSkip(int frameSkip) {
+		if (frameSkip < 1) {
+			throw new IllegalArgumentException("Frame skip must be positive");
+		}
+		this.frameSkip = frameSkip;
+	}
+
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	/**
+	 * Set number of images which can wait for analysis in push mode. Can be changed only when
+	 * detector is not running.
+	 *
+	 * @param queueSize the queue size
+	 * @see #DEFAULT_QUEUE_SIZE
+	 */
+	public void setQueueSize(int queueSize) {
+		if (running.get()) {
+			throw new IllegalStateException("Queue size cannot be changed when detector is running");
+		}
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("Queue size must be positive");
+		}
+		this.queueSize = queueSize;
+	}
+
+	/**
+	 * @return Number of images analysed
+	 */
+	public long getAnalyzedFrames() {
+		return analyzed.get();
+	}
+
+	/**
+	 * @return Number of images not analysed because of frame skip (push mode)
+	 */
+	public long getSkippedFrames() {
+		return skipped.get();
+	}
+
+	/**
+	 * @return Number of images dropped from full queue (push mode)
+	 */
+	public long getDroppedFrames() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return Average time from capture of image with motion to motion event (ms)
+	 */
+	public double getLatency() {
+		return latency;
+	}
+
+	public WebcamMotionDetectorScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Run this detector on shared scheduler instead of two threads of its own. Can be changed only
+	 * when detector is not running.
+	 *
+	 * @param scheduler the scheduler, or null to use dedicated threads
+	 * @see WebcamMotionDetectorScheduler#getDefault()
+	 */
+	public void setScheduler(WebcamMotionDetectorScheduler scheduler) {
+		if (running.get()) {
+			throw new IllegalStateException("Scheduler cannot be changed when detector is running");
+		}
+		this.scheduler = scheduler;
+	}
+
 	/**
 	 * Get attached webcam object.
 	 *
@@ -389,6 +793,13 @@ public class WebcamMotionDetector {
 		return webcam;
 	}
 
+	/**
+	 * @return True if detector has been started and is checking for motion
+	 */
+	public boolean isRunning() {
+		return running.get();
+	}
+
 	public boolean isMotion() {
 		if (!running.get()) {
 			LOG.warn("Motion cannot be detected when detector is not running!");
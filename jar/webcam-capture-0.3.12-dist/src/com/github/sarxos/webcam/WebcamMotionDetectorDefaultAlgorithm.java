@@ -4,6 +4,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -72,6 +73,40 @@ public class WebcamMotionDetectorDefaultAlgorithm implements WebcamMotionDetecto
 
 	private List<Rectangle> doNotEnganeZones = Collections.emptyList();
 
+	/**
+	 * Use the raster scan in {@link #detect(BufferedImage, BufferedImage)} when image layout allows.
+	 */
+	private volatile boolean fastDetection = false;
+
+	/**
+	 * Fused luma and blur pre-processing, used instead of blur and gray filters when enabled.
+	 */
+	private final WebcamLumaFilter luma = new WebcamLumaFilter();
+
+	private volatile boolean lumaFilter = false;
+
+	/**
+	 * Count of changed pixels per difference intensity, filled by every detection.
+	 */
+	private final int[] thresholdHistogram = new int[256];
+
+	/**
+	 * Fast detection fills {@link #thresholds} lazily, only when somebody asks for it.
+	 */
+	private boolean thresholdsPending = false;
+
+	// fast detection state, reused between frames
+
+	private final WebcamZoneMask zoneMask = new WebcamZoneMask();
+	private long[] changed;
+	private byte[] differences;
+	private int[] currentRow = new int[0];
+	private int[] previousRow = new int[0];
+	private int[] pointX = new int[0];
+	private int[] pointY = new int[0];
+	private int lastWidth;
+	private int lastHeight;
+
 	/**
 	 * Creates default motion detector algorithm with default pixel and area thresholds.
 	 * 
@@ -95,6 +130,9 @@ public class WebcamMotionDetectorDefaultAlgorithm implements WebcamMotionDetecto
 
 	@Override
 	public BufferedImage filter(BufferedImage original) {
+		if (lumaFilter) {
+			return luma.filter(original);
+		}
 		BufferedImage modified = blur.filter(original, null);
 		modified = gray.filter(modified, null);
 		return modified;
@@ -103,8 +141,23 @@ public class WebcamMotionDetectorDefaultAlgorithm implements WebcamMotionDetecto
 	@Override
 	public boolean detect(BufferedImage previousModified, BufferedImage currentModified) {
 
+		if (previousModified != null && luma.isOwned(previousModified) && luma.isOwned(currentModified)) {
+			return detectRaster(WebcamRasterLayout.ofLuma(previousModified), WebcamRasterLayout.ofLuma(currentModified), currentModified.getWidth(), currentModified.getHeight());
+		}
+
+		if (fastDetection && previousModified != null
+			&& previousModified.getWidth() == currentModified.getWidth() && previousModified.getHeight() == currentModified.getHeight()) {
+			WebcamRasterLayout previousLayout = WebcamRasterLayout.of(previousModified);
+			WebcamRasterLayout currentLayout = previousLayout == null ? null : WebcamRasterLayout.of(currentModified);
+			if (currentLayout != null) {
+				return detectRaster(previousLayout, currentLayout, currentModified.getWidth(), currentModified.getHeight());
+			}
+		}
+
 		points.clear();
 		thresholds.clear();
+		thresholdsPending = false;
+		Arrays.fill(thresholdHistogram, 0);
 
 		int p = 0;
 
@@ -155,6 +208,7 @@ public class WebcamMotionDetectorDefaultAlgorithm implements WebcamMotionDetecto
 						cogY += y;
 						p += 1;
 						thresholds.add(pid);
+						thresholdHistogram[pid]++;
 					}
 				}
 			}
@@ -171,6 +225,124 @@ public class WebcamMotionDetectorDefaultAlgorithm implements WebcamMotionDetecto
 		}
 	}
 
+	/**
+	 * Same detection as the pixel-by-pixel scan, but reads the backing arrays row by row. Ignored
+	 * pixels come from a precomputed zone bitmap and changed pixels go into a bitmap indexed
+	 * column-major, so points are then picked in exactly the order the original scan visits them.
+	 */
+	private boolean detectRaster(WebcamRasterLayout previousModified, WebcamRasterLayout currentModified, final int w, final int h) {
+
+		points.clear();
+		thresholds.clear();
+		thresholdsPending = true;
+		Arrays.fill(thresholdHistogram, 0);
+
+		final int threshold = pixelThreshold;
+		final long[] mask = zoneMask.get(doNotEnganeZones, w, h);
+
+		// state is sized for the previous frame, dimensions can change while the word count stays
+		// the same (e.g. 640x480 and 480x640)
+
+		if (changed == null || w != lastWidth || h != lastHeight) {
+			changed = new long[(w * h + 63) >>> 6];
+			differences = new byte[w * h];
+			currentRow = new int[w];
+			previousRow = new int[w];
+		} else {
+			Arrays.fill(changed, 0);
+		}
+
+		final long[] changed = this.changed;
+		final byte[] differences = this.differences;
+		final int[] current = currentRow;
+		final int[] previous = previousRow;
+
+		int p = 0;
+		int cogX = 0;
+		int cogY = 0;
+
+		for (int y = 0; y < h; y++) {
+
+			currentModified.readRow(y, 0, w, current);
+			previousModified.readRow(y, 0, w, previous);
+
+			final int row = y * w;
+			for (int x = 0; x < w; x++) {
+				if (WebcamZoneMask.isMasked(mask, row + x)) {
+					continue;
+				}
+				int pid = combinePixels(current[x], previous[x]) & 0x000000ff;
+				if (pid >= threshold) {
+					int k = x * h + y;
+					changed[k >>> 6] |= 1L << k;
+					differences[row + x] = (byte) pid;
+					thresholdHistogram[pid]++;
+					cogX += x;
+					cogY += y;
+					p += 1;
+				}
+			}
+		}
+
+		pickPoints(w, h);
+
+		lastWidth = w;
+		lastHeight = h;
+		area = p * 100d / (w * h);
+
+		if (area >= areaThreshold && area <= areaThresholdMax) {
+			cog = new Point(cogX / p, cogY / p);
+			return true;
+		} else {
+			cog = new Point(w / 2, h / 2);
+			return false;
+		}
+	}
+
+	/**
+	 * Walks changed pixels in column-major order and keeps the ones far enough from already kept
+	 * points, stopping as soon as the point limit is reached.
+	 */
+	private void pickPoints(int w, int h) {
+
+		final int max = maxPoints;
+		if (max <= 0) {
+			return;
+		}
+		if (pointX.length < max) {
+			pointX = new int[max];
+			pointY = new int[max];
+		}
+
+		final long rangeSquared = range < 0 ? -1 : (long) range * range;
+		int j = 0;
+
+		for (int word = 0; word < changed.length && j < max; word++) {
+			long bits = changed[word];
+			while (bits != 0 && j < max) {
+				int k = (word << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				int x = k / h;
+				int y = k - x * h;
+				boolean keep = true;
+				for (int i = 0; i < j; i++) {
+					long dx = x - pointX[i];
+					long dy = y - pointY[i];
+					if (dx * dx + dy * dy <= rangeSquared) {
+						keep = false;
+						break;
+					}
+				}
+				if (keep) {
+					pointX[j] = x;
+					pointY[j] = y;
+					points.add(new Point(x, y));
+					j += 1;
+				}
+			}
+		}
+	}
+
 	/**
 	 * Return true if point identified by x and y coordinates is in one of the do-not-engage zones.
 	 * Return false otherwise.
@@ -253,7 +425,7 @@ public class WebcamMotionDetectorDefaultAlgorithm implements WebcamMotionDetecto
 		this.areaThresholdMax = threshold;
 	}
 
-	private static int combinePixels(int rgb1, int rgb2) {
+	static int combinePixels(int rgb1, int rgb2) {
 
 		// first ARGB
 
@@ -311,9 +483,75 @@ public class WebcamMotionDetectorDefaultAlgorithm implements WebcamMotionDetecto
 	ArrayList<Integer> thresholds = new ArrayList<Integer>();
 
 	public ArrayList<Integer> getThresholds() {
+		if (thresholdsPending) {
+			thresholdsPending = false;
+			final int w = lastWidth;
+			final int h = lastHeight;
+			for (int word = 0; word < changed.length; word++) {
+				long bits = changed[word];
+				while (bits != 0) {
+					int k = (word << 6) + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+					int x = k / h;
+					int y = k - x * h;
+					thresholds.add(differences[y * w + x] & 0xff);
+				}
+			}
+		}
 		return this.thresholds;
 	}
 
+	/**
+	 * Histogram of changed pixels from the last detection, indexed by pixel difference intensity
+	 * (0 - 255). Unlike {@link #getThresholds()} this needs no boxing. The returned array is reused
+	 * by the next detection.
+	 *
+	 * @return the number of changed pixels for each intensity
+	 */
+	public int[] getThresholdHistogram() {
+		return thresholdHistogram;
+	}
+
+	/**
+	 * Enable or disable fast detection. When enabled, images backed by 8-bit sRGB int or byte
+	 * rasters (which includes the output of {@link #filter(BufferedImage)}) are compared directly
+	 * on their pixel arrays, row by row. The results (area, cog,
+	 * points and thresholds) are the same as with the default scan. Other image types still use the
+	 * default scan.
+	 *
+	 * @param fast true to enable fast detection
+	 */
+	public void setFastDetection(boolean fast) {
+		this.fastDetection = fast;
+	}
+
+	/**
+	 * @return true if fast detection is enabled
+	 */
+	public boolean isFastDetection() {
+		return fastDetection;
+	}
+
+	/**
+	 * Enable or disable fused pre-processing. When enabled, {@link #filter(BufferedImage)} uses
+	 * {@link WebcamLumaFilter}, which converts frame to 8-bit luma and blurs it into reused buffers
+	 * instead of allocating new images in blur and gray filters, and detection then compares luma
+	 * samples directly. Luma is computed before blurring, so pixel differences may be off by one
+	 * compared to the default filters.
+	 *
+	 * @param enabled true to enable fused pre-processing
+	 */
+	public void setLumaFilter(boolean enabled) {
+		this.lumaFilter = enabled;
+	}
+
+	/**
+	 * @return true if fused pre-processing is enabled
+	 */
+	public boolean isLumaFilter() {
+		return lumaFilter;
+	}
+
 	/**
 	 * The default minimum range between each point where motion has been detected
 	 */
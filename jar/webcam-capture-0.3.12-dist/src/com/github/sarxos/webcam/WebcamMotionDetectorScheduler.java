@@ -0,0 +1,240 @@
+package com.github.sarxos.webcam;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Runs many motion detectors on a fixed number of threads. By default every
+ * {@link WebcamMotionDetector} has two threads of its own, one sleeping between checks and one
+ * polling every 10 ms to reset motion flag when inertia passes, which does not scale to hundreds of
+ * webcams. Detectors which are given scheduler (see
+ * {@link WebcamMotionDetector#setScheduler(WebcamMotionDetectorScheduler)}) share one timer thread,
+ * which only schedules checks and inertia deadlines, and a bounded pool of workers doing the actual
+ * detection.
+ * <p>
+ * Every detector has at most one check scheduled or running at a time, and next one is scheduled
+ * interval after the previous one completes, same as with dedicated threads. When worker queue is
+ * full, check is skipped and retried after interval.
+ */
+public class WebcamMotionDetectorScheduler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamMotionDetectorScheduler.class);
+
+	/**
+	 * Default number of checks which can wait for worker.
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+	private static final class SchedulerThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger N = new AtomicInteger(0);
+
+		private final String name;
+
+		public SchedulerThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, String.format("motion-%s-%d", name, N.incrementAndGet()));
+			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	/**
+	 * Passes check from timer to workers.
+	 */
+	private final class Check implements Runnable {
+
+		private final WebcamMotionDetector detector;
+		private final int generation;
+
+		public Check(WebcamMotionDetector detector, int generation) {
+			this.detector = detector;
+			this.generation = generation;
+		}
+
+		@Override
+		public void run() {
+			try {
+				workers.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						checks.incrementAndGet();
+						if (detector.check(generation)) {
+							schedule(Check.this);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				if (!workers.isShutdown()) {
+					skipped.incrementAndGet();
+					schedule(this);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resets motion flag when inertia passes, or moves the deadline if there was motion since.
+	 */
+	private final class Expiry implements Runnable {
+
+		private final WebcamMotionDetector detector;
+
+		public Expiry(WebcamMotionDetector detector) {
+			this.detector = detector;
+		}
+
+		@Override
+		public void run() {
+			long remaining = detector.expire();
+			if (remaining > 0) {
+				expire(detector, remaining);
+			}
+		}
+	}
+
+	private static WebcamMotionDetectorScheduler instance = null;
+
+	private final ScheduledThreadPoolExecutor timer;
+	private final ThreadPoolExecutor workers;
+	private final AtomicInteger detectors = new AtomicInteger();
+	private final AtomicLong checks = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+
+	/**
+	 * @param threads the number of worker threads
+	 * @param queueSize the number of checks which can wait for worker
+	 */
+	public WebcamMotionDetectorScheduler(int threads, int queueSize) {
+
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive");
+		}
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("Queue size must be positive");
+		}
+
+		timer = new ScheduledThreadPoolExecutor(1, new SchedulerThreadFactory("timer"));
+		timer.setRemoveOnCancelPolicy(true);
+		timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
+		workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new SchedulerThreadFactory("worker"));
+	}
+
+	/**
+	 * @return Scheduler shared by default, with one worker per CPU core
+	 */
+	public static synchronized WebcamMotionDetectorScheduler getDefault() {
+		if (instance == null) {
+			instance = new WebcamMotionDetectorScheduler(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_SIZE);
+		}
+		return instance;
+	}
+
+	/**
+	 * Start checking detector. Checks scheduled for previous generation, i.e. before detector was
+	 * stopped and started again, end themselves. Detectors in push mode are not checked
+	 * periodically, they {@link #execute(Runnable)} analysis when new image comes.
+	 */
+	void register(WebcamMotionDetector detector, int generation) {
+
+		if (workers.isShutdown()) {
+			throw new IllegalStateException("Scheduler has been shut down");
+		}
+
+		detectors.incrementAndGet();
+
+		if (!detector.isPushMode()) {
+			timer.execute(new Check(detector, generation));
+		}
+	}
+
+	void unregister(WebcamMotionDetector detector) {
+		detectors.decrementAndGet();
+	}
+
+	private void schedule(Check check) {
+		try {
+			timer.schedule(check, check.detector.getInterval(), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			LOG.trace("Scheduler has been shut down");
+		}
+	}
+
+	/**
+	 * Execute work on worker thread.
+	 *
+	 * @param work the work to execute
+	 * @throws RejectedExecutionException when worker queue is full
+	 */
+	void execute(Runnable work) {
+		workers.execute(work);
+	}
+
+	void expire(WebcamMotionDetector detector, long delay) {
+		try {
+			timer.schedule(new Expiry(detector), delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			LOG.trace("Scheduler has been shut down");
+		}
+	}
+
+	/**
+	 * Stop all threads. Detectors using this scheduler will no longer check for motion.
+	 */
+	public void shutdown() {
+		timer.shutdownNow();
+		workers.shutdownNow();
+	}
+
+	/**
+	 * @return Number of worker threads
+	 */
+	public int getThreads() {
+		return workers.getMaximumPoolSize();
+	}
+
+	/**
+	 * @return Number of running detectors using this scheduler
+	 */
+	public int getDetectorsCount() {
+		return detectors.get();
+	}
+
+	/**
+	 * @return Number of checks waiting for worker
+	 */
+	public int getQueueDepth() {
+		return workers.getQueue().size();
+	}
+
+	/**
+	 * @return Number of checks done
+	 */
+	public long getChecks() {
+		return checks.get();
+	}
+
+	/**
+	 * @return Number of checks skipped because worker queue was full
+	 */
+	public long getSkippedChecks() {
+		return skipped.get();
+	}
+}
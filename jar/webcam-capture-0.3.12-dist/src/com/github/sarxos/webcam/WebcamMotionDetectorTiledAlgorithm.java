@@ -0,0 +1,558 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.sarxos.webcam.util.jh.JHBlurFilter;
+import com.github.sarxos.webcam.util.jh.JHGrayFilter;
+
+
+/**
+ * Motion detector algorithm which splits every frame into a grid of tiles and compares them in
+ * parallel on a fork-join pool. Each tile counts its changed pixels, sums their coordinates and
+ * picks candidate points; results are then merged in tile order, applying the point range once
+ * more so that points picked on both sides of a tile border are not reported twice.
+ * <p>
+ * Thresholds have the same meaning as in {@link WebcamMotionDetectorDefaultAlgorithm} and the
+ * reported area is the same too. Points may differ because they are picked tile by tile. Motion
+ * of every tile is available from {@link #getTileAreas()}, so that parts of the view can be
+ * analysed separately.
+ */
+public class WebcamMotionDetectorTiledAlgorithm implements WebcamMotionDetectorAlgorithm {
+
+	/**
+	 * Default number of tile columns and rows.
+	 */
+	public static final int DEFAULT_TILES = 4;
+
+	/**
+	 * Pixel intensity threshold (0 - 255).
+	 */
+	private volatile int pixelThreshold = WebcamMotionDetectorDefaultAlgorithm.DEFAULT_PIXEL_THREASHOLD;
+
+	/**
+	 * Percentage image area fraction threshold (0 - 100).
+	 */
+	private volatile double areaThreshold = WebcamMotionDetectorDefaultAlgorithm.DEFAULT_AREA_THREASHOLD;
+
+	/**
+	 * Maximum pixel change percentage threshold (0 - 100).
+	 */
+	private volatile double areaThresholdMax = WebcamMotionDetectorDefaultAlgorithm.DEFAULT_AREA_THREASHOLD_MAX;
+
+	/**
+	 * The current minimum range between points.
+	 */
+	private volatile int range = WebcamMotionDetectorDefaultAlgorithm.DEFAULT_RANGE;
+
+	/**
+	 * The current max amount of points.
+	 */
+	private volatile int maxPoints = WebcamMotionDetectorDefaultAlgorithm.DEFAULT_MAX_POINTS;
+
+	/**
+	 * Motion strength (0 = no motion, 100 = full image covered by motion).
+	 */
+	private double area = 0;
+
+	/**
+	 * Center of motion gravity.
+	 */
+	private Point cog = null;
+
+	/**
+	 * Points of the last detected motion.
+	 */
+	private final ArrayList<Point> points = new ArrayList<Point>();
+
+	/**
+	 * Blur filter instance.
+	 */
+	private final JHBlurFilter blur = new JHBlurFilter(6, 6, 1);
+
+	/**
+	 * Gray filter instance.
+	 */
+	private final JHGrayFilter gray = new JHGrayFilter();
+
+	private final WebcamZoneMask zoneMask = new WebcamZoneMask();
+
+	private volatile List<Rectangle> doNotEngageZones = Collections.emptyList();
+
+	private final ForkJoinPool pool;
+
+	private final int columns;
+
+	private final int rows;
+
+	/**
+	 * Tiles of the current frame size, reused between frames.
+	 */
+	private Tile[] tiles = new Tile[0];
+
+	private int tilesWidth = -1;
+
+	private int tilesHeight = -1;
+
+	/**
+	 * Creates tiled algorithm with default thresholds, 4x4 tiles and the common fork-join pool.
+	 */
+	public WebcamMotionDetectorTiledAlgorithm() {
+		this(DEFAULT_TILES, DEFAULT_TILES, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates tiled algorithm with default thresholds.
+	 *
+	 * @param columns number of tile columns
+	 * @param rows number of tile rows
+	 * @param pool the pool running tile comparisons
+	 */
+	public WebcamMotionDetectorTiledAlgorithm(int columns, int rows, ForkJoinPool pool) {
+		if (columns < 1 || rows < 1) {
+			throw new IllegalArgumentException("There must be at least one tile column and row");
+		}
+		if (pool == null) {
+			throw new IllegalArgumentException("Fork-join pool cannot be null");
+		}
+		this.columns = columns;
+		this.rows = rows;
+		this.pool = pool;
+	}
+
+	/**
+	 * Creates tiled algorithm.
+	 *
+	 * @param pixelThreshold intensity threshold (0 - 255)
+	 * @param areaThreshold percentage threshold of image covered by motion
+	 * @param columns number of tile columns
+	 * @param rows number of tile rows
+	 * @param pool the pool running tile comparisons
+	 */
+	public WebcamMotionDetectorTiledAlgorithm(int pixelThreshold, double areaThreshold, int columns, int rows, ForkJoinPool pool) {
+		this(columns, rows, pool);
+		setPixelThreshold(pixelThreshold);
+		setAreaThreshold(areaThreshold);
+	}
+
+	@Override
+	public BufferedImage filter(BufferedImage original) {
+		BufferedImage modified = blur.filter(original, null);
+		modified = gray.filter(modified, null);
+		return modified;
+	}
+
+	@Override
+	public boolean detect(BufferedImage previous, BufferedImage current) {
+
+		points.clear();
+
+		final int w = current.getWidth();
+		final int h = current.getHeight();
+
+		if (previous == null || previous.getWidth() != w || previous.getHeight() != h) {
+			area = 0;
+			cog = new Point(w / 2, h / 2);
+			return false;
+		}
+
+		final Tile[] tiles = tiles(w, h);
+		final Frame frame = new Frame(previous, current, zoneMask.get(doNotEngageZones, w, h), pixelThreshold, range, maxPoints);
+
+		pool.invoke(new TileTask(tiles, 0, tiles.length, frame));
+
+		long p = 0;
+		long cogX = 0;
+		long cogY = 0;
+
+		for (Tile tile : tiles) {
+			p += tile.changed;
+			cogX += tile.cogX;
+			cogY += tile.cogY;
+			merge(tile);
+		}
+
+		area = p * 100d / ((long) w * h);
+
+		if (area >= areaThreshold && area <= areaThresholdMax) {
+			cog = new Point((int) (cogX / p), (int) (cogY / p));
+			return true;
+		} else {
+			cog = new Point(w / 2, h / 2);
+			return false;
+		}
+	}
+
+	/**
+	 * Adds tile candidates which are not within point range from points already taken, e.g. from
+	 * the neighbour tile on the other side of the border.
+	 */
+	private void merge(Tile tile) {
+
+		final long rangeSquared = range < 0 ? -1 : (long) range * range;
+		final int max = maxPoints;
+
+		for (int c = 0; c < tile.candidates && points.size() < max; c++) {
+			int x = tile.pointX[c];
+			int y = tile.pointY[c];
+			boolean keep = true;
+			for (Point g : points) {
+				long dx = x - g.x;
+				long dy = y - g.y;
+				if (dx * dx + dy * dy <= rangeSquared) {
+					keep = false;
+					break;
+				}
+			}
+			if (keep) {
+				points.add(new Point(x, y));
+			}
+		}
+	}
+
+	private Tile[] tiles(int w, int h) {
+
+		if (w == tilesWidth && h == tilesHeight) {
+			return tiles;
+		}
+
+		final int cols = Math.min(columns, w);
+		final int rws = Math.min(rows, h);
+		final Tile[] created = new Tile[cols * rws];
+
+		// column-major, same order the default algorithm visits pixels in
+		for (int c = 0, i = 0; c < cols; c++) {
+			for (int r = 0; r < rws; r++, i++) {
+				int x0 = c * w / cols;
+				int y0 = r * h / rws;
+				created[i] = new Tile(new Rectangle(x0, y0, (c + 1) * w / cols - x0, (r + 1) * h / rws - y0));
+			}
+		}
+
+		tiles = created;
+		tilesWidth = w;
+		tilesHeight = h;
+		return created;
+	}
+
+	/**
+	 * Per-frame input shared by all tile tasks.
+	 */
+	private static final class Frame {
+
+		final BufferedImage previous;
+		final BufferedImage current;
+		final WebcamRasterLayout previousLayout;
+		final WebcamRasterLayout currentLayout;
+		final long[] mask;
+		final int threshold;
+		final long rangeSquared;
+		final int maxPoints;
+
+		Frame(BufferedImage previous, BufferedImage current, long[] mask, int threshold, int range, int maxPoints) {
+			this.previous = previous;
+			this.current = current;
+			this.previousLayout = WebcamRasterLayout.of(previous);
+			this.currentLayout = this.previousLayout == null ? null : WebcamRasterLayout.of(current);
+			this.mask = mask;
+			this.threshold = threshold;
+			this.rangeSquared = range < 0 ? -1 : (long) range * range;
+			this.maxPoints = Math.max(0, maxPoints);
+		}
+
+		void readRow(boolean currentFrame, int y, int x0, int w, int[] argb) {
+			if (currentLayout != null) {
+				(currentFrame ? currentLayout : previousLayout).readRow(y, x0, w, argb);
+			} else {
+				(currentFrame ? current : previous).getRGB(x0, y, w, 1, argb, 0, w);
+			}
+		}
+	}
+
+	/**
+	 * One tile of the frame with its own row buffers and results of the last comparison.
+	 */
+	private static final class Tile {
+
+		final Rectangle bounds;
+		final int[] currentRow;
+		final int[] previousRow;
+		final long[] changedBits;
+
+		int[] pointX = new int[0];
+		int[] pointY = new int[0];
+		int candidates;
+		int changed;
+		long cogX;
+		long cogY;
+
+		Tile(Rectangle bounds) {
+			this.bounds = bounds;
+			this.currentRow = new int[bounds.width];
+			this.previousRow = new int[bounds.width];
+			this.changedBits = new long[(bounds.width * bounds.height + 63) >>> 6];
+		}
+
+		void compare(Frame frame) {
+
+			final int x0 = bounds.x;
+			final int y0 = bounds.y;
+			final int tw = bounds.width;
+			final int th = bounds.height;
+			final int iw = frame.current.getWidth();
+			final long[] bits = changedBits;
+
+			Arrays.fill(bits, 0);
+
+			int p = 0;
+			long sx = 0;
+			long sy = 0;
+
+			for (int ty = 0; ty < th; ty++) {
+
+				final int y = y0 + ty;
+				frame.readRow(true, y, x0, tw, currentRow);
+				frame.readRow(false, y, x0, tw, previousRow);
+
+				for (int tx = 0; tx < tw; tx++) {
+					if (WebcamZoneMask.isMasked(frame.mask, y * iw + x0 + tx)) {
+						continue;
+					}
+					int pid = WebcamMotionDetectorDefaultAlgorithm.combinePixels(currentRow[tx], previousRow[tx]) & 0x000000ff;
+					if (pid >= frame.threshold) {
+						int k = tx * th + ty;
+						bits[k >>> 6] |= 1L << k;
+						sx += x0 + tx;
+						sy += y;
+						p += 1;
+					}
+				}
+			}
+
+			changed = p;
+			cogX = sx;
+			cogY = sy;
+			pickCandidates(frame);
+		}
+
+		/**
+		 * Picks points column by column within the tile, like the default algorithm does for the
+		 * whole image.
+		 */
+		private void pickCandidates(Frame frame) {
+
+			final int max = frame.maxPoints;
+			final int th = bounds.height;
+			if (pointX.length < max) {
+				pointX = new int[max];
+				pointY = new int[max];
+			}
+
+			int j = 0;
+			for (int word = 0; word < changedBits.length && j < max; word++) {
+				long bits = changedBits[word];
+				while (bits != 0 && j < max) {
+					int k = (word << 6) + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+					int x = bounds.x + k / th;
+					int y = bounds.y + k % th;
+					boolean keep = true;
+					for (int i = 0; i < j; i++) {
+						long dx = x - pointX[i];
+						long dy = y - pointY[i];
+						if (dx * dx + dy * dy <= frame.rangeSquared) {
+							keep = false;
+							break;
+						}
+					}
+					if (keep) {
+						pointX[j] = x;
+						pointY[j] = y;
+						j += 1;
+					}
+				}
+			}
+			candidates = j;
+		}
+	}
+
+	/**
+	 * Compares a range of tiles, splitting it in halves until single tiles are left.
+	 */
+	private static final class TileTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Tile[] tiles;
+		private final int from;
+		private final int to;
+		private final Frame frame;
+
+		TileTask(Tile[] tiles, int from, int to, Frame frame) {
+			this.tiles = tiles;
+			this.from = from;
+			this.to = to;
+			this.frame = frame;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				tiles[from].compare(frame);
+			} else if (to > from) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new TileTask(tiles, from, middle, frame), new TileTask(tiles, middle, to, frame));
+			}
+		}
+	}
+
+	/**
+	 * Motion of every tile from the last detection, as a percentage of the tile area. Rows go first,
+	 * i.e. {@code areas[row][column]}.
+	 *
+	 * @return the tile areas
+	 */
+	public double[][] getTileAreas() {
+		final Tile[] tiles = this.tiles;
+		final int rws = tiles.length == 0 ? 0 : Math.min(rows, tilesHeight);
+		final int cols = rws == 0 ? 0 : tiles.length / rws;
+		final double[][] areas = new double[rws][cols];
+		for (int c = 0, i = 0; c < cols; c++) {
+			for (int r = 0; r < rws; r++, i++) {
+				Rectangle b = tiles[i].bounds;
+				areas[r][c] = tiles[i].changed * 100d / ((long) b.width * b.height);
+			}
+		}
+		return areas;
+	}
+
+	/**
+	 * Bounds of the tile in the image, in the same layout as {@link #getTileAreas()}.
+	 *
+	 * @param row the tile row
+	 * @param column the tile column
+	 * @return tile bounds
+	 */
+	public Rectangle getTileBounds(int row, int column) {
+		final int rws = Math.min(rows, tilesHeight);
+		return new Rectangle(tiles[column * rws + row].bounds);
+	}
+
+	/**
+	 * @param row the tile row
+	 * @param column the tile column
+	 * @return true if the last detection found motion above the area threshold in this tile
+	 */
+	public boolean isTileMotion(int row, int column) {
+		double tileArea = getTileAreas()[row][column];
+		return tileArea >= areaThreshold && tileArea <= areaThresholdMax;
+	}
+
+	/**
+	 * @return number of tile columns
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return number of tile rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public Point getCog() {
+		return cog;
+	}
+
+	@Override
+	public double getArea() {
+		return area;
+	}
+
+	/**
+	 * Set pixel intensity difference threshold above which pixel is classified as "moved".
+	 *
+	 * @param threshold the pixel intensity difference threshold (0 - 255)
+	 */
+	public void setPixelThreshold(int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Pixel intensity threshold cannot be negative!");
+		}
+		if (threshold > 255) {
+			throw new IllegalArgumentException("Pixel intensity threshold cannot be higher than 255!");
+		}
+		this.pixelThreshold = threshold;
+	}
+
+	/**
+	 * Set percentage fraction of detected motion area threshold above which it is classified as
+	 * "moved".
+	 *
+	 * @param threshold the percentage fraction of image area (0 - 100)
+	 */
+	public void setAreaThreshold(double threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Area fraction threshold cannot be negative!");
+		}
+		if (threshold > 100) {
+			throw new IllegalArgumentException("Area fraction threshold cannot be higher than 100!");
+		}
+		this.areaThreshold = threshold;
+	}
+
+	/**
+	 * Set max percentage fraction of detected motion area threshold, below which it is classified
+	 * as "moved".
+	 *
+	 * @param threshold the percentage fraction of image area (0 - 100)
+	 */
+	public void setMaxAreaThreshold(double threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Area fraction threshold cannot be negative!");
+		}
+		if (threshold > 100) {
+			throw new IllegalArgumentException("Area fraction threshold cannot be higher than 100!");
+		}
+		this.areaThresholdMax = threshold;
+	}
+
+	@Override
+	public void setPointRange(int i) {
+		range = i;
+	}
+
+	@Override
+	public int getPointRange() {
+		return range;
+	}
+
+	@Override
+	public void setMaxPoints(int i) {
+		maxPoints = i;
+	}
+
+	@Override
+	public int getMaxPoints() {
+		return maxPoints;
+	}
+
+	@Override
+	public ArrayList<Point> getPoints() {
+		return points;
+	}
+
+	@Override
+	public void setDoNotEngageZones(List<Rectangle> bounds) {
+		this.doNotEngageZones = bounds;
+	}
+}
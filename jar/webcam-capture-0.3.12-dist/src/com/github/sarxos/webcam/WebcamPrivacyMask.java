@@ -0,0 +1,768 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Hides areas of the image, e.g. passenger faces or seats, by filling them with solid color or by
+ * blurring them into blocks of average color. Areas are given as shapes (polygons, rectangles,
+ * ellipses, etc) in image coordinates. Unlike do-not-engage zones of motion detector, which only
+ * exclude areas from detection, mask changes the pixels, so the areas never leave the webcam.
+ * <p>
+ * Mask set with {@link Webcam#setPrivacyMask(WebcamPrivacyMask)} is applied to every image before
+ * image transformer, and to raw bytes read from devices with buffer access, so streamer, recorder,
+ * motion detector and all other consumers get masked images only. It can also be used as plain
+ * {@link WebcamImageTransformer}.
+ * <p>
+ * Every shape is converted into spans, i.e. ranges of pixels covered by the shape in each row,
+ * once per image size. Masking works on the raster in place, writing directly into its data
+ * buffer for int-packed and byte-interleaved images, so its cost is proportional to the masked
+ * area and not to the image size. Blur averages every block of pixels and fills the block with
+ * the average, which, unlike gaussian blur, cannot be reversed.
+ * <p>
+ * Mask is thread safe and can be shared by many webcams.
+ */
+public class WebcamPrivacyMask implements WebcamImageTransformer {
+
+	/**
+	 * How masked area is hidden.
+	 */
+	public static enum Mode {
+
+		/**
+		 * Fill with solid color.
+		 */
+		FILL,
+
+		/**
+		 * Fill every block with its average color.
+		 */
+		BLUR,
+	}
+
+	/**
+	 * Default blur block size (pixels).
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 16;
+
+	/**
+	 * Tolerance used when curves are flattened into line segments (pixels).
+	 */
+	private static final double FLATNESS = 0.25;
+
+	/**
+	 * Ranges of pixels covered by the shape, row by row. Ranges of row y are pairs x0, x1 (x1
+	 * exclusive) in xs, from index rows[y] to rows[y + 1].
+	 */
+	private static final class Spans {
+
+		private final int width;
+		private final int height;
+		private final int[] rows;
+		private final int[] xs;
+		private final int area;
+
+		public Spans(int width, int height, int[] rows, int[] xs, int area) {
+			this.width = width;
+			this.height = height;
+			this.rows = rows;
+			this.xs = xs;
+			this.area = area;
+		}
+	}
+
+	/**
+	 * Masked area.
+	 */
+	private static final class Area {
+
+		private final Shape shape;
+		private final Mode mode;
+		private final int color;
+		private final int block;
+
+		/**
+		 * Spans for the last image size.
+		 */
+		private volatile Spans spans = null;
+
+		public Area(Shape shape, Mode mode, int color, int block) {
+			this.shape = shape;
+			this.mode = mode;
+			this.color = color;
+			this.block = block;
+		}
+
+		public Spans getSpans(int width, int height) {
+			Spans s = spans;
+			if (s == null || s.width != width || s.height != height) {
+				spans = s = rasterize(shape, width, height);
+			}
+			return s;
+		}
+	}
+
+	private volatile Area[] areas = new Area[0];
+
+	/**
+	 * Average masking time (ns).
+	 */
+	private volatile double time = 0;
+
+	private final AtomicLong frames = new AtomicLong();
+
+	/**
+	 * Fill area with solid color.
+	 *
+	 * @param shape the area, in image coordinates
+	 * @param color the packed RGB color
+	 * @return This mask
+	 */
+	public WebcamPrivacyMask fill(Shape shape, int color) {
+		return add(shape, Mode.FILL, color, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Blur area with default block size.
+	 *
+	 * @param shape the area, in image coordinates
+	 * @return This mask
+	 */
+	public WebcamPrivacyMask blur(Shape shape) {
+		return add(shape, Mode.BLUR, 0, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Blur area with given block size. The bigger the block the less can be seen, 16 is enough to
+	 * hide faces in 1080p image taken from the ceiling.
+	 *
+	 * @param shape the area, in image coordinates
+	 * @param block the block size (pixels)
+	 * @return This mask
+	 */
+	public WebcamPrivacyMask blur(Shape shape, int block) {
+		return add(shape, Mode.BLUR, 0, block);
+	}
+
+	private synchronized WebcamPrivacyMask add(Shape shape, Mode mode, int color, int block) {
+
+		if (shape == null) {
+			throw new IllegalArgumentException("Shape cannot be null");
+		}
+		if (block < 2) {
+			throw new IllegalArgumentException("Block size must be at least 2");
+		}
+
+		Area[] as = Arrays.copyOf(areas, areas.length + 1);
+		as[as.length - 1] = new Area(shape, mode, color, block);
+		areas = as;
+
+		return this;
+	}
+
+	/**
+	 * Remove all areas.
+	 */
+	public synchronized void clear() {
+		areas = new Area[0];
+	}
+
+	/**
+	 * @return Number of masked areas
+	 */
+	public int getAreas() {
+		return areas.length;
+	}
+
+	/**
+	 * @param width the image width
+	 * @param height the image height
+	 * @return Number of pixels masked in image of given size (pixels covered by more than one area
+	 *         are counted more than once)
+	 */
+	public int getMaskedPixels(int width, int height) {
+		int n = 0;
+		for (Area a : areas) {
+			n += a.getSpans(width, height).area;
+		}
+		return n;
+	}
+
+	/**
+	 * @return Average masking time (ms)
+	 */
+	public double getTime() {
+		return time / 1e6;
+	}
+
+	/**
+	 * @return Number of images and buffers masked
+	 */
+	public long getFrames() {
+		return frames.get();
+	}
+
+	/**
+	 * Mask image in place.
+	 *
+	 * @param image the image to be masked
+	 * @return The same image
+	 */
+	@Override
+	public BufferedImage transform(BufferedImage image) {
+
+		Area[] as = areas;
+		if (image == null || as.length == 0) {
+			return image;
+		}
+
+		long t = System.nanoTime();
+
+		int width = image.getWidth();
+		int height = image.getHeight();
+
+		WritableRaster raster = image.getRaster();
+		DataBuffer db = raster.getDataBuffer();
+		SampleModel sm = raster.getSampleModel();
+		ColorModel cm = image.getColorModel();
+
+		int sx = -raster.getSampleModelTranslateX();
+		int sy = -raster.getSampleModelTranslateY();
+
+		if (db instanceof DataBufferInt && isPacked(sm)) {
+
+			SinglePixelPackedSampleModel sppsm = (SinglePixelPackedSampleModel) sm;
+			int[] data = ((DataBufferInt) db).getData();
+			int base = db.getOffset() + sppsm.getOffset(sx, sy);
+			int scan = sppsm.getScanlineStride();
+
+			for (Area a : as) {
+				Spans s = a.getSpans(width, height);
+				if (a.mode == Mode.FILL) {
+					fill(data, base, scan, s, ((int[]) cm.getDataElements(0xff000000 | a.color, null))[0]);
+				} else {
+					blur(data, base, scan, s, a.block);
+				}
+			}
+
+		} else if (db instanceof DataBufferByte && isInterleaved(sm)) {
+
+			ComponentSampleModel csm = (ComponentSampleModel) sm;
+			byte[] data = ((DataBufferByte) db).getData();
+			int ps = csm.getPixelStride();
+			int[] offsets = csm.getBandOffsets();
+			int base = db.getOffset() + csm.getOffset(sx, sy) - offsets[0];
+			int scan = csm.getScanlineStride();
+
+			for (Area a : as) {
+				Spans s = a.getSpans(width, height);
+				if (a.mode == Mode.FILL) {
+					byte[] elements = (byte[]) cm.getDataElements(0xff000000 | a.color, null);
+					byte[] pixel = new byte[ps];
+					for (int b = 0; b < offsets.length; b++) {
+						pixel[offsets[b]] = elements[b];
+					}
+					fill(data, base, scan, ps, s, pixel, 0, height);
+				} else {
+					blur(data, base, scan, ps, s, a.block, 0, height);
+				}
+			}
+
+		} else {
+
+			// other layouts are rare (e.g. indexed colors), convert them
+
+			int[] rgb = image.getRGB(0, 0, width, height, null, 0, width);
+			for (Area a : as) {
+				Spans s = a.getSpans(width, height);
+				if (a.mode == Mode.FILL) {
+					fill(rgb, 0, width, s, 0xff000000 | a.color);
+				} else {
+					blur(rgb, 0, width, s, a.block);
+				}
+			}
+			image.setRGB(0, 0, width, height, rgb, 0, width);
+		}
+
+		time = (4 * time + (System.nanoTime() - t)) / 5;
+		frames.incrementAndGet();
+
+		return image;
+	}
+
+	/**
+	 * Mask RGB bytes in place, 3 bytes per pixel, starting from buffer position, the layout used by
+	 * {@link Webcam#getImageBytes()}. Position and limit of the buffer are not changed.
+	 *
+	 * @param buffer the RGB bytes
+	 * @param width the image width
+	 * @param height the image height
+	 * @throws IllegalArgumentException when buffer is read-only or too small
+	 */
+	public void apply(ByteBuffer buffer, int width, int height) {
+
+		Area[] as = areas;
+		if (as.length == 0) {
+			return;
+		}
+
+		if (buffer.isReadOnly()) {
+			throw new IllegalArgumentException("Buffer is read-only");
+		}
+
+		int scan = width * 3;
+		if (buffer.remaining() < scan * height) {
+			throw new IllegalArgumentException(String.format("Not enough remaining bytes in buffer (%d necessary vs %d remaining)", scan * height, buffer.remaining()));
+		}
+
+		long t = System.nanoTime();
+
+		if (buffer.hasArray()) {
+
+			byte[] data = buffer.array();
+			int base = buffer.arrayOffset() + buffer.position();
+
+			for (Area a : as) {
+				Spans s = a.getSpans(width, height);
+				if (a.mode == Mode.FILL) {
+					fill(data, base, scan, 3, s, rgb(a.color), 0, height);
+				} else {
+					blur(data, base, scan, 3, s, a.block, 0, height);
+				}
+			}
+
+		} else {
+
+			// direct buffer, copy bands of rows with masked pixels to heap and back
+
+			int position = buffer.position();
+			byte[] band = null;
+
+			for (Area a : as) {
+
+				Spans s = a.getSpans(width, height);
+				byte[] pixel = rgb(a.color);
+
+				for (int y0 = 0; y0 < height; y0 += a.block) {
+
+					int y1 = Math.min(height, y0 + a.block);
+					if (s.rows[y0] == s.rows[y1]) {
+						continue;
+					}
+
+					if (band == null || band.length < scan * a.block) {
+						band = new byte[scan * a.block];
+					}
+
+					ByteBuffer view = buffer.duplicate();
+					view.position(position + y0 * scan);
+					view.get(band, 0, (y1 - y0) * scan);
+
+					if (a.mode == Mode.FILL) {
+						fill(band, -y0 * scan, scan, 3, s, pixel, y0, y1);
+					} else {
+						blur(band, -y0 * scan, scan, 3, s, a.block, y0, y1);
+					}
+
+					view.position(position + y0 * scan);
+					view.put(band, 0, (y1 - y0) * scan);
+				}
+			}
+		}
+
+		time = (4 * time + (System.nanoTime() - t)) / 5;
+		frames.incrementAndGet();
+	}
+
+	private static byte[] rgb(int color) {
+		return new byte[] { (byte) (color >> 16), (byte) (color >> 8), (byte) color };
+	}
+
+	/**
+	 * @return True if sample model packs 8-bit samples into one int per pixel
+	 */
+	private static boolean isPacked(SampleModel sm) {
+		if (!(sm instanceof SinglePixelPackedSampleModel)) {
+			return false;
+		}
+		for (int mask : ((SinglePixelPackedSampleModel) sm).getBitMasks()) {
+			if (mask != 0xff && mask != 0xff00 && mask != 0xff0000 && mask != 0xff000000) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return True if sample model keeps 8-bit samples of every pixel next to each other, in one
+	 *         bank
+	 */
+	private static boolean isInterleaved(SampleModel sm) {
+		if (!(sm instanceof ComponentSampleModel)) {
+			return false;
+		}
+		ComponentSampleModel csm = (ComponentSampleModel) sm;
+		int ps = csm.getPixelStride();
+		if (csm.getNumBands() != ps) {
+			return false;
+		}
+		for (int b = 0; b < ps; b++) {
+			if (csm.getBankIndices()[b] != 0 || csm.getSampleSize(b) != 8 || csm.getBandOffsets()[b] >= ps) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void fill(int[] data, int base, int scan, Spans s, int value) {
+		for (int y = 0; y < s.height; y++) {
+			int row = base + y * scan;
+			for (int k = s.rows[y]; k < s.rows[y + 1]; k += 2) {
+				Arrays.fill(data, row + s.xs[k], row + s.xs[k + 1], value);
+			}
+		}
+	}
+
+	/**
+	 * Blur int-packed pixels, every 8-bit sample separately.
+	 */
+	private static void blur(int[] data, int base, int scan, Spans s, int block) {
+
+		int n = (s.width + block - 1) / block;
+		int[] sums = new int[n * 4];
+		int[] counts = new int[n];
+		int[] averages = new int[n];
+
+		for (int y0 = 0; y0 < s.height; y0 += block) {
+
+			int y1 = Math.min(s.height, y0 + block);
+			if (s.rows[y0] == s.rows[y1]) {
+				continue;
+			}
+
+			// sum masked pixels of every block in this band
+
+			for (int y = y0; y < y1; y++) {
+				int row = base + y * scan;
+				for (int k = s.rows[y]; k < s.rows[y + 1]; k += 2) {
+					int x = s.xs[k];
+					int x1 = s.xs[k + 1];
+					while (x < x1) {
+						int bx = x / block;
+						int e = Math.min(x1, (bx + 1) * block);
+						int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+						for (int i = row + x, m = row + e; i < m; i++) {
+							int p = data[i];
+							s0 += p & 0xff;
+							s1 += (p >>> 8) & 0xff;
+							s2 += (p >>> 16) & 0xff;
+							s3 += p >>> 24;
+						}
+						sums[bx * 4] += s0;
+						sums[bx * 4 + 1] += s1;
+						sums[bx * 4 + 2] += s2;
+						sums[bx * 4 + 3] += s3;
+						counts[bx] += e - x;
+						x = e;
+					}
+				}
+			}
+
+			for (int bx = 0; bx < n; bx++) {
+				int c = counts[bx];
+				if (c > 0) {
+					averages[bx] = sums[bx * 4] / c | sums[bx * 4 + 1] / c << 8 | sums[bx * 4 + 2] / c << 16 | sums[bx * 4 + 3] / c << 24;
+				}
+			}
+
+			// fill them with average
+
+			for (int y = y0; y < y1; y++) {
+				int row = base + y * scan;
+				for (int k = s.rows[y]; k < s.rows[y + 1]; k += 2) {
+					int x = s.xs[k];
+					int x1 = s.xs[k + 1];
+					while (x < x1) {
+						int bx = x / block;
+						int e = Math.min(x1, (bx + 1) * block);
+						Arrays.fill(data, row + x, row + e, averages[bx]);
+						x = e;
+					}
+				}
+			}
+
+			Arrays.fill(sums, 0);
+			Arrays.fill(counts, 0);
+		}
+	}
+
+	/**
+	 * Fill rows from y0 to y1 of byte-interleaved pixels, row y starting at base + y * scan.
+	 */
+	private static void fill(byte[] data, int base, int scan, int ps, Spans s, byte[] pixel, int y0, int y1) {
+		for (int y = y0; y < y1; y++) {
+			int row = base + y * scan;
+			for (int k = s.rows[y]; k < s.rows[y + 1]; k += 2) {
+				fill(data, row + s.xs[k] * ps, row + s.xs[k + 1] * ps, pixel);
+			}
+		}
+	}
+
+	/**
+	 * Fill bytes with repeated pixel, doubling the filled part with every copy.
+	 */
+	private static void fill(byte[] data, int from, int to, byte[] pixel) {
+		int ps = pixel.length;
+		if (to - from < ps) {
+			return;
+		}
+		System.arraycopy(pixel, 0, data, from, ps);
+		for (int done = ps; from + done < to; done *= 2) {
+			System.arraycopy(data, from, data, from + done, Math.min(done, to - from - done));
+		}
+	}
+
+	/**
+	 * Blur rows from y0 (multiple of block size) to y1 of byte-interleaved pixels, row y starting at
+	 * base + y * scan, every sample separately.
+	 */
+	private static void blur(byte[] data, int base, int scan, int ps, Spans s, int block, int y0, int y1) {
+
+		int n = (s.width + block - 1) / block;
+		int[] sums = new int[n * ps];
+		int[] counts = new int[n];
+		byte[] averages = new byte[n * ps];
+		byte[] pixel = new byte[ps];
+
+		for (int b0 = y0; b0 < y1; b0 += block) {
+
+			int b1 = Math.min(y1, b0 + block);
+			if (s.rows[b0] == s.rows[b1]) {
+				continue;
+			}
+
+			for (int y = b0; y < b1; y++) {
+				int row = base + y * scan;
+				for (int k = s.rows[y]; k < s.rows[y + 1]; k += 2) {
+					int x = s.xs[k];
+					int x1 = s.xs[k + 1];
+					while (x < x1) {
+						int bx = x / block;
+						int e = Math.min(x1, (bx + 1) * block);
+						int o = bx * ps;
+						if (ps == 3) {
+							int s0 = 0, s1 = 0, s2 = 0;
+							for (int i = row + x * 3, m = row + e * 3; i < m; i += 3) {
+								s0 += data[i] & 0xff;
+								s1 += data[i + 1] & 0xff;
+								s2 += data[i + 2] & 0xff;
+							}
+							sums[o] += s0;
+							sums[o + 1] += s1;
+							sums[o + 2] += s2;
+						} else {
+							for (int i = row + x * ps, m = row + e * ps; i < m; i += ps) {
+								for (int c = 0; c < ps; c++) {
+									sums[o + c] += data[i + c] & 0xff;
+								}
+							}
+						}
+						counts[bx] += e - x;
+						x = e;
+					}
+				}
+			}
+
+			for (int bx = 0; bx < n; bx++) {
+				int c = counts[bx];
+				if (c > 0) {
+					for (int i = bx * ps; i < bx * ps + ps; i++) {
+						averages[i] = (byte) (sums[i] / c);
+					}
+				}
+			}
+
+			for (int y = b0; y < b1; y++) {
+				int row = base + y * scan;
+				for (int k = s.rows[y]; k < s.rows[y + 1]; k += 2) {
+					int x = s.xs[k];
+					int x1 = s.xs[k + 1];
+					while (x < x1) {
+						int bx = x / block;
+						int e = Math.min(x1, (bx + 1) * block);
+						System.arraycopy(averages, bx * ps, pixel, 0, ps);
+						fill(data, row + x * ps, row + e * ps, pixel);
+						x = e;
+					}
+				}
+			}
+
+			Arrays.fill(sums, 0);
+			Arrays.fill(counts, 0);
+		}
+	}
+
+	/**
+	 * Convert shape into spans. Pixel is covered when its center is inside the shape, according to
+	 * the shape winding rule.
+	 */
+	private static Spans rasterize(Shape shape, int width, int height) {
+
+		// flatten shape into edges: x0, y0, x1, y1
+
+		double[] edges = new double[64];
+		int ne = 0;
+
+		double[] coords = new double[6];
+		double mx = 0, my = 0, lx = 0, ly = 0;
+
+		PathIterator pi = shape.getPathIterator(null, FLATNESS);
+		boolean evenOdd = pi.getWindingRule() == PathIterator.WIND_EVEN_ODD;
+
+		for (; !pi.isDone(); pi.next()) {
+
+			int type = pi.currentSegment(coords);
+			double x = coords[0];
+			double y = coords[1];
+
+			if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_CLOSE) {
+				// subpaths are closed implicitly, as when shape is filled
+				if (ne + 4 > edges.length) {
+					edges = Arrays.copyOf(edges, edges.length * 2);
+				}
+				edges[ne++] = lx;
+				edges[ne++] = ly;
+				edges[ne++] = mx;
+				edges[ne++] = my;
+				if (type == PathIterator.SEG_MOVETO) {
+					mx = lx = x;
+					my = ly = y;
+				} else {
+					lx = mx;
+					ly = my;
+				}
+			} else {
+				if (ne + 4 > edges.length) {
+					edges = Arrays.copyOf(edges, edges.length * 2);
+				}
+				edges[ne++] = lx;
+				edges[ne++] = ly;
+				edges[ne++] = x;
+				edges[ne++] = y;
+				lx = x;
+				ly = y;
+			}
+		}
+
+		if (ne + 4 > edges.length) {
+			edges = Arrays.copyOf(edges, edges.length + 4);
+		}
+		edges[ne++] = lx;
+		edges[ne++] = ly;
+		edges[ne++] = mx;
+		edges[ne++] = my;
+
+		// intersect every row center with edges
+
+		int[] rows = new int[height + 1];
+		int[] xs = new int[64];
+		int nx = 0;
+		int area = 0;
+
+		double[] crossings = new double[16];
+		int[] directions = new int[16];
+
+		for (int y = 0; y < height; y++) {
+
+			rows[y] = nx;
+
+			double yc = y + 0.5;
+			int nc = 0;
+
+			for (int e = 0; e < ne; e += 4) {
+
+				double y0 = edges[e + 1];
+				double y1 = edges[e + 3];
+				int dir = y1 > y0 ? 1 : -1;
+				if (dir > 0 ? yc < y0 || yc >= y1 : yc < y1 || yc >= y0) {
+					continue;
+				}
+
+				double x0 = edges[e];
+				double x1 = edges[e + 2];
+				double x = x0 + (yc - y0) * (x1 - x0) / (y1 - y0);
+
+				if (nc == crossings.length) {
+					crossings = Arrays.copyOf(crossings, nc * 2);
+					directions = Arrays.copyOf(directions, nc * 2);
+				}
+
+				// insertion sort, there are only a few crossings per row
+
+				int i = nc++;
+				while (i > 0 && crossings[i - 1] > x) {
+					crossings[i] = crossings[i - 1];
+					directions[i] = directions[i - 1];
+					i--;
+				}
+				crossings[i] = x;
+				directions[i] = dir;
+			}
+
+			int winding = 0;
+			double start = 0;
+
+			for (int i = 0; i < nc; i++) {
+
+				boolean inside = evenOdd ? (winding & 1) != 0 : winding != 0;
+				winding += evenOdd ? 1 : directions[i];
+				boolean now = evenOdd ? (winding & 1) != 0 : winding != 0;
+
+				if (!inside && now) {
+					start = crossings[i];
+				} else if (inside && !now) {
+
+					int x0 = Math.max(0, (int) Math.ceil(start - 0.5));
+					int x1 = Math.min(width, (int) Math.ceil(crossings[i] - 0.5));
+					if (x1 <= x0) {
+						continue;
+					}
+
+					// join with previous span if they touch
+
+					if (nx > rows[y] && xs[nx - 1] >= x0) {
+						if (x1 > xs[nx - 1]) {
+							area += x1 - xs[nx - 1];
+							xs[nx - 1] = x1;
+						}
+						continue;
+					}
+
+					if (nx + 2 > xs.length) {
+						xs = Arrays.copyOf(xs, xs.length * 2);
+					}
+					xs[nx++] = x0;
+					xs[nx++] = x1;
+					area += x1 - x0;
+				}
+			}
+		}
+
+		rows[height] = nx;
+
+		return new Spans(width, height, rows, Arrays.copyOf(xs, nx), area);
+	}
+}
@@ -1,22 +1,46 @@
 package com.github.sarxos.webcam;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * Executes webcam tasks. By default tasks of drivers which are not thread safe are processed one
+ * by one on a single serialized lane, shared by all devices, while tasks of thread safe drivers are
+ * executed directly in the calling thread.
+ * <p>
+ * When device lanes are enabled (see {@link #setDeviceLanes(boolean)}), tasks of thread safe
+ * drivers are executed on a separate lane per device instead. Devices then work in parallel, one
+ * slow device does not stall the others, and calls to the same device are still serialized. Drivers
+ * which are not thread safe keep using the serialized lane. Every lane has a bounded queue, when it
+ * is full the calling thread waits. Queue depth and latency of each lane are available from
+ * {@link #getLanes()}.
+ */
 public class WebcamProcessor {
 
 	private static final Logger LOG = LoggerFactory.getLogger(WebcamProcessor.class);
 
+	/**
+	 * Default number of tasks which can wait in lane queue.
+	 */
+	public static final int DEFAULT_LANE_CAPACITY = 16;
+
 	/**
 	 * Thread doing supersync processing.
 	 *
@@ -29,6 +53,10 @@ public class WebcamProcessor {
 		public ProcessorThread(Runnable r) {
 			super(r, String.format("atomic-processor-%d", N.incrementAndGet()));
 		}
+
+		public ProcessorThread(Runnable r, String name) {
+			super(r, String.format("lane-processor-%d-%s", N.incrementAndGet(), name));
+		}
 	}
 
 	/**
@@ -38,9 +66,15 @@ public class WebcamProcessor {
 	 */
 	private static final class ProcessorThreadFactory implements ThreadFactory {
 
+		private final String name;
+
+		public ProcessorThreadFactory(String name) {
+			this.name = name;
+		}
+
 		@Override
 		public Thread newThread(Runnable r) {
-			Thread t = new ProcessorThread(r);
+			Thread t = name == null ? new ProcessorThread(r) : new ProcessorThread(r, name);
 			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
 			t.setDaemon(true);
 			return t;
@@ -48,15 +82,29 @@ public class WebcamProcessor {
 	}
 
 	/**
-	 * Heart of overall processing system. This class process all native calls wrapped in tasks, by
-	 * doing this all tasks executions are super-synchronized.
+	 * Lane processes tasks from its queue one by one, in a dedicated thread. The serialized lane is
+	 * the heart of overall processing system, it process all native calls of drivers which are not
+	 * thread safe, by doing this all tasks executions are super-synchronized.
 	 *
 	 * @author Bartosz Firyn (SarXos)
 	 */
-	private static final class AtomicProcessor implements Runnable {
-
-		private SynchronousQueue<WebcamTask> inbound = new SynchronousQueue<WebcamTask>(true);
-		private SynchronousQueue<WebcamTask> outbound = new SynchronousQueue<WebcamTask>(true);
+	public static final class Lane implements Runnable {
+
+		private final String name;
+		private final BlockingQueue<WebcamTask> inbound;
+		private final ExecutorService runner;
+
+		private final AtomicLong processed = new AtomicLong();
+		private final AtomicLong waitTime = new AtomicLong();
+		private final AtomicLong latency = new AtomicLong();
+		private volatile long maxLatency = 0;
+
+		private Lane(String name, int capacity, boolean serialized) {
+			this.name = name;
+			this.inbound = new ArrayBlockingQueue<WebcamTask>(capacity, true);
+			this.runner = Executors.newSingleThreadExecutor(new ProcessorThreadFactory(serialized ? null : name));
+			this.runner.execute(this);
+		}
 
 		/**
 		 * Process task.
@@ -64,10 +112,24 @@ public class WebcamProcessor {
 		 * @param task the task to be processed
 		 * @throws InterruptedException when thread has been interrupted
 		 */
-		public void process(WebcamTask task) throws InterruptedException {
+		private void process(WebcamTask task) throws InterruptedException {
+
+			if (runner.isShutdown()) {
+				throw new RejectedExecutionException(String.format("Cannot process because lane %s has been already shut down", name));
+			}
+
+			task.enqueued();
 			inbound.put(task);
 
-			Throwable t = outbound.take().getThrowable();
+			// lane may have been shut down after task was queued, do not wait for it forever
+
+			while (!task.await(100)) {
+				if (runner.isTerminated() && inbound.remove(task)) {
+					throw new RejectedExecutionException(String.format("Lane %s has been shut down", name));
+				}
+			}
+
+			Throwable t = task.getThrowable();
 			if (t != null) {
 				throw new WebcamException("Cannot execute task", t);
 			}
@@ -76,9 +138,14 @@ public class WebcamProcessor {
 		@Override
 		public void run() {
 			while (true) {
+
 				WebcamTask t = null;
+				long start = 0;
+
 				try {
-					(t = inbound.take()).handle();
+					t = inbound.take();
+					start = System.nanoTime();
+					t.handle();
 				} catch (InterruptedException e) {
 					break;
 				} catch (Throwable e) {
@@ -87,16 +154,88 @@ public class WebcamProcessor {
 					}
 				} finally {
 					if (t != null) {
-						try {
-							outbound.put(t);
-						} catch (InterruptedException e) {
-							break;
-						} catch (Exception e) {
-							throw new RuntimeException("Cannot put task into outbound queue", e);
+						long end = System.nanoTime();
+						long total = end - t.getEnqueued();
+						processed.incrementAndGet();
+						waitTime.addAndGet(start - t.getEnqueued());
+						latency.addAndGet(total);
+						if (total > maxLatency) {
+							maxLatency = total;
 						}
+						t.complete();
 					}
 				}
 			}
+
+			// fail tasks which have not been processed, so their callers do not wait forever
+
+			WebcamTask t = null;
+			while ((t = inbound.poll()) != null) {
+				t.setThrowable(new RejectedExecutionException(String.format("Lane %s has been shut down", name)));
+				t.complete();
+			}
+		}
+
+		private void shutdown() {
+
+			runner.shutdownNow();
+
+			try {
+				if (!runner.awaitTermination(1, TimeUnit.SECONDS)) {
+					LOG.warn("Lane {} has not terminated in time", name);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * @return Lane name, the device name for device lanes
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Number of tasks waiting in queue
+		 */
+		public int getQueueDepth() {
+			return inbound.size();
+		}
+
+		/**
+		 * @return Number of tasks processed by this lane
+		 */
+		public long getProcessed() {
+			return processed.get();
+		}
+
+		/**
+		 * @return Average time task spent in the queue before being processed, in milliseconds
+		 */
+		public double getAverageWaitTime() {
+			long n = processed.get();
+			return n == 0 ? 0 : waitTime.get() / 1e6 / n;
+		}
+
+		/**
+		 * @return Average time from task being queued to being processed, in milliseconds
+		 */
+		public double getAverageLatency() {
+			long n = processed.get();
+			return n == 0 ? 0 : latency.get() / 1e6 / n;
+		}
+
+		/**
+		 * @return Maximum time from task being queued to being processed, in milliseconds
+		 */
+		public double getMaxLatency() {
+			return maxLatency / 1e6;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s[depth=%d, processed=%d, wait=%.2fms, latency=%.2fms, max=%.2fms]", name, getQueueDepth(), getProcessed(), getAverageWaitTime(), getAverageLatency(), getMaxLatency());
 		}
 	}
 
@@ -106,14 +245,24 @@ public class WebcamProcessor {
 	private static final AtomicBoolean started = new AtomicBoolean(false);
 
 	/**
-	 * Execution service.
+	 * Serialized lane, for drivers which are not thread safe.
 	 */
-	private static ExecutorService runner = null;
+	private static volatile Lane serial = null;
 
 	/**
-	 * Static processor.
+	 * Lanes of devices of thread safe drivers.
 	 */
-	private static final AtomicProcessor processor = new AtomicProcessor();
+	private static final Map<WebcamDevice, Lane> lanes = new IdentityHashMap<WebcamDevice, Lane>();
+
+	/**
+	 * Are device lanes enabled?
+	 */
+	private static volatile boolean deviceLanes = false;
+
+	/**
+	 * Capacity of lane queues.
+	 */
+	private static volatile int capacity = DEFAULT_LANE_CAPACITY;
 
 	/**
 	 * Singleton instance.
@@ -131,15 +280,51 @@ public class WebcamProcessor {
 	 */
 	public void process(WebcamTask task) throws InterruptedException {
 
+		if (task.isThreadSafe() && deviceLanes) {
+			getLane(task.getDevice()).process(task);
+		} else {
+			getSerial().process(task);
+		}
+	}
+
+	private synchronized Lane getSerial() {
 		if (started.compareAndSet(false, true)) {
-			runner = Executors.newSingleThreadExecutor(new ProcessorThreadFactory());
-			runner.execute(processor);
+			serial = new Lane("atomic", capacity, true);
 		}
+		return serial;
+	}
 
-		if (!runner.isShutdown()) {
-			processor.process(task);
-		} else {
-			throw new RejectedExecutionException("Cannot process because processor runner has been already shut down");
+	private synchronized Lane getLane(WebcamDevice device) {
+
+		// tasks without device have nothing to be isolated from
+
+		if (device == null) {
+			return getSerial();
+		}
+
+		Lane lane = lanes.get(device);
+		if (lane == null) {
+			lane = new Lane(device.getName(), capacity, false);
+			lanes.put(device, lane);
+		}
+		return lane;
+	}
+
+	/**
+	 * Stop lane of given device, if there is one. Called when device is disposed.
+	 *
+	 * @param device the device
+	 */
+	void release(WebcamDevice device) {
+
+		Lane lane = null;
+		synchronized (this) {
+			lane = lanes.remove(device);
+		}
+
+		if (lane != null) {
+			LOG.debug("Shutting down lane {}", lane.getName());
+			lane.shutdown();
 		}
 	}
 
@@ -148,24 +333,73 @@ public class WebcamProcessor {
 
 			LOG.debug("Shutting down webcam processor");
 
-			runner.shutdown();
+			List<Lane> stopped = null;
+			synchronized (this) {
+				stopped = new ArrayList<Lane>(lanes.values());
+				lanes.clear();
+			}
+			stopped.add(serial);
 
 			LOG.debug("Awaiting tasks termination");
 
-			while (runner.isTerminated()) {
-
-				try {
-					runner.awaitTermination(100, TimeUnit.MILLISECONDS);
-				} catch (InterruptedException e) {
-					return;
-				}
-
-				runner.shutdownNow();
+			for (Lane lane : stopped) {
+				lane.shutdown();
 			}
 
 			LOG.debug("All tasks has been terminated");
 		}
+	}
+
+	/**
+	 * @return True if tasks of thread safe drivers run on per-device lanes
+	 */
+	public boolean isDeviceLanes() {
+		return deviceLanes;
+	}
 
+	/**
+	 * Enable or disable per-device lanes for thread safe drivers. When disabled (the default) tasks
+	 * of thread safe drivers are executed directly in the calling thread.
+	 *
+	 * @param enabled true to enable device lanes
+	 */
+	public void setDeviceLanes(boolean enabled) {
+		deviceLanes = enabled;
+	}
+
+	/**
+	 * @return Capacity of lane queues
+	 */
+	public int getLaneCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Set capacity of lane queues. It applies to lanes created after this call, so it should be set
+	 * before webcams are opened.
+	 *
+	 * @param capacity the number of tasks which can wait in lane queue
+	 */
+	public void setLaneCapacity(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Lane capacity must be positive");
+		}
+		WebcamProcessor.capacity = capacity;
+	}
+
+	/**
+	 * @return Active lanes, the serialized one first
+	 */
+	public List<Lane> getLanes() {
+		List<Lane> all = new ArrayList<Lane>();
+		Lane s = serial;
+		if (started.get() && s != null) {
+			all.add(s);
+		}
+		synchronized (this) {
+			all.addAll(lanes.values());
+		}
+		return Collections.unmodifiableList(all);
 	}
 
 	public static synchronized WebcamProcessor getInstance() {
@@ -0,0 +1,143 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+
+/**
+ * Where the ARGB components of an image live in its backing array. Only layouts for which the
+ * raw component values are exactly what {@link BufferedImage#getRGB(int, int)} returns are
+ * described, i.e. 8-bit sRGB without premultiplied alpha.
+ */
+final class WebcamRasterLayout {
+
+	private int[] ints;
+	private byte[] bytes;
+	private int scanline;
+	private int pixelStride;
+	private int red;
+	private int green;
+	private int blue;
+	private int alpha = -1;
+
+	/**
+	 * @return layout of image pixels, or null if they can't be read straight from the array
+	 */
+	static WebcamRasterLayout of(BufferedImage image) {
+
+		final WritableRaster raster = image.getRaster();
+		if (raster.getParent() != null || raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0) {
+			return null;
+		}
+
+		final SampleModel sm = raster.getSampleModel();
+		final ColorModel cm = image.getColorModel();
+		final WebcamRasterLayout layout = new WebcamRasterLayout();
+
+		if (raster.getDataBuffer() instanceof DataBufferInt && sm instanceof SinglePixelPackedSampleModel
+			&& cm instanceof DirectColorModel && cm.getColorSpace().isCS_sRGB() && !cm.isAlphaPremultiplied()) {
+
+			final DirectColorModel dcm = (DirectColorModel) cm;
+			final int alphaMask = cm.hasAlpha() ? 0xff000000 : 0;
+			if (dcm.getRedMask() != 0x00ff0000 || dcm.getGreenMask() != 0x0000ff00 || dcm.getBlueMask() != 0x000000ff || dcm.getAlphaMask() != alphaMask) {
+				return null;
+			}
+
+			layout.ints = ((DataBufferInt) raster.getDataBuffer()).getData();
+			layout.scanline = ((SinglePixelPackedSampleModel) sm).getScanlineStride();
+			layout.alpha = cm.hasAlpha() ? 0 : -1;
+
+		} else if (raster.getDataBuffer() instanceof DataBufferByte && sm instanceof ComponentSampleModel
+			&& cm instanceof ComponentColorModel && cm.getColorSpace().isCS_sRGB() && !cm.isAlphaPremultiplied()) {
+
+			final int bands = sm.getNumBands();
+			if (bands != (cm.hasAlpha() ? 4 : 3)) {
+				return null;
+			}
+			for (int size : cm.getComponentSize()) {
+				if (size != 8) {
+					return null;
+				}
+			}
+
+			final ComponentSampleModel csm = (ComponentSampleModel) sm;
+			final int[] offsets = csm.getBandOffsets();
+			layout.bytes = ((DataBufferByte) raster.getDataBuffer()).getData();
+			layout.scanline = csm.getScanlineStride();
+			layout.pixelStride = csm.getPixelStride();
+			layout.red = offsets[0];
+			layout.green = offsets[1];
+			layout.blue = offsets[2];
+			layout.alpha = bands == 4 ? offsets[3] : -1;
+
+		} else {
+			return null;
+		}
+
+		return raster.getDataBuffer().getOffset() == 0 ? layout : null;
+	}
+
+	/**
+	 * Layout of a luma image from {@link WebcamLumaFilter}. Rows are read as opaque gray ARGB made
+	 * of the raw luma samples, unlike {@link BufferedImage#getRGB(int, int)} which converts linear
+	 * gray to sRGB.
+	 *
+	 * @param image the luma image
+	 * @return the layout
+	 */
+	static WebcamRasterLayout ofLuma(BufferedImage image) {
+		WebcamRasterLayout layout = new WebcamRasterLayout();
+		layout.bytes = WebcamLumaFilter.getPlane(image);
+		layout.scanline = image.getWidth();
+		layout.pixelStride = 1;
+		return layout;
+	}
+
+	/**
+	 * Reads part of a row as ARGB values, the same values {@link BufferedImage#getRGB(int, int)}
+	 * returns.
+	 *
+	 * @param y the row
+	 * @param x0 the first column to read
+	 * @param w the number of pixels to read
+	 * @param argb destination, filled from index 0
+	 */
+	void readRow(int y, int x0, int w, int[] argb) {
+
+		if (ints != null) {
+			final int row = y * scanline + x0;
+			if (alpha == 0) {
+				System.arraycopy(ints, row, argb, 0, w);
+			} else {
+				for (int x = 0; x < w; x++) {
+					argb[x] = 0xff000000 | ints[row + x];
+				}
+			}
+			return;
+		}
+
+		final byte[] data = bytes;
+		final int r = red;
+		final int g = green;
+		final int b = blue;
+
+		if (alpha < 0) {
+			for (int x = 0, i = y * scanline + x0 * pixelStride; x < w; x++, i += pixelStride) {
+				argb[x] = 0xff000000 | (data[i + r] & 0xff) << 16 | (data[i + g] & 0xff) << 8 | (data[i + b] & 0xff);
+			}
+		} else {
+			final int a = alpha;
+			for (int x = 0, i = y * scanline + x0 * pixelStride; x < w; x++, i += pixelStride) {
+				argb[x] = (data[i + a] & 0xff) << 24 | (data[i + r] & 0xff) << 16 | (data[i + g] & 0xff) << 8 | (data[i + b] & 0xff);
+			}
+		}
+	}
+}
@@ -0,0 +1,906 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Records webcam images to disk as a sequence of JPEG frames, keeping only the most recent footage.
+ * <p>
+ * Frames are appended to segment files, a new segment is started every minute (configurable) or
+ * when segment grows too big. Every segment has an index file with timestamp and offset of each
+ * frame, so recording can be played back from any point in time, see
+ * {@link #play(File, long)}. Oldest segments are deleted when all segments together exceed
+ * maximum size or when they are older than maximum age.
+ * <p>
+ * Images are grabbed and encoded by capture thread and handed over to writer thread through a
+ * bounded queue. Writer takes all queued frames at once and writes them with a single gathering
+ * write, so disk I/O never blocks capture. If disk cannot keep up and the queue is full, new frames
+ * are dropped and counted.
+ * <p>
+ * Segment file consists of records {@code [timestamp:8][length:4][jpeg:length]}, index file of
+ * entries {@code [timestamp:8][offset:8]}, all numbers big-endian. Timestamps are milliseconds
+ * since epoch.
+ */
+public class WebcamRecorder implements ThreadFactory {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamRecorder.class);
+
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String DATA_SUFFIX = ".mjpeg";
+	private static final String INDEX_SUFFIX = ".idx";
+
+	private static final int RECORD_HEADER = 12;
+	private static final int INDEX_ENTRY = 16;
+
+	/**
+	 * Written in place of record header, which is filled in by writer.
+	 */
+	private static final byte[] PLACEHOLDER = new byte[RECORD_HEADER];
+
+	/**
+	 * Default segment duration, 1 minute.
+	 */
+	public static final long DEFAULT_SEGMENT_DURATION = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Default maximum segment size, 64 MB.
+	 */
+	public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+	/**
+	 * Default number of encoded frames waiting to be written.
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 64;
+
+	/**
+	 * Segment of recording, data and index file.
+	 */
+	private static final class Segment {
+
+		private final long start;
+		private final File data;
+		private final File index;
+		private long size;
+
+		public Segment(File directory, long start) {
+			this.start = start;
+			this.data = new File(directory, SEGMENT_PREFIX + start + DATA_SUFFIX);
+			this.index = new File(directory, SEGMENT_PREFIX + start + INDEX_SUFFIX);
+			this.size = data.length() + index.length();
+		}
+
+		private void delete() {
+			if (!data.delete() && data.exists()) {
+				LOG.warn("Cannot delete segment {}", data);
+			}
+			if (!index.delete() && index.exists()) {
+				LOG.warn("Cannot delete segment index {}", index);
+			}
+		}
+	}
+
+	/**
+	 * Encoded frame waiting to be written, record header included.
+	 */
+	private static final class Record {
+
+		private final long timestamp;
+		private final byte[] bytes;
+
+		public Record(long timestamp, byte[] bytes) {
+			this.timestamp = timestamp;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * Grabs images at the configured rate and encodes them.
+	 */
+	private class Capture implements Runnable {
+
+		@Override
+		public void run() {
+
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+			final ImageWriteParam param = writer.getDefaultWriteParam();
+
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(quality);
+
+			try {
+				while (started.get()) {
+
+					long start = System.currentTimeMillis();
+
+					try {
+						if (webcam.isOpen()) {
+							BufferedImage image = webcam.getImage();
+							if (image != null) {
+								baos.reset();
+								baos.write(PLACEHOLDER);
+								try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(baos)) {
+									writer.setOutput(output);
+									writer.write(null, new IIOImage(image, null, null), param);
+								}
+								queue(start, baos.toByteArray());
+							}
+						}
+					} catch (IOException e) {
+						LOG.error("Cannot encode image", e);
+					}
+
+					long sleep = delay - (System.currentTimeMillis() - start);
+					if (sleep > 0) {
+						try {
+							Thread.sleep(sleep);
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+				}
+			} finally {
+				writer.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Writes queued frames in batches and enforces retention.
+	 */
+	private class Writer implements Runnable {
+
+		private final List<Record> batch = new ArrayList<Record>();
+
+		private ByteBuffer[] buffers = new ByteBuffer[0];
+
+		private ByteBuffer entries = ByteBuffer.allocate(0);
+
+		private Segment segment = null;
+
+		private FileChannel data = null;
+
+		private FileChannel index = null;
+
+		@Override
+		public void run() {
+			try {
+				while (started.get() || !queue.isEmpty()) {
+
+					Record record = null;
+					try {
+						record = queue.poll(100, TimeUnit.MILLISECONDS);
+					} catch (InterruptedException e) {
+						break;
+					}
+
+					if (record == null) {
+						continue;
+					}
+
+					batch.add(record);
+					queue.drainTo(batch);
+
+					try {
+						write();
+					} catch (IOException e) {
+						LOG.error("Cannot write frames to segment " + (segment == null ? null : segment.data), e);
+						close();
+					}
+
+					batch.clear();
+				}
+			} finally {
+				close();
+			}
+		}
+
+		private void write() throws IOException {
+
+			int from = 0;
+
+			for (int i = 0; i < batch.size(); i++) {
+				Record record = batch.get(i);
+				if (segment == null || record.timestamp - segment.start >= segmentDuration || segment.size >= segmentSize) {
+					append(from, i);
+					roll(record.timestamp);
+					from = i;
+				}
+			}
+
+			append(from, batch.size());
+		}
+
+		/**
+		 * Append records from batch, with one gathering write for data and one for index.
+		 */
+		private void append(int from, int to) throws IOException {
+
+			int n = to - from;
+			if (n == 0) {
+				return;
+			}
+
+			if (buffers.length < n) {
+				buffers = new ByteBuffer[Math.max(n, 2 * buffers.length)];
+				entries = ByteBuffer.allocateDirect(buffers.length * INDEX_ENTRY);
+			}
+
+			entries.clear();
+
+			long t1 = System.nanoTime();
+			long offset = data.position();
+			long bytes = 0;
+
+			for (int i = 0; i < n; i++) {
+				Record record = batch.get(from + i);
+				ByteBuffer buffer = ByteBuffer.wrap(record.bytes);
+				buffer.putLong(0, record.timestamp);
+				buffer.putInt(8, record.bytes.length - RECORD_HEADER);
+				buffers[i] = buffer;
+				entries.putLong(record.timestamp);
+				entries.putLong(offset + bytes);
+				bytes += record.bytes.length;
+			}
+
+			long written = 0;
+			while (written < bytes) {
+				written += data.write(buffers, 0, n);
+			}
+
+			entries.flip();
+			while (entries.hasRemaining()) {
+				index.write(entries);
+			}
+
+			for (int i = 0; i < n; i++) {
+				buffers[i] = null;
+			}
+
+			long t2 = System.nanoTime();
+
+			segment.size += bytes + n * INDEX_ENTRY;
+			totalSize.addAndGet(bytes + n * INDEX_ENTRY);
+			recorded.addAndGet(n);
+			written(bytes, t2 - t1);
+		}
+
+		private void roll(long timestamp) throws IOException {
+
+			close();
+
+			Segment next = new Segment(directory, timestamp);
+			data = FileChannel.open(next.data.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			index = FileChannel.open(next.index.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			segment = next;
+
+			synchronized (segments) {
+				segments.addLast(next);
+			}
+
+			LOG.debug("Recording to segment {}", next.data);
+
+			retain(timestamp);
+		}
+
+		private void close() {
+
+			if (data != null) {
+				try {
+					data.force(false);
+					data.close();
+				} catch (IOException e) {
+					LOG.error("Cannot close segment " + segment.data, e);
+				}
+				data = null;
+			}
+
+			if (index != null) {
+				try {
+					index.force(false);
+					index.close();
+				} catch (IOException e) {
+					LOG.error("Cannot close segment index " + segment.index, e);
+				}
+				index = null;
+			}
+
+			segment = null;
+		}
+	}
+
+	private final Webcam webcam;
+
+	private final File directory;
+
+	/**
+	 * Writer and capture threads, created on every start, since executor cannot be reused once
+	 * it has been shut down.
+	 */
+	private ExecutorService executor = null;
+
+	private final AtomicBoolean started = new AtomicBoolean(false);
+
+	private final AtomicInteger threads = new AtomicInteger(0);
+
+	/**
+	 * Segments from the oldest to the newest one.
+	 */
+	private final Deque<Segment> segments = new ArrayDeque<Segment>();
+
+	private volatile BlockingQueue<Record> queue = new ArrayBlockingQueue<Record>(DEFAULT_QUEUE_SIZE);
+
+	private final double fps;
+
+	private final long delay;
+
+	private volatile float quality = 0.8f;
+
+	private volatile long segmentDuration = DEFAULT_SEGMENT_DURATION;
+
+	private volatile long segmentSize = DEFAULT_SEGMENT_SIZE;
+
+	private volatile long maxSize = Long.MAX_VALUE;
+
+	private volatile long maxAge = Long.MAX_VALUE;
+
+	private final AtomicLong totalSize = new AtomicLong();
+
+	private final AtomicLong recorded = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong bytesWritten = new AtomicLong();
+
+	private final AtomicLong writes = new AtomicLong();
+
+	private final AtomicLong writeTime = new AtomicLong();
+
+	/**
+	 * Create recorder. Segments already present in the directory are kept and are subject to
+	 * retention.
+	 *
+	 * @param webcam the webcam to record
+	 * @param directory the directory to store segments in
+	 * @param fps the number of frames to record per second
+	 */
+	public WebcamRecorder(Webcam webcam, File directory, double fps) {
+		this(webcam, directory, fps, true);
+	}
+
+	/**
+	 * Create recorder which does not grab images itself, but only writes frames passed to
+	 * {@link #record(long, byte[])}.
+	 *
+	 * @param directory the directory to store segments in
+	 */
+	public WebcamRecorder(File directory) {
+		this(null, directory, 1, false);
+	}
+
+	private WebcamRecorder(Webcam webcam, File directory, double fps, boolean capture) {
+
+		if (capture && webcam == null) {
+			throw new IllegalArgumentException("Webcam for recorder cannot be null");
+		}
+		if (directory == null) {
+			throw new IllegalArgumentException("Directory for recorder cannot be null");
+		}
+		if (fps <= 0) {
+			throw new IllegalArgumentException("FPS must be positive");
+		}
+
+		this.webcam = webcam;
+		this.directory = directory;
+		this.fps = fps;
+		this.delay = (long) (1000 / fps);
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new WebcamException("Cannot create recording directory " + directory);
+		}
+
+		for (Segment segment : scan(directory)) {
+			segments.addLast(segment);
+			totalSize.addAndGet(segment.size);
+		}
+	}
+
+	@Override
+	public Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, String.format("recorder-thread-%d", threads.incrementAndGet()));
+		thread.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Start recording, opening the webcam if there is one.
+	 */
+	public synchronized void start() {
+		if (started.compareAndSet(false, true)) {
+			executor = Executors.newFixedThreadPool(2, this);
+			executor.execute(new Writer());
+			if (webcam != null) {
+				webcam.open();
+				executor.execute(new Capture());
+			}
+		}
+	}
+
+	/**
+	 * Stop recording. Frames already queued are written before writer thread ends. Webcam is not
+	 * closed, since it may still be used by others.
+	 */
+	public synchronized void stop() {
+		if (started.compareAndSet(true, false)) {
+			executor.shutdown();
+			try {
+				if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+					LOG.warn("Recorder threads have not terminated in time");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Queue already encoded JPEG frame for writing. This can be used to record frames which are
+	 * encoded elsewhere, e.g. by streamer. It never blocks, when queue is full frame is dropped.
+	 *
+	 * @param timestamp the frame time in milliseconds since epoch
+	 * @param jpeg the JPEG bytes
+	 * @return True if frame has been queued, false if it has been dropped
+	 */
+	public boolean record(long timestamp, byte[] jpeg) {
+		byte[] bytes = new byte[RECORD_HEADER + jpeg.length];
+		System.arraycopy(jpeg, 0, bytes, RECORD_HEADER, jpeg.length);
+		return queue(timestamp, bytes);
+	}
+
+	private boolean queue(long timestamp, byte[] bytes) {
+		if (!started.get()) {
+			return false;
+		}
+		if (queue.offer(new Record(timestamp, bytes))) {
+			return true;
+		}
+		dropped.incrementAndGet();
+		return false;
+	}
+
+	private void written(long bytes, long nanos) {
+		bytesWritten.addAndGet(bytes);
+		writes.incrementAndGet();
+		writeTime.addAndGet(nanos);
+	}
+
+	/**
+	 * Delete segments exceeding size limit or older than maximum age. The current (newest) segment
+	 * is never deleted.
+	 */
+	private void retain(long now) {
+
+		List<Segment> removed = new ArrayList<Segment>();
+
+		synchronized (segments) {
+			while (segments.size() > 1) {
+				Iterator<Segment> i = segments.iterator();
+				Segment oldest = i.next();
+				// segment ends where the next one starts
+				boolean expired = now - i.next().start > maxAge;
+				boolean oversized = totalSize.get() > maxSize;
+				if (!expired && !oversized) {
+					break;
+				}
+				segments.removeFirst();
+				totalSize.addAndGet(-oldest.size);
+				removed.add(oldest);
+			}
+		}
+
+		for (Segment segment : removed) {
+			LOG.debug("Deleting segment {}", segment.data);
+			segment.delete();
+		}
+	}
+
+	/**
+	 * Play back recording from this recorder's directory.
+	 *
+	 * @param from the time to start from, in milliseconds since epoch
+	 * @return Playback positioned before the first frame recorded at or after given time
+	 * @throws IOException when segments cannot be read
+	 * @see #play(File, long)
+	 */
+	public Playback play(long from) throws IOException {
+		return play(directory, from);
+	}
+
+	/**
+	 * Play back recording stored in given directory. Recording can be played while it is still
+	 * being written, frames recorded after playback was created are not visible to it.
+	 *
+	 * @param directory the directory with segments
+	 * @param from the time to start from, in milliseconds since epoch
+	 * @return Playback positioned before the first frame recorded at or after given time
+	 * @throws IOException when segments cannot be read
+	 */
+	public static Playback play(File directory, long from) throws IOException {
+		return new Playback(scan(directory), from);
+	}
+
+	private static List<Segment> scan(File directory) {
+
+		File[] files = directory.listFiles(new FileFilter() {
+
+			@Override
+			public boolean accept(File file) {
+				String name = file.getName();
+				return name.startsWith(SEGMENT_PREFIX) && name.endsWith(DATA_SUFFIX);
+			}
+		});
+
+		List<Segment> found = new ArrayList<Segment>();
+		if (files == null) {
+			return found;
+		}
+
+		for (File file : files) {
+			String name = file.getName();
+			try {
+				found.add(new Segment(directory, Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - DATA_SUFFIX.length()))));
+			} catch (NumberFormatException e) {
+				LOG.warn("Ignoring file {} which looks like a segment", file);
+			}
+		}
+
+		Collections.sort(found, new Comparator<Segment>() {
+
+			@Override
+			public int compare(Segment a, Segment b) {
+				return Long.compare(a.start, b.start);
+			}
+		});
+
+		return found;
+	}
+
+	/**
+	 * Sequential reader of recorded frames.
+	 */
+	public static class Playback implements Closeable {
+
+		private final List<Segment> segments;
+
+		private int current = -1;
+
+		private FileChannel channel = null;
+
+		private ByteBuffer index = null;
+
+		private final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+
+		private long timestamp = -1;
+
+		private byte[] jpeg = null;
+
+		private Playback(List<Segment> segments, long from) throws IOException {
+
+			this.segments = segments;
+
+			// last segment started at or before given time, the first one if none
+
+			int i = segments.size() - 1;
+			while (i > 0 && segments.get(i).start > from) {
+				i--;
+			}
+
+			if (segments.isEmpty() || !open(i)) {
+				return;
+			}
+
+			// binary search index for the first frame at or after given time
+
+			int lo = 0;
+			int hi = index.limit() / INDEX_ENTRY;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (index.getLong(mid * INDEX_ENTRY) < from) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+
+			index.position(lo * INDEX_ENTRY);
+		}
+
+		private boolean open(int segment) throws IOException {
+
+			close();
+
+			current = segment;
+
+			if (segment >= segments.size()) {
+				return false;
+			}
+
+			Segment s = segments.get(segment);
+
+			try (FileChannel ic = FileChannel.open(s.index.toPath(), StandardOpenOption.READ)) {
+				// whole entries only, last one may have been written partially
+				ByteBuffer buffer = ByteBuffer.allocate((int) (ic.size() / INDEX_ENTRY * INDEX_ENTRY));
+				while (buffer.hasRemaining() && ic.read(buffer) >= 0) {
+				}
+				buffer.flip();
+				index = buffer;
+			}
+
+			channel = FileChannel.open(s.data.toPath(), StandardOpenOption.READ);
+
+			return true;
+		}
+
+		/**
+		 * Move to the next frame.
+		 *
+		 * @return True if there is next frame, false at the end of recording
+		 * @throws IOException when segment cannot be read, e.g. it has been deleted by retention
+		 */
+		public boolean next() throws IOException {
+
+			while (index == null || !index.hasRemaining()) {
+				if (current >= segments.size() || !open(current + 1)) {
+					timestamp = -1;
+					jpeg = null;
+					return false;
+				}
+			}
+
+			timestamp = index.getLong();
+			long offset = index.getLong();
+
+			header.clear();
+			read(header, offset);
+			header.flip();
+			header.getLong();
+
+			ByteBuffer buffer = ByteBuffer.allocate(header.getInt());
+			read(buffer, offset + RECORD_HEADER);
+			jpeg = buffer.array();
+
+			return true;
+		}
+
+		private void read(ByteBuffer buffer, long position) throws IOException {
+			while (buffer.hasRemaining()) {
+				int n = channel.read(buffer, position);
+				if (n < 0) {
+					throw new IOException("Unexpected end of segment " + segments.get(current).data);
+				}
+				position += n;
+			}
+		}
+
+		/**
+		 * @return Time of current frame, in milliseconds since epoch
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		/**
+		 * @return JPEG bytes of current frame
+		 */
+		public byte[] getJpeg() {
+			return jpeg;
+		}
+
+		/**
+		 * @return Current frame decoded
+		 * @throws IOException when frame cannot be decoded
+		 */
+		public BufferedImage getImage() throws IOException {
+			return jpeg == null ? null : ImageIO.read(new ByteArrayInputStream(jpeg));
+		}
+
+		@Override
+		public void close() throws IOException {
+			index = null;
+			if (channel != null) {
+				channel.close();
+				channel = null;
+			}
+		}
+	}
+
+	public boolean isStarted() {
+		return started.get();
+	}
+
+	/**
+	 * @return Recorded webcam, null if recorder only writes frames passed to it
+	 */
+	public Webcam getWebcam() {
+		return webcam;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public double getFPS() {
+		return fps;
+	}
+
+	public float getQuality() {
+		return quality;
+	}
+
+	/**
+	 * @param quality the JPEG quality from 0 to 1, applies when recorder is started
+	 */
+	public void setQuality(float quality) {
+		if (quality < 0 || quality > 1) {
+			throw new IllegalArgumentException("Quality must be between 0 and 1");
+		}
+		this.quality = quality;
+	}
+
+	public long getSegmentDuration() {
+		return segmentDuration;
+	}
+
+	/**
+	 * @param segmentDuration the time after which new segment is started, in milliseconds
+	 */
+	public void setSegmentDuration(long segmentDuration) {
+		if (segmentDuration <= 0) {
+			throw new IllegalArgumentException("Segment duration must be positive");
+		}
+		this.segmentDuration = segmentDuration;
+	}
+
+	public long getSegmentSize() {
+		return segmentSize;
+	}
+
+	/**
+	 * @param segmentSize the size after which new segment is started, in bytes
+	 */
+	public void setSegmentSize(long segmentSize) {
+		if (segmentSize <= 0) {
+			throw new IllegalArgumentException("Segment size must be positive");
+		}
+		this.segmentSize = segmentSize;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @param maxSize the maximum size of all segments together, in bytes, oldest segments are
+	 *            deleted when it is exceeded
+	 */
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public long getMaxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * @param maxAge the maximum age of recording in milliseconds, older segments are deleted
+	 */
+	public void setMaxAge(long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * @param size the number of encoded frames which can wait to be written, applies when recorder
+	 *            is not started
+	 */
+	public void setQueueSize(int size) {
+		if (started.get()) {
+			throw new IllegalStateException("Queue size cannot be changed while recording");
+		}
+		queue = new ArrayBlockingQueue<Record>(size);
+	}
+
+	/**
+	 * @return Number of frames waiting to be written
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * @return Number of frames written to disk
+	 */
+	public long getFramesRecorded() {
+		return recorded.get();
+	}
+
+	/**
+	 * @return Number of frames dropped because writer could not keep up
+	 */
+	public long getFramesDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return Number of frame bytes written to disk
+	 */
+	public long getBytesWritten() {
+		return bytesWritten.get();
+	}
+
+	/**
+	 * @return Average number of frames written at once
+	 */
+	public double getAverageBatchSize() {
+		long n = writes.get();
+		return n == 0 ? 0 : recorded.get() / (double) n;
+	}
+
+	/**
+	 * @return Average time of one batch write, in milliseconds
+	 */
+	public double getAverageWriteTime() {
+		long n = writes.get();
+		return n == 0 ? 0 : writeTime.get() / 1e6 / n;
+	}
+
+	/**
+	 * @return Size of all segments, in bytes
+	 */
+	public long getTotalSize() {
+		return totalSize.get();
+	}
+
+	/**
+	 * @return Number of segments on disk
+	 */
+	public int getSegmentsCount() {
+		synchronized (segments) {
+			return segments.size();
+		}
+	}
+}
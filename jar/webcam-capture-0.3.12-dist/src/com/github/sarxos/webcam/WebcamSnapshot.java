@@ -0,0 +1,121 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+
+
+/**
+ * Image captured from one webcam by {@link WebcamSnapshotter}, tagged with webcam name and capture
+ * time. When image could not be captured before deadline, status tells why and image is null.
+ */
+public class WebcamSnapshot {
+
+	/**
+	 * Snapshot status.
+	 */
+	public static enum Status {
+
+		/**
+		 * Image has been captured.
+		 */
+		CAPTURED,
+
+		/**
+		 * Webcam has not returned image before deadline.
+		 */
+		TIMEOUT,
+
+		/**
+		 * Previous capture from this webcam has not completed yet (device hung), so it has not been
+		 * asked again.
+		 */
+		BUSY,
+
+		/**
+		 * Webcam returned no image (e.g. it has been closed meanwhile) or capture failed.
+		 */
+		FAILED,
+	}
+
+	private final Webcam webcam;
+	private final String name;
+	private final Status status;
+	private final BufferedImage image;
+	private final long timestamp;
+	private final long trigger;
+	private final Throwable throwable;
+
+	WebcamSnapshot(Webcam webcam, Status status, BufferedImage image, long timestamp, long trigger, Throwable throwable) {
+		this.webcam = webcam;
+		this.name = webcam.getName();
+		this.status = status;
+		this.image = image;
+		this.timestamp = timestamp;
+		this.trigger = trigger;
+		this.throwable = throwable;
+	}
+
+	public Webcam getWebcam() {
+		return webcam;
+	}
+
+	/**
+	 * @return Name of the webcam
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return True if image has been captured
+	 */
+	public boolean isCaptured() {
+		return status == Status.CAPTURED;
+	}
+
+	/**
+	 * @return Captured image or null if there is none
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * @return Time when image has been received from device (ms), or -1 if there is no image
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return Time when capture has been requested (ms), the same for all snapshots taken together
+	 */
+	public long getTrigger() {
+		return trigger;
+	}
+
+	/**
+	 * @return Time from capture request to image (ms), or -1 if there is no image
+	 */
+	public long getDelay() {
+		return image == null ? -1 : timestamp - trigger;
+	}
+
+	/**
+	 * @return Exception thrown by capture, if it failed
+	 */
+	public Throwable getThrowable() {
+		return throwable;
+	}
+
+	@Override
+	public String toString() {
+		if (image == null) {
+			return String.format("%s: %s", name, status);
+		}
+		return String.format("%s: %s %dx%d at %d (+%d ms)", name, status, image.getWidth(), image.getHeight(), timestamp, getDelay());
+	}
+}
@@ -0,0 +1,306 @@
+package com.github.sarxos.webcam;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.sarxos.webcam.WebcamSnapshot.Status;
+
+
+/**
+ * Captures images from many webcams at once, e.g. from all cameras on a bus when incident is
+ * reported. Every webcam is read in its own worker thread, so capture takes as long as the slowest
+ * webcam rather than all of them together, and caller never waits longer than given timeout. It
+ * gets one {@link WebcamSnapshot} per webcam, with image and capture time or the reason why there
+ * is none.
+ * <p>
+ * Webcam open in non-blocking mode gives the first image fetched by its updater after capture has
+ * been requested, so images from all such webcams are taken within one frame period. Webcam open
+ * in blocking mode is read directly, which runs in parallel only when its driver is thread safe
+ * (with device lanes enabled in {@link WebcamProcessor} one hung device does not stall the others).
+ * Devices of drivers which are not thread safe are still read one by one.
+ * <p>
+ * Worker reading a hung device is left behind when deadline passes, and that webcam is reported as
+ * {@link Status#BUSY} and not asked again until the worker returns, so hung devices never pile up
+ * threads.
+ */
+public class WebcamSnapshotter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebcamSnapshotter.class);
+
+	private static final class SnapshotThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger N = new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, String.format("snapshot-worker-%d", N.incrementAndGet()));
+			t.setUncaughtExceptionHandler(WebcamExceptionHandler.getInstance());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	/**
+	 * Reads one webcam. Result is taken only when it is ready before deadline.
+	 */
+	private final class Capture implements Runnable {
+
+		private final Webcam webcam;
+		private final long trigger;
+		private final long deadline;
+		private final CountDownLatch latch;
+
+		private WebcamSnapshot snapshot = null;
+		private boolean abandoned = false;
+
+		public Capture(Webcam webcam, long trigger, long deadline, CountDownLatch latch) {
+			this.webcam = webcam;
+			this.trigger = trigger;
+			this.deadline = deadline;
+			this.latch = latch;
+		}
+
+		@Override
+		public void run() {
+
+			WebcamSnapshot result = null;
+
+			try {
+				BufferedImage image = read(webcam, deadline);
+				if (image != null) {
+					result = new WebcamSnapshot(webcam, Status.CAPTURED, image, System.currentTimeMillis(), trigger, null);
+				} else if (System.nanoTime() - deadline >= 0) {
+					result = new WebcamSnapshot(webcam, Status.TIMEOUT, null, -1, trigger, null);
+				} else {
+					result = new WebcamSnapshot(webcam, Status.FAILED, null, -1, trigger, null);
+				}
+			} catch (Throwable t) {
+				LOG.debug(String.format("Cannot capture image from %s", webcam.getName()), t);
+				result = new WebcamSnapshot(webcam, Status.FAILED, null, -1, trigger, t);
+			} finally {
+				pending.remove(webcam, this);
+			}
+
+			synchronized (this) {
+				if (abandoned) {
+					late.incrementAndGet();
+					return;
+				}
+				snapshot = result;
+			}
+
+			latch.countDown();
+		}
+
+		/**
+		 * @return Snapshot taken or timeout one if capture has not completed yet
+		 */
+		private synchronized WebcamSnapshot take() {
+			if (snapshot == null) {
+				abandoned = true;
+				timeouts.incrementAndGet();
+				return new WebcamSnapshot(webcam, Status.TIMEOUT, null, -1, trigger, null);
+			}
+			return snapshot;
+		}
+	}
+
+	private static WebcamSnapshotter instance = null;
+
+	/**
+	 * Captures in progress, by webcam.
+	 */
+	private final ConcurrentHashMap<Webcam, Capture> pending = new ConcurrentHashMap<Webcam, Capture>();
+
+	private final ThreadPoolExecutor workers;
+
+	private final AtomicLong captures = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong busy = new AtomicLong();
+	private final AtomicLong late = new AtomicLong();
+
+	/**
+	 * Creates snapshotter. Worker threads are created on demand and stopped after 60 seconds of
+	 * inactivity, so idle snapshotter has no threads.
+	 */
+	public WebcamSnapshotter() {
+		workers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new SnapshotThreadFactory());
+	}
+
+	/**
+	 * @return Shared snapshotter
+	 */
+	public static synchronized WebcamSnapshotter getDefault() {
+		if (instance == null) {
+			instance = new WebcamSnapshotter();
+		}
+		return instance;
+	}
+
+	/**
+	 * Capture images from all discovered webcams which are open. Unlike {@link Webcam#getWebcams()}
+	 * this does not wait for discovery, so it does not block while other thread holds discovery
+	 * lock. Webcams which are not open are omitted.
+	 *
+	 * @param timeout the maximum time to wait for images
+	 * @param unit the timeout unit
+	 * @return Snapshots, one per open webcam, in discovery order
+	 */
+	public List<WebcamSnapshot> capture(long timeout, TimeUnit unit) {
+		List<Webcam> open = new ArrayList<Webcam>();
+		for (Webcam webcam : Webcam.getDiscoveredWebcams()) {
+			if (webcam.isOpen()) {
+				open.add(webcam);
+			}
+		}
+		return capture(open, timeout, unit);
+	}
+
+	/**
+	 * Capture images from given webcams in parallel. Returns when all images are captured or
+	 * timeout passes, whichever is first. When current thread is interrupted it returns at once,
+	 * with whatever has been captured so far, and interrupted status set.
+	 *
+	 * @param webcams the webcams to capture images from
+	 * @param timeout the maximum time to wait for images
+	 * @param unit the timeout unit
+	 * @return Snapshots, one per webcam, in the same order as webcams
+	 */
+	public List<WebcamSnapshot> capture(List<Webcam> webcams, long timeout, TimeUnit unit) {
+
+		if (timeout < 0) {
+			throw new IllegalArgumentException(String.format("Timeout cannot be negative (%d)", timeout));
+		}
+		if (unit == null) {
+			throw new IllegalArgumentException("Time unit cannot be null!");
+		}
+
+		long trigger = System.currentTimeMillis();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		CountDownLatch latch = new CountDownLatch(webcams.size());
+		List<Object> started = new ArrayList<Object>(webcams.size());
+
+		for (Webcam webcam : webcams) {
+
+			Capture capture = new Capture(webcam, trigger, deadline, latch);
+
+			if (pending.putIfAbsent(webcam, capture) != null) {
+				busy.incrementAndGet();
+				started.add(new WebcamSnapshot(webcam, Status.BUSY, null, -1, trigger, null));
+				latch.countDown();
+				continue;
+			}
+
+			try {
+				workers.execute(capture);
+				captures.incrementAndGet();
+				started.add(capture);
+			} catch (RejectedExecutionException e) {
+				pending.remove(webcam, capture);
+				started.add(new WebcamSnapshot(webcam, Status.FAILED, null, -1, trigger, e));
+				latch.countDown();
+			}
+		}
+
+		try {
+			latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		List<WebcamSnapshot> snapshots = new ArrayList<WebcamSnapshot>(started.size());
+		for (Object o : started) {
+			if (o instanceof Capture) {
+				snapshots.add(((Capture) o).take());
+			} else {
+				snapshots.add((WebcamSnapshot) o);
+			}
+		}
+
+		return snapshots;
+	}
+
+	/**
+	 * Read image from webcam, waiting for the next one from updater if webcam is non-blocking.
+	 */
+	private static BufferedImage read(Webcam webcam, long deadline) throws InterruptedException {
+
+		if (!webcam.isOpen()) {
+			return null;
+		}
+
+		WebcamUpdater updater = webcam.getUpdater();
+		if (updater != null) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return null;
+			}
+			return updater.getNextImage(remaining, TimeUnit.NANOSECONDS);
+		}
+
+		return webcam.getImage();
+	}
+
+	/**
+	 * Stop worker threads. Captures in progress are interrupted.
+	 */
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
+	/**
+	 * @return Number of webcam reads started
+	 */
+	public long getCaptures() {
+		return captures.get();
+	}
+
+	/**
+	 * @return Number of webcam reads which have not completed before deadline
+	 */
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+
+	/**
+	 * @return Number of times webcam has not been read because previous read has not completed
+	 */
+	public long getBusy() {
+		return busy.get();
+	}
+
+	/**
+	 * @return Number of webcam reads which have completed after deadline, their images are dropped
+	 */
+	public long getLate() {
+		return late.get();
+	}
+
+	/**
+	 * @return Number of webcam reads in progress, including those left behind after deadline
+	 */
+	public int getPending() {
+		return pending.size();
+	}
+
+	/**
+	 * @return Number of worker threads
+	 */
+	public int getThreads() {
+		return workers.getPoolSize();
+	}
+}
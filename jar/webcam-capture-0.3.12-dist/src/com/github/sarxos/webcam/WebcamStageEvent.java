@@ -0,0 +1,35 @@
+package com.github.sarxos.webcam;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+
+/**
+ * Flight recorder event with latency of one image in one stage, committed by
+ * {@link WebcamMetrics} when recording with this event enabled is running.
+ */
+@Name("com.github.sarxos.webcam.Stage")
+@Label("Webcam Stage")
+@Category("Webcam")
+@Description("Latency of one image in one stage of webcam capture stack")
+@StackTrace(false)
+class WebcamStageEvent extends Event {
+
+	@Label("Webcam")
+	String webcam;
+
+	@Label("Stage")
+	String stage;
+
+	@Label("Sequence")
+	long sequence;
+
+	@Label("Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	long latency;
+}
@@ -8,15 +8,27 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +38,18 @@ import org.slf4j.LoggerFactory;
  * This is very simple class which allows video from webcam to be exposed as MJPEG stream on a given
  * port. The mapping between webcam and port is one-to-one, which means that a single port need to
  * be allocated for every webcam you want to stream from.
+ * <p>
+ * By default every client is served by its own thread which grabs and encodes images on its own.
+ * In broadcast mode a single thread encodes each frame once, and all clients are fed that same
+ * frame from one non-blocking selector loop. A client which is still writing the previous frame
+ * when a new one is ready simply skips it, so slow clients lose frames instead of buffering them.
+ * <p>
+ * Broadcast can be made adaptive by setting motion detector (see
+ * {@link #setMotionDetector(WebcamMotionDetector)}). Frames are then encoded at full rate and
+ * quality only while there is motion, and when the scene is still, e.g. bus is parked, one frame
+ * of lower quality is sent every few seconds. Every client can also be given a bandwidth budget
+ * (see {@link #setClientBandwidth(long)}), and frames which would exceed it are skipped for that
+ * client.
  *
  * @author Bartoisz Firyn (sarxos)
  */
@@ -33,10 +57,360 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 
 	private static final Logger LOG = LoggerFactory.getLogger(WebcamStreamer.class);
 
+	/**
+	 * Default rate of frames sent when there is no motion, one every 5 seconds.
+	 */
+	public static final double DEFAULT_IDLE_FPS = 0.2;
+
 	private static final String BOUNDARY = "mjpegframe";
 
 	private static final String CRLF = "\r\n";
 
+	private static final byte[] RESPONSE_HEADER = ("HTTP/1.0 200 OK" + CRLF +
+		"Connection: close" + CRLF +
+		"Cache-Control: no-cache" + CRLF +
+		"Cache-Control: private" + CRLF +
+		"Pragma: no-cache" + CRLF +
+		"Content-type: multipart/x-mixed-replace; boundary=--" + BOUNDARY + CRLF +
+		CRLF).getBytes();
+
+	/**
+	 * Encoded frame shared by all broadcast clients. The buffer holds the whole multipart part,
+	 * boundary and headers included, and is never modified once published.
+	 */
+	private static final class Frame {
+
+		private final long sequence;
+		private final long timestamp;
+		private final ByteBuffer data;
+		private final WebcamFrameTrace trace;
+
+		public Frame(long sequence, long timestamp, byte[] data, WebcamFrameTrace trace) {
+			this.sequence = sequence;
+			this.timestamp = timestamp;
+			this.data = ByteBuffer.wrap(data).asReadOnlyBuffer();
+			this.trace = trace;
+		}
+	}
+
+	/**
+	 * State of one broadcast client, touched only by the selector thread.
+	 */
+	private static final class Client {
+
+		/**
+		 * Response header or frame currently being written, null when idle.
+		 */
+		private ByteBuffer pending = ByteBuffer.wrap(RESPONSE_HEADER);
+
+		/**
+		 * Sequence of the frame in pending, or of the last frame written.
+		 */
+		private long sequence = -1;
+
+		private long timestamp = 0;
+
+		/**
+		 * Trace of the image in pending, null if metrics are disabled.
+		 */
+		private WebcamFrameTrace trace = null;
+
+		/**
+		 * Bytes the client can still be sent within its bandwidth budget, negative when frame
+		 * bigger than the budget has been sent.
+		 */
+		private double allowance = 0;
+
+		/**
+		 * When allowance has been updated (ns).
+		 */
+		private long refilled = System.nanoTime();
+	}
+
+	/**
+	 * Grabs images at the configured rate and encodes each one once for all broadcast clients.
+	 */
+	private class Encoder implements Runnable {
+
+		@Override
+		public void run() {
+
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+			final ImageWriteParam param = writer.getDefaultWriteParam();
+
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+
+			long sequence = 0;
+			long last = 0;
+
+			while (started.get()) {
+
+				long start = System.currentTimeMillis();
+
+				// without motion detector, or when it is not running, stream at full rate
+
+				WebcamMotionDetector md = detector;
+				boolean motion = md == null || !md.isRunning() || md.isMotion();
+
+				try {
+					if (webcam.isOpen() && (motion || start - last >= (long) (1000 / idleFps))) {
+						BufferedImage image = webcam.getImage();
+						if (image != null) {
+							long timestamp = System.nanoTime();
+							baos.reset();
+							param.setCompressionQuality(motion ? quality : idleQuality);
+							try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(baos)) {
+								writer.setOutput(output);
+								writer.write(null, new IIOImage(image, null, null), param);
+							}
+							frame = new Frame(sequence++, timestamp, part(baos), encoded(image, timestamp));
+							encoded.incrementAndGet();
+							if (!motion) {
+								idle.incrementAndGet();
+							}
+							last = start;
+							Selector s = selector;
+							if (s != null) {
+								s.wakeup();
+							}
+						}
+					}
+				} catch (IOException e) {
+					LOG.error("Cannot encode image", e);
+				}
+
+				long sleep = delay - (System.currentTimeMillis() - start);
+				if (sleep > 0) {
+					try {
+						Thread.sleep(sleep);
+					} catch (InterruptedException e) {
+						writer.dispose();
+						return;
+					}
+				}
+			}
+
+			writer.dispose();
+		}
+
+		private byte[] part(ByteArrayOutputStream jpeg) {
+
+			StringBuilder sb = new StringBuilder();
+			sb.append("--").append(BOUNDARY).append(CRLF);
+			sb.append("Content-type: image/jpeg").append(CRLF);
+			sb.append("Content-Length: ").append(jpeg.size()).append(CRLF);
+			sb.append(CRLF);
+
+			byte[] header = sb.toString().getBytes();
+			byte[] crlf = CRLF.getBytes();
+			byte[] part = new byte[header.length + jpeg.size() + crlf.length];
+
+			System.arraycopy(header, 0, part, 0, header.length);
+			System.arraycopy(jpeg.toByteArray(), 0, part, header.length, jpeg.size());
+			System.arraycopy(crlf, 0, part, header.length + jpeg.size(), crlf.length);
+
+			return part;
+		}
+	}
+
+	/**
+	 * Accepts clients and writes the latest encoded frame to all of them from a single selector.
+	 */
+	private class Broadcaster implements Runnable {
+
+		private final ByteBuffer discard = ByteBuffer.allocate(1024);
+
+		private long broadcasted = -1;
+
+		@Override
+		public void run() {
+
+			try (Selector sel = Selector.open(); ServerSocketChannel server = ServerSocketChannel.open()) {
+
+				server.configureBlocking(false);
+				server.bind(new InetSocketAddress(InetAddress.getByName("0.0.0.0"), port), 50);
+				server.register(sel, SelectionKey.OP_ACCEPT);
+				selector = sel;
+
+				while (started.get()) {
+
+					sel.select();
+
+					Iterator<SelectionKey> keys = sel.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						if (!key.isValid()) {
+							continue;
+						}
+						if (key.isAcceptable()) {
+							accept(server, sel);
+						} else {
+							if (key.isReadable()) {
+								read(key);
+							}
+							if (key.isValid() && key.isWritable()) {
+								serve(key);
+							}
+						}
+					}
+
+					Frame f = frame;
+					if (f != null && f.sequence != broadcasted) {
+						broadcasted = f.sequence;
+						for (SelectionKey key : sel.keys()) {
+							if (key.isValid() && key.attachment() != null && ((Client) key.attachment()).pending == null) {
+								serve(key);
+							}
+						}
+					}
+				}
+
+				for (SelectionKey key : sel.keys()) {
+					if (key.attachment() != null) {
+						close(key);
+					}
+				}
+
+			} catch (IOException e) {
+				LOG.error("Broadcast failed on port " + port, e);
+			} finally {
+				selector = null;
+			}
+		}
+
+		private void accept(ServerSocketChannel server, Selector sel) throws IOException {
+
+			SocketChannel channel = server.accept();
+			if (channel == null) {
+				return;
+			}
+
+			LOG.info("New connection from {}", channel.getRemoteAddress());
+
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+
+			SelectionKey key = channel.register(sel, SelectionKey.OP_READ, new Client());
+			clients.incrementAndGet();
+			serve(key);
+		}
+
+		/**
+		 * Request content is not needed, only end of stream is of interest.
+		 */
+		private void read(SelectionKey key) {
+			try {
+				discard.clear();
+				if (((SocketChannel) key.channel()).read(discard) < 0) {
+					close(key);
+				}
+			} catch (IOException e) {
+				LOG.debug("Read failed", e);
+				close(key);
+			}
+		}
+
+		/**
+		 * Writes as much as possible to the client. When a write completes, continues with the latest
+		 * frame, skipping any frames published in the meantime.
+		 */
+		private void serve(SelectionKey key) {
+
+			final SocketChannel channel = (SocketChannel) key.channel();
+			final Client client = (Client) key.attachment();
+
+			try {
+				while (true) {
+
+					if (client.pending != null) {
+						bytes.addAndGet(channel.write(client.pending));
+						if (client.pending.hasRemaining()) {
+							key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+							return;
+						}
+						if (client.sequence >= 0) {
+							long now = System.nanoTime();
+							sent.incrementAndGet();
+							latency.addAndGet(now - client.timestamp);
+							wired(client.trace, now);
+						}
+						client.pending = null;
+					}
+
+					Frame f = frame;
+					if (f == null || f.sequence <= client.sequence) {
+						key.interestOps(SelectionKey.OP_READ);
+						return;
+					}
+
+					if (client.sequence >= 0 && f.sequence > client.sequence + 1) {
+						dropped.addAndGet(f.sequence - client.sequence - 1);
+						skipped(f.sequence - client.sequence - 1);
+					}
+
+					if (!allow(client, f.data.remaining())) {
+						throttled.incrementAndGet();
+						skipped(1);
+						client.sequence = f.sequence;
+						key.interestOps(SelectionKey.OP_READ);
+						return;
+					}
+
+					client.pending = f.data.duplicate();
+					client.sequence = f.sequence;
+					client.timestamp = f.timestamp;
+					client.trace = f.trace;
+				}
+			} catch (IOException e) {
+				LOG.debug("Connection to client has been lost", e);
+				close(key);
+			}
+		}
+
+		/**
+		 * Take frame size from client allowance, which grows by the bandwidth budget every second,
+		 * up to one second worth of bytes. Frame is allowed when allowance is not negative, so
+		 * frames bigger than the budget still go through, only less often.
+		 *
+		 * @return True if frame can be sent to client
+		 */
+		private boolean allow(Client client, int size) {
+
+			long budget = bandwidth;
+			if (budget <= 0) {
+				return true;
+			}
+
+			long now = System.nanoTime();
+			client.allowance = Math.min(budget, client.allowance + budget * ((now - client.refilled) / 1e9));
+			client.refilled = now;
+
+			if (client.allowance < 0) {
+				return false;
+			}
+
+			client.allowance -= size;
+
+			return true;
+		}
+
+		private void close(SelectionKey key) {
+			if (!key.channel().isOpen()) {
+				return;
+			}
+			key.cancel();
+			try {
+				LOG.info("Closing connection from {}", ((SocketChannel) key.channel()).getRemoteAddress());
+				key.channel().close();
+			} catch (IOException e) {
+				LOG.debug("Cannot close socket", e);
+			}
+			clients.decrementAndGet();
+		}
+	}
+
 	private class Acceptor implements Runnable {
 
 		@Override
@@ -128,7 +502,9 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 							image = webcam.getImage();
 						}
 
+						long encoding = System.nanoTime();
 						ImageIO.write(image, "JPG", baos);
+						WebcamFrameTrace trace = encoded(image, encoding);
 
 						sb.delete(0, sb.length());
 						sb.append("--").append(BOUNDARY).append(CRLF);
@@ -141,6 +517,7 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 							bos.write(baos.toByteArray());
 							bos.write(CRLF.getBytes());
 							bos.flush();
+							wired(trace, System.nanoTime());
 						} catch (SocketException e) {
 
 							if (!socket.isConnected()) {
@@ -219,7 +596,36 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 	private ExecutorService executor = Executors.newCachedThreadPool(this);
 	private AtomicBoolean started = new AtomicBoolean(false);
 
+	private final boolean broadcast;
+	private volatile Frame frame = null;
+	private volatile Selector selector = null;
+	private final AtomicLong encoded = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong latency = new AtomicLong();
+	private final AtomicLong clients = new AtomicLong();
+	private final AtomicLong idle = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+	private final AtomicLong bytes = new AtomicLong();
+
+	private volatile WebcamMotionDetector detector = null;
+	private volatile double idleFps = DEFAULT_IDLE_FPS;
+	private volatile float quality = 0.75f;
+	private volatile float idleQuality = 0.5f;
+	private volatile long bandwidth = 0;
+
 	public WebcamStreamer(int port, Webcam webcam, double fps, boolean start) {
+		this(port, webcam, fps, start, false);
+	}
+
+	/**
+	 * @param port the port to listen on
+	 * @param webcam the webcam to stream from
+	 * @param fps frames per second
+	 * @param start true to start streaming right away
+	 * @param broadcast true to encode each frame once and serve all clients from a single selector
+	 */
+	public WebcamStreamer(int port, Webcam webcam, double fps, boolean start, boolean broadcast) {
 
 		if (webcam == null) {
 			throw new IllegalArgumentException("Webcam for streaming cannot be null");
@@ -229,12 +635,53 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 		this.webcam = webcam;
 		this.fps = fps;
 		this.delay = (long) (1000 / fps);
+		this.broadcast = broadcast;
 
 		if (start) {
 			start();
 		}
 	}
 
+	/**
+	 * Record image encoding which has started at given time.
+	 *
+	 * @return Trace of the image, or null if metrics are disabled or image is not traced
+	 */
+	private WebcamFrameTrace encoded(BufferedImage image, long start) {
+		WebcamMetrics m = webcam.metrics();
+		if (m == null) {
+			return null;
+		}
+		long now = System.nanoTime();
+		WebcamFrameTrace trace = m.getTrace(image);
+		m.record(WebcamMetrics.Stage.ENCODE, now - start, trace == null ? -1 : trace.getSequence());
+		if (trace != null) {
+			trace.setEncoded(now);
+		}
+		return trace;
+	}
+
+	/**
+	 * Record image fully written to client, capture to wire latency.
+	 */
+	private void wired(WebcamFrameTrace trace, long now) {
+		WebcamMetrics m = webcam.metrics();
+		if (m != null && trace != null) {
+			trace.setSent(now);
+			m.record(WebcamMetrics.Stage.WIRE, now - trace.getGrabbed(), trace.getSequence());
+		}
+	}
+
+	/**
+	 * Record frames skipped by client.
+	 */
+	private void skipped(long frames) {
+		WebcamMetrics m = webcam.metrics();
+		if (m != null) {
+			m.dropped(WebcamMetrics.Stage.WIRE, frames);
+		}
+	}
+
 	@Override
 	public Thread newThread(Runnable r) {
 		Thread thread = new Thread(r, String.format("streamer-thread-%s", number++));
@@ -247,12 +694,21 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 		if (started.compareAndSet(false, true)) {
 			webcam.addWebcamListener(this);
 			webcam.open();
-			executor.execute(new Acceptor());
+			if (broadcast) {
+				executor.execute(new Broadcaster());
+				executor.execute(new Encoder());
+			} else {
+				executor.execute(new Acceptor());
+			}
 		}
 	}
 
 	public void stop() {
 		if (started.compareAndSet(true, false)) {
+			Selector s = selector;
+			if (s != null) {
+				s.wakeup();
+			}
 			executor.shutdown();
 			webcam.removeWebcamListener(this);
 			webcam.close();
@@ -289,4 +745,148 @@ public class WebcamStreamer implements ThreadFactory, WebcamListener {
 		return port;
 	}
 
+	/**
+	 * @return true if frames are encoded once and broadcast to all clients
+	 */
+	public boolean isBroadcast() {
+		return broadcast;
+	}
+
+	/**
+	 * @return number of clients connected in broadcast mode
+	 */
+	public long getClientsCount() {
+		return clients.get();
+	}
+
+	/**
+	 * @return number of frames encoded in broadcast mode
+	 */
+	public long getFramesEncoded() {
+		return encoded.get();
+	}
+
+	/**
+	 * @return number of frames fully written to clients in broadcast mode
+	 */
+	public long getFramesSent() {
+		return sent.get();
+	}
+
+	/**
+	 * @return number of frames skipped by clients which were too slow to take them
+	 */
+	public long getFramesDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return average time in milliseconds from image capture to the last byte of the frame
+	 *         written to a client, in broadcast mode
+	 */
+	public double getAverageLatency() {
+		long n = sent.get();
+		return n == 0 ? 0 : latency.get() / 1e6 / n;
+	}
+
+	/**
+	 * @return number of frames encoded at idle rate and quality, i.e. without motion, in broadcast
+	 *         mode
+	 */
+	public long getFramesIdle() {
+		return idle.get();
+	}
+
+	/**
+	 * @return number of frames skipped by clients which have used up their bandwidth budget
+	 */
+	public long getFramesThrottled() {
+		return throttled.get();
+	}
+
+	/**
+	 * @return number of bytes written to all clients in broadcast mode, headers included
+	 */
+	public long getBytesSent() {
+		return bytes.get();
+	}
+
+	public WebcamMotionDetector getMotionDetector() {
+		return detector;
+	}
+
+	/**
+	 * Make broadcast adaptive. While detector reports motion, frames are encoded at full rate and
+	 * quality, otherwise at idle rate and quality. Detector has to be started separately, and as
+	 * long as it is not running frames are encoded at full rate. Its inertia decides how long full
+	 * rate is kept after motion stops.
+	 *
+	 * @param detector the motion detector of the streamed webcam, or null to always stream at full
+	 *            rate
+	 */
+	public void setMotionDetector(WebcamMotionDetector detector) {
+		this.detector = detector;
+	}
+
+	public double getIdleFPS() {
+		return idleFps;
+	}
+
+	/**
+	 * @param idleFps frames per second encoded when there is no motion
+	 */
+	public void setIdleFPS(double idleFps) {
+		if (idleFps <= 0 || idleFps > fps) {
+			throw new IllegalArgumentException("Idle FPS must be positive and not above streaming FPS");
+		}
+		this.idleFps = idleFps;
+	}
+
+	public float getQuality() {
+		return quality;
+	}
+
+	/**
+	 * @param quality the JPEG quality from 0 to 1 of frames with motion, or of all frames when
+	 *            there is no motion detector, in broadcast mode
+	 */
+	public void setQuality(float quality) {
+		if (quality < 0 || quality > 1) {
+			throw new IllegalArgumentException("Quality must be between 0 and 1");
+		}
+		this.quality = quality;
+	}
+
+	public float getIdleQuality() {
+		return idleQuality;
+	}
+
+	/**
+	 * @param idleQuality the JPEG quality from 0 to 1 of frames encoded when there is no motion
+	 */
+	public void setIdleQuality(float idleQuality) {
+		if (idleQuality < 0 || idleQuality > 1) {
+			throw new IllegalArgumentException("Quality must be between 0 and 1");
+		}
+		this.idleQuality = idleQuality;
+	}
+
+	public long getClientBandwidth() {
+		return bandwidth;
+	}
+
+	/**
+	 * Set bandwidth budget of every client in broadcast mode. Frames which would exceed it are
+	 * skipped for that client, so over time it gets no more bytes than the budget, with bursts of
+	 * up to one second worth of bytes.
+	 *
+	 * @param bandwidth the bytes per second each client can be sent, 0 for no limit
+	 */
+	public void setClientBandwidth(long bandwidth) {
+		if (bandwidth < 0) {
+			throw new IllegalArgumentException("Bandwidth cannot be negative");
+		}
+		this.bandwidth = bandwidth;
+	}
+
 }
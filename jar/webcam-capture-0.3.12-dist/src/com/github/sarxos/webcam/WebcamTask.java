@@ -8,6 +8,8 @@ public abstract class WebcamTask {
 	private WebcamProcessor processor = null;
 	private WebcamDevice device = null;
 	private Throwable throwable = null;
+	private boolean done = false;
+	private long enqueued = 0;
 
 	public WebcamTask(boolean threadSafe, WebcamDevice device) {
 		this.doSync = !threadSafe;
@@ -44,12 +46,21 @@ public abstract class WebcamTask {
 					throw new RuntimeException("Driver should be synchronized, but processor is null");
 				}
 				processor.process(this);
+			} else if (processor != null && processor.isDeviceLanes()) {
+				processor.process(this);
 			} else {
 				handle();
 			}
 		}
 	}
 
+	/**
+	 * @return True if task belongs to thread safe driver
+	 */
+	public boolean isThreadSafe() {
+		return !doSync;
+	}
+
 	public Throwable getThrowable() {
 		return throwable;
 	}
@@ -58,5 +69,44 @@ public abstract class WebcamTask {
 		this.throwable = t;
 	}
 
+	/**
+	 * Called by processor when task is put into lane queue.
+	 */
+	void enqueued() {
+		synchronized (this) {
+			done = false;
+		}
+		enqueued = System.nanoTime();
+	}
+
+	long getEnqueued() {
+		return enqueued;
+	}
+
+	/**
+	 * Called by processor when task has been handled.
+	 */
+	synchronized void complete() {
+		done = true;
+		notifyAll();
+	}
+
+	/**
+	 * Wait until processor completes this task.
+	 *
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return True if task has been completed
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	synchronized boolean await(long timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		long remaining = timeout;
+		while (!done && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+		return done;
+	}
+
 	protected abstract void handle();
 }
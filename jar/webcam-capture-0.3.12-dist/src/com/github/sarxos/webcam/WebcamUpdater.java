@@ -10,6 +10,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -21,6 +22,11 @@ import com.github.sarxos.webcam.ds.cgt.WebcamGetImageTask;
 /**
  * The goal of webcam updater class is to update image in parallel, so all calls to fetch image
  * invoked on webcam instance will be non-blocking (will return immediately).
+ * <p>
+ * When started with {@link PacingDelayCalculator} updater works in pacing mode. Images are fetched
+ * at target FPS and webcam listeners are never more than one image behind: while they process one
+ * image only the newest of the following ones is kept for them, the rest are dropped. Achieved FPS,
+ * dropped frames, listener time and end-to-end latency can be read from updater.
  * 
  * @author Bartosz Firyn (sarxos)
  */
@@ -64,6 +70,99 @@ public class WebcamUpdater implements Runnable {
 		}
 	}
 
+	/**
+	 * Delay calculator which paces updater at given FPS. Unlike {@link DefaultDelayCalculator} it
+	 * keeps fixed schedule, so frames are fetched every 1/FPS seconds no matter how long it takes to
+	 * fetch image (unless it takes longer than that, in which case schedule is restarted instead
+	 * of fetching frames in a burst to catch up). Updater started with this calculator also stops
+	 * queuing notifications when webcam listeners fall behind, see {@link WebcamUpdater}.
+	 */
+	public static class PacingDelayCalculator implements DelayCalculator {
+
+		private final double targetFps;
+
+		private final long period;
+
+		private long deadline = 0;
+
+		/**
+		 * @param targetFps the target FPS
+		 */
+		public PacingDelayCalculator(double targetFps) {
+			if (targetFps <= 0) {
+				throw new IllegalArgumentException("Target FPS must be positive");
+			}
+			this.targetFps = targetFps;
+			this.period = (long) (TimeUnit.SECONDS.toNanos(1) / targetFps);
+		}
+
+		@Override
+		public synchronized long calculateDelay(long snapshotDuration, double deviceFps) {
+
+			long now = System.nanoTime();
+			long start = now - TimeUnit.MILLISECONDS.toNanos(snapshotDuration);
+
+			// first frame, or more than one frame behind schedule, start new schedule from here
+
+			if (deadline == 0 || start - deadline > period) {
+				deadline = start;
+			}
+
+			deadline += period;
+
+			return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - now));
+		}
+
+		/**
+		 * @return Target FPS
+		 */
+		public double getTargetFPS() {
+			return targetFps;
+		}
+	}
+
+	/**
+	 * Image waiting to be passed to webcam listeners.
+	 */
+	private static final class PendingImage {
+
+		private final BufferedImage image;
+		private final long captured;
+		private final long timestamp;
+
+		public PendingImage(BufferedImage image, long captured, long timestamp) {
+			this.image = image;
+			this.captured = captured;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/**
+	 * Passes pending images to webcam listeners, in notification thread, until there is nothing
+	 * more to pass. Only one notifier is queued at a time.
+	 */
+	private final class Notifier implements Runnable {
+
+		@Override
+		public void run() {
+			do {
+				PendingImage p = null;
+				while ((p = pending.getAndSet(null)) != null) {
+
+					long t1 = System.nanoTime();
+					webcam.dispatchWebcamImageAcquired(p.image, p.timestamp);
+					webcam.notified(p.image);
+					long t2 = System.nanoTime();
+
+					listenerTime = (4 * listenerTime + (t2 - t1) / 1e6) / 5;
+					latency = (4 * latency + (t2 - p.captured) / 1e6) / 5;
+					delivered.incrementAndGet();
+				}
+				notifying.set(false);
+			} while (pending.get() != null && notifying.compareAndSet(false, true));
+		}
+	}
+
 	/**
 	 * Thread factory for executors used within updater class.
 	 * 
@@ -122,11 +221,50 @@ public class WebcamUpdater implements Runnable {
 
 	private volatile boolean imageNew = false;
 
+	/**
+	 * Guards image updates, so getters can wait for them.
+	 */
+	private final Object imageLock = new Object();
+
+	/**
+	 * Number of images fetched, guarded by image lock.
+	 */
+	private long sequence = 0;
+
 	/**
 	 * DelayCalculator implementation.
 	 */
 	private final DelayCalculator delayCalculator;
 
+	/**
+	 * Is pacing mode enabled (pacing delay calculator used)?
+	 */
+	private final boolean pacing;
+
+	/**
+	 * Newest image not yet passed to listeners, pacing mode only.
+	 */
+	private final AtomicReference<PendingImage> pending = new AtomicReference<PendingImage>();
+
+	/**
+	 * Is notifier queued or running?
+	 */
+	private final AtomicBoolean notifying = new AtomicBoolean(false);
+
+	private final Notifier notifier = new Notifier();
+
+	private final AtomicLong delivered = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private volatile double achievedFps = 0;
+
+	private volatile double listenerTime = 0;
+
+	private volatile double latency = 0;
+
+	private long lastTick = 0;
+
 	/**
 	 * Construct new webcam updater using DefaultDelayCalculator.
 	 * 
@@ -149,6 +287,7 @@ public class WebcamUpdater implements Runnable {
 		} else {
 			this.delayCalculator = delayCalculator;
 		}
+		this.pacing = this.delayCalculator instanceof PacingDelayCalculator;
 	}
 
 	/**
@@ -158,7 +297,7 @@ public class WebcamUpdater implements Runnable {
 
 		if (running.compareAndSet(false, true)) {
 
-			image.set(new WebcamGetImageTask(Webcam.getDriver(), webcam.getDevice()).getImage());
+			setImage(webcam.transform(new WebcamGetImageTask(Webcam.getDriver(), webcam.getDevice()).getImage()));
 
 			executor = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
 			executor.execute(this);
@@ -218,17 +357,36 @@ public class WebcamUpdater implements Runnable {
 		assert driver != null;
 		assert device != null;
 
+		WebcamMetrics metrics = webcam.metrics();
+
+		WebcamFrameTrace trace = null;
+
 		boolean imageOk = false;
+		long captured = System.nanoTime();
 		long t1 = System.currentTimeMillis();
 		try {
-			image.set(webcam.transform(new WebcamGetImageTask(driver, device).getImage()));
+			BufferedImage bi = new WebcamGetImageTask(driver, device).getImage();
+			long returned = metrics == null ? 0 : System.nanoTime();
+			bi = webcam.transform(bi);
+			if (metrics != null) {
+				trace = metrics.captured(bi, captured, returned, System.nanoTime());
+			}
+			setImage(bi);
 			imageNew = true;
 			imageOk = true;
 		} catch (WebcamException e) {
+			if (metrics != null) {
+				metrics.dropped(WebcamMetrics.Stage.GRAB, 1);
+			}
 			handle(e);
 		}
 		long t2 = System.currentTimeMillis();
 
+		if (lastTick > 0) {
+			achievedFps = (4 * achievedFps + 1e9 / (captured - lastTick + 1)) / 5;
+		}
+		lastTick = captured;
+
 		double deviceFps = -1;
 		if (device instanceof WebcamDevice.FPSSource) {
 			deviceFps = ((WebcamDevice.FPSSource) device).getFPS();
@@ -257,7 +415,52 @@ public class WebcamUpdater implements Runnable {
 		// notify webcam listeners about the new image available
 
 		if (imageOk) {
-			webcam.notifyWebcamImageAcquired(image.get());
+			if (pacing) {
+				notifyPaced(image.get(), captured, t2);
+			} else {
+				webcam.notifyWebcamImageAcquired(image.get(), t2);
+			}
+		}
+
+		if (metrics != null) {
+			metrics.record(WebcamMetrics.Stage.TICK, System.nanoTime() - captured, trace == null ? -1 : trace.getSequence());
+		}
+	}
+
+	/**
+	 * Pass image to listeners, but do not queue it behind the previous one if listeners are still
+	 * busy. In such case it replaces the previous image waiting for listeners (which is counted as
+	 * dropped), so listeners always get the newest image once they are done.
+	 */
+	private void notifyPaced(BufferedImage image, long captured, long timestamp) {
+
+		if (webcam.getWebcamListenersCount() == 0) {
+			return;
+		}
+
+		if (pending.getAndSet(new PendingImage(image, captured, timestamp)) != null) {
+			dropped.incrementAndGet();
+			WebcamMetrics metrics = webcam.metrics();
+			if (metrics != null) {
+				metrics.dropped(WebcamMetrics.Stage.NOTIFY, 1);
+			}
+		}
+
+		if (notifying.compareAndSet(false, true)) {
+			try {
+				webcam.executeNotification(notifier);
+			} catch (RejectedExecutionException e) {
+				notifying.set(false);
+				LOG.trace("Image notification has been rejected", e);
+			}
+		}
+	}
+
+	private void setImage(BufferedImage bi) {
+		synchronized (imageLock) {
+			image.set(bi);
+			sequence++;
+			imageLock.notifyAll();
 		}
 	}
 
@@ -272,24 +475,68 @@ public class WebcamUpdater implements Runnable {
 	 */
 	public BufferedImage getImage() {
 
-		int i = 0;
-		while (image.get() == null) {
+		BufferedImage bi = null;
+		try {
+			bi = getImage(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
 
-			// Just in case if another thread starts calling this method before
-			// updater has been properly started. This will loop while image is
-			// not available.
+		if (bi == null) {
+			LOG.error("Image has not been found for more than 10 seconds");
+		}
 
-			try {
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
+		return bi;
+	}
+
+	/**
+	 * Return currently available image, waiting for the first one if there is no image yet.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the timeout unit
+	 * @return Image stored in cache or null if there was no image before timeout
+	 * @throws InterruptedException when thread has been interrupted while waiting
+	 */
+	public BufferedImage getImage(long timeout, TimeUnit unit) throws InterruptedException {
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		synchronized (imageLock) {
+			while (image.get() == null) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return null;
+				}
+				TimeUnit.NANOSECONDS.timedWait(imageLock, remaining);
 			}
+		}
 
-			// Return null if more than 10 seconds passed (timeout).
+		imageNew = false;
 
-			if (i++ > 100) {
-				LOG.error("Image has not been found for more than 10 seconds");
-				return null;
+		return image.get();
+	}
+
+	/**
+	 * Wait for image fetched after this method has been called. Consumer calling it in a loop gets
+	 * every image once and never spins on the same one.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @param unit the timeout unit
+	 * @return New image or null if there was none before timeout
+	 * @throws InterruptedException when thread has been interrupted while waiting
+	 */
+	public BufferedImage getNextImage(long timeout, TimeUnit unit) throws InterruptedException {
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		synchronized (imageLock) {
+			long current = sequence;
+			while (sequence == current || image.get() == null) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return null;
+				}
+				TimeUnit.NANOSECONDS.timedWait(imageLock, remaining);
 			}
 		}
 
@@ -311,4 +558,52 @@ public class WebcamUpdater implements Runnable {
 	public double getFPS() {
 		return fps;
 	}
+
+	/**
+	 * @return True if updater runs in pacing mode (with {@link PacingDelayCalculator})
+	 */
+	public boolean isPacing() {
+		return pacing;
+	}
+
+	/**
+	 * Return how often updater actually fetches images. Unlike {@link #getFPS()} it includes delay
+	 * between fetches, so it can be compared with target FPS.
+	 *
+	 * @return Achieved FPS
+	 */
+	public double getAchievedFPS() {
+		return achievedFps;
+	}
+
+	/**
+	 * @return Number of images passed to webcam listeners (pacing mode only)
+	 */
+	public long getDeliveredFrames() {
+		return delivered.get();
+	}
+
+	/**
+	 * @return Number of images not passed to webcam listeners because they were still busy with
+	 *         the previous ones (pacing mode only)
+	 */
+	public long getDroppedFrames() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return Average time spent by all webcam listeners on one image, in milliseconds (pacing mode
+	 *         only)
+	 */
+	public double getListenerTime() {
+		return listenerTime;
+	}
+
+	/**
+	 * @return Average time from starting to fetch image to all listeners being done with it, in
+	 *         milliseconds (pacing mode only)
+	 */
+	public double getLatency() {
+		return latency;
+	}
 }
@@ -0,0 +1,64 @@
+package com.github.sarxos.webcam;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Row-major bitmap of the pixels covered by motion detector do-not-engage zones. The bitmap is
+ * kept between frames and rebuilt only when the zones or the image size change.
+ */
+final class WebcamZoneMask {
+
+	private long[] bits;
+	private List<Rectangle> zones;
+	private int width = -1;
+	private int height = -1;
+
+	/**
+	 * @param zones the do-not-engage zones
+	 * @param w image width
+	 * @param h image height
+	 * @return bitmap where bit {@code y * w + x} is set when pixel is in a zone, or null if there
+	 *         are no zones
+	 */
+	long[] get(List<Rectangle> zones, int w, int h) {
+
+		if (zones.isEmpty()) {
+			return null;
+		}
+		if (bits != null && width == w && height == h && zones.equals(this.zones)) {
+			return bits;
+		}
+
+		long[] mask = new long[(w * h + 63) >>> 6];
+		List<Rectangle> copy = new ArrayList<Rectangle>(zones.size());
+		for (Rectangle zone : zones) {
+			copy.add(new Rectangle(zone));
+			for (int y = Math.max(0, zone.y); y < h; y++) {
+				for (int x = Math.max(0, zone.x); x < w; x++) {
+					if (zone.contains(x, y)) {
+						int i = y * w + x;
+						mask[i >>> 6] |= 1L << i;
+					}
+				}
+			}
+		}
+
+		this.bits = mask;
+		this.zones = copy;
+		this.width = w;
+		this.height = h;
+		return mask;
+	}
+
+	/**
+	 * @param mask the bitmap returned by {@link #get(List, int, int)}, may be null
+	 * @param i the pixel index ({@code y * w + x})
+	 * @return true if pixel is in one of the zones
+	 */
+	static boolean isMasked(long[] mask, int i) {
+		return mask != null && (mask[i >>> 6] & (1L << i)) != 0;
+	}
+}
@@ -8,7 +8,15 @@ import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsEnvironment;
 import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.github.sarxos.webcam.WebcamDevice;
@@ -21,7 +29,7 @@ import com.github.sarxos.webcam.WebcamResolution;
  * 
  * @author Bartosz Firyn (sarxos)
  **/
-public class WebcamDummyDevice implements WebcamDevice {
+public class WebcamDummyDevice implements WebcamDevice, WebcamDevice.BufferAccess {
 
 	private final static Dimension[] DIMENSIONS = new Dimension[] {
 		WebcamResolution.QQVGA.getSize(),
@@ -91,13 +99,27 @@ public class WebcamDummyDevice implements WebcamDevice {
 		int w = resolution.width;
 		int h = resolution.height;
 
-		String s = getName();
-
 		GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-		GraphicsConfiguration gc = ge.getDefaultScreenDevice().getDefaultConfiguration();
-		BufferedImage bi = gc.createCompatibleImage(w, h);
+		BufferedImage bi;
+		if (GraphicsEnvironment.isHeadless()) {
+			// no screen device to be compatible with (e.g. on a server)
+			bi = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+		} else {
+			GraphicsConfiguration gc = ge.getDefaultScreenDevice().getDefaultConfiguration();
+			bi = gc.createCompatibleImage(w, h);
+		}
 
 		Graphics2D g2 = ge.createGraphics(bi);
+		paint(g2, w, h);
+
+		g2.dispose();
+		bi.flush();
+
+		return bi;
+	}
+
+	private void paint(Graphics2D g2, int w, int h) {
+
 		g2.setBackground(new Color(Math.abs(r++), Math.abs(g++), Math.abs(b++)));
 		g2.clearRect(0, 0, w, h);
 
@@ -112,19 +134,75 @@ public class WebcamDummyDevice implements WebcamDevice {
 		g2.setFont(font);
 
 		FontMetrics metrics = g2.getFontMetrics(font);
-		int sw = (w - metrics.stringWidth(s)) / 2;
+		int sw = (w - metrics.stringWidth(name)) / 2;
 		int sh = (h - metrics.getHeight()) / 2 + metrics.getHeight() / 2;
 
 		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 		g2.setColor(Color.BLACK);
-		g2.drawString(s, sw + 1, sh + 1);
+		g2.drawString(name, sw + 1, sh + 1);
 		g2.setColor(Color.WHITE);
-		g2.drawString(s, sw, sh);
+		g2.drawString(name, sw, sh);
+	}
+
+	/**
+	 * Frame rendered into RGB bytes for buffer access, reused between calls.
+	 */
+	private BufferedImage rgb = null;
+
+	private byte[] renderBytes() {
+
+		try {
+			Thread.sleep(1000 / 30);
+		} catch (InterruptedException e) {
+			return null;
+		}
+
+		Dimension resolution = getResolution();
+
+		int w = resolution.width;
+		int h = resolution.height;
 
+		if (rgb == null || rgb.getWidth() != w || rgb.getHeight() != h) {
+			ComponentColorModel cm = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+			WritableRaster raster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, w, h, w * 3, 3, new int[] { 0, 1, 2 }, null);
+			rgb = new BufferedImage(cm, raster, false, null);
+		}
+
+		Graphics2D g2 = rgb.createGraphics();
+		paint(g2, w, h);
 		g2.dispose();
-		bi.flush();
 
-		return bi;
+		return ((DataBufferByte) rgb.getRaster().getDataBuffer()).getData();
+	}
+
+	@Override
+	public synchronized ByteBuffer getImageBytes() {
+
+		if (!isOpen()) {
+			throw new WebcamException("Webcam is not open");
+		}
+
+		byte[] bytes = renderBytes();
+		return bytes == null ? null : ByteBuffer.wrap(bytes);
+	}
+
+	@Override
+	public synchronized void getImageBytes(ByteBuffer target) {
+
+		if (!isOpen()) {
+			throw new WebcamException("Webcam is not open");
+		}
+
+		Dimension resolution = getResolution();
+		int size = resolution.width * resolution.height * 3;
+		if (target.remaining() < size) {
+			throw new IllegalArgumentException(String.format("Not enough remaining space in target buffer (%d necessary vs %d remaining)", size, target.remaining()));
+		}
+
+		byte[] bytes = renderBytes();
+		if (bytes != null) {
+			target.put(bytes, 0, size);
+		}
 	}
 
 	@Override
@@ -3,50 +3,237 @@ package com.github.sarxos.webcam.util;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
-import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
 import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 
 /**
  * This class will save {@link BufferedImage} into a byte array and try to compress it a given size.
+ * <p>
+ * There are two strategies to find the JPEG quality. {@link Strategy#LINEAR} (the default) lowers
+ * quality by 25% until image fits, and keeps it for next images. {@link Strategy#BINARY} starts from
+ * quality used for the previous image and binary searches for the highest quality which fits, so it
+ * can also go up when scene gets simpler. Image which fits and is no more than 10% below the size
+ * is accepted right away, so for video, where consecutive frames are similar, it usually takes one
+ * or two encodes per frame. Both strategies stop after {@link #getMaxAttempts()} encodes.
+ * <p>
+ * JPEG writer, its parameters and output buffers are reused between calls, so instance must not be
+ * shared between threads without external synchronization.
  *
  * @author Bartosz Firyn (sarxos)
  */
 public class AdaptiveSizeWriter {
 
+	/**
+	 * Strategy of finding JPEG quality.
+	 */
+	public static enum Strategy {
+
+		/**
+		 * Lower quality by 25% in every step until image fits.
+		 */
+		LINEAR,
+
+		/**
+		 * Binary search for the highest quality which fits, starting from the previous one.
+		 */
+		BINARY,
+	}
+
 	private static final float INITIAL_QUALITY = 1f;
 
+	/**
+	 * Lowest quality binary search will go to.
+	 */
+	private static final float MIN_QUALITY = 0.01f;
+
+	/**
+	 * Binary search stops when quality range is narrower than this.
+	 */
+	private static final float PRECISION = 0.02f;
+
+	/**
+	 * Maximum quality change when only one end of the range is known.
+	 */
+	private static final float STEP = 0.1f;
+
+	/**
+	 * Image this much smaller than size is good enough.
+	 */
+	private static final float TOLERANCE = 0.1f;
+
+	/**
+	 * Default maximum number of encodes per image.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 20;
+
+	/**
+	 * Output stream exposing its buffer, so best result can be kept without copying.
+	 */
+	private static final class Buffer extends ByteArrayOutputStream {
+
+		private byte[] array() {
+			return buf;
+		}
+	}
+
 	private volatile int size;
-	private final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+	private Buffer baos = new Buffer();
+	private Buffer best = new Buffer();
 	private float quality = 1f; // 1f = 100% quality, at the beginning
+	private final Strategy strategy;
+	private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private ImageWriter writer = null;
+	private ImageWriteParam params = null;
+	private int attempts = 0;
+	private boolean seeded = false; // quality comes from previous image
+	private long images = 0;
+	private long encodes = 0;
 
 	public AdaptiveSizeWriter(int size) {
+		this(size, Strategy.LINEAR);
+	}
+
+	/**
+	 * @param size the maximum size of image in bytes
+	 * @param strategy the strategy of finding JPEG quality
+	 */
+	public AdaptiveSizeWriter(int size, Strategy strategy) {
+		if (strategy == null) {
+			throw new IllegalArgumentException("Strategy cannot be null");
+		}
 		this.size = size;
+		this.strategy = strategy;
 	}
 
-	public byte[] write(final BufferedImage bi) {
+	public synchronized byte[] write(final BufferedImage bi) {
+
+		attempts = 0;
+
+		switch (strategy) {
+			case BINARY:
+				search(bi);
+				break;
+			default:
+				scan(bi);
+				break;
+		}
+
+		images++;
+		encodes += attempts;
+
+		return Arrays.copyOf(baos.array(), baos.size());
+	}
+
+	private void scan(final BufferedImage bi) {
 
 		// loop and try to compress until compressed image bytes array is not longer than a given
 		// maximum value, reduce quality by 25% in every step
 
 		int m = size;
 		int s = 0;
-		int i = 0;
 		do {
 			if ((s = compress(bi, quality)) > m) {
 				quality *= 0.75;
-				if (i++ >= 20) {
+				if (attempts >= maxAttempts) {
 					break;
 				}
 			}
 		} while (s > m);
+	}
+
+	private void search(final BufferedImage bi) {
+
+		final int m = size;
+		final int enough = (int) (m * (1 - TOLERANCE));
+		final int target = (m + enough) / 2;
+
+		// quality range known to bracket the answer, with sizes at both ends (-1 if not measured)
+
+		float lo = MIN_QUALITY;
+		float hi = 1f;
+		int slo = -1;
+		int shi = -1;
+
+		float fit = -1;
+		float q = seeded ? Math.max(MIN_QUALITY, Math.min(1f, quality)) : (lo + hi) / 2;
+
+		while (true) {
 
-		return baos.toByteArray();
+			int s = compress(bi, q);
+
+			if (s <= m) {
+				fit = q;
+				lo = q;
+				slo = s;
+				keep();
+				if (s >= enough) {
+					break;
+				}
+			} else {
+				hi = q;
+				shi = s;
+			}
+
+			if (hi - lo < PRECISION || attempts >= maxAttempts) {
+				break;
+			}
+
+			q = next(lo, hi, slo, shi, target);
+		}
+
+		if (fit < 0) {
+			// nothing fits, the last attempt was the smallest one
+			quality = q;
+		} else {
+			quality = fit;
+			keep(); // swap back, so the best output is current
+		}
+
+		seeded = true;
+	}
+
+	/**
+	 * Choose next quality to try. When sizes at both ends of the range are known the size is
+	 * interpolated, which usually hits the target in one step. Otherwise quality is scaled by the
+	 * size ratio, but when starting from quality of the previous image by no more than a small step,
+	 * since consecutive frames of video need similar quality. The result is kept away from range
+	 * ends, so range narrows quickly even when size is far from linear in quality.
+	 */
+	private float next(float lo, float hi, int slo, int shi, int target) {
+
+		float guess;
+
+		if (slo >= 0 && shi >= 0) {
+			guess = lo + (hi - lo) * (target - slo) / (float) (shi - slo);
+		} else if (slo >= 0) {
+			guess = lo * target / slo;
+			if (seeded) {
+				guess = Math.min(guess, lo + STEP);
+			}
+		} else {
+			guess = hi * target / shi;
+			if (seeded) {
+				guess = Math.max(guess, hi - STEP);
+			}
+		}
+
+		float margin = Math.max(PRECISION / 2, (hi - lo) / 8);
+		return Math.max(lo + margin, Math.min(hi - margin, guess));
+	}
+
+	/**
+	 * Swap current and best output buffers.
+	 */
+	private void keep() {
+		Buffer tmp = best;
+		best = baos;
+		baos = tmp;
 	}
 
 	/**
@@ -60,18 +247,23 @@ public class AdaptiveSizeWriter {
 
 		baos.reset();
 
-		final JPEGImageWriteParam params = new JPEGImageWriteParam(null);
-		params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		if (writer == null) {
+			writer = ImageIO.getImageWritersByFormatName("jpg").next();
+			params = writer.getDefaultWriteParam();
+			params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		}
+
 		params.setCompressionQuality(quality);
 
 		try (MemoryCacheImageOutputStream mcios = new MemoryCacheImageOutputStream(baos)) {
-			final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
 			writer.setOutput(mcios);
 			writer.write(null, new IIOImage(bi, null, null), params);
 		} catch (IOException e) {
 			throw new IllegalStateException(e);
 		}
 
+		attempts++;
+
 		return baos.size();
 	}
 
@@ -79,10 +271,43 @@ public class AdaptiveSizeWriter {
 		return size;
 	}
 
-	public void setSize(int size) {
+	public synchronized void setSize(int size) {
 		if (this.size != size) {
 			this.size = size;
 			this.quality = INITIAL_QUALITY;
+			this.seeded = false;
+		}
+	}
+
+	public Strategy getStrategy() {
+		return strategy;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * @param maxAttempts the maximum number of encodes per image
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("Number of attempts must be positive");
 		}
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * @return Quality used for the last image
+	 */
+	public synchronized float getQuality() {
+		return quality;
+	}
+
+	/**
+	 * @return Average number of encodes per image
+	 */
+	public synchronized double getAverageAttempts() {
+		return images == 0 ? 0 : encodes / (double) images;
 	}
-}
\ No newline at end of file
+}
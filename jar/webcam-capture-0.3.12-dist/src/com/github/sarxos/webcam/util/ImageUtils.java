@@ -1,7 +1,11 @@
 package com.github.sarxos.webcam.util;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -104,9 +108,57 @@ public class ImageUtils {
 	 * Return image raster as bytes array.
 	 *
 	 * @param bi the {@link BufferedImage}
-	 * @return The raster data as byte array
+	 * @return The raster data as byte array (copy)
 	 */
 	public static byte[] imageToBytes(BufferedImage bi) {
-		return ((DataBufferByte) bi.getData().getDataBuffer()).getData();
+
+		// copy into raster of image size, getData() would copy whole parent of sub-image
+
+		WritableRaster raster = bi.getRaster();
+		WritableRaster copy = raster.createCompatibleWritableRaster();
+		copy.setDataElements(0, 0, raster);
+
+		return ((DataBufferByte) copy.getDataBuffer()).getData();
+	}
+
+	/**
+	 * Return array backing the image raster, without copying. Changes made to the array are
+	 * visible in the image and the other way round. Only images whose pixels are exactly the whole
+	 * array are supported, i.e. not sub-images and not rasters with offset or padding, for the
+	 * other ones use {@link #imageToBytes(BufferedImage)}.
+	 *
+	 * @param bi the {@link BufferedImage}
+	 * @return The array backing the raster, or null if image is not backed by exactly one byte
+	 *         array
+	 */
+	public static byte[] getBackingBytes(BufferedImage bi) {
+
+		WritableRaster raster = bi.getRaster();
+		DataBuffer db = raster.getDataBuffer();
+
+		if (!(db instanceof DataBufferByte) || db.getNumBanks() != 1 || db.getOffset() != 0) {
+			return null;
+		}
+		if (raster.getParent() != null || raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0) {
+			return null;
+		}
+
+		SampleModel sm = raster.getSampleModel();
+		if (!(sm instanceof PixelInterleavedSampleModel)) {
+			return null;
+		}
+
+		PixelInterleavedSampleModel pism = (PixelInterleavedSampleModel) sm;
+		int ps = pism.getPixelStride();
+		if (pism.getScanlineStride() != ps * bi.getWidth()) {
+			return null;
+		}
+
+		byte[] data = ((DataBufferByte) db).getData();
+		if (data.length != ps * bi.getWidth() * bi.getHeight()) {
+			return null;
+		}
+
+		return data;
 	}
 }
@@ -5,12 +5,14 @@ module org.example.dynamic_bus_schedule {
     requires com.fasterxml.jackson.core;
     requires com.fasterxml.jackson.annotation;
     requires java.net.http;
+    requires jdk.httpserver;
     requires javafx.web;
     requires com.fasterxml.jackson.datatype.jsr310;
+    requires com.fasterxml.jackson.module.blackbird;
 
     opens org.example.dynamic_bus_schedule to javafx.fxml;
     opens org.example.dynamic_bus_schedule.controller to javafx.fxml;
-    opens org.example.dynamic_bus_schedule.model to javafx.fxml, com.fasterxml.jackson.databind;
+    opens org.example.dynamic_bus_schedule.model to javafx.fxml, com.fasterxml.jackson.databind, com.fasterxml.jackson.module.blackbird;
     opens org.example.dynamic_bus_schedule.service to javafx.fxml, com.fasterxml.jackson.databind; // ADDED com.fasterxml.jackson.databind here
     opens org.example.dynamic_bus_schedule.util to javafx.fxml;
 
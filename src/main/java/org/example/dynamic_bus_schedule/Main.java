@@ -7,6 +7,7 @@ import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import org.example.dynamic_bus_schedule.controller.LoginController;
+import org.example.dynamic_bus_schedule.service.LocalStore;
 
 import java.io.IOException;
 import java.net.URL;
@@ -18,6 +19,9 @@ public class Main extends Application {
     public void start(Stage stage) throws IOException {
         primaryStage = stage;
 
+        // Read the offline store while the user is logging in
+        LocalStore.open();
+
         // Set stage properties first
         primaryStage.setTitle("Dynamic Bus Schedule System");
         primaryStage.setResizable(true);
@@ -14,9 +14,19 @@ import com.fasterxml.jackson.databind.JsonNode;
 import org.example.dynamic_bus_schedule.Main;
 import org.example.dynamic_bus_schedule.model.User;
 import org.example.dynamic_bus_schedule.service.AuthService;
+import org.example.dynamic_bus_schedule.service.LocalStore;
+import org.example.dynamic_bus_schedule.service.OccupancyService;
+import org.example.dynamic_bus_schedule.util.JsonUtil;
 
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
+import java.util.List;
 
 public class DriverDashboardController {
 
@@ -33,9 +43,12 @@ public class DriverDashboardController {
     @FXML private TableColumn<Schedule, String> timeColumn;
     @FXML private TableColumn<Schedule, String> statusColumn;
 
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private AuthService authService;
+    private LocalStore localStore; // set once the store has loaded, see initialize()
     private User currentUser;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = JsonUtil.getObjectMapper();
     private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm");
 
     // Schedule data class
@@ -67,7 +80,13 @@ public class DriverDashboardController {
         setupTableColumns();
         loadUserProfile();
         loadDriverData();
-        loadTodaysSchedule();
+
+        // The offline store loads in the background; the schedule and seats need it
+        LocalStore.open().thenAccept(store -> javafx.application.Platform.runLater(() -> {
+            localStore = store;
+            loadTodaysSchedule();
+            startOccupancy();
+        }));
 
         System.out.println("DriverDashboardController initialized successfully");
     }
@@ -117,50 +136,109 @@ public class DriverDashboardController {
     private void loadDriverData() {
         // For now, use mock data. You can replace this with API calls later
         assignedBusLabel.setText("BUS-002 (Scania K-series)");
-        todaysTripsLabel.setText("3");
         nextTripLabel.setText("Dhaka to Sylhet - 14:00");
     }
 
     private void loadTodaysSchedule() {
+        if (localStore == null) {
+            return; // still loading; initialize() loads the schedule once it is ready
+        }
+
+        // Render the last-synced schedule straight away, then reconcile with the server
+        if (!localStore.getSchedules().isEmpty()) {
+            showTodaysSchedule(localStore.getSchedules());
+        }
+
         new Thread(() -> {
             try {
-                // Mock data for driver's schedule
-                ObservableList<Schedule> schedules = FXCollections.observableArrayList(
-                        new Schedule("Dhaka to Chittagong", "Dhaka", "Chittagong", "08:00 - 14:00", "🟢 Completed"),
-                        new Schedule("Chittagong to Dhaka", "Chittagong", "Dhaka", "15:00 - 21:00", "🟡 In Progress"),
-                        new Schedule("Dhaka to Sylhet", "Dhaka", "Sylhet", "14:00 - 19:00", "🔵 Upcoming"),
-                        new Schedule("Sylhet to Dhaka", "Sylhet", "Dhaka", "20:00 - 01:00", "⚪ Scheduled")
-                );
-
-                // Update UI on JavaFX Application Thread
-                javafx.application.Platform.runLater(() -> {
-                    if (todaysScheduleTable != null) {
-                        todaysScheduleTable.setItems(schedules);
-                    }
-                });
+                String response = authService.makeApiCall("GET", "/schedules");
+                JsonNode jsonResponse = objectMapper.readTree(response);
+
+                if (jsonResponse.get("success").asBoolean()) {
+                    List<org.example.dynamic_bus_schedule.model.Schedule> schedules =
+                            JsonUtil.listReaderFor(org.example.dynamic_bus_schedule.model.Schedule.class)
+                                    .readValue(jsonResponse.get("data"));
+                    localStore.saveSchedules(schedules);
+
+                    // Update UI on JavaFX Application Thread
+                    javafx.application.Platform.runLater(() -> showTodaysSchedule(schedules));
+                } else {
+                    throw new Exception("API returned error: " + jsonResponse.get("message").asText());
+                }
 
             } catch (Exception e) {
                 e.printStackTrace();
-                // Fallback to mock data if API fails
+                // Keep showing the last-synced schedule
                 javafx.application.Platform.runLater(() -> {
-                    loadMockSchedule();
-                    showErrorAlert("Failed to load schedule: " + e.getMessage());
+                    showTodaysSchedule(localStore.getSchedules());
+                    showErrorAlert(localStore.getSchedules().isEmpty()
+                            ? "Failed to load schedule: " + e.getMessage()
+                            : "Server unreachable - showing the schedule from the last sync.");
                 });
             }
         }).start();
     }
 
-    private void loadMockSchedule() {
-        ObservableList<Schedule> schedules = FXCollections.observableArrayList(
-                new Schedule("Dhaka to Chittagong", "Dhaka", "Chittagong", "08:00 - 14:00", "🟢 Completed"),
-                new Schedule("Chittagong to Dhaka", "Chittagong", "Dhaka", "15:00 - 21:00", "🟡 In Progress"),
-                new Schedule("Dhaka to Sylhet", "Dhaka", "Sylhet", "14:00 - 19:00", "🔵 Upcoming"),
-                new Schedule("Sylhet to Dhaka", "Sylhet", "Dhaka", "20:00 - 01:00", "⚪ Scheduled")
-        );
+    // Seats of the running trip follow the onboard passenger counter while the dashboard is open
+    private void startOccupancy() {
+        OccupancyService occupancy = OccupancyService.getInstance();
+        occupancy.start(OccupancyService.DEFAULT_FLUSH_PERIOD_MS);
+        try {
+            occupancy.listen(OccupancyService.getReportPort());
+        } catch (Exception e) {
+            e.printStackTrace();
+            showErrorAlert("Passenger counter unavailable: " + e.getMessage());
+        }
+    }
+
+    private void showTodaysSchedule(List<org.example.dynamic_bus_schedule.model.Schedule> source) {
+        LocalDate today = LocalDate.now();
+        ObservableList<Schedule> schedules = FXCollections.observableArrayList();
+        for (org.example.dynamic_bus_schedule.model.Schedule schedule : source) {
+            LocalDateTime departure = parseTime(schedule.getDepartureTime());
+            if (departure == null || !departure.toLocalDate().equals(today)) {
+                continue;
+            }
+            LocalDateTime arrival = parseTime(schedule.getArrivalTime());
+            String from = schedule.getRoute() != null ? schedule.getRoute().getFrom() : "N/A";
+            String to = schedule.getRoute() != null ? schedule.getRoute().getTo() : "N/A";
+            String time = departure.format(TIME_FORMAT) + " - " + (arrival != null ? arrival.format(TIME_FORMAT) : "--:--");
+            schedules.add(new Schedule(from + " to " + to, from, to, time, statusLabel(schedule.getStatus())));
+        }
 
         if (todaysScheduleTable != null) {
             todaysScheduleTable.setItems(schedules);
         }
+        todaysTripsLabel.setText(String.valueOf(schedules.size()));
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                // MySQL DATETIME columns come back as UTC instants
+                return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static String statusLabel(String status) {
+        if (status == null) {
+            return "⚪ Scheduled";
+        }
+        switch (status) {
+            case "departed": return "🟡 In Progress";
+            case "arrived": return "🟢 Completed";
+            case "delayed": return "🟠 Delayed";
+            case "cancelled": return "🔴 Cancelled";
+            default: return "⚪ Scheduled";
+        }
     }
 
     @FXML
@@ -199,6 +277,7 @@ public class DriverDashboardController {
     private void handleLogout() {
         System.out.println("Logging out...");
         try {
+            OccupancyService.resetInstance();
             authService.logout();
             AuthService.resetInstance();
             Main.showLoginScene();
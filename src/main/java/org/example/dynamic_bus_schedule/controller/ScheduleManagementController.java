@@ -2,13 +2,15 @@ package org.example.dynamic_bus_schedule.controller;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import org.example.dynamic_bus_schedule.Main;
 import org.example.dynamic_bus_schedule.model.Bus;
 import org.example.dynamic_bus_schedule.model.Schedule;
+import org.example.dynamic_bus_schedule.model.ScheduleTable;
 import org.example.dynamic_bus_schedule.model.User;
 import org.example.dynamic_bus_schedule.service.BusService;
 import org.example.dynamic_bus_schedule.service.ScheduleService;
@@ -21,14 +23,14 @@ import java.util.Map;
 
 public class ScheduleManagementController {
 
-    @FXML private TableView<Schedule> scheduleTable;
-    @FXML private TableColumn<Schedule, String> routeColumn;
-    @FXML private TableColumn<Schedule, String> busColumn;
-    @FXML private TableColumn<Schedule, String> departureColumn;
-    @FXML private TableColumn<Schedule, String> arrivalColumn;
-    @FXML private TableColumn<Schedule, Double> priceColumn;
-    @FXML private TableColumn<Schedule, Integer> seatsColumn;
-    @FXML private TableColumn<Schedule, String> statusColumn;
+    @FXML private TableView<ScheduleTable.Row> scheduleTable;
+    @FXML private TableColumn<ScheduleTable.Row, String> routeColumn;
+    @FXML private TableColumn<ScheduleTable.Row, String> busColumn;
+    @FXML private TableColumn<ScheduleTable.Row, String> departureColumn;
+    @FXML private TableColumn<ScheduleTable.Row, String> arrivalColumn;
+    @FXML private TableColumn<ScheduleTable.Row, Double> priceColumn;
+    @FXML private TableColumn<ScheduleTable.Row, Integer> seatsColumn;
+    @FXML private TableColumn<ScheduleTable.Row, String> statusColumn;
 
     @FXML private TextField searchFromField;
     @FXML private TextField searchToField;
@@ -54,11 +56,12 @@ public class ScheduleManagementController {
     @FXML private Button backButton;
     @FXML private Button searchButton;
 
-    private ObservableList<Schedule> scheduleList;
+    private ScheduleTable scheduleData;
     private ObservableList<Bus> busList;
     private ObservableList<User> driverList;
     private ScheduleService scheduleService;
     private BusService busService;
+    private ScheduleTable.Row selectedRow;
     private Schedule selectedSchedule;
 
     @FXML
@@ -66,7 +69,7 @@ public class ScheduleManagementController {
         scheduleService = new ScheduleService();
         busService = new BusService();
 
-        scheduleList = FXCollections.observableArrayList();
+        scheduleData = new ScheduleTable();
         busList = FXCollections.observableArrayList();
         driverList = FXCollections.observableArrayList();
 
@@ -78,36 +81,35 @@ public class ScheduleManagementController {
         loadDrivers();
 
         scheduleTable.getSelectionModel().selectedItemProperty().addListener(
-                (observable, oldValue, newValue) -> selectSchedule(newValue)
+                (observable, oldValue, newValue) -> selectRow(newValue)
         );
     }
 
     private void setupTable() {
-        routeColumn.setCellValueFactory(cellData -> {
-            Schedule schedule = cellData.getValue();
-            return new javafx.beans.property.SimpleStringProperty(schedule.getRouteDisplay());
-        });
-
-        busColumn.setCellValueFactory(cellData -> {
-            Bus bus = cellData.getValue().getBus();
-            return new javafx.beans.property.SimpleStringProperty(
-                    bus != null ? bus.getBusNumber() : "N/A"
-            );
-        });
-
+        // Cells read straight from the columnar store; no PropertyValueFactory reflection per cell
+        routeColumn.setCellValueFactory(cellData ->
+                new ReadOnlyStringWrapper(cellData.getValue().getRouteDisplay()));
+        busColumn.setCellValueFactory(cellData ->
+                new ReadOnlyStringWrapper(cellData.getValue().getBusNumber()));
         departureColumn.setCellValueFactory(cellData ->
-                new javafx.beans.property.SimpleStringProperty(cellData.getValue().getFormattedDepartureTime())
-        );
-
+                new ReadOnlyStringWrapper(cellData.getValue().getFormattedDepartureTime()));
         arrivalColumn.setCellValueFactory(cellData ->
-                new javafx.beans.property.SimpleStringProperty(cellData.getValue().getFormattedArrivalTime())
-        );
-
-        priceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
-        seatsColumn.setCellValueFactory(new PropertyValueFactory<>("availableSeats"));
-        statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
+                new ReadOnlyStringWrapper(cellData.getValue().getFormattedArrivalTime()));
+        priceColumn.setCellValueFactory(cellData ->
+                new ReadOnlyObjectWrapper<>(cellData.getValue().getPrice()));
+        seatsColumn.setCellValueFactory(cellData ->
+                new ReadOnlyObjectWrapper<>(cellData.getValue().getAvailableSeats()));
+        statusColumn.setCellValueFactory(cellData ->
+                new ReadOnlyStringWrapper(cellData.getValue().getStatus()));
+
+        refreshRows();
+    }
 
-        scheduleTable.setItems(scheduleList);
+    // Row views are index-based, so structural changes re-publish the list to the table
+    // and re-apply the column sort the user picked
+    private void refreshRows() {
+        scheduleTable.setItems(FXCollections.observableList(scheduleData.rows()));
+        scheduleTable.sort();
     }
 
     private void setupFilters() {
@@ -150,7 +152,8 @@ public class ScheduleManagementController {
             }
 
             List<Schedule> schedules = scheduleService.getAllSchedules(filters);
-            scheduleList.setAll(schedules);
+            scheduleData.setAll(schedules);
+            refreshRows();
         } catch (Exception e) {
             showError("Failed to load schedules: " + e.getMessage());
             e.printStackTrace();
@@ -177,8 +180,13 @@ public class ScheduleManagementController {
         driverList.addAll(driver1, driver2);
     }
 
+    private void selectRow(ScheduleTable.Row row) {
+        this.selectedRow = row;
+        this.selectedSchedule = row != null ? row.toSchedule() : null;
+        selectSchedule(selectedSchedule);
+    }
+
     private void selectSchedule(Schedule schedule) {
-        this.selectedSchedule = schedule;
         if (schedule != null) {
             // Populate form with schedule data
             fromField.setText(schedule.getRoute().getFrom());
@@ -226,7 +234,8 @@ public class ScheduleManagementController {
         try {
             String date = searchDateField.getValue().format(DateTimeFormatter.ISO_DATE);
             List<Schedule> schedules = scheduleService.searchSchedules(from, to, date);
-            scheduleList.setAll(schedules);
+            scheduleData.setAll(schedules);
+            refreshRows();
         } catch (Exception e) {
             showError("Search failed: " + e.getMessage());
             e.printStackTrace();
@@ -265,7 +274,8 @@ public class ScheduleManagementController {
             newSchedule.setStatus("scheduled");
 
             Schedule createdSchedule = scheduleService.createSchedule(newSchedule);
-            scheduleList.add(createdSchedule);
+            scheduleData.add(createdSchedule);
+            refreshRows();
             clearForm();
             showSuccess("Schedule added successfully!");
         } catch (Exception e) {
@@ -331,8 +341,7 @@ public class ScheduleManagementController {
                         selectedSchedule.getId(), status, reason, duration
                 );
 
-                int index = scheduleList.indexOf(selectedSchedule);
-                scheduleList.set(index, updatedSchedule);
+                scheduleData.setStatus(selectedRow.getIndex(), updatedSchedule.getStatus());
                 scheduleTable.refresh();
                 showSuccess("Schedule status updated successfully!");
             } catch (Exception e) {
@@ -356,8 +365,9 @@ public class ScheduleManagementController {
                 try {
                     boolean success = scheduleService.deleteSchedule(selectedSchedule.getId());
                     if (success) {
-                        scheduleList.remove(selectedSchedule);
+                        scheduleData.remove(selectedRow.getIndex());
                         clearForm();
+                        refreshRows();
                         showSuccess("Schedule deleted successfully!");
                     }
                 } catch (Exception e) {
@@ -395,6 +405,7 @@ public class ScheduleManagementController {
         updateStatusButton.setDisable(true);
         deleteButton.setDisable(true);
         addButton.setDisable(false);
+        selectedRow = null;
         selectedSchedule = null;
     }
 
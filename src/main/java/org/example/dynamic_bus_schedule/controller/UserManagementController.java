@@ -12,9 +12,15 @@ import com.fasterxml.jackson.databind.JsonNode;
 import javafx.scene.layout.GridPane;
 import org.example.dynamic_bus_schedule.Main;
 import org.example.dynamic_bus_schedule.service.AuthService;
+import org.example.dynamic_bus_schedule.service.LocalStore;
+import org.example.dynamic_bus_schedule.util.JsonUtil;
 
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 public class UserManagementController {
 
@@ -39,7 +45,8 @@ public class UserManagementController {
     @FXML private Button refreshButton;
 
     private AuthService authService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private LocalStore localStore; // set once the store has loaded, see initialize()
+    private final ObjectMapper objectMapper = JsonUtil.getObjectMapper();
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy");
     private ObservableList<User> allUsers = FXCollections.observableArrayList();
 
@@ -75,7 +82,12 @@ public class UserManagementController {
         setupTableColumns();
         loadUserProfile();
         setupFilters();
-        loadUsersData();
+
+        // The offline store loads in the background; the cached users come from it
+        LocalStore.open().thenAccept(store -> javafx.application.Platform.runLater(() -> {
+            localStore = store;
+            loadUsersData();
+        }));
 
         System.out.println("UserManagementController initialized successfully");
     }
@@ -139,40 +151,37 @@ public class UserManagementController {
     }
 
     private void loadUsersData() {
+        if (localStore == null) {
+            return; // still loading; initialize() loads the users once it is ready
+        }
+
+        // Render the last-synced users straight away, then reconcile with the server
+        List<org.example.dynamic_bus_schedule.model.User> cached = localStore.getUsers();
+        if (!cached.isEmpty()) {
+            showUsers(cached);
+        }
+
         new Thread(() -> {
             try {
                 System.out.println("Loading users data from API...");
 
+                int replayed = localStore.replayPendingWrites(authService);
+                if (replayed > 0) {
+                    System.out.println("Synced " + replayed + " offline user changes");
+                }
+
                 // Make API call to get all users
                 String response = authService.makeApiCall("GET", "/users");
                 JsonNode jsonResponse = objectMapper.readTree(response);
 
                 if (jsonResponse.get("success").asBoolean()) {
-                    JsonNode usersData = jsonResponse.get("data");
-                    ObservableList<User> users = FXCollections.observableArrayList();
-
-                    for (JsonNode userNode : usersData) {
-                        try {
-                            int id = userNode.get("id").asInt();
-                            String name = userNode.get("name").asText();
-                            String email = userNode.get("email").asText();
-                            String phone = userNode.has("phone") ? userNode.get("phone").asText() : "N/A";
-                            String role = userNode.get("role").asText();
-                            String createdAt = formatDate(userNode.get("created_at").asText());
-
-                            users.add(new User(id, name, email, phone, role, createdAt));
-                        } catch (Exception e) {
-                            System.err.println("Error parsing user data: " + e.getMessage());
-                        }
-                    }
+                    List<org.example.dynamic_bus_schedule.model.User> users =
+                            JsonUtil.listReaderFor(org.example.dynamic_bus_schedule.model.User.class)
+                                    .readValue(jsonResponse.get("data"));
+                    localStore.saveUsers(users);
 
                     // Update UI on JavaFX Application Thread
-                    javafx.application.Platform.runLater(() -> {
-                        allUsers = users;
-                        usersTable.setItems(allUsers);
-                        updateUserStats();
-                        applyFilters(); // Apply any active filters
-                    });
+                    javafx.application.Platform.runLater(() -> showUsers(users));
 
                     System.out.println("Successfully loaded " + users.size() + " users from API");
 
@@ -182,15 +191,42 @@ public class UserManagementController {
 
             } catch (Exception e) {
                 e.printStackTrace();
-                // Fallback to mock data if API fails
+                // Keep showing the last-synced users
                 javafx.application.Platform.runLater(() -> {
-                    loadMockUsersData();
-                    showErrorAlert("Failed to load users data: " + e.getMessage());
+                    showUsers(localStore.getUsers());
+                    showErrorAlert(localStore.getUsers().isEmpty()
+                            ? "Failed to load users data: " + e.getMessage()
+                            : "Server unreachable - showing users from the last sync.\n" + e.getMessage());
                 });
             }
         }).start();
     }
 
+    private void showUsers(List<org.example.dynamic_bus_schedule.model.User> source) {
+        ObservableList<User> users = FXCollections.observableArrayList();
+        for (org.example.dynamic_bus_schedule.model.User user : source) {
+            users.add(new User((int) user.getId(), user.getName(), user.getEmail(),
+                    user.getPhone() != null ? user.getPhone() : "N/A", user.getRole(),
+                    user.getCreatedAt() != null ? formatDate(user.getCreatedAt()) : "N/A"));
+        }
+
+        allUsers = users;
+        usersTable.setItems(allUsers);
+        updateUserStats();
+        applyFilters(); // Apply any active filters
+    }
+
+    /**
+     * Queues a write that couldn't reach the server; it is replayed on the next refresh.
+     */
+    private void queueOfflineWrite(String method, String endpoint, String requestBody, String action) {
+        // Runs on the request thread, so waiting for a store that is still loading is fine
+        LocalStore.getInstance().queueWrite(method, endpoint, requestBody);
+        javafx.application.Platform.runLater(() ->
+                showInfoAlert("Saved Offline", "Server unreachable. The " + action
+                        + " will be sent automatically when the connection is back."));
+    }
+
     private String formatDate(String dateString) {
         try {
             if (dateString.contains("T")) {
@@ -207,20 +243,6 @@ public class UserManagementController {
         }
     }
 
-    private void loadMockUsersData() {
-        ObservableList<User> users = FXCollections.observableArrayList(
-                new User(1, "System Admin", "admin@bus.com", "+1234567890", "Admin", "Jan 01, 2024"),
-                new User(2, "John Driver", "driver.john@bus.com", "+8801712345678", "Driver", "Jan 15, 2024"),
-                new User(3, "Sarah Client", "sarah.client@bus.com", "+8801812345678", "Client", "Jan 16, 2024"),
-                new User(4, "Mike Operator", "mike.driver@bus.com", "+8801912345678", "Driver", "Jan 17, 2024"),
-                new User(5, "Emma Traveler", "emma.client@bus.com", "+8801612345678", "Client", "Jan 18, 2024")
-        );
-
-        allUsers = users;
-        usersTable.setItems(allUsers);
-        updateUserStats();
-    }
-
     private void applyFilters() {
         String searchText = searchField.getText().toLowerCase();
         String roleFilterValue = roleFilter.getValue();
@@ -344,13 +366,13 @@ public class UserManagementController {
 
     private void createNewUser(User newUser) {
         new Thread(() -> {
-            try {
-                String requestBody = String.format(
-                        "{\"name\":\"%s\",\"email\":\"%s\",\"password\":\"%s\",\"phone\":\"%s\",\"role\":\"%s\"}",
-                        newUser.getName(), newUser.getEmail(), "password123", // In real app, use actual password
-                        newUser.getPhone(), newUser.getRole().toLowerCase()
-                );
+            String requestBody = String.format(
+                    "{\"name\":\"%s\",\"email\":\"%s\",\"password\":\"%s\",\"phone\":\"%s\",\"role\":\"%s\"}",
+                    newUser.getName(), newUser.getEmail(), "password123", // In real app, use actual password
+                    newUser.getPhone(), newUser.getRole().toLowerCase()
+            );
 
+            try {
                 String response = authService.makeApiCall("POST", "/auth/register", requestBody);
                 JsonNode jsonResponse = objectMapper.readTree(response);
 
@@ -363,6 +385,8 @@ public class UserManagementController {
                     throw new Exception("API error: " + jsonResponse.get("message").asText());
                 }
 
+            } catch (ConnectException | UnknownHostException | SocketTimeoutException e) {
+                queueOfflineWrite("POST", "/auth/register", requestBody, "new user");
             } catch (Exception e) {
                 e.printStackTrace();
                 javafx.application.Platform.runLater(() -> {
@@ -428,13 +452,13 @@ public class UserManagementController {
 
     private void updateUser(User oldUser, User updatedUser) {
         new Thread(() -> {
-            try {
-                String requestBody = String.format(
-                        "{\"name\":\"%s\",\"email\":\"%s\",\"phone\":\"%s\",\"role\":\"%s\"}",
-                        updatedUser.getName(), updatedUser.getEmail(),
-                        updatedUser.getPhone(), updatedUser.getRole().toLowerCase()
-                );
+            String requestBody = String.format(
+                    "{\"name\":\"%s\",\"email\":\"%s\",\"phone\":\"%s\",\"role\":\"%s\"}",
+                    updatedUser.getName(), updatedUser.getEmail(),
+                    updatedUser.getPhone(), updatedUser.getRole().toLowerCase()
+            );
 
+            try {
                 String response = authService.makeApiCall("PUT", "/users/" + oldUser.getId(), requestBody);
                 JsonNode jsonResponse = objectMapper.readTree(response);
 
@@ -447,6 +471,8 @@ public class UserManagementController {
                     throw new Exception("API error: " + jsonResponse.get("message").asText());
                 }
 
+            } catch (ConnectException | UnknownHostException | SocketTimeoutException e) {
+                queueOfflineWrite("PUT", "/users/" + oldUser.getId(), requestBody, "user update");
             } catch (Exception e) {
                 e.printStackTrace();
                 javafx.application.Platform.runLater(() -> {
@@ -492,6 +518,8 @@ public class UserManagementController {
                     throw new Exception("API error: " + jsonResponse.get("message").asText());
                 }
 
+            } catch (ConnectException | UnknownHostException | SocketTimeoutException e) {
+                queueOfflineWrite("DELETE", "/users/" + user.getId(), null, "user deletion");
             } catch (Exception e) {
                 e.printStackTrace();
                 javafx.application.Platform.runLater(() -> {
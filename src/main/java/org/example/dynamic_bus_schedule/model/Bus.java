@@ -1,5 +1,7 @@
 package org.example.dynamic_bus_schedule.model;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+
 import java.util.List;
 import java.util.Arrays;
 
@@ -29,10 +31,10 @@ public class Bus {
         this.licensePlate = licensePlate;
         this.model = model;
         this.capacity = capacity;
-        this.type = type;
-        this.fuelType = fuelType;
+        this.type = FieldDictionary.BUS_TYPE.canonical(type);
+        this.fuelType = FieldDictionary.FUEL_TYPE.canonical(fuelType);
         this.year = year;
-        this.status = status;
+        this.status = FieldDictionary.BUS_STATUS.canonical(status);
         this.amenities = amenities;
         this.driverName = driverName;
     }
@@ -42,9 +44,11 @@ public class Bus {
     public void setId(long id) { this.id = id; }  // Changed to long
 
     public String getBusNumber() { return busNumber; }
+    @JsonAlias("bus_number")
     public void setBusNumber(String busNumber) { this.busNumber = busNumber; }
 
     public String getLicensePlate() { return licensePlate; }
+    @JsonAlias("license_plate")
     public void setLicensePlate(String licensePlate) { this.licensePlate = licensePlate; }
 
     public String getModel() { return model; }
@@ -54,21 +58,22 @@ public class Bus {
     public void setCapacity(int capacity) { this.capacity = capacity; }
 
     public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
+    public void setType(String type) { this.type = FieldDictionary.BUS_TYPE.canonical(type); }
 
     public String getFuelType() { return fuelType; }
-    public void setFuelType(String fuelType) { this.fuelType = fuelType; }
+    public void setFuelType(String fuelType) { this.fuelType = FieldDictionary.FUEL_TYPE.canonical(fuelType); }
 
     public int getYear() { return year; }
     public void setYear(int year) { this.year = year; }
 
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) { this.status = FieldDictionary.BUS_STATUS.canonical(status); }
 
     public List<String> getAmenities() { return amenities; }
     public void setAmenities(List<String> amenities) { this.amenities = amenities; }
 
     public String getDriverName() { return driverName; }
+    @JsonAlias("driver_name")
     public void setDriverName(String driverName) { this.driverName = driverName; }
 
     @Override
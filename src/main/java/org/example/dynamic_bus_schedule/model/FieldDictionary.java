@@ -0,0 +1,179 @@
+package org.example.dynamic_bus_schedule.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonical instances for low-cardinality model fields (statuses, roles,
+ * types, frequencies, route cities). Setters and the JSON decoder route values
+ * through the matching dictionary, so every "active" or "Dhaka" in memory is the
+ * same String. Only exact spellings are shared: "Active" and "active" stay
+ * distinct, so values round-trip unchanged. Callers still compare with
+ * {@code equals}, which is an identity check for shared instances and stays
+ * correct for values past the bound.
+ *
+ * Lookups are lock-free; inserts copy the table. Each dictionary is bounded so
+ * free-text values can't grow it without limit; values past the bound are
+ * returned as-is.
+ */
+public final class FieldDictionary {
+    public static final FieldDictionary BUS_STATUS = new FieldDictionary(64, "active", "maintenance", "inactive");
+    public static final FieldDictionary BUS_TYPE = new FieldDictionary(64, "Standard", "Luxury", "Express", "Sleeper");
+    public static final FieldDictionary FUEL_TYPE = new FieldDictionary(64, "diesel", "petrol", "hybrid", "electric", "cng");
+    public static final FieldDictionary USER_ROLE = new FieldDictionary(64, "admin", "driver", "client");
+    public static final FieldDictionary USER_STATUS = new FieldDictionary(64, "active", "inactive");
+    public static final FieldDictionary SCHEDULE_STATUS = new FieldDictionary(64,
+            "scheduled", "departed", "arrived", "cancelled", "delayed");
+    public static final FieldDictionary FREQUENCY = new FieldDictionary(64, "once", "daily", "weekly", "monthly");
+    public static final FieldDictionary CITY = new FieldDictionary(4096);
+
+    private static final Map<String, FieldDictionary> BY_PROPERTY = new HashMap<>();
+
+    static {
+        BY_PROPERTY.put(key(Bus.class, "status"), BUS_STATUS);
+        BY_PROPERTY.put(key(Bus.class, "type"), BUS_TYPE);
+        BY_PROPERTY.put(key(Bus.class, "fuelType"), FUEL_TYPE);
+        BY_PROPERTY.put(key(User.class, "role"), USER_ROLE);
+        BY_PROPERTY.put(key(User.class, "status"), USER_STATUS);
+        BY_PROPERTY.put(key(Schedule.class, "status"), SCHEDULE_STATUS);
+        BY_PROPERTY.put(key(Schedule.class, "frequency"), FREQUENCY);
+        BY_PROPERTY.put(key(Schedule.Route.class, "from"), CITY);
+        BY_PROPERTY.put(key(Schedule.Route.class, "to"), CITY);
+    }
+
+    private final int maxSize;
+    private final Object lock = new Object();
+    private volatile String[] table;
+    private int size;
+
+    /**
+     * @param maxSize upper bound on distinct values kept
+     * @param seeds values that are canonical from the start
+     */
+    public FieldDictionary(int maxSize, String... seeds) {
+        this.maxSize = maxSize;
+        this.table = new String[tableSizeFor(Math.max(seeds.length, 8))];
+        for (String seed : seeds) {
+            canonical(seed);
+        }
+    }
+
+    /**
+     * Returns the dictionary for a model property, or null when the property isn't dictionary-encoded.
+     */
+    public static FieldDictionary forProperty(Class<?> owner, String property) {
+        return BY_PROPERTY.get(key(owner, property));
+    }
+
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String found = find(value);
+        return found != null ? found : insert(value);
+    }
+
+    /**
+     * Looks up a value straight from a character buffer, e.g. the parser's
+     * text buffer, without allocating a String. Returns null when absent.
+     */
+    public String find(char[] chars, int offset, int length) {
+        String[] t = table;
+        int mask = t.length - 1;
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chars[offset + i];
+        }
+        for (int slot = spread(h) & mask; ; slot = (slot + 1) & mask) {
+            String candidate = t[slot];
+            if (candidate == null) {
+                return null;
+            }
+            if (candidate.length() == length && matches(candidate, chars, offset)) {
+                return candidate;
+            }
+        }
+    }
+
+    public String find(String value) {
+        String[] t = table;
+        int mask = t.length - 1;
+        for (int slot = spread(hash(value)) & mask; ; slot = (slot + 1) & mask) {
+            String candidate = t[slot];
+            if (candidate == null) {
+                return null;
+            }
+            if (candidate.equals(value)) {
+                return candidate;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private String insert(String value) {
+        synchronized (lock) {
+            String found = find(value);
+            if (found != null) {
+                return found;
+            }
+            if (size >= maxSize) {
+                return value;
+            }
+
+            String[] current = table;
+            int capacity = (size + 1) * 2 > current.length ? current.length * 2 : current.length;
+            String[] next = new String[capacity];
+            for (String existing : current) {
+                if (existing != null) {
+                    place(next, existing);
+                }
+            }
+            place(next, value);
+            size++;
+            table = next;
+            return value;
+        }
+    }
+
+    private void place(String[] t, String value) {
+        int mask = t.length - 1;
+        int slot = spread(hash(value)) & mask;
+        while (t[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        t[slot] = value;
+    }
+
+    private boolean matches(String candidate, char[] chars, int offset) {
+        for (int i = 0; i < candidate.length(); i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same as String.hashCode(), computed the same way over char buffers in find()
+    private static int hash(String value) {
+        return value.hashCode();
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int entries) {
+        int capacity = 1;
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static String key(Class<?> owner, String property) {
+        return owner.getName() + '#' + property;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.dynamic_bus_schedule.model;
+
+/**
+ * An API write made while the backend was unreachable, kept until it can be replayed.
+ */
+public class PendingWrite {
+    private long sequence;
+    private String method;
+    private String endpoint;
+    private String body;
+    private long queuedAt;
+
+    public PendingWrite() {}
+
+    public PendingWrite(long sequence, String method, String endpoint, String body, long queuedAt) {
+        this.sequence = sequence;
+        this.method = method;
+        this.endpoint = endpoint;
+        this.body = body;
+        this.queuedAt = queuedAt;
+    }
+
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    public String getMethod() { return method; }
+    public void setMethod(String method) { this.method = method; }
+
+    public String getEndpoint() { return endpoint; }
+    public void setEndpoint(String endpoint) { this.endpoint = endpoint; }
+
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+
+    public long getQueuedAt() { return queuedAt; }
+    public void setQueuedAt(long queuedAt) { this.queuedAt = queuedAt; }
+
+    @Override
+    public String toString() {
+        return method + " " + endpoint + " (#" + sequence + ")";
+    }
+}
@@ -1,5 +1,8 @@
 package org.example.dynamic_bus_schedule.model;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonSetter;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -23,15 +26,15 @@ public class Schedule {
         public Route() {}
 
         public Route(String from, String to) {
-            this.from = from;
-            this.to = to;
+            this.from = FieldDictionary.CITY.canonical(from);
+            this.to = FieldDictionary.CITY.canonical(to);
         }
 
         public String getFrom() { return from; }
-        public void setFrom(String from) { this.from = from; }
+        public void setFrom(String from) { this.from = FieldDictionary.CITY.canonical(from); }
 
         public String getTo() { return to; }
-        public void setTo(String to) { this.to = to; }
+        public void setTo(String to) { this.to = FieldDictionary.CITY.canonical(to); }
     }
 
     // Constructors
@@ -47,10 +50,10 @@ public class Schedule {
         this.route = route;
         this.departureTime = departureTime;
         this.arrivalTime = arrivalTime;
-        this.frequency = frequency;
+        this.frequency = FieldDictionary.FREQUENCY.canonical(frequency);
         this.price = price;
         this.availableSeats = availableSeats;
-        this.status = status;
+        this.status = FieldDictionary.SCHEDULE_STATUS.canonical(status);
     }
 
     // Getters and setters
@@ -60,29 +63,64 @@ public class Schedule {
     public Bus getBus() { return bus; }
     public void setBus(Bus bus) { this.bus = bus; }
 
+    // The backend sends the bus as flat columns joined from the buses table
+    @JsonSetter("bus_id")
+    public void setBusId(long busId) {
+        if (bus == null) bus = new Bus();
+        bus.setId(busId);
+    }
+
+    @JsonSetter("bus_number")
+    public void setBusNumber(String busNumber) {
+        if (bus == null) bus = new Bus();
+        bus.setBusNumber(busNumber);
+    }
+
+    @JsonSetter("capacity")
+    public void setBusCapacity(int capacity) {
+        if (bus == null) bus = new Bus();
+        bus.setCapacity(capacity);
+    }
+
     public User getDriver() { return driver; }
     public void setDriver(User driver) { this.driver = driver; }
 
     public Route getRoute() { return route; }
     public void setRoute(Route route) { this.route = route; }
 
+    // The backend sends the route as flat columns
+    @JsonSetter("departure_location")
+    public void setDepartureLocation(String from) {
+        if (route == null) route = new Route();
+        route.setFrom(from);
+    }
+
+    @JsonSetter("arrival_location")
+    public void setArrivalLocation(String to) {
+        if (route == null) route = new Route();
+        route.setTo(to);
+    }
+
     public String getDepartureTime() { return departureTime; }
+    @JsonAlias("departure_time")
     public void setDepartureTime(String departureTime) { this.departureTime = departureTime; }
 
     public String getArrivalTime() { return arrivalTime; }
+    @JsonAlias("arrival_time")
     public void setArrivalTime(String arrivalTime) { this.arrivalTime = arrivalTime; }
 
     public String getFrequency() { return frequency; }
-    public void setFrequency(String frequency) { this.frequency = frequency; }
+    public void setFrequency(String frequency) { this.frequency = FieldDictionary.FREQUENCY.canonical(frequency); }
 
     public double getPrice() { return price; }
     public void setPrice(double price) { this.price = price; }
 
     public int getAvailableSeats() { return availableSeats; }
+    @JsonAlias("available_seats")
     public void setAvailableSeats(int availableSeats) { this.availableSeats = availableSeats; }
 
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) { this.status = FieldDictionary.SCHEDULE_STATUS.canonical(status); }
 
     // Helper methods for formatted display
     public String getFormattedDepartureTime() {
@@ -0,0 +1,416 @@
+package org.example.dynamic_bus_schedule.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Column-oriented store for large schedule lists. Each field lives in its own
+ * primitive array and repeating values (status, frequency, route cities, buses,
+ * drivers) are dictionary-encoded, so a row costs a few dozen bytes instead of
+ * a Schedule with its Route and String graph. Rows are exposed as lightweight
+ * index views that the table reads without reflection.
+ */
+public class ScheduleTable {
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+    private static final DateTimeFormatter ISO_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private int size;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] departureTimes = new long[INITIAL_CAPACITY];
+    private long[] arrivalTimes = new long[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] seats = new int[INITIAL_CAPACITY];
+    private int[] statuses = new int[INITIAL_CAPACITY];
+    private int[] frequencies = new int[INITIAL_CAPACITY];
+    private int[] routeFrom = new int[INITIAL_CAPACITY];
+    private int[] routeTo = new int[INITIAL_CAPACITY];
+    private int[] buses = new int[INITIAL_CAPACITY];
+    private int[] drivers = new int[INITIAL_CAPACITY];
+
+    private final Dictionary<String> statusDictionary = new Dictionary<>();
+    private final Dictionary<String> frequencyDictionary = new Dictionary<>();
+    private final Dictionary<String> cityDictionary = new Dictionary<>();
+    private final Dictionary<Bus> busDictionary = new Dictionary<>();
+    private final Dictionary<User> driverDictionary = new Dictionary<>();
+
+    // Times that don't parse as an ISO date-time are kept verbatim, keyed by row
+    private final Map<Integer, String> rawDepartureTimes = new HashMap<>();
+    private final Map<Integer, String> rawArrivalTimes = new HashMap<>();
+
+    private final RowList rows = new RowList();
+
+    public int size() {
+        return size;
+    }
+
+    public List<Row> rows() {
+        return rows;
+    }
+
+    public Row row(int index) {
+        checkIndex(index);
+        return new Row(index);
+    }
+
+    public void setAll(List<Schedule> schedules) {
+        clear();
+        ensureCapacity(schedules.size());
+        for (Schedule schedule : schedules) {
+            add(schedule);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        rows.resetOrder();
+        rawDepartureTimes.clear();
+        rawArrivalTimes.clear();
+        statusDictionary.clear();
+        frequencyDictionary.clear();
+        cityDictionary.clear();
+        busDictionary.clear();
+        driverDictionary.clear();
+    }
+
+    public void add(Schedule schedule) {
+        ensureCapacity(size + 1);
+        write(size++, schedule);
+        rows.resetOrder();
+    }
+
+    public void set(int index, Schedule schedule) {
+        checkIndex(index);
+        write(index, schedule);
+    }
+
+    public void remove(int index) {
+        checkIndex(index);
+        int tail = size - index - 1;
+        if (tail > 0) {
+            System.arraycopy(ids, index + 1, ids, index, tail);
+            System.arraycopy(departureTimes, index + 1, departureTimes, index, tail);
+            System.arraycopy(arrivalTimes, index + 1, arrivalTimes, index, tail);
+            System.arraycopy(prices, index + 1, prices, index, tail);
+            System.arraycopy(seats, index + 1, seats, index, tail);
+            System.arraycopy(statuses, index + 1, statuses, index, tail);
+            System.arraycopy(frequencies, index + 1, frequencies, index, tail);
+            System.arraycopy(routeFrom, index + 1, routeFrom, index, tail);
+            System.arraycopy(routeTo, index + 1, routeTo, index, tail);
+            System.arraycopy(buses, index + 1, buses, index, tail);
+            System.arraycopy(drivers, index + 1, drivers, index, tail);
+        }
+        shiftRawTimes(rawDepartureTimes, index);
+        shiftRawTimes(rawArrivalTimes, index);
+        size--;
+        rows.resetOrder();
+    }
+
+    public int indexOfId(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Column accessors
+
+    public long getId(int index) { return ids[index]; }
+
+    public long getDepartureEpochSecond(int index) { return departureTimes[index]; }
+
+    public long getArrivalEpochSecond(int index) { return arrivalTimes[index]; }
+
+    public double getPrice(int index) { return prices[index]; }
+
+    public int getAvailableSeats(int index) { return seats[index]; }
+    public void setAvailableSeats(int index, int availableSeats) {
+        checkIndex(index);
+        seats[index] = availableSeats;
+    }
+
+    public String getStatus(int index) { return statusDictionary.get(statuses[index]); }
+    public void setStatus(int index, String status) {
+        checkIndex(index);
+        statuses[index] = statusDictionary.encode(status, status);
+    }
+
+    public String getFrequency(int index) { return frequencyDictionary.get(frequencies[index]); }
+
+    public String getRouteFrom(int index) { return cityDictionary.get(routeFrom[index]); }
+
+    public String getRouteTo(int index) { return cityDictionary.get(routeTo[index]); }
+
+    public Bus getBus(int index) { return busDictionary.get(buses[index]); }
+
+    public User getDriver(int index) { return driverDictionary.get(drivers[index]); }
+
+    public String getRouteDisplay(int index) {
+        return getRouteFrom(index) + " → " + getRouteTo(index);
+    }
+
+    public String getBusNumber(int index) {
+        Bus bus = getBus(index);
+        return bus != null ? bus.getBusNumber() : "N/A";
+    }
+
+    public String getFormattedDepartureTime(int index) {
+        return formatTime(departureTimes[index], rawDepartureTimes.get(index));
+    }
+
+    public String getFormattedArrivalTime(int index) {
+        return formatTime(arrivalTimes[index], rawArrivalTimes.get(index));
+    }
+
+    public Schedule toSchedule(int index) {
+        checkIndex(index);
+        return new Schedule(ids[index], getBus(index), getDriver(index),
+                new Schedule.Route(getRouteFrom(index), getRouteTo(index)),
+                isoTime(departureTimes[index], rawDepartureTimes.get(index)),
+                isoTime(arrivalTimes[index], rawArrivalTimes.get(index)),
+                getFrequency(index), prices[index], seats[index], getStatus(index));
+    }
+
+    private void write(int index, Schedule schedule) {
+        ids[index] = schedule.getId();
+        departureTimes[index] = parseTime(schedule.getDepartureTime(), rawDepartureTimes, index);
+        arrivalTimes[index] = parseTime(schedule.getArrivalTime(), rawArrivalTimes, index);
+        prices[index] = schedule.getPrice();
+        seats[index] = schedule.getAvailableSeats();
+        statuses[index] = statusDictionary.encode(schedule.getStatus(), schedule.getStatus());
+        frequencies[index] = frequencyDictionary.encode(schedule.getFrequency(), schedule.getFrequency());
+
+        Schedule.Route route = schedule.getRoute();
+        String from = route != null ? route.getFrom() : null;
+        String to = route != null ? route.getTo() : null;
+        routeFrom[index] = cityDictionary.encode(from, from);
+        routeTo[index] = cityDictionary.encode(to, to);
+
+        Bus bus = schedule.getBus();
+        buses[index] = busDictionary.encode(bus, bus != null ? entityKey(bus.getId(), bus) : null);
+        User driver = schedule.getDriver();
+        drivers[index] = driverDictionary.encode(driver, driver != null ? entityKey(driver.getId(), driver) : null);
+    }
+
+    // Saved entities share a code by id; unsaved ones (id 0) only with themselves
+    private static Object entityKey(long id, Object entity) {
+        return id != 0 ? (Object) id : new Identity(entity);
+    }
+
+    private static long parseTime(String value, Map<Integer, String> rawTimes, int index) {
+        rawTimes.remove(index);
+        if (value == null) {
+            return NO_TIME;
+        }
+        try {
+            return LocalDateTime.parse(value).toEpochSecond(ZoneOffset.UTC);
+        } catch (Exception e) {
+            rawTimes.put(index, value);
+            return NO_TIME;
+        }
+    }
+
+    private static String formatTime(long epochSecond, String raw) {
+        if (epochSecond == NO_TIME) {
+            return raw;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).format(DISPLAY_FORMAT);
+    }
+
+    private static String isoTime(long epochSecond, String raw) {
+        if (epochSecond == NO_TIME) {
+            return raw;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).format(ISO_FORMAT);
+    }
+
+    private static void shiftRawTimes(Map<Integer, String> rawTimes, int removed) {
+        if (rawTimes.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> shifted = new HashMap<>();
+        for (Map.Entry<Integer, String> entry : rawTimes.entrySet()) {
+            int row = entry.getKey();
+            if (row < removed) {
+                shifted.put(row, entry.getValue());
+            } else if (row > removed) {
+                shifted.put(row - 1, entry.getValue());
+            }
+        }
+        rawTimes.clear();
+        rawTimes.putAll(shifted);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        departureTimes = Arrays.copyOf(departureTimes, newCapacity);
+        arrivalTimes = Arrays.copyOf(arrivalTimes, newCapacity);
+        prices = Arrays.copyOf(prices, newCapacity);
+        seats = Arrays.copyOf(seats, newCapacity);
+        statuses = Arrays.copyOf(statuses, newCapacity);
+        frequencies = Arrays.copyOf(frequencies, newCapacity);
+        routeFrom = Arrays.copyOf(routeFrom, newCapacity);
+        routeTo = Arrays.copyOf(routeTo, newCapacity);
+        buses = Arrays.copyOf(buses, newCapacity);
+        drivers = Arrays.copyOf(drivers, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    // Code 0 is reserved for null
+    private static class Dictionary<T> {
+        private final Map<Object, Integer> codes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        Dictionary() {
+            values.add(null);
+        }
+
+        int encode(T value, Object key) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(key, code);
+            } else if (values.get(code) != value) {
+                // Keep the most recent instance for object-valued columns (buses, drivers)
+                values.set(code, value);
+            }
+            return code;
+        }
+
+        T get(int code) {
+            return values.get(code);
+        }
+
+        void clear() {
+            codes.clear();
+            values.subList(1, values.size()).clear();
+        }
+    }
+
+    private static final class Identity {
+        private final Object entity;
+
+        Identity(Object entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity) o).entity == entity;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(entity);
+        }
+    }
+
+    /**
+     * A view of one row. Holds only the index, so creating one per visible
+     * cell is cheap; two views are equal when they point at the same row.
+     */
+    public final class Row {
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() { return index; }
+        public long getId() { return ids[index]; }
+        public String getRouteDisplay() { return ScheduleTable.this.getRouteDisplay(index); }
+        public String getBusNumber() { return ScheduleTable.this.getBusNumber(index); }
+        public String getFormattedDepartureTime() { return ScheduleTable.this.getFormattedDepartureTime(index); }
+        public String getFormattedArrivalTime() { return ScheduleTable.this.getFormattedArrivalTime(index); }
+        public double getPrice() { return prices[index]; }
+        public int getAvailableSeats() { return seats[index]; }
+        public String getStatus() { return ScheduleTable.this.getStatus(index); }
+
+        public Schedule toSchedule() {
+            return ScheduleTable.this.toSchedule(index);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Row)) return false;
+            Row other = (Row) o;
+            return index == other.index && owner() == other.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        private ScheduleTable owner() {
+            return ScheduleTable.this;
+        }
+    }
+
+    /**
+     * Rows in display order. Sorting the table reorders only an index
+     * permutation through set(); the columns themselves never move. Adding or
+     * removing a row drops back to store order.
+     */
+    private class RowList extends AbstractList<Row> implements RandomAccess {
+        private int[] order;
+
+        @Override
+        public Row get(int index) {
+            checkIndex(index);
+            return new Row(order != null ? order[index] : index);
+        }
+
+        @Override
+        public Row set(int index, Row row) {
+            checkIndex(index);
+            if (row.owner() != ScheduleTable.this) {
+                throw new IllegalArgumentException("Row belongs to another table");
+            }
+            if (order == null) {
+                order = new int[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+            }
+            Row previous = new Row(order[index]);
+            order[index] = row.index;
+            return previous;
+        }
+
+        private void resetOrder() {
+            order = null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
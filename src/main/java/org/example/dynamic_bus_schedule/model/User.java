@@ -25,6 +25,9 @@ public class User {
     @JsonProperty("status")
     private String status;
 
+    @JsonProperty("created_at")
+    private String createdAt;
+
     // Constructors
     public User() {
         this.status = "active";
@@ -35,8 +38,8 @@ public class User {
         this.name = name;
         this.email = email;
         this.phone = phone;
-        this.role = role;
-        this.status = status;
+        this.role = FieldDictionary.USER_ROLE.canonical(role);
+        this.status = FieldDictionary.USER_STATUS.canonical(status);
     }
 
     // Getters and setters
@@ -56,10 +59,13 @@ public class User {
     public void setPhone(String phone) { this.phone = phone; }
 
     public String getRole() { return role; }
-    public void setRole(String role) { this.role = role; }
+    public void setRole(String role) { this.role = FieldDictionary.USER_ROLE.canonical(role); }
 
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) { this.status = FieldDictionary.USER_STATUS.canonical(status); }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
 
     @Override
     public String toString() {
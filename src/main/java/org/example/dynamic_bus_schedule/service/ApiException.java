@@ -0,0 +1,27 @@
+package org.example.dynamic_bus_schedule.service;
+
+/**
+ * The backend answered a call with a non-2xx status.
+ */
+public class ApiException extends Exception {
+    private final int statusCode;
+
+    public ApiException(int statusCode, String body) {
+        super("API call failed with code " + statusCode + ": " + body);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * True when the server rejected the request itself, so sending it again
+     * can't succeed. Auth failures, timeouts, rate limiting and server errors
+     * are worth retrying later.
+     */
+    public boolean isRejected() {
+        return statusCode >= 400 && statusCode < 500
+                && statusCode != 401 && statusCode != 403 && statusCode != 408 && statusCode != 429;
+    }
+}
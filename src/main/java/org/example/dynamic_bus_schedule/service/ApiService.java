@@ -1,20 +1,24 @@
 package org.example.dynamic_bus_schedule.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.dynamic_bus_schedule.util.ColumnarCodec;
+import org.example.dynamic_bus_schedule.util.JsonUtil;
+
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 public class ApiService {
-    private static final String BASE_URL = "http://localhost:5000/api";
+    private static final String BASE_URL = "http://localhost:3000/api";
     private static final HttpClient httpClient = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(10))
             .build();
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     private String authToken;
+    private boolean compactTransfer = true;
 
     public void setAuthToken(String token) {
         this.authToken = token;
@@ -24,6 +28,14 @@ public class ApiService {
         return authToken;
     }
 
+    public void setCompactTransfer(boolean compactTransfer) {
+        this.compactTransfer = compactTransfer;
+    }
+
+    public boolean isCompactTransfer() {
+        return compactTransfer;
+    }
+
     protected HttpRequest.Builder createRequest(String endpoint) {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(java.net.URI.create(BASE_URL + endpoint));
@@ -45,12 +57,35 @@ public class ApiService {
         }
     }
 
+    // Fetches a list endpoint, letting the server answer with the columnar encoding when enabled
+    protected <T> List<T> getList(String endpoint, Class<T> valueType) throws Exception {
+        HttpRequest.Builder builder = createRequest(endpoint).GET();
+        if (compactTransfer) {
+            builder.header("Accept", ColumnarCodec.CONTENT_TYPE + ", application/json;q=0.9");
+        } else {
+            builder.header("Accept", "application/json");
+        }
+
+        HttpResponse<byte[]> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new RuntimeException("HTTP Error: " + response.statusCode() + " - " + new String(response.body()));
+        }
+
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        if (ColumnarCodec.isColumnar(contentType)) {
+            return ColumnarCodec.decodeList(response.body(), valueType);
+        }
+
+        JsonNode envelope = JsonUtil.getObjectMapper().readTree(response.body());
+        return JsonUtil.listReaderFor(valueType).readValue(envelope.get("data"));
+    }
+
     protected String toJson(Object obj) throws Exception {
-        return objectMapper.writeValueAsString(obj);
+        return JsonUtil.writerFor(obj.getClass()).writeValueAsString(obj);
     }
 
     protected <T> T fromJson(String json, Class<T> valueType) throws Exception {
-        return objectMapper.readValue(json, valueType);
+        return JsonUtil.readerFor(valueType).readValue(json);
     }
 
     protected String buildQueryParams(Map<String, String> params) {
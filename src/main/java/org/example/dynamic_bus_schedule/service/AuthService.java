@@ -1,8 +1,9 @@
 package org.example.dynamic_bus_schedule.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.dynamic_bus_schedule.model.AuthResponse;
+import org.example.dynamic_bus_schedule.model.FieldDictionary;
 import org.example.dynamic_bus_schedule.model.User;
+import org.example.dynamic_bus_schedule.util.JsonUtil;
 
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -12,10 +13,12 @@ import java.io.InputStreamReader;
 
 public class AuthService {
     private static final String BASE_URL = "http://localhost:3000/api";
+    private static final String ROLE_ADMIN = FieldDictionary.USER_ROLE.canonical("admin");
+    private static final String ROLE_DRIVER = FieldDictionary.USER_ROLE.canonical("driver");
+    private static final String ROLE_CLIENT = FieldDictionary.USER_ROLE.canonical("client");
     private static AuthService instance;
     private String currentToken;
     private User currentUser;
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Private constructor for singleton
     private AuthService() {
@@ -40,7 +43,7 @@ public class AuthService {
             String response = makeApiCall("POST", "/auth/login",
                     String.format("{\"email\":\"%s\",\"password\":\"%s\"}", email, password));
 
-            AuthResponse authResponse = objectMapper.readValue(response, AuthResponse.class);
+            AuthResponse authResponse = JsonUtil.readerFor(AuthResponse.class).readValue(response);
 
             if (authResponse.isSuccess()) {
                 currentToken = authResponse.getToken();
@@ -63,7 +66,7 @@ public class AuthService {
             );
 
             String response = makeApiCall("POST", "/auth/register", requestBody);
-            AuthResponse authResponse = objectMapper.readValue(response, AuthResponse.class);
+            AuthResponse authResponse = JsonUtil.readerFor(AuthResponse.class).readValue(response);
 
             if (authResponse.isSuccess()) {
                 currentToken = authResponse.getToken();
@@ -80,15 +83,15 @@ public class AuthService {
 
     // Add role checking methods
     public boolean isAdmin() {
-        return currentUser != null && "admin".equalsIgnoreCase(currentUser.getRole());
+        return currentUser != null && ROLE_ADMIN.equalsIgnoreCase(currentUser.getRole());
     }
 
     public boolean isOperator() {
-        return currentUser != null && "driver".equalsIgnoreCase(currentUser.getRole());
+        return currentUser != null && ROLE_DRIVER.equalsIgnoreCase(currentUser.getRole());
     }
 
     public boolean isClient() {
-        return currentUser != null && "client".equalsIgnoreCase(currentUser.getRole());
+        return currentUser != null && ROLE_CLIENT.equalsIgnoreCase(currentUser.getRole());
     }
 
     public String makeApiCall(String method, String endpoint) throws Exception {
@@ -150,7 +153,7 @@ public class AuthService {
             if (responseCode >= 200 && responseCode < 300) {
                 return responseString;
             } else {
-                throw new Exception("API call failed with code " + responseCode + ": " + responseString);
+                throw new ApiException(responseCode, responseString);
             }
 
         } finally {
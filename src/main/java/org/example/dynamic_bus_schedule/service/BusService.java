@@ -1,15 +1,54 @@
 package org.example.dynamic_bus_schedule.service;
 
 import org.example.dynamic_bus_schedule.model.Bus;
+import org.example.dynamic_bus_schedule.model.FieldDictionary;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-public class BusService {
+public class BusService extends ApiService {
 
     public List<Bus> getAllBuses(Map<String, String> filters) {
-        // Mock implementation - replace with actual API call
+        List<Bus> buses;
+        try {
+            setAuthToken(AuthService.getInstance().getCurrentToken());
+            buses = new ArrayList<>(getList("/buses", Bus.class));
+            LocalStore.getInstance().saveBuses(buses);
+        } catch (Exception e) {
+            // Fall back to the last-synced buses, or sample data on a fresh install
+            List<Bus> cached = LocalStore.getInstance().getBuses();
+            System.err.println("Could not load buses from API, using "
+                    + (cached.isEmpty() ? "sample data" : "the last sync") + ": " + e.getMessage());
+            buses = cached.isEmpty() ? getSampleBuses() : new ArrayList<>(cached);
+        }
+
+        // Apply filters
+        String statusFilter = filters.get("status");
+        String searchFilter = filters.get("search");
+
+        if (statusFilter != null && !statusFilter.equals("All")) {
+            String status = FieldDictionary.BUS_STATUS.canonical(statusFilter);
+            buses.removeIf(bus -> !status.equals(bus.getStatus()));
+        }
+
+        if (searchFilter != null && !searchFilter.isEmpty()) {
+            String searchLower = searchFilter.toLowerCase();
+            buses.removeIf(bus ->
+                    !contains(bus.getBusNumber(), searchLower) &&
+                            !contains(bus.getLicensePlate(), searchLower) &&
+                            !contains(bus.getModel(), searchLower)
+            );
+        }
+
+        return buses;
+    }
+
+    private static boolean contains(String value, String searchLower) {
+        return value != null && value.toLowerCase().contains(searchLower);
+    }
+
+    private List<Bus> getSampleBuses() {
         List<Bus> buses = new ArrayList<>();
 
         // Add mock buses with all properties - using long IDs
@@ -25,23 +64,6 @@ public class BusService {
                 "Standard", "hybrid", 2023, "maintenance",
                 Arrays.asList("wifi", "ac"), "Mike Johnson"));
 
-        // Apply filters
-        String statusFilter = filters.get("status");
-        String searchFilter = filters.get("search");
-
-        if (statusFilter != null && !statusFilter.equals("All")) {
-            buses.removeIf(bus -> !bus.getStatus().equals(statusFilter));
-        }
-
-        if (searchFilter != null && !searchFilter.isEmpty()) {
-            String searchLower = searchFilter.toLowerCase();
-            buses.removeIf(bus ->
-                    !bus.getBusNumber().toLowerCase().contains(searchLower) &&
-                            !bus.getLicensePlate().toLowerCase().contains(searchLower) &&
-                            !bus.getModel().toLowerCase().contains(searchLower)
-            );
-        }
-
         return buses;
     }
 
@@ -0,0 +1,345 @@
+package org.example.dynamic_bus_schedule.service;
+
+import org.example.dynamic_bus_schedule.model.Bus;
+import org.example.dynamic_bus_schedule.model.PendingWrite;
+import org.example.dynamic_bus_schedule.model.Schedule;
+import org.example.dynamic_bus_schedule.model.User;
+import org.example.dynamic_bus_schedule.util.JsonUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * Offline copy of the last-synced users, buses and schedules, plus the queue of
+ * writes made while the backend was unreachable.
+ *
+ * Everything lives in one append-only log. Each record is
+ * {@code [type:1][length:4][crc32:4][payload]}; list snapshots are JSON arrays
+ * and the newest snapshot of each type wins. Startup reads the file in one
+ * pass, walks the record headers and decodes only the latest snapshots. A torn
+ * tail from a crash fails its CRC and is truncated. When the log grows past
+ * twice its live size it is rewritten and atomically swapped in. The file is
+ * never memory-mapped, since Windows refuses to truncate or replace a file
+ * while a mapping of it is alive.
+ */
+public class LocalStore {
+    private static final String STORE_DIR_PROPERTY = "busschedule.store.dir";
+    private static final String LOG_FILE_NAME = "offline-store.log";
+
+    private static final byte RECORD_USERS = 1;
+    private static final byte RECORD_BUSES = 2;
+    private static final byte RECORD_SCHEDULES = 3;
+    private static final byte RECORD_QUEUED = 4;
+    private static final byte RECORD_SENT = 5;
+
+    private static final int HEADER_SIZE = 9;
+    private static final long COMPACT_MIN_BYTES = 256 * 1024;
+
+    private static CompletableFuture<LocalStore> opening;
+
+    private final Path logFile;
+    private FileChannel channel;
+    private long logBytes;
+
+    private List<User> users = Collections.emptyList();
+    private List<Bus> buses = Collections.emptyList();
+    private List<Schedule> schedules = Collections.emptyList();
+    private final Map<Byte, byte[]> latestSnapshots = new LinkedHashMap<>();
+    private final Map<Long, PendingWrite> pendingWrites = new LinkedHashMap<>();
+    private long nextSequence = 1;
+
+    private LocalStore(Path directory) {
+        this.logFile = directory.resolve(LOG_FILE_NAME);
+        try {
+            Files.createDirectories(directory);
+            long start = System.nanoTime();
+            load();
+            System.out.println("LocalStore loaded " + users.size() + " users, " + buses.size() + " buses, "
+                    + schedules.size() + " schedules, " + pendingWrites.size() + " pending writes in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            // Keep working in memory; the views just won't survive a restart
+            System.err.println("LocalStore unavailable at " + logFile + ": " + e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Starts reading the log on a background thread, the first time it is
+     * called. Replaying and checking the whole log takes too long for the FX
+     * thread, so controllers take the store from this future once it is ready.
+     */
+    public static synchronized CompletableFuture<LocalStore> open() {
+        if (opening == null) {
+            opening = new CompletableFuture<>();
+            CompletableFuture<LocalStore> future = opening;
+            Thread loader = new Thread(() -> {
+                try {
+                    future.complete(create());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }, "local-store-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        return opening;
+    }
+
+    /**
+     * Returns the store, waiting for it if it is still loading. Meant for
+     * background threads; FX code should use {@link #open()}.
+     */
+    public static LocalStore getInstance() {
+        return open().join();
+    }
+
+    private static LocalStore create() {
+        String configured = System.getProperty(STORE_DIR_PROPERTY);
+        Path directory = configured != null
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".dynamic-bus-schedule");
+        return new LocalStore(directory);
+    }
+
+    public synchronized List<User> getUsers() { return users; }
+
+    public synchronized List<Bus> getBuses() { return buses; }
+
+    public synchronized List<Schedule> getSchedules() { return schedules; }
+
+    public synchronized void saveUsers(List<User> users) {
+        this.users = Collections.unmodifiableList(new ArrayList<>(users));
+        appendSnapshot(RECORD_USERS, this.users);
+    }
+
+    public synchronized void saveBuses(List<Bus> buses) {
+        this.buses = Collections.unmodifiableList(new ArrayList<>(buses));
+        appendSnapshot(RECORD_BUSES, this.buses);
+    }
+
+    public synchronized void saveSchedules(List<Schedule> schedules) {
+        this.schedules = Collections.unmodifiableList(new ArrayList<>(schedules));
+        appendSnapshot(RECORD_SCHEDULES, this.schedules);
+    }
+
+    public synchronized PendingWrite queueWrite(String method, String endpoint, String body) {
+        PendingWrite write = new PendingWrite(nextSequence++, method, endpoint, body, System.currentTimeMillis());
+        pendingWrites.put(write.getSequence(), write);
+        append(RECORD_QUEUED, JsonUtil.toJson(write).getBytes(StandardCharsets.UTF_8));
+        return write;
+    }
+
+    public synchronized List<PendingWrite> getPendingWrites() {
+        return new ArrayList<>(pendingWrites.values());
+    }
+
+    public synchronized void markSent(long sequence) {
+        if (pendingWrites.remove(sequence) != null) {
+            append(RECORD_SENT, ByteBuffer.allocate(Long.BYTES).putLong(sequence).array());
+        }
+    }
+
+    /**
+     * Replays queued writes in order. A write the server rejects as invalid
+     * (see {@link ApiException#isRejected()}) is dropped so it can't block the
+     * rest of the queue. Any other failure - unreachable backend, expired token,
+     * server error - stops the replay and keeps the queue for the next attempt.
+     *
+     * @return the number of writes that reached the server
+     */
+    public int replayPendingWrites(AuthService authService) {
+        int sent = 0;
+        for (PendingWrite write : getPendingWrites()) {
+            try {
+                authService.makeApiCall(write.getMethod(), write.getEndpoint(), write.getBody());
+                sent++;
+            } catch (ApiException e) {
+                if (!e.isRejected()) {
+                    System.out.println("Backend refused offline writes (" + e.getStatusCode() + "), "
+                            + getPendingWrites().size() + " writes remain queued");
+                    break;
+                }
+                System.err.println("Dropping rejected offline write " + write + ": " + e.getMessage());
+            } catch (Exception e) {
+                System.out.println("Backend still unreachable, " + getPendingWrites().size() + " writes remain queued: "
+                        + e.getMessage());
+                break;
+            }
+            markSent(write.getSequence());
+        }
+        return sent;
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        long validEnd = 0;
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Log too large: " + size + " bytes");
+        }
+        if (size > 0) {
+            ByteBuffer log = ByteBuffer.allocate((int) size);
+            while (log.hasRemaining() && channel.read(log, log.position()) >= 0) {
+                // keep reading until the buffer is full
+            }
+            log.flip();
+            while (log.remaining() >= HEADER_SIZE) {
+                int start = log.position();
+                byte type = log.get();
+                int length = log.getInt();
+                int crc = log.getInt();
+                if (length < 0 || length > log.remaining()) {
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                log.get(payload);
+                if (checksum(payload) != crc) {
+                    log.position(start);
+                    break;
+                }
+                applyRecord(type, payload);
+                validEnd = log.position();
+            }
+        }
+
+        users = decodeSnapshot(RECORD_USERS, User.class);
+        buses = decodeSnapshot(RECORD_BUSES, Bus.class);
+        schedules = decodeSnapshot(RECORD_SCHEDULES, Schedule.class);
+
+        if (validEnd < size) {
+            System.err.println("LocalStore: discarding " + (size - validEnd) + " bytes of incomplete log tail");
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+        logBytes = validEnd;
+    }
+
+    private void applyRecord(byte type, byte[] payload) throws IOException {
+        switch (type) {
+            case RECORD_USERS:
+            case RECORD_BUSES:
+            case RECORD_SCHEDULES:
+                latestSnapshots.put(type, payload);
+                break;
+            case RECORD_QUEUED:
+                PendingWrite write = JsonUtil.readerFor(PendingWrite.class).readValue(payload);
+                pendingWrites.put(write.getSequence(), write);
+                nextSequence = Math.max(nextSequence, write.getSequence() + 1);
+                break;
+            case RECORD_SENT:
+                pendingWrites.remove(ByteBuffer.wrap(payload).getLong());
+                break;
+            default:
+                throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    private <T> List<T> decodeSnapshot(byte type, Class<T> elementType) throws IOException {
+        byte[] payload = latestSnapshots.get(type);
+        if (payload == null) {
+            return Collections.emptyList();
+        }
+        List<T> decoded = JsonUtil.listReaderFor(elementType).readValue(payload);
+        return Collections.unmodifiableList(decoded);
+    }
+
+    private void appendSnapshot(byte type, List<?> values) {
+        try {
+            byte[] payload = JsonUtil.writerFor(List.class).writeValueAsBytes(values);
+            latestSnapshots.put(type, payload);
+            append(type, payload);
+        } catch (IOException e) {
+            System.err.println("LocalStore: could not encode snapshot: " + e.getMessage());
+        }
+    }
+
+    private void append(byte type, byte[] payload) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            writeRecord(channel, type, payload);
+            channel.force(false);
+            logBytes += HEADER_SIZE + payload.length;
+            compactIfNeeded();
+        } catch (IOException e) {
+            System.err.println("LocalStore: write failed, continuing in memory: " + e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long liveBytes = 0;
+        for (byte[] snapshot : latestSnapshots.values()) {
+            liveBytes += HEADER_SIZE + snapshot.length;
+        }
+        List<byte[]> queued = new ArrayList<>();
+        for (PendingWrite write : pendingWrites.values()) {
+            byte[] payload = JsonUtil.toJson(write).getBytes(StandardCharsets.UTF_8);
+            queued.add(payload);
+            liveBytes += HEADER_SIZE + payload.length;
+        }
+        if (logBytes < COMPACT_MIN_BYTES || logBytes < liveBytes * 2) {
+            return;
+        }
+
+        Path compacted = logFile.resolveSibling(LOG_FILE_NAME + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<Byte, byte[]> snapshot : latestSnapshots.entrySet()) {
+                writeRecord(out, snapshot.getKey(), snapshot.getValue());
+            }
+            for (byte[] payload : queued) {
+                writeRecord(out, RECORD_QUEUED, payload);
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        Files.move(compacted, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        logBytes = channel.size();
+        channel.position(logBytes);
+    }
+
+    private static void writeRecord(FileChannel target, byte type, byte[] payload) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.put(type).putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        while (record.hasRemaining()) {
+            target.write(record);
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private void closeQuietly() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+}
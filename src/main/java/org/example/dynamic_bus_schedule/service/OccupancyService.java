@@ -0,0 +1,274 @@
+package org.example.dynamic_bus_schedule.service;
+
+import org.example.dynamic_bus_schedule.model.Bus;
+import org.example.dynamic_bus_schedule.model.FieldDictionary;
+import org.example.dynamic_bus_schedule.model.Schedule;
+import org.example.dynamic_bus_schedule.util.JsonUtil;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns passenger counts from onboard door cameras into available seats of each
+ * bus's active schedule.
+ *
+ * Cameras report as often as they like; only the latest count per bus is kept.
+ * Every flush period the seats of schedules whose count changed since the last
+ * flush go to the server in one {@code PUT /schedules/seats} request. If the
+ * backend is unreachable the batch is queued in the {@link LocalStore} like any
+ * other offline write.
+ *
+ * The onboard counter runs in its own process and reports through a loopback
+ * endpoint, {@code POST /occupancy} with {@code {"busId": 12, "passengers": 7}},
+ * on the port given by the {@code busschedule.occupancy.port} property.
+ */
+public class OccupancyService {
+    public static final long DEFAULT_FLUSH_PERIOD_MS = 10_000;
+    public static final int DEFAULT_REPORT_PORT = 5055;
+
+    private static final String REPORT_PORT_PROPERTY = "busschedule.occupancy.port";
+
+    private static final String STATUS_DEPARTED = FieldDictionary.SCHEDULE_STATUS.canonical("departed");
+    private static final String STATUS_ARRIVED = FieldDictionary.SCHEDULE_STATUS.canonical("arrived");
+    private static final String STATUS_CANCELLED = FieldDictionary.SCHEDULE_STATUS.canonical("cancelled");
+
+    private static OccupancyService instance;
+
+    private final AuthService authService;
+    private final LocalStore localStore;
+    private final Map<Long, Integer> passengers = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> sentSeats = new HashMap<>();
+    private ScheduledExecutorService flusher;
+    private HttpServer endpoint;
+
+    OccupancyService(AuthService authService, LocalStore localStore) {
+        this.authService = authService;
+        this.localStore = localStore;
+    }
+
+    public static synchronized OccupancyService getInstance() {
+        if (instance == null) {
+            instance = new OccupancyService(AuthService.getInstance(), LocalStore.getInstance());
+        }
+        return instance;
+    }
+
+    // Stop and forget the instance (for logout), it holds the logged-in AuthService
+    public static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.stop();
+            instance = null;
+        }
+    }
+
+    public static int getReportPort() {
+        return Integer.getInteger(REPORT_PORT_PROPERTY, DEFAULT_REPORT_PORT);
+    }
+
+    /**
+     * Records the current number of passengers on a bus. Cheap enough to call on
+     * every camera frame.
+     */
+    public void reportPassengers(long busId, int count) {
+        passengers.put(busId, Math.max(0, count));
+    }
+
+    public synchronized void start(long periodMs) {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "occupancy-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                System.err.println("Occupancy flush failed: " + e.getMessage());
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts accepting passenger counts from the onboard counter on the loopback
+     * interface. Does nothing when already listening.
+     */
+    public synchronized void listen(int port) throws IOException {
+        if (endpoint != null) {
+            return;
+        }
+        endpoint = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        endpoint.createContext("/occupancy", this::handleReport);
+        endpoint.setExecutor(null);
+        endpoint.start();
+        System.out.println("Occupancy reports accepted on http://127.0.0.1:" + port + "/occupancy");
+    }
+
+    public synchronized void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        if (endpoint != null) {
+            endpoint.stop(0);
+            endpoint = null;
+        }
+    }
+
+    private void handleReport(HttpExchange exchange) throws IOException {
+        int status;
+        try (InputStream in = exchange.getRequestBody()) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                status = 405;
+            } else {
+                JsonNode report = JsonUtil.getObjectMapper().readTree(in);
+                JsonNode busId = report != null ? report.get("busId") : null;
+                JsonNode count = report != null ? report.get("passengers") : null;
+                if (busId == null || !busId.canConvertToLong() || count == null || !count.canConvertToInt()) {
+                    status = 400;
+                } else {
+                    reportPassengers(busId.asLong(), count.asInt());
+                    status = 204;
+                }
+            }
+        } catch (IOException e) {
+            status = 400;
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    /**
+     * Sends available seats of schedules whose passenger count changed since the
+     * last flush.
+     *
+     * @return the number of schedules in the batch
+     */
+    public synchronized int flush() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Schedule, Integer> batch = new LinkedHashMap<>();
+
+        for (Map.Entry<Long, Integer> entry : passengers.entrySet()) {
+            Schedule schedule = activeSchedule(entry.getKey(), now);
+            if (schedule == null) {
+                continue;
+            }
+            int capacity = capacity(schedule);
+            if (capacity <= 0) {
+                continue;
+            }
+            int seats = Math.max(0, capacity - entry.getValue());
+            Integer sent = sentSeats.get(schedule.getId());
+            if (sent == null || sent != seats) {
+                batch.put(schedule, seats);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Map<String, Object>> seats = new ArrayList<>();
+        for (Map.Entry<Schedule, Integer> entry : batch.entrySet()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", entry.getKey().getId());
+            item.put("availableSeats", entry.getValue());
+            seats.add(item);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("seats", seats);
+        String requestBody = JsonUtil.toJson(body);
+
+        try {
+            authService.makeApiCall("PUT", "/schedules/seats", requestBody);
+        } catch (ConnectException | UnknownHostException | SocketTimeoutException e) {
+            localStore.queueWrite("PUT", "/schedules/seats", requestBody);
+        }
+
+        for (Map.Entry<Schedule, Integer> entry : batch.entrySet()) {
+            entry.getKey().setAvailableSeats(entry.getValue());
+            sentSeats.put(entry.getKey().getId(), entry.getValue());
+        }
+        // The schedules above are the cached ones, keep the new seats across restarts
+        localStore.saveSchedules(localStore.getSchedules());
+        return batch.size();
+    }
+
+    /**
+     * The schedule a bus is running now: a departed one first, otherwise the
+     * one whose departure and arrival times bracket the current time.
+     */
+    private Schedule activeSchedule(long busId, LocalDateTime now) {
+        Schedule inWindow = null;
+        for (Schedule schedule : localStore.getSchedules()) {
+            if (schedule.getBus() == null || schedule.getBus().getId() != busId) {
+                continue;
+            }
+            String status = schedule.getStatus();
+            if (STATUS_DEPARTED.equals(status)) {
+                return schedule;
+            }
+            if (STATUS_ARRIVED.equals(status) || STATUS_CANCELLED.equals(status) || inWindow != null) {
+                continue;
+            }
+            LocalDateTime departure = parseTime(schedule.getDepartureTime());
+            LocalDateTime arrival = parseTime(schedule.getArrivalTime());
+            if (departure != null && arrival != null && !now.isBefore(departure) && !now.isAfter(arrival)) {
+                inWindow = schedule;
+            }
+        }
+        return inWindow;
+    }
+
+    private int capacity(Schedule schedule) {
+        if (schedule.getBus().getCapacity() > 0) {
+            return schedule.getBus().getCapacity();
+        }
+        for (Bus bus : localStore.getBuses()) {
+            if (bus.getId() == schedule.getBus().getId()) {
+                return bus.getCapacity();
+            }
+        }
+        return 0;
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                // MySQL DATETIME columns come back as UTC instants
+                return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
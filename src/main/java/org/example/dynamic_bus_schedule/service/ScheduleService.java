@@ -1,24 +1,27 @@
 package org.example.dynamic_bus_schedule.service;
 
 import org.example.dynamic_bus_schedule.model.Schedule;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.io.OutputStream;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 
-public class ScheduleService {
-    private static final String BASE_URL = "http://localhost:5000/api";
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+public class ScheduleService extends ApiService {
 
     public List<Schedule> getAllSchedules(Map<String, String> filters) {
-        // Mock implementation - replace with actual API call
+        try {
+            setAuthToken(AuthService.getInstance().getCurrentToken());
+            return getList("/schedules" + buildQueryParams(filters), Schedule.class);
+        } catch (Exception e) {
+            System.err.println("Could not load schedules from API, using sample data: " + e.getMessage());
+            return getSampleSchedules();
+        }
+    }
+
+    private List<Schedule> getSampleSchedules() {
         List<Schedule> schedules = new ArrayList<>();
 
         // Add some mock schedules for testing - using long IDs
@@ -36,8 +39,17 @@ public class ScheduleService {
     }
 
     public List<Schedule> searchSchedules(String from, String to, String date) {
-        // Mock implementation
-        return getAllSchedules(new HashMap<>());
+        Map<String, String> filters = new HashMap<>();
+        putIfPresent(filters, "departure_location", from);
+        putIfPresent(filters, "arrival_location", to);
+        putIfPresent(filters, "departure_date", date);
+        return getAllSchedules(filters);
+    }
+
+    private static void putIfPresent(Map<String, String> filters, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            filters.put(key, URLEncoder.encode(value, StandardCharsets.UTF_8));
+        }
     }
 
     public Schedule createSchedule(Schedule schedule) {
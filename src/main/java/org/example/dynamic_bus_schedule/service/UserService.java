@@ -1,5 +1,6 @@
 package org.example.dynamic_bus_schedule.service;
 
+import org.example.dynamic_bus_schedule.model.FieldDictionary;
 import org.example.dynamic_bus_schedule.model.User;
 import java.util.List;
 import java.util.Map;
@@ -22,11 +23,13 @@ public class UserService {
         String searchFilter = filters.get("search");
 
         if (roleFilter != null && !roleFilter.equals("All")) {
-            users.removeIf(user -> !user.getRole().equals(roleFilter));
+            String role = FieldDictionary.USER_ROLE.canonical(roleFilter);
+            users.removeIf(user -> !role.equals(user.getRole()));
         }
 
         if (statusFilter != null && !statusFilter.equals("All")) {
-            users.removeIf(user -> !user.getStatus().equals(statusFilter));
+            String status = FieldDictionary.USER_STATUS.canonical(statusFilter);
+            users.removeIf(user -> !status.equals(user.getStatus()));
         }
 
         if (searchFilter != null && !searchFilter.isEmpty()) {
@@ -0,0 +1,54 @@
+package org.example.dynamic_bus_schedule.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import org.example.dynamic_bus_schedule.model.FieldDictionary;
+
+import java.io.IOException;
+
+/**
+ * String deserializer for dictionary-encoded model properties. Known values are
+ * resolved straight from the parser's character buffer, so decoding a status
+ * or city that has been seen before allocates no String at all. Properties
+ * without a dictionary fall back to Jackson's regular string handling.
+ */
+public class CanonicalStringDeserializer extends JsonDeserializer<String> implements ContextualDeserializer {
+    private final FieldDictionary dictionary;
+
+    public CanonicalStringDeserializer() {
+        this(null);
+    }
+
+    private CanonicalStringDeserializer(FieldDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) {
+        if (property == null || property.getMember() == null) {
+            return StringDeserializer.instance;
+        }
+        FieldDictionary forProperty = FieldDictionary.forProperty(
+                property.getMember().getDeclaringClass(), property.getName());
+        return forProperty != null ? new CanonicalStringDeserializer(forProperty) : StringDeserializer.instance;
+    }
+
+    @Override
+    public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (dictionary == null) {
+            return StringDeserializer.instance.deserialize(p, ctxt);
+        }
+        if (p.hasToken(JsonToken.VALUE_STRING)) {
+            String known = dictionary.find(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            if (known != null) {
+                return known;
+            }
+        }
+        return dictionary.canonical(StringDeserializer.instance.deserialize(p, ctxt));
+    }
+}
@@ -0,0 +1,239 @@
+package org.example.dynamic_bus_schedule.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decoder for the compact columnar list encoding produced by the backend
+ * (see backend/utils/columnar.js for the layout). Columns are replayed as
+ * Jackson tokens so rows bind through the same readers as the JSON payloads.
+ */
+public class ColumnarCodec {
+    public static final String CONTENT_TYPE = "application/vnd.bus-schedule.columnar";
+
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_INTEGER = 2;
+    private static final int TYPE_DOUBLE = 3;
+    private static final int TYPE_BOOLEAN = 4;
+    private static final int TYPE_STRING_LIST = 5;
+    private static final int TYPE_OBJECT = 6;
+
+    private static final byte[] MAGIC = { 'B', 'S', 'C', '1' };
+
+    public static boolean isColumnar(String contentType) {
+        return contentType != null && contentType.startsWith(CONTENT_TYPE);
+    }
+
+    public static <T> List<T> decodeList(byte[] payload, Class<T> type) throws IOException {
+        try (JsonParser parser = toTokens(payload).asParser()) {
+            return JsonUtil.listReaderFor(type).readValue(parser);
+        }
+    }
+
+    static TokenBuffer toTokens(byte[] payload) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte b : MAGIC) {
+            if (in.get() != b) {
+                throw new IOException("Not a columnar payload");
+            }
+        }
+
+        String[] dictionary = new String[readVarint(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            int length = readVarint(in);
+            dictionary[i] = new String(payload, in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+
+        int rowCount = readVarint(in);
+        Column[] columns = new Column[readVarint(in)];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = readColumn(in, dictionary, rowCount);
+        }
+
+        Node root = buildTree(columns);
+        TokenBuffer tokens = new TokenBuffer(JsonUtil.getObjectMapper(), false);
+        tokens.writeStartArray();
+        for (int row = 0; row < rowCount; row++) {
+            writeObject(tokens, root, row);
+        }
+        tokens.writeEndArray();
+        return tokens;
+    }
+
+    private static Column readColumn(ByteBuffer in, String[] dictionary, int rowCount) throws IOException {
+        Column column = new Column(dictionary[readVarint(in)], in.get(), rowCount);
+        in.get(column.present);
+
+        for (int row = 0; row < rowCount; row++) {
+            if (!column.isPresent(row)) {
+                continue;
+            }
+            switch (column.type) {
+                case TYPE_OBJECT:
+                    break;
+                case TYPE_STRING:
+                    column.values[row] = dictionary[readVarint(in)];
+                    break;
+                case TYPE_INTEGER:
+                    long zigzag = readVarLong(in);
+                    column.longs[row] = (zigzag >>> 1) ^ -(zigzag & 1);
+                    break;
+                case TYPE_DOUBLE:
+                    column.doubles[row] = in.getDouble();
+                    break;
+                case TYPE_BOOLEAN:
+                    column.longs[row] = in.get();
+                    break;
+                case TYPE_STRING_LIST:
+                    String[] items = new String[readVarint(in)];
+                    for (int i = 0; i < items.length; i++) {
+                        items[i] = dictionary[readVarint(in)];
+                    }
+                    column.values[row] = items;
+                    break;
+                default:
+                    throw new IOException("Unknown column type " + column.type + " for " + column.name);
+            }
+        }
+        return column;
+    }
+
+    // Dotted column names ("route.from") become nested objects; an object column
+    // ("route") carries the presence of the object itself, so it is attached to
+    // the node its children hang off rather than to a leaf
+    private static Node buildTree(Column[] columns) {
+        Node root = new Node();
+        for (Column column : columns) {
+            String[] path = column.name.split("\\.");
+            Node node = root;
+            for (int i = 0; i < path.length - 1; i++) {
+                node = node.children.computeIfAbsent(path[i], key -> new Node());
+            }
+            Node target = node.children.computeIfAbsent(path[path.length - 1], key -> new Node());
+            if (column.type == TYPE_OBJECT) {
+                target.presence = column;
+            } else {
+                target.column = column;
+            }
+        }
+        return root;
+    }
+
+    private static void writeObject(JsonGenerator out, Node node, int row) throws IOException {
+        out.writeStartObject();
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            Node child = entry.getValue();
+            if (child.column != null) {
+                if (child.column.isPresent(row)) {
+                    out.writeFieldName(entry.getKey());
+                    writeValue(out, child.column, row);
+                }
+            } else if (child.hasValue(row)) {
+                out.writeFieldName(entry.getKey());
+                writeObject(out, child, row);
+            }
+        }
+        out.writeEndObject();
+    }
+
+    private static void writeValue(JsonGenerator out, Column column, int row) throws IOException {
+        switch (column.type) {
+            case TYPE_INTEGER:
+                out.writeNumber(column.longs[row]);
+                break;
+            case TYPE_DOUBLE:
+                out.writeNumber(column.doubles[row]);
+                break;
+            case TYPE_BOOLEAN:
+                out.writeBoolean(column.longs[row] != 0);
+                break;
+            case TYPE_STRING_LIST:
+                String[] items = (String[]) column.values[row];
+                out.writeStartArray();
+                for (String item : items) {
+                    out.writeString(item);
+                }
+                out.writeEndArray();
+                break;
+            default:
+                out.writeString((String) column.values[row]);
+        }
+    }
+
+    private static int readVarint(ByteBuffer in) throws IOException {
+        long value = readVarLong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Length out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static class Column {
+        final String name;
+        final int type;
+        final byte[] present;
+        long[] longs;
+        double[] doubles;
+        Object[] values;
+
+        Column(String name, int type, int rowCount) {
+            this.name = name;
+            this.type = type;
+            this.present = new byte[(rowCount + 7) / 8];
+            if (type == TYPE_INTEGER || type == TYPE_BOOLEAN) {
+                longs = new long[rowCount];
+            } else if (type == TYPE_DOUBLE) {
+                doubles = new double[rowCount];
+            } else if (type != TYPE_OBJECT) {
+                values = new Object[rowCount];
+            }
+        }
+
+        boolean isPresent(int row) {
+            return (present[row >> 3] & (1 << (row & 7))) != 0;
+        }
+    }
+
+    private static class Node {
+        final Map<String, Node> children = new LinkedHashMap<>();
+        Column column;
+        Column presence;
+
+        boolean hasValue(int row) {
+            if (column != null) {
+                return column.isPresent(row);
+            }
+            if (presence != null) {
+                return presence.isPresent(row);
+            }
+            for (Node child : children.values()) {
+                if (child.hasValue(row)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
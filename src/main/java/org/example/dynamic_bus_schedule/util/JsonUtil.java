@@ -1,19 +1,69 @@
 package org.example.dynamic_bus_schedule.util;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.example.dynamic_bus_schedule.model.AuthResponse;
+import org.example.dynamic_bus_schedule.model.Bus;
+import org.example.dynamic_bus_schedule.model.Schedule;
+import org.example.dynamic_bus_schedule.model.User;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Central JSON codec registry. Every service and controller shares this one
+ * mapper so serializer caches are built once and all call sites behave the same.
+ * Blackbird replaces reflective getter/setter calls with generated lambdas.
+ */
 public class JsonUtil {
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectMapper mapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .addModule(new BlackbirdModule())
+            .addModule(new SimpleModule("canonical-strings")
+                    .addDeserializer(String.class, new CanonicalStringDeserializer()))
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
 
     static {
-        mapper.registerModule(new JavaTimeModule());
+        // Warm up the model types up front so the first API call doesn't pay for introspection
+        for (Class<?> type : new Class<?>[] { User.class, Bus.class, Schedule.class, AuthResponse.class }) {
+            readerFor(type);
+            listReaderFor(type);
+            writerFor(type);
+        }
+    }
+
+    public static ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    public static ObjectReader listReaderFor(Class<?> type) {
+        return listReaders.computeIfAbsent(type, mapper::readerForListOf);
+    }
+
+    public static ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type, mapper::writerFor);
     }
 
     public static String toJson(Object object) {
         try {
-            return mapper.writeValueAsString(object);
+            if (object == null) {
+                return "null";
+            }
+            return writerFor(object.getClass()).writeValueAsString(object);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Error converting object to JSON", e);
         }
@@ -21,7 +71,7 @@ public class JsonUtil {
 
     public static <T> T fromJson(String json, Class<T> clazz) {
         try {
-            return mapper.readValue(json, clazz);
+            return readerFor(clazz).readValue(json);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Error converting JSON to object", e);
         }
@@ -30,4 +80,4 @@ public class JsonUtil {
     public static ObjectMapper getObjectMapper() {
         return mapper;
     }
-}
\ No newline at end of file
+}